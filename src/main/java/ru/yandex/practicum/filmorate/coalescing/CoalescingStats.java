@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.coalescing;
+
+/**
+ * Статистика объединения запросов одной группы
+ * @param executed Число выполненных вычислений
+ * @param coalesced Число запросов, дождавшихся одновременного вычисления
+ * @param reused Число запросов, получивших недавний результат
+ */
+public record CoalescingStats(long executed, long coalesced, long reused) {
+}
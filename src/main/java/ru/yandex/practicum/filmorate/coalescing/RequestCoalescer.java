@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.coalescing;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Объединение одинаковых одновременных запросов на чтение.
+ * Дорогие операции чтения выполняются через {@link #execute} с именем группы (для статистики)
+ * и ключом из параметров запроса; одновременные запросы с тем же ключом получают общий результат.
+ */
+@Component
+public class RequestCoalescer {
+
+    private final boolean enabled;
+    private final long reuseWindowMillis;
+    private final Map<String, SingleFlight<Object, Object>> groups = new ConcurrentHashMap<>();
+
+
+    @Autowired
+    public RequestCoalescer(@Value("${filmorate.coalescing.enabled:true}") boolean enabled,
+                            @Value("${filmorate.coalescing.reuse-window-ms:0}") long reuseWindowMillis) {
+        this.enabled = enabled;
+        this.reuseWindowMillis = reuseWindowMillis;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String group, Object key, Supplier<T> loader) {
+
+        if (!enabled) {
+            return loader.get();
+        }
+        SingleFlight<Object, Object> flight = groups.computeIfAbsent(group, name -> new SingleFlight<>(reuseWindowMillis));
+        return (T) flight.execute(key, (Supplier<Object>) loader);
+    }
+
+    public Map<String, CoalescingStats> getStats() {
+
+        Map<String, CoalescingStats> stats = new TreeMap<>();
+        groups.forEach((group, flight) -> stats.put(group,
+                new CoalescingStats(flight.getExecuted(), flight.getCoalesced(), flight.getReused())));
+        return stats;
+    }
+}
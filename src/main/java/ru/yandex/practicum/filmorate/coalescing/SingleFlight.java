@@ -0,0 +1,126 @@
+package ru.yandex.practicum.filmorate.coalescing;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Объединение одинаковых одновременных вычислений: пока вычисление по ключу выполняется,
+ * остальные вызовы с тем же ключом ждут его результата, а не запускают свое.
+ * Успешный результат может переиспользоваться еще в течение короткого окна после завершения.
+ * @param <K> Тип ключа
+ * @param <V> Тип результата
+ */
+public class SingleFlight<K, V> {
+
+    // Начиная с этого числа записей устаревшие результаты вычищаются при запуске новых вычислений
+    private static final int SWEEP_THRESHOLD = 1024;
+
+    private static final class Call<V> {
+
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        volatile long completedAt;
+    }
+
+    private final long reuseWindowNanos;
+    private final Map<K, Call<V>> calls = new ConcurrentHashMap<>();
+
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+
+
+    /**
+     * @param reuseWindowMillis Сколько миллисекунд после завершения результат отдается без пересчета (0 - не отдается)
+     */
+    public SingleFlight(long reuseWindowMillis) {
+        this.reuseWindowNanos = reuseWindowMillis * 1_000_000;
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+
+        while (true) {
+            Call<V> existing = calls.get(key);
+            if (existing != null) {
+                if (!existing.future.isDone()) {
+                    coalesced.increment();
+                    return await(existing.future);
+                }
+                if (!existing.future.isCompletedExceptionally()
+                        && System.nanoTime() - existing.completedAt <= reuseWindowNanos) {
+                    reused.increment();
+                    return existing.future.join();
+                }
+                calls.remove(key, existing);
+            }
+
+            Call<V> call = new Call<>();
+            if (calls.putIfAbsent(key, call) != null) {
+                continue;
+            }
+            if (calls.size() > SWEEP_THRESHOLD) {
+                sweep();
+            }
+            executed.increment();
+            try {
+                V value = loader.get();
+                call.completedAt = System.nanoTime();
+                call.future.complete(value);
+                if (reuseWindowNanos == 0) {
+                    calls.remove(key, call);
+                }
+                return value;
+            } catch (RuntimeException | Error e) {
+                call.future.completeExceptionally(e);
+                calls.remove(key, call);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Число запущенных вычислений
+     */
+    public long getExecuted() {
+        return executed.sum();
+    }
+
+    /**
+     * Число вызовов, дождавшихся чужого выполняющегося вычисления
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Число вызовов, получивших недавний результат в окне переиспользования
+     */
+    public long getReused() {
+        return reused.sum();
+    }
+
+    private void sweep() {
+
+        long now = System.nanoTime();
+        calls.entrySet().removeIf(entry -> entry.getValue().future.isDone()
+                && now - entry.getValue().completedAt > reuseWindowNanos);
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
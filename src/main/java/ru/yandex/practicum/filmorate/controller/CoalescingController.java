@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.coalescing.CoalescingStats;
+import ru.yandex.practicum.filmorate.coalescing.RequestCoalescer;
+
+import java.util.Map;
+
+/**
+ * Статистика объединения одинаковых запросов на чтение
+ */
+@RestController
+public class CoalescingController {
+
+    private final RequestCoalescer coalescer;
+
+    @Autowired
+    public CoalescingController(RequestCoalescer coalescer) {
+        this.coalescer = coalescer;
+    }
+
+    @GetMapping("/coalescing")
+    public Map<String, CoalescingStats> getStats() {
+        return coalescer.getStats();
+    }
+}
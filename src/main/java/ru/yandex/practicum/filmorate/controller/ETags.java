@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+
+/**
+ * Версии фильмов и пользователей в заголовках ETag и If-Match
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Версия, которую ожидает клиент: из заголовка If-Match, а без него - из поля version тела запроса
+     * @return null, если версия не проверяется (нет ни заголовка, ни поля, либо {@code If-Match: *})
+     * @throws ValidationException если заголовок не содержит одну версию
+     */
+    static Long expectedVersion(String ifMatch, Long bodyVersion) {
+
+        if (ifMatch == null) {
+            return bodyVersion;
+        }
+        String tag = ifMatch.trim();
+        if (tag.equals("*")) {
+            return null;
+        }
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Заголовок If-Match должен содержать одну версию: " + ifMatch);
+        }
+    }
+}
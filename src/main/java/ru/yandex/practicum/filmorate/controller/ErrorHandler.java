@@ -4,7 +4,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import ru.yandex.practicum.filmorate.exceptions.ConflictException;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.PreconditionFailedException;
+import ru.yandex.practicum.filmorate.exceptions.ReadOnlyReplicaException;
+import ru.yandex.practicum.filmorate.exceptions.TooManyRequestsException;
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
 
 
@@ -23,6 +27,30 @@ public class ErrorHandler {
         return new ErrorResponse(e.getMessage());
     }
 
+    @ExceptionHandler(ConflictException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)     // 409
+    public ErrorResponse handleConflictException(ConflictException e) {
+        return new ErrorResponse(e.getMessage());
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)     // 412
+    public ErrorResponse handlePreconditionFailedException(PreconditionFailedException e) {
+        return new ErrorResponse(e.getMessage());
+    }
+
+    @ExceptionHandler(ReadOnlyReplicaException.class)
+    @ResponseStatus(HttpStatus.FORBIDDEN)     // 403
+    public ErrorResponse handleReadOnlyReplicaException(ReadOnlyReplicaException e) {
+        return new ErrorResponse(e.getMessage());
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)     // 429
+    public ErrorResponse handleTooManyRequestsException(TooManyRequestsException e) {
+        return new ErrorResponse(e.getMessage());
+    }
+
     @ExceptionHandler(Throwable.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleException(Throwable e) {
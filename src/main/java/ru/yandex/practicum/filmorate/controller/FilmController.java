@@ -2,9 +2,15 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.coalescing.RequestCoalescer;
+import ru.yandex.practicum.filmorate.model.ChangeSet;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.ChangeFeedService;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.SimilarFilmsService;
 
 import java.util.Collection;
 
@@ -14,10 +20,17 @@ import java.util.Collection;
 public class FilmController {
 
     private final FilmService filmService;
+    private final SimilarFilmsService similarFilmsService;
+    private final ChangeFeedService changeFeedService;
+    private final RequestCoalescer coalescer;
 
     @Autowired
-    public FilmController(FilmService filmService) {
+    public FilmController(FilmService filmService, SimilarFilmsService similarFilmsService,
+                          ChangeFeedService changeFeedService, RequestCoalescer coalescer) {
         this.filmService = filmService;
+        this.similarFilmsService = similarFilmsService;
+        this.changeFeedService = changeFeedService;
+        this.coalescer = coalescer;
     }
 
     @GetMapping
@@ -30,9 +43,29 @@ public class FilmController {
         return filmService.addFilm(film);
     }
 
+    /**
+     * Изменение фильма. Если передан заголовок If-Match (или поле version), изменение применяется
+     * только к этой версии фильма, иначе - 412 Precondition Failed.
+     */
     @PutMapping
-    public Film updateFilm(@RequestBody Film film) {
-        return filmService.updateFilm(film);
+    public ResponseEntity<Film> updateFilm(@RequestBody Film film,
+                                           @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+
+        Film updatedFilm = filmService.updateFilm(film, ETags.expectedVersion(ifMatch, film.getVersion()));
+        return ResponseEntity.ok().eTag(ETags.of(updatedFilm.getVersion())).body(updatedFilm);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Film> getFilm(@PathVariable long id) {
+
+        Film film = filmService.getFilm(id);
+        return ResponseEntity.ok().eTag(ETags.of(film.getVersion())).body(film);
+    }
+
+    @GetMapping("/changes")
+    public ChangeSet<Film> getChanges(@RequestParam long since,
+                                      @RequestParam(required = false, defaultValue = "1000") int limit) {
+        return changeFeedService.getFilmChanges(since, limit);
     }
 
     @PutMapping("/{id}/like/{userId}")
@@ -45,8 +78,25 @@ public class FilmController {
         filmService.unlikeFilm(id, userId);
     }
 
+    @GetMapping("/{id}/similar")
+    public Collection<Film> getSimilarFilms(@PathVariable long id,
+                                            @RequestParam(required = false, defaultValue = "10") int count) {
+        return coalescer.execute("similar", id + ":" + count, () -> similarFilmsService.getSimilarFilms(id, count));
+    }
+
     @GetMapping("/popular")
-    public Collection<Film> getPopularFilms(@RequestParam(required = false, defaultValue = "10") int count) {
-        return filmService.getPopularFilms(count);
+    public Collection<Film> getPopularFilms(@RequestParam(required = false, defaultValue = "10") int count,
+                                            @RequestParam(required = false) Integer year,
+                                            @RequestParam(required = false) Integer fromYear,
+                                            @RequestParam(required = false) Integer toYear) {
+
+        Integer from = (year != null) ? year : fromYear;
+        Integer to = (year != null) ? year : toYear;
+        return coalescer.execute("popular", count + ":" + from + ":" + to, () -> {
+            if (from != null || to != null) {
+                return filmService.getPopularFilms(count, from, to);
+            }
+            return filmService.getPopularFilms(count);
+        });
     }
 }
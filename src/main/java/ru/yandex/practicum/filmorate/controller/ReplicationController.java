@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.replication.MutationBatch;
+import ru.yandex.practicum.filmorate.replication.MutationLog;
+import ru.yandex.practicum.filmorate.replication.ReplicationFollower;
+import ru.yandex.practicum.filmorate.replication.ReplicationStatus;
+
+import java.util.Optional;
+
+/**
+ * Контроллер репликации: журнал изменений ведущего и состояние ведомого
+ */
+@RestController
+@RequestMapping("/replication")
+public class ReplicationController {
+
+    private final Optional<MutationLog> mutationLog;
+    private final Optional<ReplicationFollower> follower;
+
+    @Autowired
+    public ReplicationController(Optional<MutationLog> mutationLog, Optional<ReplicationFollower> follower) {
+        this.mutationLog = mutationLog;
+        this.follower = follower;
+    }
+
+    @GetMapping("/mutations")
+    public MutationBatch getMutations(@RequestParam(defaultValue = "0") long since,
+                                      @RequestParam(defaultValue = "1000") int limit) {
+        return mutationLog
+                .orElseThrow(() -> new NotFoundException("Экземпляр не является ведущим"))
+                .since(since, limit);
+    }
+
+    @GetMapping("/status")
+    public ReplicationStatus getStatus() {
+
+        if (mutationLog.isPresent()) {
+            long head = mutationLog.get().getHeadSeq();
+            return new ReplicationStatus("leader", head, head, 0, 0, false);
+        }
+        return follower
+                .map(ReplicationFollower::getStatus)
+                .orElseGet(() -> new ReplicationStatus("standalone", 0, 0, 0, 0, false));
+    }
+}
@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.storage.cache.CacheStats;
+import ru.yandex.practicum.filmorate.storage.cache.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.cache.CachingUserStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmTierStats;
+import ru.yandex.practicum.filmorate.storage.footprint.FootprintReport;
+import ru.yandex.practicum.filmorate.storage.footprint.HeapFootprint;
+import ru.yandex.practicum.filmorate.storage.film.TieredFilmStorage;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Контроллер состояния хранилищ
+ */
+@RestController
+@RequestMapping("/storage")
+public class StorageController {
+
+    private final Optional<TieredFilmStorage> tieredFilmStorage;
+    private final Optional<CachingFilmStorage> cachingFilmStorage;
+    private final Optional<CachingUserStorage> cachingUserStorage;
+    private final HeapFootprint heapFootprint;
+
+    @Autowired
+    public StorageController(Optional<TieredFilmStorage> tieredFilmStorage,
+                             Optional<CachingFilmStorage> cachingFilmStorage,
+                             Optional<CachingUserStorage> cachingUserStorage,
+                             HeapFootprint heapFootprint) {
+        this.tieredFilmStorage = tieredFilmStorage;
+        this.cachingFilmStorage = cachingFilmStorage;
+        this.cachingUserStorage = cachingUserStorage;
+        this.heapFootprint = heapFootprint;
+    }
+
+    @GetMapping("/footprint")
+    public FootprintReport getFootprint(@RequestParam(required = false, defaultValue = "10") int top) {
+        return heapFootprint.getReport(top);
+    }
+
+    @GetMapping("/tiers")
+    public FilmTierStats getTierStats() {
+        return tieredFilmStorage
+                .orElseThrow(() -> new NotFoundException("Многоуровневое хранилище фильмов не используется"))
+                .getStats();
+    }
+
+    @GetMapping("/cache")
+    public Map<String, CacheStats> getCacheStats() {
+
+        if (cachingFilmStorage.isEmpty() && cachingUserStorage.isEmpty()) {
+            throw new NotFoundException("Кэширование хранилищ не используется");
+        }
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        cachingFilmStorage.ifPresent(storage -> stats.put("films", storage.getStats()));
+        cachingUserStorage.ifPresent(storage -> stats.put("users", storage.getStats()));
+        return stats;
+    }
+}
@@ -2,8 +2,22 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.coalescing.RequestCoalescer;
+import ru.yandex.practicum.filmorate.model.ChangeSet;
+import ru.yandex.practicum.filmorate.model.Community;
+import ru.yandex.practicum.filmorate.model.Dashboard;
+import ru.yandex.practicum.filmorate.model.Distance;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendMutualCount;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.ChangeFeedService;
+import ru.yandex.practicum.filmorate.service.DashboardService;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.FriendCommunityService;
+import ru.yandex.practicum.filmorate.service.FriendGraphService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.util.Collection;
@@ -18,10 +32,24 @@ import java.util.Collection;
 public class UserController {
 
     private final UserService userService;
+    private final FriendGraphService friendGraphService;
+    private final FilmService filmService;
+    private final FriendCommunityService friendCommunityService;
+    private final ChangeFeedService changeFeedService;
+    private final DashboardService dashboardService;
+    private final RequestCoalescer coalescer;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, FriendGraphService friendGraphService, FilmService filmService,
+                          FriendCommunityService friendCommunityService, ChangeFeedService changeFeedService,
+                          DashboardService dashboardService, RequestCoalescer coalescer) {
         this.userService = userService;
+        this.friendGraphService = friendGraphService;
+        this.filmService = filmService;
+        this.friendCommunityService = friendCommunityService;
+        this.changeFeedService = changeFeedService;
+        this.dashboardService = dashboardService;
+        this.coalescer = coalescer;
     }
 
     @GetMapping
@@ -29,14 +57,54 @@ public class UserController {
         return userService.getUsers();
     }
 
+    @GetMapping("/by-login/{login}")
+    public User getUserByLogin(@PathVariable String login) {
+        return userService.getUserByLogin(login);
+    }
+
+    @GetMapping("/by-email/{email}")
+    public User getUserByEmail(@PathVariable String email) {
+        return userService.getUserByEmail(email);
+    }
+
     @PostMapping
     public User addUser(@RequestBody User user) {
         return userService.addUser(user);
     }
 
+    /**
+     * Изменение пользователя. Если передан заголовок If-Match (или поле version), изменение применяется
+     * только к этой версии пользователя, иначе - 412 Precondition Failed.
+     */
     @PutMapping
-    public User updateUser(@RequestBody User user) {
-        return userService.updateUser(user);
+    public ResponseEntity<User> updateUser(@RequestBody User user,
+                                           @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+
+        User updatedUser = userService.updateUser(user, ETags.expectedVersion(ifMatch, user.getVersion()));
+        return ResponseEntity.ok().eTag(ETags.of(updatedUser.getVersion())).body(updatedUser);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<User> getUser(@PathVariable long id) {
+
+        User user = userService.getUser(id);
+        return ResponseEntity.ok().eTag(ETags.of(user.getVersion())).body(user);
+    }
+
+    @GetMapping("/changes")
+    public ChangeSet<User> getChanges(@RequestParam long since,
+                                      @RequestParam(required = false, defaultValue = "1000") int limit) {
+        return changeFeedService.getUserChanges(since, limit);
+    }
+
+    @DeleteMapping("/{id}")
+    public void deleteUser(@PathVariable long id) {
+        userService.deleteUser(id);
+    }
+
+    @GetMapping("/{id}/likes")
+    public Collection<Film> getLikedFilms(@PathVariable long id) {
+        return filmService.getLikedFilms(id);
     }
 
     @PutMapping("/{id}/friends/{friendId}")
@@ -54,8 +122,33 @@ public class UserController {
         return userService.getFriends(id);
     }
 
+    @GetMapping(value = "/{id}/friends", params = "mutual=true")
+    public Collection<FriendMutualCount> getFriendsWithMutualCounts(@PathVariable long id) {
+        return userService.getFriendsWithMutualCounts(id);
+    }
+
     @GetMapping("/{id}/friends/common/{otherId}")
     public Collection<User> getFriendsCommon(@PathVariable long otherId, @PathVariable long id) {
-        return userService.getCommonFriends(otherId, id);
+        return coalescer.execute("commonFriends", otherId + ":" + id, () -> userService.getCommonFriends(otherId, id));
+    }
+
+    /**
+     * Главный экран пользователя: сам пользователь, друзья с числом общих друзей и популярные фильмы
+     */
+    @GetMapping("/{id}/dashboard")
+    public Dashboard getDashboard(@PathVariable long id,
+                                  @RequestParam(required = false, defaultValue = "10") int count) {
+        return dashboardService.getDashboard(id, count);
+    }
+
+    @GetMapping("/{id}/community")
+    public Community getCommunity(@PathVariable long id) {
+        return friendCommunityService.getCommunity(id);
+    }
+
+    @GetMapping("/{id}/distance/{otherId}")
+    public Distance getDistance(@PathVariable long id, @PathVariable long otherId,
+                                @RequestParam(required = false, defaultValue = "false") boolean path) {
+        return friendGraphService.getDistance(id, otherId, path);
     }
 }
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.event;
+
+/**
+ * Типы изменений данных хранилищ
+ */
+public enum EventType {
+    FILM_ADDED,
+    FILM_UPDATED,
+    FILM_LIKED,
+    FILM_UNLIKED,
+    USER_ADDED,
+    USER_UPDATED,
+    USER_DELETED,
+    FRIEND_ADDED,
+    FRIEND_REMOVED
+}
@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.event;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+/**
+ * Событие изменения данных, публикуемое сервисами после успешной операции
+ * @param type Тип изменения
+ * @param entityId id измененной сущности (фильма или пользователя)
+ * @param relatedId id связанной сущности (пользователь для лайка, друг для дружбы), иначе 0
+ * @param film Фильм (только для добавления и обновления фильма)
+ * @param user Пользователь (для добавления и обновления, а при удалении - состояние перед удалением)
+ * @param delta Изменение числа связей для лайка и дружбы: +1 или -1, 0 - связь уже была (или ее не было)
+ */
+public record StorageEvent(EventType type, long entityId, long relatedId, Film film, User user, int delta) {
+
+    public static StorageEvent filmAdded(Film film) {
+        return new StorageEvent(EventType.FILM_ADDED, film.getId(), 0, film, null, 0);
+    }
+
+    public static StorageEvent filmUpdated(Film film) {
+        return new StorageEvent(EventType.FILM_UPDATED, film.getId(), 0, film, null, 0);
+    }
+
+    /**
+     * @param added Лайка еще не было
+     */
+    public static StorageEvent filmLiked(long filmId, long userId, boolean added) {
+        return new StorageEvent(EventType.FILM_LIKED, filmId, userId, null, null, added ? 1 : 0);
+    }
+
+    /**
+     * @param removed Лайк был
+     */
+    public static StorageEvent filmUnliked(long filmId, long userId, boolean removed) {
+        return new StorageEvent(EventType.FILM_UNLIKED, filmId, userId, null, null, removed ? -1 : 0);
+    }
+
+    public static StorageEvent userAdded(User user) {
+        return new StorageEvent(EventType.USER_ADDED, user.getId(), 0, null, user, 0);
+    }
+
+    public static StorageEvent userUpdated(User user) {
+        return new StorageEvent(EventType.USER_UPDATED, user.getId(), 0, null, user, 0);
+    }
+
+    public static StorageEvent userDeleted(User user) {
+        return new StorageEvent(EventType.USER_DELETED, user.getId(), 0, null, user, 0);
+    }
+
+    /**
+     * @param added Пользователи еще не были друзьями
+     */
+    public static StorageEvent friendAdded(long userId, long friendId, boolean added) {
+        return new StorageEvent(EventType.FRIEND_ADDED, userId, friendId, null, null, added ? 1 : 0);
+    }
+
+    /**
+     * @param removed Пользователи были друзьями
+     */
+    public static StorageEvent friendRemoved(long userId, long friendId, boolean removed) {
+        return new StorageEvent(EventType.FRIEND_REMOVED, userId, friendId, null, null, removed ? -1 : 0);
+    }
+}
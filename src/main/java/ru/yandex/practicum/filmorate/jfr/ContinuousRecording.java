@@ -0,0 +1,126 @@
+package ru.yandex.practicum.filmorate.jfr;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Непрерывная запись JDK Flight Recorder: стандартные события JDK (настройки default) и события
+ * filmorate с порогами из jfr/filmorate.jfc. Запись хранит последние max-age минут (не больше
+ * max-size МБ) и сбрасывается в файл при остановке приложения; в любой момент ее можно снять
+ * командой {@code jcmd <pid> JFR.dump name=filmorate filename=...}.
+ * Порог отдельного события переопределяется свойством {@code filmorate.jfr.threshold-ms.<событие>}.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.jfr.recording.enabled", havingValue = "true")
+@Slf4j
+public class ContinuousRecording {
+
+    public static final String SETTINGS_RESOURCE = "/jfr/filmorate.jfc";
+    public static final String RECORDING_NAME = "filmorate";
+
+    // Ключ свойства порога -> класс события
+    static final Map<String, Class<? extends Event>> EVENTS = new LinkedHashMap<>();
+
+    static {
+        EVENTS.put("film-like", FilmLikeEvent.class);
+        EVENTS.put("popular-films", PopularFilmsEvent.class);
+        EVENTS.put("friendship", FriendshipEvent.class);
+        EVENTS.put("friend-query", FriendQueryEvent.class);
+        EVENTS.put("storage-lookup", StorageLookupEvent.class);
+        EVENTS.put("validation", ValidationEvent.class);
+    }
+
+    private final Recording recording;
+
+
+    @Autowired
+    public ContinuousRecording(@Value("${filmorate.jfr.recording.max-age-minutes:360}") long maxAgeMinutes,
+                               @Value("${filmorate.jfr.recording.max-size-mb:256}") long maxSizeMb,
+                               @Value("${filmorate.jfr.recording.file:filmorate.jfr}") String file,
+                               Environment environment) {
+
+        Map<String, String> settings = new HashMap<>(defaultSettings());
+        settings.putAll(filmorateSettings());
+        recording = new Recording(settings);
+        recording.setName(RECORDING_NAME);
+        recording.setToDisk(true);
+        recording.setMaxAge(Duration.ofMinutes(maxAgeMinutes));
+        recording.setMaxSize(maxSizeMb << 20);
+        recording.setDumpOnExit(true);
+        try {
+            recording.setDestination(Path.of(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Некорректный файл записи JFR " + file, e);
+        }
+        EVENTS.forEach((key, eventClass) -> {
+            String threshold = environment.getProperty("filmorate.jfr.threshold-ms." + key);
+            if (threshold != null) {
+                recording.enable(eventClass).withThreshold(Duration.ofMillis(Long.parseLong(threshold)));
+            }
+        });
+        recording.start();
+        log.info("Запущена непрерывная запись JFR: последние {} мин, не более {} МБ, файл {}",
+                maxAgeMinutes, maxSizeMb, file);
+    }
+
+    /**
+     * Остановка записи с сохранением в файл
+     */
+    @PreDestroy
+    public void stop() {
+
+        recording.stop();
+        recording.close();
+        log.info("Запись JFR сохранена");
+    }
+
+    private static Map<String, String> defaultSettings() {
+
+        try {
+            return Configuration.getConfiguration("default").getSettings();
+        } catch (IOException | ParseException e) {
+            log.warn("Стандартные настройки JFR недоступны: {}", e.getMessage());
+            return Map.of();
+        }
+    }
+
+    /**
+     * Настройки событий filmorate из jfr/filmorate.jfc
+     */
+    public static Map<String, String> filmorateSettings() {
+
+        try (InputStream in = ContinuousRecording.class.getResourceAsStream(SETTINGS_RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Не найден файл настроек JFR " + SETTINGS_RESOURCE);
+            }
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                return Configuration.create(reader).getSettings();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать " + SETTINGS_RESOURCE, e);
+        } catch (ParseException e) {
+            throw new IllegalStateException("Некорректный файл настроек JFR " + SETTINGS_RESOURCE, e);
+        }
+    }
+}
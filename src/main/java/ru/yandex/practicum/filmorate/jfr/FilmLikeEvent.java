@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Постановка или снятие лайка (вместе с ожиданием конвейера лайков, если он включен)
+ */
+@Name("filmorate.FilmLike")
+@Label("Лайк фильма")
+@Category({"Filmorate", "Фильмы"})
+@Description("Постановка или снятие лайка")
+@Threshold("5 ms")
+public class FilmLikeEvent extends Event {
+
+    @Label("id фильма")
+    long filmId;
+
+    @Label("id пользователя")
+    long userId;
+
+    @Label("Лайк поставлен")
+    boolean liked;
+
+    public void finish(long filmId, long userId, boolean liked) {
+
+        if (shouldCommit()) {
+            this.filmId = filmId;
+            this.userId = userId;
+            this.liked = liked;
+            commit();
+        }
+    }
+}
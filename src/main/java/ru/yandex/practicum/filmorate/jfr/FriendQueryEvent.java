@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Запрос по графу друзей: общие друзья двух пользователей или друзья с числом общих друзей
+ */
+@Name("filmorate.FriendQuery")
+@Label("Запрос друзей")
+@Category({"Filmorate", "Пользователи"})
+@Description("Общие друзья или друзья с числом общих друзей")
+@Threshold("10 ms")
+public class FriendQueryEvent extends Event {
+
+    public static final String COMMON = "common";
+    public static final String MUTUAL_COUNTS = "mutual-counts";
+
+    @Label("Запрос")
+    String query;
+
+    @Label("id пользователя")
+    long userId;
+
+    @Label("id второго пользователя")
+    @Description("0 - запрос касается одного пользователя")
+    long otherId;
+
+    @Label("Размер результата")
+    int resultSize;
+
+    public void finish(String query, long userId, long otherId, int resultSize) {
+
+        if (shouldCommit()) {
+            this.query = query;
+            this.userId = userId;
+            this.otherId = otherId;
+            this.resultSize = resultSize;
+            commit();
+        }
+    }
+}
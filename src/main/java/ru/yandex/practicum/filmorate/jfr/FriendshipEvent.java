@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Добавление или удаление друга
+ */
+@Name("filmorate.Friendship")
+@Label("Изменение дружбы")
+@Category({"Filmorate", "Пользователи"})
+@Description("Добавление или удаление друга")
+@Threshold("5 ms")
+public class FriendshipEvent extends Event {
+
+    @Label("id пользователя")
+    long userId;
+
+    @Label("id друга")
+    long friendId;
+
+    @Label("Друг добавлен")
+    boolean added;
+
+    public void finish(long userId, long friendId, boolean added) {
+
+        if (shouldCommit()) {
+            this.userId = userId;
+            this.friendId = friendId;
+            this.added = added;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Запрос популярных фильмов: полным перебором или по рейтингам годов выпуска
+ */
+@Name("filmorate.PopularFilms")
+@Label("Популярные фильмы")
+@Category({"Filmorate", "Фильмы"})
+@Description("Запрос самых популярных фильмов")
+@Threshold("10 ms")
+public class PopularFilmsEvent extends Event {
+
+    @Label("Число фильмов")
+    int count;
+
+    @Label("Начальный год")
+    @Description("Integer.MIN_VALUE - без ограничения")
+    int fromYear;
+
+    @Label("Конечный год")
+    @Description("Integer.MAX_VALUE - без ограничения")
+    int toYear;
+
+    @Label("Полный перебор")
+    @Description("Сортировка всех фильмов вместо рейтингов годов выпуска")
+    boolean fullScan;
+
+    @Label("Размер результата")
+    int resultSize;
+
+    public void finish(int count, int fromYear, int toYear, boolean fullScan, int resultSize) {
+
+        if (shouldCommit()) {
+            this.count = count;
+            this.fromYear = fromYear;
+            this.toYear = toYear;
+            this.fullScan = fullScan;
+            this.resultSize = resultSize;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Чтение фильма или пользователя из хранилища по id.
+ * Обычное чтение занимает доли микросекунды, поэтому записываются только медленные
+ * (подъем из холодного уровня, копирование компактной записи с большим числом лайков).
+ */
+@Name("filmorate.StorageLookup")
+@Label("Чтение из хранилища")
+@Category({"Filmorate", "Хранилище"})
+@Description("Чтение записи по id")
+@Threshold("1 ms")
+public class StorageLookupEvent extends Event {
+
+    public static final String FILM = "film";
+    public static final String USER = "user";
+
+    @Label("Хранилище")
+    String storage;
+
+    @Label("Сущность")
+    String entity;
+
+    @Label("id")
+    long id;
+
+    public void finish(Object storage, String entity, long id) {
+
+        if (shouldCommit()) {
+            this.storage = storage.getClass().getSimpleName();
+            this.entity = entity;
+            this.id = id;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Проверка строкового поля; время проверки зависит от длины значения (регулярные выражения)
+ */
+@Name("filmorate.Validation")
+@Label("Проверка поля")
+@Category({"Filmorate", "Проверки"})
+@Description("Проверка строкового поля фильма или пользователя")
+@Threshold("1 ms")
+public class ValidationEvent extends Event {
+
+    @Label("Поле")
+    String field;
+
+    @Label("Длина значения")
+    int valueLength;
+
+    @Label("Проверка пройдена")
+    boolean passed;
+
+    // Служебное поле, в событие не записывается
+    private transient boolean failed;
+
+    /**
+     * Отметка о непройденной проверке (до finish)
+     */
+    public void fail() {
+        failed = true;
+    }
+
+    public void finish(String field, String value) {
+
+        if (shouldCommit()) {
+            this.field = field;
+            this.valueLength = (value == null) ? 0 : value.length();
+            this.passed = !failed;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.List;
+
+/**
+ * Изменения сущностей после заданного номера журнала изменений
+ * @param seq Номер, после которого запрашивать следующие изменения
+ * @param resync Журнал больше не содержит изменений после запрошенного номера (или номер относится
+ *               к другому запуску экземпляра): нужно заново загрузить полный список и продолжить с seq
+ * @param hasMore В ответ вошли не все изменения - следующую порцию нужно запросить сразу
+ * @param changed Текущее состояние измененных сущностей
+ * @param deleted id удаленных сущностей
+ * @param <T> Тип сущности
+ */
+public record ChangeSet<T>(long seq, boolean resync, boolean hasMore, List<T> changed, List<Long> deleted) {
+}
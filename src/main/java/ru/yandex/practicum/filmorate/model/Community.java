@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.model;
+
+/**
+ * Сообщество пользователя - компонента связности графа дружбы
+ * @param userId id пользователя
+ * @param communityId id сообщества (наименьший id пользователя в нем)
+ * @param size Число пользователей в сообществе
+ * @param stale true, если удаления дружбы еще не учтены и сообщество может оказаться меньше
+ */
+public record Community(long userId, long communityId, int size, boolean stale) {
+}
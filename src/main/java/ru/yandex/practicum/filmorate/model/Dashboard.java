@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.List;
+
+/**
+ * Данные главного экрана пользователя одним ответом
+ * @param user Пользователь
+ * @param friends Друзья с числом общих друзей
+ * @param popularFilms Популярные фильмы
+ * @param incomplete Части, не полученные до истечения срока ответа или с ошибкой; вместо них
+ *                   отдан запасной результат (пустой список или последний полученный список популярных)
+ */
+public record Dashboard(User user, List<FriendMutualCount> friends, List<Film> popularFilms,
+                        List<String> incomplete) {
+}
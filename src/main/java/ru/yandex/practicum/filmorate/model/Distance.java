@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.List;
+
+/**
+ * Расстояние между пользователями в графе дружбы
+ * @param userId id первого пользователя
+ * @param otherId id второго пользователя
+ * @param distance Число «рукопожатий» или null, если путь не найден
+ * @param status Результат поиска
+ * @param path Цепочка id пользователей от первого до второго (если запрошена)
+ */
+public record Distance(long userId, long otherId, Integer distance, Status status, List<Long> path) {
+
+    public enum Status {
+        // Путь найден
+        FOUND,
+        // Пользователи не связаны
+        NOT_CONNECTED,
+        // Путь длиннее допустимой глубины поиска
+        DEPTH_LIMIT,
+        // Поиск прерван по истечении отведенного времени
+        TIMEOUT
+    }
+}
@@ -18,6 +18,20 @@ public class Film {
     private String description;
     private LocalDate releaseDate;
     private Integer duration;
-    private final Set<Long> likes = new HashSet<>();
+    private final Set<Long> likes;
     private Integer rate = 0;
+    // Номер версии: 1 при создании, увеличивается при каждом изменении через PUT.
+    // Лайки меняются отдельными запросами и версию не меняют.
+    private Long version;
+
+    public Film() {
+        this(new HashSet<>());
+    }
+
+    /**
+     * Для хранилищ, которые подставляют собственную реализацию множества
+     */
+    protected Film(Set<Long> likes) {
+        this.likes = likes;
+    }
 }
@@ -0,0 +1,9 @@
+package ru.yandex.practicum.filmorate.model;
+
+/**
+ * Друг пользователя с числом их общих друзей
+ * @param friend Друг
+ * @param mutualCount Число общих друзей
+ */
+public record FriendMutualCount(User friend, int mutualCount) {
+}
@@ -18,5 +18,19 @@ public class User {
     private String login;
     private String name;
     private LocalDate birthday;
-    private final Set<Long> friends = new HashSet<>();
+    private final Set<Long> friends;
+    // Номер версии: 1 при создании, увеличивается при каждом изменении через PUT.
+    // Дружба меняется отдельными запросами и версию не меняет.
+    private Long version;
+
+    public User() {
+        this(new HashSet<>());
+    }
+
+    /**
+     * Для хранилищ, которые подставляют собственную реализацию множества
+     */
+    protected User(Set<Long> friends) {
+        this.friends = friends;
+    }
 }
@@ -1,6 +1,7 @@
 package ru.yandex.practicum.filmorate.model.validators;
 
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.jfr.ValidationEvent;
 
 import java.time.LocalDate;
 
@@ -38,9 +39,18 @@ public class FilmValidator {
      */
     public static void checkDescription(String description) {
 
-        if (description != null && description.length() > MAX_DESCRIPTION_LENGTH) {
-            throw new ValidationException("Слишком длинное описание (не более " +
-                    MAX_DESCRIPTION_LENGTH + " символов)");
+        ValidationEvent event = new ValidationEvent();
+        event.begin();
+        try {
+            if (description != null && description.length() > MAX_DESCRIPTION_LENGTH) {
+                throw new ValidationException("Слишком длинное описание (не более " +
+                        MAX_DESCRIPTION_LENGTH + " символов)");
+            }
+        } catch (ValidationException e) {
+            event.fail();
+            throw e;
+        } finally {
+            event.finish("description", description);
         }
     }
 
@@ -1,6 +1,7 @@
 package ru.yandex.practicum.filmorate.model.validators;
 
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.jfr.ValidationEvent;
 
 import java.time.LocalDate;
 import java.util.regex.Pattern;
@@ -20,11 +21,20 @@ public class UserValidator {
      */
     public static void checkEmail(String email) {
 
-        if (email == null) {
-            throw new ValidationException("Электронная почта не может быть пустой");
-        }
-        if (!emailPattern.matcher(email).matches()) {
-            throw new ValidationException("Некорректный адрес электронной почты: " + email);
+        ValidationEvent event = new ValidationEvent();
+        event.begin();
+        try {
+            if (email == null) {
+                throw new ValidationException("Электронная почта не может быть пустой");
+            }
+            if (!emailPattern.matcher(email).matches()) {
+                throw new ValidationException("Некорректный адрес электронной почты: " + email);
+            }
+        } catch (ValidationException e) {
+            event.fail();
+            throw e;
+        } finally {
+            event.finish("email", email);
         }
     }
 
@@ -35,11 +45,20 @@ public class UserValidator {
      */
     public static void checkLogin(String login) {
 
-        if (login == null || login.isBlank()) {
-            throw new ValidationException("Логин не может быть пустым");
-        }
-        if (login.matches(".*\\W.*")) {
-            throw new ValidationException("Логин не может содержать пробелы");
+        ValidationEvent event = new ValidationEvent();
+        event.begin();
+        try {
+            if (login == null || login.isBlank()) {
+                throw new ValidationException("Логин не может быть пустым");
+            }
+            if (login.matches(".*\\W.*")) {
+                throw new ValidationException("Логин не может содержать пробелы");
+            }
+        } catch (ValidationException e) {
+            event.fail();
+            throw e;
+        } finally {
+            event.finish("login", login);
         }
     }
 
@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.ratelimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.yandex.practicum.filmorate.exceptions.TooManyRequestsException;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проверка лимита запросов для операций изменения лайков и дружбы.
+ * Пользователь определяется по переменной пути, указанной при создании.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final RateLimiter rateLimiter;
+    private final String userIdVariable;
+
+    public RateLimitInterceptor(RateLimiter rateLimiter, String userIdVariable) {
+        this.rateLimiter = rateLimiter;
+        this.userIdVariable = userIdVariable;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+
+        if ("GET".equals(request.getMethod())) {
+            return true;
+        }
+        @SuppressWarnings("unchecked")
+        var variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables == null || variables.get(userIdVariable) == null) {
+            return true;
+        }
+        long userId;
+        try {
+            userId = Long.parseLong(variables.get(userIdVariable));
+        } catch (NumberFormatException e) {
+            return true;
+        }
+        long waitNanos = rateLimiter.tryAcquire(userId);
+        if (waitNanos > 0) {
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+            throw new TooManyRequestsException("Слишком много запросов от пользователя " + userId);
+        }
+        return true;
+    }
+}
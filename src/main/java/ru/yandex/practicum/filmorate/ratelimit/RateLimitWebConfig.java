@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.ratelimit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@ConditionalOnProperty(name = "filmorate.rate-limit.enabled", havingValue = "true")
+public class RateLimitWebConfig implements WebMvcConfigurer {
+
+    private final RateLimiter rateLimiter;
+
+    @Autowired
+    public RateLimitWebConfig(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+
+        registry.addInterceptor(new RateLimitInterceptor(rateLimiter, "userId"))
+                .addPathPatterns("/films/*/like/*");
+        registry.addInterceptor(new RateLimitInterceptor(rateLimiter, "id"))
+                .addPathPatterns("/users/*/friends/*");
+    }
+}
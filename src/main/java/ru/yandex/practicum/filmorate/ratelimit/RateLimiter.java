@@ -0,0 +1,159 @@
+package ru.yandex.practicum.filmorate.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ограничитель частоты запросов на изменение для каждого пользователя.
+ * Число ведер ограничено: место под ведро резервируется атомарным счетчиком, поэтому
+ * одновременные новые пользователи не превышают предел. Полные (простаивающие) ведра удаляются,
+ * т.к. они ничем не отличаются от новых: плановой очисткой целиком и, когда места нет,
+ * короткой порцией прямо в запросе - просмотр продолжается с места, где остановилась прошлая порция.
+ * Если свободного места все же нет, новый пользователь получает одно из общих ведер,
+ * выбранное по его id, и делит его лишь с небольшой частью таких пользователей.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.rate-limit.enabled", havingValue = "true")
+@Slf4j
+public class RateLimiter {
+
+    // Сколько ведер просматривает запрос, которому не хватило места
+    private static final int SWEEP_BATCH = 32;
+    // Число общих ведер; степень двойки, индекс - старшие 10 бит хэша id
+    private static final int OVERFLOW_BUCKETS = 1024;
+
+    private final Map<Long, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicInteger bucketCount = new AtomicInteger();
+    private final double permitsPerSecond;
+    private final int capacity;
+    private final int maxBuckets;
+    private final TokenBucket[] overflowBuckets = new TokenBucket[OVERFLOW_BUCKETS];
+
+    // Позиция порционного просмотра; доступ только под sweepLock
+    private final ReentrantLock sweepLock = new ReentrantLock();
+    private Iterator<Map.Entry<Long, TokenBucket>> sweepCursor;
+
+
+    @Autowired
+    public RateLimiter(@Value("${filmorate.rate-limit.permits-per-second:10}") double permitsPerSecond,
+                       @Value("${filmorate.rate-limit.capacity:20}") int capacity,
+                       @Value("${filmorate.rate-limit.max-buckets:100000}") int maxBuckets) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity = capacity;
+        this.maxBuckets = maxBuckets;
+        long now = System.nanoTime();
+        for (int i = 0; i < OVERFLOW_BUCKETS; i++) {
+            overflowBuckets[i] = new TokenBucket(permitsPerSecond * 10, capacity * 10, now);
+        }
+    }
+
+    /**
+     * Попытка выполнить запрос от имени пользователя
+     * @param userId id пользователя
+     * @return Ноль, если запрос разрешен, иначе время до следующей попытки, нс
+     */
+    public long tryAcquire(long userId) {
+
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.get(userId);
+        if (bucket == null) {
+            bucket = createBucket(userId, now);
+            if (bucket == null && sweepIdle(now) > 0) {
+                bucket = createBucket(userId, now);
+            }
+            if (bucket == null) {
+                bucket = overflowBuckets[Long.hashCode(userId * 0x9E3779B97F4A7C15L) >>> 22];
+            }
+        }
+        return bucket.tryAcquire(now);
+    }
+
+    /**
+     * Создание ведра, если для него есть место
+     * @return Ведро пользователя или null, если предел достигнут
+     */
+    private TokenBucket createBucket(long userId, long now) {
+
+        return buckets.computeIfAbsent(userId, id -> reserveSlot()
+                ? new TokenBucket(permitsPerSecond, capacity, now) : null);
+    }
+
+    private boolean reserveSlot() {
+
+        while (true) {
+            int count = bucketCount.get();
+            if (count >= maxBuckets) {
+                return false;
+            }
+            if (bucketCount.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Просмотр следующей порции ведер с удалением простаивающих. Если порцию уже просматривает
+     * другой запрос, этот не ждет.
+     * @return Число удаленных ведер
+     */
+    private int sweepIdle(long now) {
+
+        if (!sweepLock.tryLock()) {
+            return 0;
+        }
+        try {
+            int removed = 0;
+            for (int i = 0; i < SWEEP_BATCH; i++) {
+                if (sweepCursor == null || !sweepCursor.hasNext()) {
+                    sweepCursor = buckets.entrySet().iterator();
+                    if (!sweepCursor.hasNext()) {
+                        break;
+                    }
+                }
+                Map.Entry<Long, TokenBucket> entry = sweepCursor.next();
+                if (removeIfIdle(entry.getKey(), entry.getValue(), now)) {
+                    removed++;
+                }
+            }
+            return removed;
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    private boolean removeIfIdle(long userId, TokenBucket bucket, long now) {
+
+        if (bucket.isIdle(now) && buckets.remove(userId, bucket)) {
+            bucketCount.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.rate-limit.eviction-interval:60000}")
+    public void evictIdle() {
+
+        long now = System.nanoTime();
+        int removed = 0;
+        for (Map.Entry<Long, TokenBucket> entry : buckets.entrySet()) {
+            if (removeIfIdle(entry.getKey(), entry.getValue(), now)) {
+                removed++;
+            }
+        }
+        log.trace("Удалено простаивающих ведер: {}", removed);
+    }
+
+    public int getBucketCount() {
+        return bucketCount.get();
+    }
+}
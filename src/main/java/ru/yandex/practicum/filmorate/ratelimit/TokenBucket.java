@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Неблокирующее ведро токенов.
+ * Состояние хранится одним числом — моментом времени, когда ведро снова станет полным
+ * (алгоритм GCRA, эквивалентный ведру токенов), поэтому захват токена — это один CAS.
+ */
+public class TokenBucket {
+
+    // Время пополнения одного токена, нс
+    private final long refillNanos;
+
+    // Допустимый запас времени, соответствующий емкости ведра, нс
+    private final long burstNanos;
+
+    // Момент, когда ведро будет полным, нс
+    private final AtomicLong fullAt;
+
+
+    /**
+     * @param permitsPerSecond Скорость пополнения ведра, токенов в секунду
+     * @param capacity Емкость ведра (допустимая пачка запросов)
+     * @param now Текущее время, нс
+     */
+    public TokenBucket(double permitsPerSecond, int capacity, long now) {
+
+        this.refillNanos = Math.max(1, (long) (1_000_000_000L / permitsPerSecond));
+        this.burstNanos = refillNanos * capacity;
+        this.fullAt = new AtomicLong(now);
+    }
+
+    /**
+     * Попытка захвата одного токена
+     * @param now Текущее время, нс
+     * @return Ноль, если токен захвачен, иначе время до появления токена, нс
+     */
+    public long tryAcquire(long now) {
+
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + refillNanos;
+            long debt = next - now;
+            if (debt > burstNanos) {
+                return debt - burstNanos;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Ведро полное - его можно удалить без потери информации
+     * @param now Текущее время, нс
+     */
+    public boolean isIdle(long now) {
+        return fullAt.get() - now <= 0;
+    }
+}
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.replication;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.yandex.practicum.filmorate.exceptions.ReadOnlyReplicaException;
+
+/**
+ * Ведомый экземпляр обслуживает только чтение: изменения поступают исключительно
+ * из журнала ведущего, иначе нумерация сущностей разойдется
+ */
+@Configuration
+@ConditionalOnProperty(name = "filmorate.replication.role", havingValue = "follower")
+public class FollowerWebConfig implements WebMvcConfigurer {
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+                    throw new ReadOnlyReplicaException("Реплика доступна только для чтения");
+                }
+                return true;
+            }
+        }).addPathPatterns("/films/**", "/users/**");
+    }
+}
@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.replication;
+
+import ru.yandex.practicum.filmorate.event.EventType;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+/**
+ * Запись журнала изменений ведущего экземпляра
+ * @param seq Порядковый номер изменения (начиная с 1)
+ * @param timestamp Время регистрации изменения на ведущем экземпляре, мс
+ * @param type Тип изменения
+ * @param entityId id измененной сущности
+ * @param relatedId id связанной сущности (для лайков и дружбы)
+ * @param film Копия фильма на момент изменения
+ * @param user Копия пользователя на момент изменения
+ */
+public record Mutation(long seq, long timestamp, EventType type, long entityId, long relatedId,
+                       Film film, User user) {
+}
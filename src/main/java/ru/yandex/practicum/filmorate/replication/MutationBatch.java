@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate.replication;
+
+import java.util.List;
+
+/**
+ * Порция журнала изменений, отдаваемая ведомому экземпляру
+ * @param leaderSeq Номер последнего изменения на ведущем экземпляре
+ * @param resync Запрошенных изменений в журнале уже нет: ведомый не может продолжить по журналу
+ * @param mutations Изменения в порядке их применения
+ */
+public record MutationBatch(long leaderSeq, boolean resync, List<Mutation> mutations) {
+}
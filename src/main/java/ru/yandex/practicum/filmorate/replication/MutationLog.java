@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate.replication;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.event.StorageEvent;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Упорядоченный журнал изменений ведущего экземпляра.
+ * Журнал хранит не больше filmorate.replication.log-capacity последних изменений в кольцевом буфере;
+ * номер изменения однозначно задает его позицию в буфере, поэтому выборка хвоста журнала
+ * для ведомого выполняется без поиска. Ведомому, отставшему дальше начала журнала,
+ * отвечают признаком resync; так же отвечают ведомому, опередившему журнал (ведущий перезапущен
+ * с пустыми хранилищами), - подставить ему хвост журнала значило бы скрыть расхождение.
+ * Начального снимка журнал не дает: ведомый строится только из журнала с первого изменения,
+ * поэтому новый или перезапущенный ведомый должен подключиться, пока журнал не перезаписан по кругу.
+ * Изменения добавляются в том же порядке, в котором меняются хранилища (см. MutationOrder).
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.replication.role", havingValue = "leader")
+@Slf4j
+public class MutationLog {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int capacity;
+    private Mutation[] ring;
+    // Номер последнего изменения
+    private long headSeq;
+
+
+    public MutationLog(@Value("${filmorate.replication.log-capacity:1000000}") int capacity) {
+
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Емкость журнала репликации должна быть положительной");
+        }
+        this.capacity = capacity;
+        this.ring = new Mutation[Math.min(capacity, INITIAL_CAPACITY)];
+    }
+
+    @EventListener
+    public synchronized void onEvent(StorageEvent event) {
+
+        // Сущности копируются, т.к. исходные объекты продолжают изменяться
+        Film film = (event.film() == null) ? null : copyOf(event.film());
+        User user = (event.user() == null) ? null : copyOf(event.user());
+        Mutation mutation = new Mutation(headSeq + 1, System.currentTimeMillis(), event.type(),
+                event.entityId(), event.relatedId(), film, user);
+        if (headSeq == ring.length && ring.length < capacity) {
+            ring = Arrays.copyOf(ring, (int) Math.min((long) ring.length * 2, capacity));
+        }
+        headSeq++;
+        ring[(int) ((headSeq - 1) % ring.length)] = mutation;
+        log.trace("В журнал репликации добавлено изменение {}", mutation);
+    }
+
+    /**
+     * Выборка изменений после заданного номера
+     * @param seq Номер последнего изменения, полученного ведомым
+     * @param limit Максимальное число изменений в ответе
+     * @return Порция журнала; с признаком resync, если следующего изменения в журнале уже нет
+     * или у ведущего такого номера еще не было
+     */
+    public synchronized MutationBatch since(long seq, int limit) {
+
+        long from = Math.max(seq, 0);
+        if (from > headSeq || from < getFirstSeq() - 1) {
+            return new MutationBatch(headSeq, true, List.of());
+        }
+        long to = Math.min(from + Math.max(limit, 0), headSeq);
+        List<Mutation> mutations = new ArrayList<>((int) (to - from));
+        for (long i = from; i < to; i++) {
+            mutations.add(ring[(int) (i % ring.length)]);
+        }
+        return new MutationBatch(headSeq, false, mutations);
+    }
+
+    public synchronized long getHeadSeq() {
+        return headSeq;
+    }
+
+    /**
+     * Номер самого старого изменения, еще хранящегося в журнале
+     */
+    public synchronized long getFirstSeq() {
+        return Math.max(1, headSeq - ring.length + 1);
+    }
+
+    private static Film copyOf(Film film) {
+
+        Film copy = new Film();
+        copy.setId(film.getId());
+        copy.setName(film.getName());
+        copy.setDescription(film.getDescription());
+        copy.setReleaseDate(film.getReleaseDate());
+        copy.setDuration(film.getDuration());
+        return copy;
+    }
+
+    private static User copyOf(User user) {
+
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setEmail(user.getEmail());
+        copy.setLogin(user.getLogin());
+        copy.setName(user.getName());
+        copy.setBirthday(user.getBirthday());
+        return copy;
+    }
+}
@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.replication;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Порядок изменений ведущего экземпляра. Сервисы выполняют изменение хранилища и публикацию события
+ * (а значит, и запись в журнал репликации) под одной блокировкой, поэтому журнал повторяет порядок
+ * изменений хранилищ, включая порядок выдачи id: ведомый, применяя журнал по порядку, получает те же id.
+ * На остальных экземплярах журнала нет, и блокировка не берется.
+ */
+@Component
+public class MutationOrder {
+
+    private static final MutationOrder UNORDERED = new MutationOrder(false);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final boolean ordered;
+
+
+    @Autowired
+    public MutationOrder(@Value("${filmorate.replication.role:standalone}") String role) {
+        this("leader".equals(role));
+    }
+
+    public MutationOrder(boolean ordered) {
+        this.ordered = ordered;
+    }
+
+    /**
+     * Порядок без блокировки - для экземпляров без журнала репликации
+     */
+    public static MutationOrder unordered() {
+        return UNORDERED;
+    }
+
+    /**
+     * Выполнение изменения вместе с публикацией его события
+     */
+    public <T> T apply(Supplier<T> mutation) {
+
+        if (!ordered) {
+            return mutation.get();
+        }
+        lock.lock();
+        try {
+            return mutation.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void run(Runnable mutation) {
+
+        apply(() -> {
+            mutation.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,167 @@
+package ru.yandex.practicum.filmorate.replication;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+/**
+ * Ведомый экземпляр: периодически забирает журнал изменений ведущего
+ * и применяет его к локальным хранилищам.
+ * Если реплика разошлась с ведущим (разрыв журнала, другой id новой сущности, ошибка применения,
+ * журнал ведущего уже не содержит нужных изменений или реплика опережает перезапущенного ведущего),
+ * репликация останавливается, а экземпляр перестает принимать трафик: продолжать по журналу значило бы
+ * накапливать расхождение.
+ * Снимка для начальной загрузки нет: реплика строится только из журнала, начиная с первого изменения.
+ * Перезапуск ведомого восстанавливает его, лишь пока журнал ведущего еще не перезаписан по кругу
+ * (изменений меньше filmorate.replication.log-capacity); после этого ведомый получает resync
+ * при каждом запуске, и восстановить его можно только вместе с ведущим.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.replication.role", havingValue = "follower")
+@Slf4j
+public class ReplicationFollower {
+
+    private final FilmService filmService;
+    private final UserService userService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RestClient restClient;
+    private final int batchSize;
+
+    private volatile long appliedSeq;
+    private volatile long leaderSeq;
+    private volatile long lastSyncTime = System.currentTimeMillis();
+    // Причина остановки репликации (null - реплика согласована с ведущим)
+    private volatile String divergence;
+
+
+    @Autowired
+    public ReplicationFollower(FilmService filmService, UserService userService,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${filmorate.replication.leader-url}") String leaderUrl,
+                               @Value("${filmorate.replication.batch-size:1000}") int batchSize) {
+        this.filmService = filmService;
+        this.userService = userService;
+        this.eventPublisher = eventPublisher;
+        this.restClient = RestClient.create(leaderUrl);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.replication.poll-interval:200}")
+    public void poll() {
+
+        if (divergence != null) {
+            return;
+        }
+        try {
+            MutationBatch batch;
+            do {
+                batch = restClient.get()
+                        .uri("/replication/mutations?since={since}&limit={limit}", appliedSeq, batchSize)
+                        .retrieve()
+                        .body(MutationBatch.class);
+                if (batch == null) {
+                    return;
+                }
+                apply(batch);
+            } while (divergence == null && !batch.mutations().isEmpty() && appliedSeq < batch.leaderSeq());
+        } catch (RestClientException e) {
+            log.warn("Ведущий экземпляр недоступен: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Применение порции журнала к локальным хранилищам
+     * @param batch Порция журнала ведущего экземпляра
+     */
+    public synchronized void apply(MutationBatch batch) {
+
+        if (divergence != null) {
+            return;
+        }
+        if (batch.resync()) {
+            diverge((appliedSeq > batch.leaderSeq())
+                    ? "реплика применила изменение " + appliedSeq + ", а журнал ведущего заканчивается на "
+                            + batch.leaderSeq()
+                    : "журнал ведущего уже не содержит изменение " + (appliedSeq + 1));
+            return;
+        }
+        for (Mutation mutation : batch.mutations()) {
+            if (mutation.seq() <= appliedSeq) {
+                continue;
+            }
+            if (mutation.seq() != appliedSeq + 1) {
+                diverge("разрыв журнала: ожидалось изменение " + (appliedSeq + 1) + ", получено " + mutation.seq());
+                return;
+            }
+            try {
+                applyMutation(mutation);
+            } catch (RuntimeException e) {
+                diverge("изменение " + mutation.seq() + " не применилось: " + e.getMessage());
+                return;
+            }
+            appliedSeq = mutation.seq();
+        }
+        leaderSeq = Math.max(leaderSeq, batch.leaderSeq());
+        if (appliedSeq == leaderSeq) {
+            lastSyncTime = System.currentTimeMillis();
+        }
+        log.trace("Применены изменения до {} из {}", appliedSeq, leaderSeq);
+    }
+
+    private void applyMutation(Mutation mutation) {
+
+        switch (mutation.type()) {
+            case FILM_ADDED -> {
+                Film film = filmService.addFilm(mutation.film());
+                checkId("Фильм", mutation.entityId(), film.getId());
+            }
+            case FILM_UPDATED -> filmService.updateFilm(mutation.film());
+            case FILM_LIKED -> filmService.likeFilm(mutation.entityId(), mutation.relatedId());
+            case FILM_UNLIKED -> filmService.unlikeFilm(mutation.entityId(), mutation.relatedId());
+            case USER_ADDED -> {
+                User user = userService.addUser(mutation.user());
+                checkId("Пользователь", mutation.entityId(), user.getId());
+            }
+            case USER_UPDATED -> userService.updateUser(mutation.user());
+            case USER_DELETED -> userService.deleteUser(mutation.entityId());
+            case FRIEND_ADDED -> userService.addFriend(mutation.entityId(), mutation.relatedId());
+            case FRIEND_REMOVED -> userService.removeFriend(mutation.entityId(), mutation.relatedId());
+        }
+    }
+
+    private static void checkId(String entity, long expectedId, long actualId) {
+
+        if (expectedId != actualId) {
+            throw new IllegalStateException(entity + " получил на реплике id = " + actualId
+                    + " вместо " + expectedId);
+        }
+    }
+
+    private void diverge(String reason) {
+
+        divergence = reason;
+        log.error("Репликация остановлена, реплика разошлась с ведущим: {}. "
+                + "Экземпляр не принимает трафик до перезапуска", reason);
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+    }
+
+    public ReplicationStatus getStatus() {
+
+        long applied = appliedSeq;
+        long leader = leaderSeq;
+        long lagMillis = (applied == leader) ? 0 : System.currentTimeMillis() - lastSyncTime;
+        return new ReplicationStatus("follower", applied, leader, leader - applied, lagMillis, divergence != null);
+    }
+}
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.replication;
+
+/**
+ * Состояние репликации экземпляра
+ * @param role Роль экземпляра (standalone, leader, follower)
+ * @param appliedSeq Номер последнего примененного изменения
+ * @param leaderSeq Номер последнего известного изменения ведущего экземпляра
+ * @param lag Отставание от ведущего экземпляра в изменениях
+ * @param lagMillis Отставание от ведущего экземпляра во времени, мс
+ * @param diverged Ведомый разошелся с ведущим и остановил репликацию до перезапуска
+ */
+public record ReplicationStatus(String role, long appliedSeq, long leaderSeq, long lag, long lagMillis,
+                                boolean diverged) {
+}
@@ -0,0 +1,266 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.event.StorageEvent;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.ChangeSet;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Журнал изменений фильмов и пользователей для инкрементальной синхронизации клиентов.
+ * Каждое изменение получает номер из общей для всех сущностей последовательности и попадает
+ * в кольцевой буфер своего типа сущности ограниченного размера (id сущности, без копий данных),
+ * поэтому частые изменения одного типа не вытесняют записи другого.
+ * Клиент запрашивает изменения после последнего полученного номера и получает текущее
+ * состояние изменившихся сущностей; если нужные записи уже вытеснены, ему предлагается
+ * полная синхронизация.
+ * Номера начинаются с момента запуска экземпляра (микросекунды), поэтому номер, полученный
+ * от предыдущего запуска, всегда меньше начального и тоже приводит к полной синхронизации.
+ * <p>
+ * Запись выполняется под блокировкой за константное время. Чтение идет без блокировки: запись
+ * буфера хранит свою позицию, и читатель, обнаруживший, что позицию уже заняла более новая запись,
+ * предлагает полную синхронизацию, как если бы вытеснение произошло до запроса.
+ */
+@Service
+@Slf4j
+public class ChangeFeedService {
+
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+
+    private final Ring films;
+    private final Ring users;
+
+    // Номер, предшествующий первому изменению
+    private final long baseSeq;
+    // Номер последнего изменения; записывается после добавления записи в буфер
+    private volatile long headSeq;
+
+
+    @Autowired
+    public ChangeFeedService(FilmStorage filmStorage, UserStorage userStorage,
+                             @Value("${filmorate.changes.capacity:100000}") int capacity) {
+        this(filmStorage, userStorage, capacity, System.currentTimeMillis() * 1000);
+    }
+
+    /**
+     * @param capacity Размер буфера каждого типа сущности
+     */
+    public ChangeFeedService(FilmStorage filmStorage, UserStorage userStorage, int capacity, long baseSeq) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.films = new Ring(capacity, baseSeq);
+        this.users = new Ring(capacity, baseSeq);
+        this.baseSeq = baseSeq;
+        this.headSeq = baseSeq;
+    }
+
+    @EventListener
+    public synchronized void onStorageEvent(StorageEvent event) {
+
+        switch (event.type()) {
+            case FILM_ADDED, FILM_UPDATED, FILM_LIKED, FILM_UNLIKED -> append(films, event.entityId(), false);
+            case USER_ADDED, USER_UPDATED -> append(users, event.entityId(), false);
+            case FRIEND_ADDED, FRIEND_REMOVED -> {
+                append(users, event.entityId(), false);
+                append(users, event.relatedId(), false);
+            }
+            case USER_DELETED -> {
+                append(users, event.entityId(), true);
+                // Удаленный пользователь исчез и из списков друзей
+                if (event.user() != null) {
+                    for (long friendId : event.user().getFriends()) {
+                        append(users, friendId, false);
+                    }
+                }
+            }
+        }
+    }
+
+    private void append(Ring ring, long id, boolean deleted) {
+
+        long seq = headSeq + 1;
+        ring.append(seq, id, deleted);
+        headSeq = seq;
+    }
+
+    public long getHeadSeq() {
+        return headSeq;
+    }
+
+    /**
+     * Фильмы, изменившиеся после заданного номера
+     * @param since Номер последнего изменения, полученного клиентом
+     * @param limit Максимальное число фильмов в ответе
+     */
+    public ChangeSet<Film> getFilmChanges(long since, int limit) {
+
+        Scan scan = scan(films, since, limit);
+        if (scan == null) {
+            return resync();
+        }
+        List<Film> changed = new ArrayList<>(scan.entities().size());
+        scan.entities().keySet().forEach(id -> changed.add(filmStorage.getFilm(id)));
+        log.trace("Запрос изменений фильмов после {} возвращает {} записей", since, changed.size());
+        return new ChangeSet<>(scan.seq(), false, scan.hasMore(), changed, List.of());
+    }
+
+    /**
+     * Пользователи, изменившиеся или удаленные после заданного номера
+     * @param since Номер последнего изменения, полученного клиентом
+     * @param limit Максимальное число пользователей в ответе
+     */
+    public ChangeSet<User> getUserChanges(long since, int limit) {
+
+        Scan scan = scan(users, since, limit);
+        if (scan == null) {
+            return resync();
+        }
+        List<User> changed = new ArrayList<>(scan.entities().size());
+        List<Long> deleted = new ArrayList<>();
+        scan.entities().forEach((id, isDeleted) -> {
+            if (isDeleted) {
+                deleted.add(id);
+                return;
+            }
+            try {
+                changed.add(userStorage.getUser(id));
+            } catch (NotFoundException e) {
+                // Удален уже после просмотра журнала
+                deleted.add(id);
+            }
+        });
+        log.trace("Запрос изменений пользователей после {} возвращает {} записей и {} удалений",
+                since, changed.size(), deleted.size());
+        return new ChangeSet<>(scan.seq(), false, scan.hasMore(), changed, deleted);
+    }
+
+    /**
+     * Результат просмотра журнала
+     * @param seq Номер последней просмотренной записи
+     * @param hasMore Просмотр остановлен по лимиту
+     * @param entities id сущностей в порядке первого изменения -> сущность удалена
+     */
+    private record Scan(long seq, boolean hasMore, Map<Long, Boolean> entities) {
+    }
+
+    /**
+     * Просмотр буфера после заданного номера без блокировки
+     * @return null, если буфер не покрывает запрошенный номер
+     */
+    private Scan scan(Ring ring, long since, int limit) {
+
+        // Номер читается раньше числа записей: все записи с номером до head уже в буфере
+        long head = headSeq;
+        long appended = ring.appended;
+        if (since < Math.max(baseSeq, ring.evictedSeq) || since > head) {
+            log.debug("Номер {} вне журнала изменений [{}, {}], нужна полная синхронизация",
+                    since, Math.max(baseSeq, ring.evictedSeq), head);
+            return null;
+        }
+        Map<Long, Boolean> entities = new LinkedHashMap<>();
+        long position = ring.firstAfter(since, appended);
+        for (; position < appended; position++) {
+            Change change = ring.get(position);
+            if (change == null) {
+                log.debug("Записи после номера {} вытеснены во время чтения, нужна полная синхронизация", since);
+                return null;
+            }
+            if (change.seq() > head) {
+                break;
+            }
+            if (!entities.containsKey(change.id()) && entities.size() >= Math.max(limit, 1)) {
+                return new Scan(change.seq() - 1, true, entities);
+            }
+            entities.put(change.id(), change.deleted());
+        }
+        return new Scan(head, false, entities);
+    }
+
+    /**
+     * Запись буфера
+     * @param position Порядковый номер записи в буфере ее типа
+     * @param seq Номер изменения
+     */
+    private record Change(long position, long seq, long id, boolean deleted) {
+    }
+
+    /**
+     * Кольцевой буфер изменений одного типа сущности: запись с позицией p хранится в ячейке p % capacity.
+     * Пишет один поток за раз (под блокировкой сервиса), читают без блокировки.
+     */
+    private static final class Ring {
+
+        private final AtomicReferenceArray<Change> slots;
+        // Число добавленных записей; записывается после записи в ячейку
+        private volatile long appended;
+        // Номер последней вытесненной записи; записывается до перезаписи ячейки
+        private volatile long evictedSeq;
+
+        Ring(int capacity, long baseSeq) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.evictedSeq = baseSeq;
+        }
+
+        void append(long seq, long id, boolean deleted) {
+
+            long position = appended;
+            int slot = (int) (position % slots.length());
+            Change evicted = slots.get(slot);
+            if (evicted != null) {
+                evictedSeq = evicted.seq();
+            }
+            slots.set(slot, new Change(position, seq, id, deleted));
+            appended = position + 1;
+        }
+
+        /**
+         * @return Запись с заданной позицией или null, если ее ячейку уже заняла более новая запись
+         */
+        Change get(long position) {
+
+            Change change = slots.get((int) (position % slots.length()));
+            return (change != null && change.position() == position) ? change : null;
+        }
+
+        /**
+         * Позиция первой записи с номером больше since (двоичный поиск по сохраненным записям).
+         * Если во время поиска запись вытеснена, возвращается ее позиция: просмотр с нее сразу обнаружит вытеснение.
+         */
+        long firstAfter(long since, long appended) {
+
+            long low = Math.max(0, appended - slots.length());
+            long high = appended;
+            while (low < high) {
+                long middle = (low + high) >>> 1;
+                Change change = get(middle);
+                if (change == null) {
+                    return middle;
+                }
+                if (change.seq() > since) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            return low;
+        }
+    }
+
+    private <T> ChangeSet<T> resync() {
+        return new ChangeSet<>(getHeadSeq(), true, false, List.of(), List.of());
+    }
+}
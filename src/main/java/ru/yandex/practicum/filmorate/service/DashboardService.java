@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.coalescing.RequestCoalescer;
+import ru.yandex.practicum.filmorate.model.Dashboard;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendMutualCount;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Сборка главного экрана пользователя за один запрос.
+ * Пользователь читается сразу (его отсутствие - ошибка всего запроса), остальные части
+ * вычисляются одновременно в виртуальных потоках и ожидаются до общего срока ответа.
+ * Часть, не успевшая к сроку, заменяется запасным результатом и отменяется, поэтому
+ * медленная часть не задерживает ответ. Подсчет общих друзей проверяет прерывание своей задачи
+ * перед каждым другом и прекращается после отмены. Популярные фильмы после отмены досчитываются:
+ * их результат через {@link RequestCoalescer} может ждать и GET /films/popular, а сортировка
+ * прерыванию не поддается; ответ главного экрана их все равно не ждет.
+ */
+@Service
+@Slf4j
+public class DashboardService {
+
+    private final UserService userService;
+    private final FilmService filmService;
+    private final RequestCoalescer coalescer;
+    private final long timeoutNanos;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Последний полученный список популярных фильмов - запасной результат
+    private volatile List<Film> lastPopularFilms = List.of();
+
+
+    @Autowired
+    public DashboardService(UserService userService, FilmService filmService, RequestCoalescer coalescer,
+                            @Value("${filmorate.dashboard.timeout-ms:200}") long timeoutMillis) {
+        this.userService = userService;
+        this.filmService = filmService;
+        this.coalescer = coalescer;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @param userId id пользователя
+     * @param count Число популярных фильмов
+     */
+    public Dashboard getDashboard(long userId, int count) {
+
+        User user = userService.getUser(userId);
+        long deadline = System.nanoTime() + timeoutNanos;
+        Future<List<FriendMutualCount>> friends = executor.submit(() -> {
+            // Признак прерывания читается у потока задачи: отмена прерывает именно его
+            Thread task = Thread.currentThread();
+            return userService.getFriendsWithMutualCounts(userId, task::isInterrupted);
+        });
+        // Тот же ключ объединения, что у GET /films/popular без диапазона лет
+        Future<List<Film>> popularFilms = executor.submit(() -> coalescer.execute("popular", count + ":null:null",
+                () -> filmService.getPopularFilms(count)));
+
+        List<String> incomplete = new ArrayList<>();
+        List<FriendMutualCount> friendsResult = await(friends, deadline, "friends", incomplete, List.of());
+        List<Film> popularResult = await(popularFilms, deadline, "popularFilms", incomplete, null);
+        if (popularResult == null) {
+            List<Film> fallback = lastPopularFilms;
+            popularResult = (fallback.size() > count) ? fallback.subList(0, count) : fallback;
+        } else {
+            lastPopularFilms = popularResult;
+        }
+        log.trace("Главный экран пользователя {}: {} друзей, {} фильмов, неполные части {}",
+                userId, friendsResult.size(), popularResult.size(), incomplete);
+        return new Dashboard(user, friendsResult, popularResult, incomplete);
+    }
+
+    private static <T> T await(Future<T> future, long deadline, String part, List<String> incomplete, T fallback) {
+
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Часть главного экрана {} не получена за отведенное время", part);
+        } catch (ExecutionException e) {
+            log.warn("Часть главного экрана {} не получена: {}", part, e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        future.cancel(true);
+        incomplete.add(part);
+        return fallback;
+    }
+}
@@ -0,0 +1,216 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Выгрузка всех данных в компактный двоичный файл для аналитики.
+ * Каждая сущность копируется атомарно и сразу записывается в файл, так что в куче одновременно
+ * находится одна копия, а не копии всех данных. Согласованность - только в пределах сущности:
+ * фильмы и пользователи копируются в разные моменты, и лайк или дружба в файле могут ссылаться
+ * на пользователя, удаленного или добавленного за время выгрузки, - целостным снимком файл не является.
+ * Файл переиспользуется, пока не устареет, поэтому повторные выгрузки не нагружают экземпляр;
+ * клиенту он по возможности отдается через sendfile, без копирования через кучу (см. ExportController).
+ * Замененный файл удаляется не сразу, а через заданное время: sendfile открывает файл уже после
+ * выхода из обработчика, и клиент, получивший прежний файл, должен успеть его дочитать.
+ * <p>
+ * Формат (big-endian, строки - длина в байтах UTF-8 и сами байты, -1 для null,
+ * даты - номер дня эпохи, отсутствующие числа - {@link #NO_VALUE}):
+ * <pre>
+ * int magic "FLMX", int version, long createdAt (мс), int filmCount, int userCount
+ *     (числа записываются после обхода, когда известно, сколько сущностей попало в файл)
+ * filmCount x [long id, string name, string description, int releaseDate, int duration,
+ *              int likeCount, likeCount x long userId]
+ * userCount x [long id, string email, string login, string name, int birthday,
+ *              int friendCount, friendCount x long friendId]
+ * </pre>
+ */
+@Service
+@Slf4j
+public class ExportService {
+
+    public static final int MAGIC = 0x464C4D58;
+    public static final int VERSION = 1;
+    public static final int NO_VALUE = Integer.MIN_VALUE;
+    // Смещение filmCount в заголовке
+    private static final long COUNTS_OFFSET = Integer.BYTES * 2 + Long.BYTES;
+
+    /**
+     * Готовый файл выгрузки
+     * @param path Путь к файлу
+     * @param size Размер файла, байт
+     * @param createdAt Время построения, мс
+     * @param films Число фильмов
+     * @param users Число пользователей
+     */
+    public record ExportFile(Path path, long size, long createdAt, int films, int users) {
+    }
+
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final Path directory;
+    private final long maxAgeMillis;
+    private final long graceMillis;
+
+    private ExportFile current;
+    // Замененные файлы в порядке замены и время замены, мс: их еще могут дочитывать клиенты
+    private final Deque<Retired> retired = new ArrayDeque<>();
+    private long generation;
+
+    private record Retired(ExportFile file, long retiredAt) {
+    }
+
+
+    @Autowired
+    public ExportService(FilmStorage filmStorage, UserStorage userStorage,
+                         @Value("${filmorate.export.directory:}") String directory,
+                         @Value("${filmorate.export.max-age-seconds:300}") long maxAgeSeconds,
+                         @Value("${filmorate.export.grace-seconds:600}") long graceSeconds) {
+        this(filmStorage, userStorage, directory.isBlank() ? createTempDirectory() : Path.of(directory),
+                maxAgeSeconds * 1000, graceSeconds * 1000);
+    }
+
+    /**
+     * @param graceMillis Сколько замененный файл хранится для клиентов, которые его еще читают, мс
+     */
+    public ExportService(FilmStorage filmStorage, UserStorage userStorage, Path directory, long maxAgeMillis,
+                         long graceMillis) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.directory = directory;
+        this.maxAgeMillis = maxAgeMillis;
+        this.graceMillis = graceMillis;
+    }
+
+    /**
+     * Актуальный файл выгрузки; строится заново, если прежний старше допустимого возраста
+     */
+    public synchronized ExportFile getExport() {
+
+        long now = System.currentTimeMillis();
+        while (!retired.isEmpty() && now - retired.peekFirst().retiredAt() >= graceMillis) {
+            delete(retired.pollFirst().file());
+        }
+        if (current == null || now - current.createdAt() > maxAgeMillis) {
+            ExportFile built = build(now);
+            if (current != null) {
+                retired.addLast(new Retired(current, now));
+            }
+            current = built;
+        }
+        return current;
+    }
+
+    private ExportFile build(long now) {
+
+        Path path = directory.resolve("filmorate-export-" + (++generation) + ".bin");
+        int films = 0;
+        int users = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(now);
+            out.writeInt(0);
+            out.writeInt(0);
+            try (Stream<Film> copies = filmStorage.copyFilms()) {
+                for (Iterator<Film> iterator = copies.iterator(); iterator.hasNext(); films++) {
+                    Film film = iterator.next();
+                    out.writeLong(film.getId());
+                    writeString(out, film.getName());
+                    writeString(out, film.getDescription());
+                    out.writeInt(epochDay(film.getReleaseDate()));
+                    out.writeInt(film.getDuration() == null ? NO_VALUE : film.getDuration());
+                    writeIds(out, film.getLikes());
+                }
+            }
+            try (Stream<User> copies = userStorage.copyUsers()) {
+                for (Iterator<User> iterator = copies.iterator(); iterator.hasNext(); users++) {
+                    User user = iterator.next();
+                    out.writeLong(user.getId());
+                    writeString(out, user.getEmail());
+                    writeString(out, user.getLogin());
+                    writeString(out, user.getName());
+                    out.writeInt(epochDay(user.getBirthday()));
+                    writeIds(out, user.getFriends());
+                }
+            }
+            out.flush();
+            channel.write(ByteBuffer.allocate(Integer.BYTES * 2).putInt(films).putInt(users).flip(), COUNTS_OFFSET);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось записать выгрузку " + path, e);
+        }
+        ExportFile file = new ExportFile(path, path.toFile().length(), now, films, users);
+        log.info("Построена выгрузка {}: {} фильмов, {} пользователей, {} байт",
+                path, films, users, file.size());
+        return file;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeIds(DataOutputStream out, Collection<Long> ids) throws IOException {
+
+        out.writeInt(ids.size());
+        for (Long id : ids) {
+            out.writeLong(id);
+        }
+    }
+
+    private static int epochDay(LocalDate date) {
+        return (date == null) ? NO_VALUE : (int) date.toEpochDay();
+    }
+
+    private static void delete(ExportFile file) {
+
+        try {
+            Files.deleteIfExists(file.path());
+        } catch (IOException e) {
+            log.warn("Не удалось удалить устаревшую выгрузку {}: {}", file.path(), e.getMessage());
+        }
+    }
+
+    private static Path createTempDirectory() {
+
+        try {
+            Path directory = Files.createTempDirectory("filmorate-export-");
+            directory.toFile().deleteOnExit();
+            return directory;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось создать каталог выгрузки", e);
+        }
+    }
+}
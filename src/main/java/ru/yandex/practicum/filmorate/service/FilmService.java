@@ -1,19 +1,32 @@
 package ru.yandex.practicum.filmorate.service;
 
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.event.StorageEvent;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.PreconditionFailedException;
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.jfr.FilmLikeEvent;
+import ru.yandex.practicum.filmorate.jfr.PopularFilmsEvent;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.model.validators.FilmValidator;
+import ru.yandex.practicum.filmorate.replication.MutationOrder;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.util.StripedLocks;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 @Slf4j
@@ -21,42 +34,254 @@ public class FilmService {
 
     private final FilmStorage filmStorage;
     private final UserStorage userStorage;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MutationOrder mutationOrder;
+    private final ReleaseYearLeaderboards leaderboards = new ReleaseYearLeaderboards();
+    private final UserLikesIndex userLikes = new UserLikesIndex();
+    // Блокировки пользователей: лайк и удаление пользователя не выполняются одновременно
+    private final StripedLocks userLocks = new StripedLocks();
 
+    // Конвейер лайков (null - лайки применяются в потоке запроса)
+    private final LikePipeline likePipeline;
+
+    // Ожидать применения лайка, переданного в конвейер
+    private final boolean readYourWrites;
+
+
+    public FilmService(FilmStorage filmStorage, UserStorage userStorage, ApplicationEventPublisher eventPublisher) {
+        this(filmStorage, userStorage, eventPublisher, 0, 0, true);
+    }
+
+    public FilmService(FilmStorage filmStorage, UserStorage userStorage, ApplicationEventPublisher eventPublisher,
+                       int pipelinePartitions, int pipelineBufferSize, boolean readYourWrites) {
+        this(filmStorage, userStorage, eventPublisher, MutationOrder.unordered(),
+                pipelinePartitions, pipelineBufferSize, readYourWrites);
+    }
 
     @Autowired
-    public FilmService(FilmStorage filmStorage, UserStorage userStorage) {
+    public FilmService(FilmStorage filmStorage, UserStorage userStorage, ApplicationEventPublisher eventPublisher,
+                       MutationOrder mutationOrder,
+                       @Value("${filmorate.like-pipeline.partitions:0}") int pipelinePartitions,
+                       @Value("${filmorate.like-pipeline.buffer-size:65536}") int pipelineBufferSize,
+                       @Value("${filmorate.like-pipeline.read-your-writes:true}") boolean readYourWrites) {
         this.filmStorage = filmStorage;
         this.userStorage = userStorage;
+        this.eventPublisher = eventPublisher;
+        this.mutationOrder = mutationOrder;
+        this.readYourWrites = readYourWrites;
+        this.likePipeline = (pipelinePartitions > 0)
+                ? new LikePipeline(pipelinePartitions, pipelineBufferSize, this::applyLikes)
+                : null;
+        leaderboards.rebuild(filmStorage.getFilms());
+        userLikes.rebuild(filmStorage.getFilms());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+
+        if (likePipeline != null) {
+            likePipeline.close();
+        }
     }
 
     public void likeFilm(long filmId, long userId) {
 
-        Film film = filmStorage.getFilm(filmId);
-        User user = userStorage.getUser(userId);
-        film.getLikes().add(user.getId());
-        film.setRate(film.getLikes().size());
+        FilmLikeEvent event = new FilmLikeEvent();
+        event.begin();
+        // Проверка существования фильма без построения объекта
+        filmStorage.getRate(filmId);
+        userStorage.getUser(userId);
+        if (likePipeline != null) {
+            submitLike(filmId, userId, true);
+        } else {
+            mutationOrder.run(() -> withUserLock(userId, () -> {
+                // Пользователь мог быть удален после проверки выше
+                userStorage.getUser(userId);
+                boolean added = filmStorage.like(filmId, userId);
+                userLikes.add(userId, filmId);
+                leaderboards.refreshRate(filmId, filmStorage::getRate);
+                eventPublisher.publishEvent(StorageEvent.filmLiked(filmId, userId, added));
+            }));
+        }
+        event.finish(filmId, userId, true);
         log.info("Пользователь {} поставил лайк фильму {}", userId, filmId);
     }
 
     public void unlikeFilm(long filmId, long userId) {
 
-        Film film = filmStorage.getFilm(filmId);
-        User user = userStorage.getUser(userId);
-        film.getLikes().remove(user.getId());
-        film.setRate(film.getLikes().size());
+        FilmLikeEvent event = new FilmLikeEvent();
+        event.begin();
+        filmStorage.getRate(filmId);
+        userStorage.getUser(userId);
+        if (likePipeline != null) {
+            submitLike(filmId, userId, false);
+        } else {
+            mutationOrder.run(() -> {
+                boolean removed = filmStorage.unlike(filmId, userId);
+                userLikes.remove(userId, filmId);
+                leaderboards.refreshRate(filmId, filmStorage::getRate);
+                eventPublisher.publishEvent(StorageEvent.filmUnliked(filmId, userId, removed));
+            });
+        }
+        event.finish(filmId, userId, false);
         log.info("Пользователь {} снял лайк у фильма {}", userId, filmId);
     }
 
+    private void submitLike(long filmId, long userId, boolean like) {
+
+        CompletableFuture<Void> done = readYourWrites ? new CompletableFuture<>() : null;
+        likePipeline.submit(new LikePipeline.Event(filmId, userId, like, done));
+        if (done != null) {
+            try {
+                done.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Применение пачки лайков в потоке раздела конвейера.
+     * Рейтинги фильмов пересчитываются один раз на пачку, сколько бы лайков фильм ни получил.
+     */
+    private void applyLikes(List<LikePipeline.Event> batch) {
+
+        Set<Long> changedFilms = new LinkedHashSet<>();
+        for (LikePipeline.Event event : batch) {
+            try {
+                mutationOrder.run(() -> {
+                    if (event.like()) {
+                        withUserLock(event.userId(), () -> {
+                            userStorage.getUser(event.userId());
+                            boolean added = filmStorage.like(event.filmId(), event.userId());
+                            changedFilms.add(event.filmId());
+                            userLikes.add(event.userId(), event.filmId());
+                            eventPublisher.publishEvent(StorageEvent.filmLiked(event.filmId(), event.userId(), added));
+                        });
+                    } else {
+                        boolean removed = filmStorage.unlike(event.filmId(), event.userId());
+                        changedFilms.add(event.filmId());
+                        userLikes.remove(event.userId(), event.filmId());
+                        eventPublisher.publishEvent(StorageEvent.filmUnliked(event.filmId(), event.userId(), removed));
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.warn("Лайк пользователя {} фильму {} не применен: {}", event.userId(), event.filmId(), e.getMessage());
+                if (event.done() != null) {
+                    event.done().completeExceptionally(e);
+                }
+            }
+        }
+        changedFilms.forEach(filmId -> leaderboards.refreshRate(filmId, filmStorage::getRate));
+        for (LikePipeline.Event event : batch) {
+            if (event.done() != null) {
+                event.done().complete(null);
+            }
+        }
+    }
+
+    /**
+     * Фильмы, которые лайкнул пользователь, по возрастанию id
+     */
+    public List<Film> getLikedFilms(long userId) {
+
+        userStorage.getUser(userId);
+        var likedFilms = Arrays.stream(userLikes.getFilmIds(userId))
+                .mapToObj(filmStorage::getFilm)
+                .toList();
+        log.trace("Запрос лайков пользователя {} возвращает {} записей", userId, likedFilms.size());
+        return likedFilms;
+    }
+
+    /**
+     * Снятие всех лайков пользователя и его удаление за время, пропорциональное числу его лайков.
+     * Рейтинги фильмов пересчитываются так же, как при обычном снятии лайка.
+     * Все выполняется под блокировкой пользователя, под которой лайк проверяет, что пользователь существует,
+     * поэтому одновременный лайк либо снимается вместе с остальными, либо отклоняется (404).
+     * Лайки снимаются в потоке запроса и при включенном конвейере: раздел конвейера может ждать эту же блокировку.
+     * @param deleteUser Удаление самого пользователя и его дружбы
+     */
+    void deleteUserWithLikes(long userId, Runnable deleteUser) {
+
+        mutationOrder.run(() -> withUserLock(userId, () -> {
+            userStorage.getUser(userId);
+            for (long filmId : userLikes.getFilmIds(userId)) {
+                boolean removed = filmStorage.unlike(filmId, userId);
+                userLikes.remove(userId, filmId);
+                leaderboards.refreshRate(filmId, filmStorage::getRate);
+                eventPublisher.publishEvent(StorageEvent.filmUnliked(filmId, userId, removed));
+            }
+            deleteUser.run();
+        }));
+    }
+
+    private void withUserLock(long userId, Runnable action) {
+
+        long stripes = userLocks.lock(StripedLocks.bit(userId));
+        try {
+            action.run();
+        } finally {
+            userLocks.unlock(stripes);
+        }
+    }
+
+    /**
+     * @throws ValidationException если число фильмов не положительно
+     */
     public List<Film> getPopularFilms(int count) {
 
+        checkCount(count);
+        PopularFilmsEvent event = new PopularFilmsEvent();
+        event.begin();
         var popularFilms = filmStorage.getFilms().stream()
                 .sorted(Comparator.comparingInt(film -> ((Film) film).getRate()).reversed())
                 .limit(count)
                 .toList();
+        event.finish(count, Integer.MIN_VALUE, Integer.MAX_VALUE, true, popularFilms.size());
         log.trace("Запрос популярных фильмов возвращает {} записей", popularFilms.size());
         return popularFilms;
     }
 
+    /**
+     * Самые популярные фильмы за диапазон лет выпуска
+     * @param count Число фильмов
+     * @param fromYear Начальный год (включительно), null - без ограничения
+     * @param toYear Конечный год (включительно), null - без ограничения
+     * @throws ValidationException если число фильмов не положительно или начальный год больше конечного
+     */
+    public List<Film> getPopularFilms(int count, Integer fromYear, Integer toYear) {
+
+        checkCount(count);
+        PopularFilmsEvent event = new PopularFilmsEvent();
+        event.begin();
+        int from = (fromYear == null) ? Integer.MIN_VALUE : fromYear;
+        int to = (toYear == null) ? Integer.MAX_VALUE : toYear;
+        if (from > to) {
+            final String msg = "Начальный год " + from + " больше конечного " + to;
+            log.warn(msg);
+            throw new ValidationException(msg);
+        }
+        var popularFilms = leaderboards.getTop(count, from, to).stream()
+                .map(filmStorage::getFilm)
+                .toList();
+        event.finish(count, from, to, false, popularFilms.size());
+        log.trace("Запрос популярных фильмов за {}-{} годы возвращает {} записей",
+                fromYear, toYear, popularFilms.size());
+        return popularFilms;
+    }
+
+    private static void checkCount(int count) {
+
+        if (count <= 0) {
+            final String msg = "Число фильмов должно быть положительным: " + count;
+            log.warn(msg);
+            throw new ValidationException(msg);
+        }
+    }
+
     public Collection<Film> getFilms() {
         return filmStorage.getFilms();
     }
@@ -86,7 +311,12 @@ public class FilmService {
             FilmValidator.checkDuration(film.getDuration());
 
             // Создание нового фильма
-            return filmStorage.addFilm(film);
+            return mutationOrder.apply(() -> {
+                Film addedFilm = filmStorage.addFilm(film);
+                leaderboards.refresh(addedFilm.getId(), filmStorage::getFilm);
+                eventPublisher.publishEvent(StorageEvent.filmAdded(addedFilm));
+                return addedFilm;
+            });
 
         } catch (ValidationException ve) {
             log.warn(ve.getMessage());
@@ -98,6 +328,15 @@ public class FilmService {
     }
 
     public Film updateFilm(Film film) {
+        return updateFilm(film, null);
+    }
+
+    /**
+     * Изменение с проверкой версии (If-Match)
+     * @param expectedVersion Версия, которую видел клиент, null - без проверки
+     * @throws PreconditionFailedException если фильм уже изменен другим запросом
+     */
+    public Film updateFilm(Film film, Long expectedVersion) {
 
         try {
             Long requestedId = film.getId();
@@ -120,11 +359,16 @@ public class FilmService {
                 FilmValidator.checkDuration(film.getDuration());
 
             // Все проверки пройдены - можно обновляться
-            return filmStorage.updateFilm(film);
+            return mutationOrder.apply(() -> {
+                Film updatedFilm = filmStorage.updateFilm(film, expectedVersion);
+                leaderboards.refresh(updatedFilm.getId(), filmStorage::getFilm);
+                eventPublisher.publishEvent(StorageEvent.filmUpdated(updatedFilm));
+                return updatedFilm;
+            });
 
-        } catch (ValidationException ve) {
-            log.warn(ve.getMessage());
-            throw ve;
+        } catch (ValidationException | PreconditionFailedException e) {
+            log.warn(e.getMessage());
+            throw e;
         } catch (NotFoundException ne) {
             throw ne;
         } catch (Exception e) {
@@ -0,0 +1,122 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.event.StorageEvent;
+import ru.yandex.practicum.filmorate.model.Community;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.util.LongUnionFind;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Сообщества пользователей - компоненты связности графа дружбы.
+ * Добавление дружбы сразу объединяет компоненты в системе непересекающихся множеств, поэтому
+ * запрос сообщества выполняется почти за константу. Удаление дружбы может разбить компоненту,
+ * что объединениями не выразить: такие изменения только помечают структуру устаревшей,
+ * а пересчет по всему графу выполняется в фоне не чаще заданного интервала.
+ */
+@Service
+@Slf4j
+public class FriendCommunityService {
+
+    private final UserStorage userStorage;
+
+    private LongUnionFind communities;
+    // Есть удаления, еще не учтенные пересчетом
+    private boolean stale;
+    // Число удалений; пересчет снимает признак устаревания, только если за время пересчета удалений не было
+    private long removals;
+    // Дружба, добавленная во время фонового пересчета (null, если пересчет не идет)
+    private List<long[]> pendingUnions;
+
+
+    @Autowired
+    public FriendCommunityService(UserStorage userStorage) {
+        this.userStorage = userStorage;
+        this.communities = build(userStorage.getUsers());
+    }
+
+    @EventListener
+    public synchronized void onStorageEvent(StorageEvent event) {
+
+        switch (event.type()) {
+            case FRIEND_ADDED -> {
+                communities.union(event.entityId(), event.relatedId());
+                if (pendingUnions != null) {
+                    pendingUnions.add(new long[] {event.entityId(), event.relatedId()});
+                }
+            }
+            case FRIEND_REMOVED, USER_DELETED -> {
+                stale = true;
+                removals++;
+            }
+            default -> {
+            }
+        }
+    }
+
+    public Community getCommunity(long userId) {
+
+        userStorage.getUser(userId);
+        synchronized (this) {
+            return new Community(userId, communities.representative(userId), communities.size(userId), stale);
+        }
+    }
+
+    /**
+     * Фоновый пересчет компонент после удалений дружбы.
+     * Граф читается без блокировки; дружба, добавленная за это время, затем применяется к новой структуре.
+     * До замены структуры ответы остаются помеченными устаревшими, а после замены - если за время
+     * пересчета пришли удаления, которые прочитанный граф мог не застать.
+     */
+    @Scheduled(fixedDelayString = "${filmorate.community.rebuild-interval-ms:1000}")
+    public void rebuildIfStale() {
+
+        long startRemovals;
+        synchronized (this) {
+            if (!stale || pendingUnions != null) {
+                return;
+            }
+            startRemovals = removals;
+            pendingUnions = new ArrayList<>();
+        }
+        LongUnionFind rebuilt;
+        try {
+            rebuilt = build(userStorage.getUsers());
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pendingUnions = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            for (long[] union : pendingUnions) {
+                rebuilt.union(union[0], union[1]);
+            }
+            communities = rebuilt;
+            pendingUnions = null;
+            stale = removals != startRemovals;
+        }
+        log.debug("Сообщества пользователей пересчитаны");
+    }
+
+    private static LongUnionFind build(Collection<User> users) {
+
+        LongUnionFind unionFind = new LongUnionFind(users.size());
+        for (User user : users) {
+            for (Long friendId : user.getFriends()) {
+                if (user.getId() < friendId) {
+                    unionFind.union(user.getId(), friendId);
+                }
+            }
+        }
+        return unionFind;
+    }
+}
@@ -0,0 +1,176 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.Distance;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.util.LongLongHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Запросы к графу дружбы пользователей
+ */
+@Service
+@Slf4j
+public class FriendGraphService {
+
+    // Срок поиска проверяется через каждые столько просмотренных связей (степень двойки)
+    private static final int DEADLINE_CHECK_EDGES = 4096;
+
+    private final UserStorage userStorage;
+    private final int maxDepth;
+    private final long timeBudgetNanos;
+
+
+    @Autowired
+    public FriendGraphService(UserStorage userStorage,
+                              @Value("${filmorate.friend-graph.max-depth:6}") int maxDepth,
+                              @Value("${filmorate.friend-graph.time-budget-ms:50}") long timeBudgetMs) {
+        this.userStorage = userStorage;
+        this.maxDepth = maxDepth;
+        this.timeBudgetNanos = timeBudgetMs * 1_000_000L;
+    }
+
+    /**
+     * Поиск кратчайшего расстояния между пользователями двунаправленным поиском в ширину.
+     * На каждом шаге расширяется меньший из двух фронтов, поэтому число просмотренных
+     * пользователей растет примерно как корень из одностороннего поиска.
+     * @param userId id первого пользователя
+     * @param otherId id второго пользователя
+     * @param withPath Вернуть цепочку пользователей
+     * @return Расстояние или причина, по которой оно не найдено
+     */
+    public Distance getDistance(long userId, long otherId, boolean withPath) {
+
+        userStorage.getUser(userId);
+        userStorage.getUser(otherId);
+        if (userId == otherId) {
+            return new Distance(userId, otherId, 0, Distance.Status.FOUND, withPath ? List.of(userId) : null);
+        }
+
+        final long deadline = System.nanoTime() + timeBudgetNanos;
+        Side forward = new Side(userId);
+        Side backward = new Side(otherId);
+        Distance.Status status = Distance.Status.NOT_CONNECTED;
+        while (forward.size > 0 && backward.size > 0) {
+            if (forward.depth + backward.depth >= maxDepth) {
+                status = Distance.Status.DEPTH_LIMIT;
+                break;
+            }
+            // При равных фронтах расширяется менее глубокий - так быстрее выявляется изолированная сторона
+            Side side = (forward.size < backward.size
+                    || (forward.size == backward.size && forward.depth <= backward.depth)) ? forward : backward;
+            Side other = (side == forward) ? backward : forward;
+            if (!side.expand(other, deadline)) {
+                status = Distance.Status.TIMEOUT;
+                break;
+            }
+            if (side.meeting != Side.NONE) {
+                int distance = side.depth + other.depthOf(side.meeting);
+                List<Long> path = withPath ? buildPath(forward, backward, side.meeting) : null;
+                log.trace("Расстояние между пользователями {} и {}: {}", userId, otherId, distance);
+                return new Distance(userId, otherId, distance, Distance.Status.FOUND, path);
+            }
+        }
+        log.trace("Расстояние между пользователями {} и {} не найдено: {}", userId, otherId, status);
+        return new Distance(userId, otherId, null, status, null);
+    }
+
+    private static List<Long> buildPath(Side forward, Side backward, long meeting) {
+
+        List<Long> path = new ArrayList<>();
+        for (long node = meeting; ; node = forward.parents.get(node, node)) {
+            path.add(node);
+            if (node == forward.root) {
+                break;
+            }
+        }
+        Collections.reverse(path);
+        for (long node = meeting; node != backward.root; ) {
+            node = backward.parents.get(node, node);
+            path.add(node);
+        }
+        return path;
+    }
+
+    /**
+     * Одна сторона двунаправленного поиска: посещенные пользователи с их предками и текущий фронт
+     */
+    private final class Side {
+
+        static final long NONE = Long.MIN_VALUE;
+
+        final long root;
+        final LongLongHashMap parents = new LongLongHashMap(64);
+        long[] frontier;
+        int size;
+        int depth;
+        long meeting = NONE;
+
+        Side(long root) {
+            this.root = root;
+            this.frontier = new long[] {root};
+            this.size = 1;
+            parents.put(root, root);
+        }
+
+        /**
+         * Расширение фронта на один уровень.
+         * Срок проверяется по числу просмотренных связей, а не пользователей фронта,
+         * поэтому пользователь с огромным числом друзей не затягивает поиск дальше срока.
+         * @return false, если время поиска истекло
+         */
+        boolean expand(Side other, long deadline) {
+
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            long[] next = new long[Math.max(16, size * 2)];
+            int nextSize = 0;
+            int bestOtherDepth = Integer.MAX_VALUE;
+            int edges = 0;
+            for (int i = 0; i < size; i++) {
+                long node = frontier[i];
+                for (long friendId : userStorage.getUser(node).getFriends()) {
+                    if ((++edges & (DEADLINE_CHECK_EDGES - 1)) == 0 && System.nanoTime() - deadline > 0) {
+                        return false;
+                    }
+                    if (!parents.putIfAbsent(friendId, node)) {
+                        continue;
+                    }
+                    if (other.parents.containsKey(friendId)) {
+                        int otherDepth = other.depthOf(friendId);
+                        if (otherDepth < bestOtherDepth) {
+                            bestOtherDepth = otherDepth;
+                            meeting = friendId;
+                        }
+                    }
+                    if (nextSize == next.length) {
+                        next = Arrays.copyOf(next, nextSize * 2);
+                    }
+                    next[nextSize++] = friendId;
+                }
+            }
+            frontier = next;
+            size = nextSize;
+            depth++;
+            return true;
+        }
+
+        int depthOf(long node) {
+
+            int d = 0;
+            while (node != root) {
+                node = parents.get(node, root);
+                d++;
+            }
+            return d;
+        }
+    }
+}
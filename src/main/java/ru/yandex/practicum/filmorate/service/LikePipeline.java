@@ -0,0 +1,179 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Конвейер лайков: события попадают в ограниченный неблокирующий кольцевой буфер своего раздела
+ * (раздел определяется фильмом), а единственный поток-обработчик раздела применяет их пачками.
+ * Все изменения одного фильма выполняет один поток, поэтому популярный фильм не становится
+ * точкой конкуренции для потоков обработки запросов.
+ */
+@Slf4j
+public class LikePipeline implements AutoCloseable {
+
+    /**
+     * Событие лайка
+     * @param filmId id фильма
+     * @param userId id пользователя
+     * @param like true - лайк, false - снятие лайка
+     * @param done Завершается после применения события (null, если ожидание не требуется)
+     */
+    public record Event(long filmId, long userId, boolean like, CompletableFuture<Void> done) {
+    }
+
+    private static final int MAX_BATCH = 1024;
+
+    private final Partition[] partitions;
+    private volatile boolean running = true;
+
+
+    /**
+     * @param partitionCount Число разделов (потоков-обработчиков)
+     * @param bufferSize Емкость буфера раздела (округляется до степени двойки)
+     * @param batchHandler Обработчик пачки событий одного раздела
+     */
+    public LikePipeline(int partitionCount, int bufferSize, Consumer<List<Event>> batchHandler) {
+
+        int capacity = Integer.highestOneBit(Math.max(2, bufferSize - 1)) << 1;
+        partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new Partition(capacity, batchHandler, "like-pipeline-" + i);
+        }
+    }
+
+    /**
+     * Постановка события в очередь раздела. При заполненном буфере вызывающий поток ждет
+     * освобождения места - так нагрузка сдерживается, а не копится без ограничений.
+     */
+    public void submit(Event event) {
+
+        if (!running) {
+            throw new IllegalStateException("Конвейер лайков остановлен");
+        }
+        partitions[(int) Math.floorMod(event.filmId(), (long) partitions.length)].offer(event);
+    }
+
+    @Override
+    public void close() {
+
+        running = false;
+        for (Partition partition : partitions) {
+            LockSupport.unpark(partition.consumer);
+        }
+        for (Partition partition : partitions) {
+            try {
+                partition.consumer.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Раздел: кольцевой буфер с несколькими писателями и одним читателем.
+     * Каждая ячейка хранит номер позиции, для которой она свободна или заполнена,
+     * поэтому писатели занимают ячейки одним CAS, а читатель не использует атомарных операций записи позиции.
+     */
+    private final class Partition {
+
+        final Event[] events;
+        final AtomicLongArray sequences;
+        final int mask;
+        final AtomicLong tail = new AtomicLong();
+        final Consumer<List<Event>> batchHandler;
+        final Thread consumer;
+        long head;
+        volatile boolean sleeping;
+
+        Partition(int capacity, Consumer<List<Event>> batchHandler, String name) {
+
+            this.events = new Event[capacity];
+            this.sequences = new AtomicLongArray(capacity);
+            this.mask = capacity - 1;
+            for (int i = 0; i < capacity; i++) {
+                sequences.set(i, i);
+            }
+            this.batchHandler = batchHandler;
+            this.consumer = Thread.ofPlatform().name(name).daemon().start(this::consume);
+        }
+
+        void offer(Event event) {
+
+            int spins = 0;
+            while (true) {
+                long position = tail.get();
+                int index = (int) position & mask;
+                long difference = sequences.get(index) - position;
+                if (difference == 0) {
+                    if (tail.compareAndSet(position, position + 1)) {
+                        events[index] = event;
+                        sequences.set(index, position + 1);
+                        if (sleeping) {
+                            LockSupport.unpark(consumer);
+                        }
+                        return;
+                    }
+                } else if (difference < 0) {
+                    // Буфер заполнен - ждем обработчика
+                    if (++spins > 100) {
+                        LockSupport.parkNanos(10_000);
+                    } else {
+                        Thread.onSpinWait();
+                    }
+                }
+            }
+        }
+
+        private Event poll() {
+
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                return null;
+            }
+            Event event = events[index];
+            events[index] = null;
+            sequences.set(index, head + mask + 1);
+            head++;
+            return event;
+        }
+
+        private void consume() {
+
+            List<Event> batch = new ArrayList<>(MAX_BATCH);
+            while (running || tail.get() != head) {
+                Event event;
+                while (batch.size() < MAX_BATCH && (event = poll()) != null) {
+                    batch.add(event);
+                }
+                if (batch.isEmpty()) {
+                    sleeping = true;
+                    if (tail.get() == head && running) {
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                    }
+                    sleeping = false;
+                    continue;
+                }
+                try {
+                    batchHandler.accept(batch);
+                } catch (RuntimeException e) {
+                    log.error("Ошибка обработки пачки лайков: {}", e.getMessage());
+                    batch.forEach(failed -> {
+                        if (failed.done() != null) {
+                            failed.done().completeExceptionally(e);
+                        }
+                    });
+                }
+                batch.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.util.StripedLocks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Индекс похожести фильмов по аудитории (MinHash + LSH).
+ * Для каждого фильма хранится сигнатура из bands * rows минимальных хешей id лайкнувших его пользователей:
+ * доля совпадающих позиций двух сигнатур оценивает коэффициент Жаккара их аудиторий.
+ * Сигнатура разбита на полосы по rows позиций; фильмы с совпавшей хотя бы одной полосой
+ * становятся кандидатами, поэтому поиск не перебирает весь каталог.
+ * Больше полос - выше полнота и больше памяти, больше строк в полосе - меньше ложных кандидатов.
+ * <p>
+ * Изменения одного фильма выполняются под блокировкой его полосы, так что лайки разных фильмов
+ * не ждут друг друга; поиск идет без блокировки. Опубликованная сигнатура не меняется - изменение
+ * строит новую, поэтому поиск видит каждую сигнатуру целиком, хотя может не застать фильм в корзине
+ * на время его переиндексации.
+ * События лайков могут приходить не в том порядке, в котором менялось хранилище, поэтому индекс
+ * сверяется с текущими лайками фильма: лайк учитывается, только если он еще есть в хранилище,
+ * а снятие лайка пересчитывает сигнатуру по текущим лайкам.
+ */
+public class MinHashIndex {
+
+    /**
+     * Похожий фильм
+     * @param filmId id фильма
+     * @param similarity Оценка коэффициента Жаккара аудиторий
+     */
+    public record Similarity(long filmId, double similarity) {
+    }
+
+    private static final Comparator<Similarity> BY_SIMILARITY_DESC = Comparator
+            .comparingDouble(Similarity::similarity).reversed()
+            .thenComparingLong(Similarity::filmId);
+
+    private final int bands;
+    private final int rows;
+    private final long[] seeds;
+
+    private final StripedLocks locks = new StripedLocks();
+    private final Map<Long, int[]> signatures = new ConcurrentHashMap<>();
+    private final Map<Long, long[]> bandKeys = new ConcurrentHashMap<>();
+    // Для каждой полосы: ключ полосы -> фильмы с таким ключом
+    private final List<Map<Long, Set<Long>>> buckets = new ArrayList<>();
+
+
+    public MinHashIndex(int bands, int rows) {
+
+        if (bands < 1 || rows < 1) {
+            throw new IllegalArgumentException("Число полос и строк должно быть положительным");
+        }
+        this.bands = bands;
+        this.rows = rows;
+        this.seeds = new long[bands * rows];
+        long seed = 0x5DEECE66DL;
+        for (int i = 0; i < seeds.length; i++) {
+            seed = mix(seed + i);
+            seeds[i] = seed;
+        }
+        for (int band = 0; band < bands; band++) {
+            buckets.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Учет лайка: сигнатура только уменьшается, поэтому обновляется без перебора лайков фильма
+     * @param liked Есть ли лайк в хранилище сейчас: если его уже сняли, событие снятия могло быть
+     *              обработано раньше, и учесть лайк значило бы оставить в сигнатуре ушедшего зрителя
+     */
+    public void add(long filmId, long userId, BooleanSupplier liked) {
+
+        withFilmLock(filmId, () -> {
+            if (!liked.getAsBoolean()) {
+                return;
+            }
+            int[] signature = signatures.get(filmId);
+            int[] updated = (signature == null) ? emptySignature() : signature.clone();
+            if (accumulate(updated, userId) || signature == null) {
+                reindex(filmId, updated);
+            }
+        });
+    }
+
+    /**
+     * Учет снятия лайка. Сигнатура пересчитывается по текущим лайкам фильма, только если снятый лайк
+     * давал минимум хотя бы в одной позиции
+     * @param likers Текущие лайки фильма (запрашиваются только при необходимости пересчета)
+     */
+    public void remove(long filmId, long userId, Supplier<Collection<Long>> likers) {
+
+        withFilmLock(filmId, () -> {
+            int[] signature = signatures.get(filmId);
+            if (signature == null) {
+                return;
+            }
+            for (int i = 0; i < signature.length; i++) {
+                if (signature[i] == hash(i, userId)) {
+                    rebuild(filmId, likers.get());
+                    return;
+                }
+            }
+        });
+    }
+
+    /**
+     * Полный пересчет сигнатуры фильма
+     */
+    public void set(long filmId, Collection<Long> likers) {
+        withFilmLock(filmId, () -> rebuild(filmId, likers));
+    }
+
+    /**
+     * Фильмы с наиболее похожей аудиторией
+     * @param count Число фильмов
+     * @return Похожие фильмы по убыванию оценки похожести
+     */
+    public List<Similarity> query(long filmId, int count) {
+
+        int[] signature = signatures.get(filmId);
+        long[] keys = bandKeys.get(filmId);
+        if (signature == null || keys == null) {
+            return List.of();
+        }
+        Set<Long> candidates = new HashSet<>();
+        for (int band = 0; band < bands; band++) {
+            Set<Long> films = buckets.get(band).get(keys[band]);
+            if (films != null) {
+                candidates.addAll(films);
+            }
+        }
+        candidates.remove(filmId);
+
+        List<Similarity> result = new ArrayList<>(candidates.size());
+        for (Long candidate : candidates) {
+            int[] other = signatures.get(candidate);
+            if (other == null) {
+                // Фильм потерял все лайки, пока собирались кандидаты
+                continue;
+            }
+            int matches = 0;
+            for (int i = 0; i < signature.length; i++) {
+                if (signature[i] == other[i]) {
+                    matches++;
+                }
+            }
+            result.add(new Similarity(candidate, (double) matches / signature.length));
+        }
+        result.sort(BY_SIMILARITY_DESC);
+        return (result.size() > count) ? List.copyOf(result.subList(0, count)) : result;
+    }
+
+    public int size() {
+        return signatures.size();
+    }
+
+    private void withFilmLock(long filmId, Runnable action) {
+
+        long stripes = locks.lock(StripedLocks.bit(filmId));
+        try {
+            action.run();
+        } finally {
+            locks.unlock(stripes);
+        }
+    }
+
+    private void rebuild(long filmId, Collection<Long> likers) {
+
+        unindex(filmId);
+        signatures.remove(filmId);
+        if (likers.isEmpty()) {
+            return;
+        }
+        int[] signature = emptySignature();
+        for (Long userId : likers) {
+            accumulate(signature, userId);
+        }
+        reindex(filmId, signature);
+    }
+
+    private int[] emptySignature() {
+
+        int[] signature = new int[seeds.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        return signature;
+    }
+
+    /**
+     * Учет пользователя в сигнатуре
+     * @return true, если сигнатура изменилась
+     */
+    private boolean accumulate(int[] signature, long userId) {
+
+        boolean changed = false;
+        for (int i = 0; i < signature.length; i++) {
+            int hash = hash(i, userId);
+            if (hash < signature[i]) {
+                signature[i] = hash;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private void reindex(long filmId, int[] signature) {
+
+        unindex(filmId);
+        signatures.put(filmId, signature);
+        long[] keys = new long[bands];
+        for (int band = 0; band < bands; band++) {
+            long key = band;
+            for (int row = 0; row < rows; row++) {
+                key = mix(key * 31 + signature[band * rows + row]);
+            }
+            keys[band] = key;
+            buckets.get(band).compute(key, (k, films) -> {
+                Set<Long> bucketFilms = (films != null) ? films : ConcurrentHashMap.newKeySet();
+                bucketFilms.add(filmId);
+                return bucketFilms;
+            });
+        }
+        bandKeys.put(filmId, keys);
+    }
+
+    private void unindex(long filmId) {
+
+        long[] keys = bandKeys.remove(filmId);
+        if (keys == null) {
+            return;
+        }
+        for (int band = 0; band < bands; band++) {
+            buckets.get(band).computeIfPresent(keys[band], (key, films) -> {
+                films.remove(filmId);
+                return films.isEmpty() ? null : films;
+            });
+        }
+    }
+
+    private int hash(int i, long userId) {
+        return (int) (mix(userId ^ seeds[i]) >>> 32);
+    }
+
+    private static long mix(long value) {
+
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
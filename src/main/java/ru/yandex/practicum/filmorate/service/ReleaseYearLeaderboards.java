@@ -0,0 +1,225 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.LongFunction;
+import java.util.function.LongToIntFunction;
+
+/**
+ * Рейтинги популярности фильмов по годам выпуска.
+ * Для каждого года хранятся упорядоченными по убыванию рейтинга только boardSize лучших фильмов,
+ * поэтому лучшие фильмы года выбираются без сортировки, а диапазон лет - слиянием рейтингов.
+ * Рейтинг и год остальных фильмов хранятся в общей таблице. Если фильм из таблицы лидеров
+ * опустился ниже последнего места, а у года есть фильмы вне таблицы, таблица года перестраивается
+ * из фильмов года при следующем запросе. Запрос больше boardSize фильмов перебирает фильмы диапазона лет.
+ * <p>
+ * Состояние фильма перечитывается из хранилища под блокировкой рейтингов ({@link #refresh},
+ * {@link #refreshRate}): каждое изменение вызывает пересчет после записи в хранилище, поэтому
+ * последний пересчет видит все завершенные изменения, и опоздавший поток не запишет устаревший рейтинг.
+ */
+public class ReleaseYearLeaderboards {
+
+    private record Entry(long filmId, int rate, int year) {
+    }
+
+    private static final Comparator<Entry> BY_RATE_DESC = Comparator
+            .comparingInt(Entry::rate).reversed()
+            .thenComparingLong(Entry::filmId);
+
+    /**
+     * Лучшие фильмы года и все фильмы года
+     */
+    private static final class Board {
+
+        final TreeSet<Entry> top = new TreeSet<>(BY_RATE_DESC);
+        final LongHashSet films = new LongHashSet();
+        // В top может не хватать фильма, который лучше последнего места
+        boolean stale;
+    }
+
+    static final int DEFAULT_BOARD_SIZE = 256;
+
+    private final int boardSize;
+    private final NavigableMap<Integer, Board> boards = new TreeMap<>();
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+
+    public ReleaseYearLeaderboards() {
+        this(DEFAULT_BOARD_SIZE);
+    }
+
+    /**
+     * @param boardSize Число лучших фильмов, хранимых упорядоченными для каждого года
+     */
+    public ReleaseYearLeaderboards(int boardSize) {
+
+        if (boardSize < 1) {
+            throw new IllegalArgumentException("Размер таблицы лидеров должен быть положительным");
+        }
+        this.boardSize = boardSize;
+    }
+
+    /**
+     * Учет текущего рейтинга и года выпуска фильма
+     * @param film Фильм после изменения
+     */
+    public synchronized void update(Film film) {
+        put(new Entry(film.getId(), film.getRate(), film.getReleaseDate().getYear()));
+    }
+
+    /**
+     * Пересчет фильма по текущему состоянию хранилища после добавления или изменения фильма
+     * @param films Чтение фильма из хранилища; вызывается под блокировкой рейтингов
+     */
+    public synchronized void refresh(long filmId, LongFunction<Film> films) {
+        update(films.apply(filmId));
+    }
+
+    /**
+     * Пересчет рейтинга фильма по текущему состоянию хранилища после лайка.
+     * Фильм, которого еще нет в рейтингах, пропускается: его учтет пересчет при добавлении.
+     * @param rates Чтение рейтинга из хранилища; вызывается под блокировкой рейтингов
+     */
+    public synchronized void refreshRate(long filmId, LongToIntFunction rates) {
+
+        Entry previous = entries.get(filmId);
+        if (previous != null) {
+            put(new Entry(filmId, rates.applyAsInt(filmId), previous.year()));
+        }
+    }
+
+    public synchronized void rebuild(Collection<Film> films) {
+
+        boards.clear();
+        entries.clear();
+        films.forEach(this::update);
+    }
+
+    /**
+     * Самые популярные фильмы за диапазон лет выпуска
+     * @param count Число фильмов
+     * @param fromYear Начальный год (включительно)
+     * @param toYear Конечный год (включительно)
+     * @return id фильмов по убыванию рейтинга
+     */
+    public synchronized List<Long> getTop(int count, int fromYear, int toYear) {
+
+        Collection<Board> range = boards.subMap(fromYear, true, toYear, true).values();
+        if (count > boardSize) {
+            return scanTop(count, range);
+        }
+        PriorityQueue<Head> heads = new PriorityQueue<>(Math.max(1, range.size()),
+                (head1, head2) -> BY_RATE_DESC.compare(head1.entry, head2.entry));
+        for (Board board : range) {
+            if (board.stale) {
+                refill(board);
+            }
+            Iterator<Entry> iterator = board.top.iterator();
+            heads.add(new Head(iterator.next(), iterator));
+        }
+
+        List<Long> top = new ArrayList<>(Math.min(count, entries.size()));
+        while (top.size() < count && !heads.isEmpty()) {
+            Head head = heads.poll();
+            top.add(head.entry.filmId());
+            if (head.iterator.hasNext()) {
+                heads.add(new Head(head.iterator.next(), head.iterator));
+            }
+        }
+        return top;
+    }
+
+    private void put(Entry entry) {
+
+        Entry previous = entries.put(entry.filmId(), entry);
+        if (entry.equals(previous)) {
+            return;
+        }
+        if (previous == null || previous.year() != entry.year()) {
+            if (previous != null) {
+                removeFromYear(previous);
+            }
+            Board board = boards.computeIfAbsent(entry.year(), year -> new Board());
+            board.films.add(entry.filmId());
+            offer(board, entry);
+            return;
+        }
+
+        Board board = boards.get(entry.year());
+        if (board.stale) {
+            // Таблица все равно будет собрана заново из entries
+            return;
+        }
+        Entry last = board.top.last();
+        if (!board.top.remove(previous)) {
+            offer(board, entry);
+            return;
+        }
+        // Фильмы вне таблицы не лучше прежнего последнего места; опустившийся ниже него фильм
+        // остается в таблице, но таблица перестраивается, если за ее пределами есть фильмы
+        board.top.add(entry);
+        if (BY_RATE_DESC.compare(entry, last) > 0 && board.films.size() > board.top.size()) {
+            board.stale = true;
+        }
+    }
+
+    private void removeFromYear(Entry entry) {
+
+        Board board = boards.get(entry.year());
+        board.films.remove(entry.filmId());
+        if (board.films.isEmpty()) {
+            boards.remove(entry.year());
+        } else if (board.top.remove(entry) && board.films.size() > board.top.size()) {
+            board.stale = true;
+        }
+    }
+
+    /**
+     * Добавление фильма в таблицу, если он лучше последнего места или таблица не заполнена
+     */
+    private void offer(Board board, Entry entry) {
+
+        if (board.top.size() < boardSize) {
+            board.top.add(entry);
+        } else if (BY_RATE_DESC.compare(entry, board.top.last()) < 0) {
+            board.top.add(entry);
+            board.top.pollLast();
+        }
+    }
+
+    private void refill(Board board) {
+
+        board.top.clear();
+        board.films.forEach(filmId -> offer(board, entries.get(filmId)));
+        board.stale = false;
+    }
+
+    private List<Long> scanTop(int count, Collection<Board> range) {
+
+        TreeSet<Entry> top = new TreeSet<>(BY_RATE_DESC);
+        for (Board board : range) {
+            board.films.forEach(filmId -> {
+                top.add(entries.get(filmId));
+                if (top.size() > count) {
+                    top.pollLast();
+                }
+            });
+        }
+        return top.stream().map(Entry::filmId).toList();
+    }
+
+    private record Head(Entry entry, Iterator<Entry> iterator) {
+    }
+}
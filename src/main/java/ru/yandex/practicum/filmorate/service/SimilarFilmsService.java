@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.event.StorageEvent;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.util.List;
+
+/**
+ * Поиск фильмов с похожей аудиторией.
+ * Индекс MinHash строится при запуске и обновляется по событиям лайков, которые публикует {@link FilmService};
+ * каждое событие сверяется с текущими лайками фильма в хранилище, поэтому их порядок не важен.
+ */
+@Service
+@Slf4j
+public class SimilarFilmsService {
+
+    private final FilmStorage filmStorage;
+    private final MinHashIndex index;
+
+
+    @Autowired
+    public SimilarFilmsService(FilmStorage filmStorage,
+                               @Value("${filmorate.similar-films.bands:32}") int bands,
+                               @Value("${filmorate.similar-films.rows:2}") int rows) {
+        this.filmStorage = filmStorage;
+        this.index = new MinHashIndex(bands, rows);
+        for (Film film : filmStorage.getFilms()) {
+            index.set(film.getId(), film.getLikes());
+        }
+        log.info("Индекс похожих фильмов: {} полос по {} строк, {} фильмов", bands, rows, index.size());
+    }
+
+    @EventListener
+    public void onStorageEvent(StorageEvent event) {
+
+        switch (event.type()) {
+            case FILM_LIKED -> index.add(event.entityId(), event.relatedId(),
+                    () -> filmStorage.hasLike(event.entityId(), event.relatedId()));
+            case FILM_UNLIKED -> index.remove(event.entityId(), event.relatedId(),
+                    () -> List.copyOf(filmStorage.getFilm(event.entityId()).getLikes()));
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Фильмы с наиболее похожей аудиторией (по оценке коэффициента Жаккара множеств лайков)
+     * @param filmId id фильма
+     * @param count Число фильмов
+     * @throws ValidationException если число фильмов не положительно
+     */
+    public List<Film> getSimilarFilms(long filmId, int count) {
+
+        if (count <= 0) {
+            final String msg = "Число фильмов должно быть положительным: " + count;
+            log.warn(msg);
+            throw new ValidationException(msg);
+        }
+        filmStorage.getFilm(filmId);
+        var similarFilms = index.query(filmId, count).stream()
+                .map(similarity -> filmStorage.getFilm(similarity.filmId()))
+                .toList();
+        log.trace("Запрос фильмов, похожих на {}, возвращает {} записей", filmId, similarFilms.size());
+        return similarFilms;
+    }
+}
@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Обратный индекс лайков: пользователь -> фильмы, которые он лайкнул.
+ * Позволяет получить и снять лайки пользователя без перебора всех фильмов.
+ */
+public class UserLikesIndex {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final Map<Long, LongHashSet> likedFilms = new HashMap<>();
+
+
+    public synchronized void add(long userId, long filmId) {
+        likedFilms.computeIfAbsent(userId, id -> new LongHashSet()).add(filmId);
+    }
+
+    public synchronized void remove(long userId, long filmId) {
+
+        LongHashSet films = likedFilms.get(userId);
+        if (films != null && films.remove(filmId) && films.isEmpty()) {
+            likedFilms.remove(userId);
+        }
+    }
+
+    /**
+     * id фильмов, которые лайкнул пользователь, по возрастанию
+     */
+    public synchronized long[] getFilmIds(long userId) {
+
+        LongHashSet films = likedFilms.get(userId);
+        if (films == null) {
+            return EMPTY;
+        }
+        long[] ids = new long[films.size()];
+        int[] count = {0};
+        films.forEach(filmId -> ids[count[0]++] = filmId);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    public synchronized void rebuild(Collection<Film> films) {
+
+        likedFilms.clear();
+        for (Film film : films) {
+            for (Long userId : film.getLikes()) {
+                add(userId, film.getId());
+            }
+        }
+    }
+}
@@ -2,25 +2,55 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.event.StorageEvent;
+import ru.yandex.practicum.filmorate.exceptions.ConflictException;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.PreconditionFailedException;
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.jfr.FriendQueryEvent;
+import ru.yandex.practicum.filmorate.jfr.FriendshipEvent;
+import ru.yandex.practicum.filmorate.model.FriendMutualCount;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.model.validators.UserValidator;
+import ru.yandex.practicum.filmorate.replication.MutationOrder;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
 
 @Service
 @Slf4j
 public class UserService {
 
+    // Начиная с этого числа друзей общие друзья подсчитываются параллельно
+    private static final int PARALLEL_MUTUAL_THRESHOLD = 256;
+
     private final UserStorage userStorage;
+    // Снимает лайки удаляемого пользователя; null - фильмов нет
+    private final FilmService filmService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MutationOrder mutationOrder;
+
+    public UserService(UserStorage userStorage, ApplicationEventPublisher eventPublisher) {
+        this(userStorage, null, eventPublisher, MutationOrder.unordered());
+    }
+
+    public UserService(UserStorage userStorage, ApplicationEventPublisher eventPublisher,
+                       MutationOrder mutationOrder) {
+        this(userStorage, null, eventPublisher, mutationOrder);
+    }
 
     @Autowired
-    public UserService(UserStorage userStorage) {
+    public UserService(UserStorage userStorage, FilmService filmService, ApplicationEventPublisher eventPublisher,
+                       MutationOrder mutationOrder) {
         this.userStorage = userStorage;
+        this.filmService = filmService;
+        this.eventPublisher = eventPublisher;
+        this.mutationOrder = mutationOrder;
     }
 
     private void checkNonEqualIds(long id1, long id2) {
@@ -34,21 +64,27 @@ public class UserService {
 
     public void addFriend(long userId, long friendId) {
 
+        FriendshipEvent event = new FriendshipEvent();
+        event.begin();
         checkNonEqualIds(userId,friendId);
-        User user = userStorage.getUser(userId);
-        User friend = userStorage.getUser(friendId);
-        user.getFriends().add(friendId);
-        friend.getFriends().add(userId);
+        mutationOrder.run(() -> {
+            boolean added = userStorage.addFriend(userId, friendId);
+            eventPublisher.publishEvent(StorageEvent.friendAdded(userId, friendId, added));
+        });
+        event.finish(userId, friendId, true);
         log.info("Пользователь {} добавил в друзья пользователя {}", userId, friendId);
     }
 
     public void removeFriend(long userId, long friendId) {
 
+        FriendshipEvent event = new FriendshipEvent();
+        event.begin();
         checkNonEqualIds(userId,friendId);
-        User user = userStorage.getUser(userId);
-        User friend = userStorage.getUser(friendId);
-        user.getFriends().remove(friendId);
-        friend.getFriends().remove(userId);
+        mutationOrder.run(() -> {
+            boolean removed = userStorage.removeFriend(userId, friendId);
+            eventPublisher.publishEvent(StorageEvent.friendRemoved(userId, friendId, removed));
+        });
+        event.finish(userId, friendId, false);
         log.info("Пользователь {} удалил из друзей пользователя {}", userId, friendId);
     }
 
@@ -60,14 +96,67 @@ public class UserService {
         return friends;
     }
 
+    /**
+     * Список друзей с числом общих друзей для каждого из них за один проход
+     * @param userId id пользователя
+     * @return Друзья пользователя с числом общих друзей
+     */
+    public List<FriendMutualCount> getFriendsWithMutualCounts(long userId) {
+        return getFriendsWithMutualCounts(userId, () -> false);
+    }
+
+    /**
+     * Друзья пользователя с числом общих друзей; подсчет прекращается, как только cancelled вернет true.
+     * Признак проверяется перед каждым другом и в параллельном подсчете тоже, поэтому отмена передается
+     * явно, а не прерыванием потока: рабочие потоки параллельного подсчета прерывания вызывающего не видят.
+     * @throws CancellationException если подсчет отменен
+     */
+    public List<FriendMutualCount> getFriendsWithMutualCounts(long userId, BooleanSupplier cancelled) {
+
+        FriendQueryEvent event = new FriendQueryEvent();
+        event.begin();
+        User user = userStorage.getUser(userId);
+        Set<Long> friendIds = user.getFriends();
+        var stream = (friendIds.size() >= PARALLEL_MUTUAL_THRESHOLD)
+                ? friendIds.parallelStream() : friendIds.stream();
+        var result = stream
+                .map(friendId -> {
+                    if (cancelled.getAsBoolean()) {
+                        throw new CancellationException("Подсчет общих друзей пользователя " + userId + " отменен");
+                    }
+                    return userStorage.getUser(friendId);
+                })
+                .map(friend -> new FriendMutualCount(friend, countCommon(friendIds, friend.getFriends())))
+                .toList();
+        event.finish(FriendQueryEvent.MUTUAL_COUNTS, userId, 0, result.size());
+        log.trace("Запрос друзей пользователя {} с общими друзьями возвращает {} записей", userId, result.size());
+        return result;
+    }
+
+    private static int countCommon(Set<Long> set1, Set<Long> set2) {
+
+        Set<Long> smaller = (set1.size() <= set2.size()) ? set1 : set2;
+        Set<Long> larger = (smaller == set1) ? set2 : set1;
+        int count = 0;
+        for (Long id : smaller) {
+            if (larger.contains(id)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     public List<User> getCommonFriends(long userId1, long userId2) {
 
+        FriendQueryEvent event = new FriendQueryEvent();
+        event.begin();
         checkNonEqualIds(userId1, userId2);
         User user1 = userStorage.getUser(userId1);
         User user2 = userStorage.getUser(userId2);
         Set<Long> commonFriendIds = new HashSet<>(user1.getFriends());
         commonFriendIds.retainAll(user2.getFriends());
         var commonFriends = commonFriendIds.stream().map(userStorage::getUser).toList();
+        event.finish(FriendQueryEvent.COMMON, userId1, userId2, commonFriends.size());
         log.trace("Запрос общих друзей пользователей {} и {} вернул {} записей", userId1, userId2, commonFriends.size());
         return commonFriends;
     }
@@ -80,6 +169,14 @@ public class UserService {
         return userStorage.getUser(id);
     }
 
+    public User getUserByEmail(String email) {
+        return userStorage.getUserByEmail(email);
+    }
+
+    public User getUserByLogin(String login) {
+        return userStorage.getUserByLogin(login);
+    }
+
     public User addUser(User user) {
 
         try {
@@ -93,18 +190,54 @@ public class UserService {
             UserValidator.checkBirthday(user.getBirthday());
 
             // Создание нового пользователя
-            return userStorage.addUser(user);
+            return mutationOrder.apply(() -> {
+                User addedUser = userStorage.addUser(user);
+                eventPublisher.publishEvent(StorageEvent.userAdded(addedUser));
+                return addedUser;
+            });
 
         } catch (ValidationException ve) {
             log.warn(ve.getMessage());
             throw ve;
+        } catch (ConflictException ce) {
+            throw ce;
         } catch (Exception e) {
             log.error(e.getMessage());
             throw e;
         }
     }
 
+    /**
+     * Удаление пользователя вместе с его лайками (с пересчетом рейтингов) и дружбой за время,
+     * пропорциональное числу его лайков и друзей. Новые лайки пользователя на время удаления
+     * блокируются ({@link FilmService#deleteUserWithLikes}).
+     */
+    public void deleteUser(long id) {
+
+        mutationOrder.run(() -> {
+            User user = userStorage.getUser(id);
+            Runnable deletion = () -> {
+                userStorage.deleteUser(id);
+                eventPublisher.publishEvent(StorageEvent.userDeleted(user));
+            };
+            if (filmService != null) {
+                filmService.deleteUserWithLikes(id, deletion);
+            } else {
+                deletion.run();
+            }
+        });
+    }
+
     public User updateUser(User user) {
+        return updateUser(user, null);
+    }
+
+    /**
+     * Изменение с проверкой версии (If-Match)
+     * @param expectedVersion Версия, которую видел клиент, null - без проверки
+     * @throws PreconditionFailedException если пользователь уже изменен другим запросом
+     */
+    public User updateUser(User user, Long expectedVersion) {
         try {
             Long requestId = user.getId();
             if (requestId == null) {
@@ -131,13 +264,17 @@ public class UserService {
             }
 
             // Все проверки пройдены - можно обновляться
-            return userStorage.updateUser(user);
+            return mutationOrder.apply(() -> {
+                User updatedUser = userStorage.updateUser(user, expectedVersion);
+                eventPublisher.publishEvent(StorageEvent.userUpdated(updatedUser));
+                return updatedUser;
+            });
 
-        } catch (ValidationException ve) {
-            log.warn(ve.getMessage());
-            throw ve;
-        } catch (NotFoundException nfe) {
-            throw nfe;
+        } catch (ValidationException | PreconditionFailedException e) {
+            log.warn(e.getMessage());
+            throw e;
+        } catch (NotFoundException | ConflictException e) {
+            throw e;
         } catch (Exception e) {
             log.error(e.getMessage());
             throw e;
@@ -0,0 +1,281 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.util.StripedLocks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+/**
+ * Многоверсионное хранилище неизменяемых записей.
+ * Каждое изменение создает новую версию записи с номером фиксации; читатель получает
+ * срез на момент последней фиксации и видит для каждой записи версию не новее среза.
+ * Читатели не берут блокировок. Писатель блокирует только изменяемые записи (блокировки
+ * разбиты на полосы по id) и строит новые версии параллельно с изменениями других записей;
+ * общая блокировка фиксации держится лишь на время присвоения номера и публикации версий.
+ * Версии, которые не нужны ни одному открытому срезу, отсекаются писателями и читателями срезов,
+ * а записи удаленных объектов убираются, когда их не видит ни один срез.
+ * @param <T> Тип записи. Записи после помещения в хранилище не должны изменяться.
+ */
+public class VersionedStore<T> {
+
+    private static final class Version<T> {
+
+        final long seq;
+        final T value;
+        volatile Version<T> prev;
+
+        Version(long seq, T value, Version<T> prev) {
+            this.seq = seq;
+            this.value = value;
+            this.prev = prev;
+        }
+    }
+
+    private record Tombstone<T>(long id, Version<T> version) {
+    }
+
+    private final Map<Long, Version<T>> heads = new ConcurrentHashMap<>();
+
+    private final StripedLocks locks = new StripedLocks();
+
+    // Удаленные записи в порядке фиксации, ожидающие, пока их не перестанут видеть срезы
+    private final Queue<Tombstone<T>> tombstones = new ConcurrentLinkedQueue<>();
+
+    // Номера открытых срезов и число читателей каждого из них
+    private final ConcurrentSkipListMap<Long, Integer> openSnapshots = new ConcurrentSkipListMap<>();
+
+    private final Object commitLock = new Object();
+
+    // Номер последней фиксации, видимой читателям
+    private volatile long visibleSeq;
+
+    // Граница, до которой уже могли быть отсечены старые версии
+    private final AtomicLong pruneHorizon = new AtomicLong();
+
+
+    public T get(long id) {
+
+        Version<T> head = heads.get(id);
+        return (head == null) ? null : head.value;
+    }
+
+    /**
+     * Число записей вместе с удаленными, которые еще видны открытым срезам
+     */
+    int recordCount() {
+        return heads.size();
+    }
+
+    public void put(long id, T value) {
+        update(id, current -> value);
+    }
+
+    /**
+     * Атомарное изменение записи
+     * @param id id записи
+     * @param updater Функция, строящая новую версию по текущей (null, если записи нет)
+     * @return Новая версия записи
+     */
+    public T update(long id, UnaryOperator<T> updater) {
+
+        long locked = locks.lock(StripedLocks.bit(id));
+        try {
+            Version<T> head = heads.get(id);
+            T value = updater.apply(valueOf(head));
+            commit(Collections.singletonMap(id, value));
+            return value;
+        } finally {
+            locks.unlock(locked);
+        }
+    }
+
+    /**
+     * Атомарное изменение двух записей одной фиксацией: срез видит либо оба изменения, либо ни одного
+     * @param id1 id первой записи
+     * @param updater1 Функция, строящая новую версию первой записи
+     * @param id2 id второй записи
+     * @param updater2 Функция, строящая новую версию второй записи
+     */
+    public void update(long id1, UnaryOperator<T> updater1, long id2, UnaryOperator<T> updater2) {
+
+        long locked = locks.lock(id1, id2);
+        try {
+            T value1 = updater1.apply(get(id1));
+            T value2 = updater2.apply(get(id2));
+            Map<Long, T> values = new HashMap<>();
+            values.put(id1, value1);
+            values.put(id2, value2);
+            commit(values);
+        } finally {
+            locks.unlock(locked);
+        }
+    }
+
+    /**
+     * Атомарное изменение группы записей одной фиксацией
+     * @param ids id записей, которые блокируются на время построения новых версий
+     * @param updater Функция от текущих значений заблокированных записей (отсутствующие не передаются)
+     *                к новым значениям изменяемых записей (null - удаление); может менять только
+     *                записи из ids. Если функция вернула null, ничего не фиксируется.
+     * @return false, если функция отказалась от изменения
+     */
+    public boolean update(Set<Long> ids, UnaryOperator<Map<Long, T>> updater) {
+
+        long stripeMask = 0;
+        for (long id : ids) {
+            stripeMask |= StripedLocks.bit(id);
+        }
+        long locked = locks.lock(stripeMask);
+        try {
+            Map<Long, T> current = new HashMap<>();
+            for (long id : ids) {
+                T value = get(id);
+                if (value != null) {
+                    current.put(id, value);
+                }
+            }
+            Map<Long, T> values = updater.apply(Collections.unmodifiableMap(current));
+            if (values == null) {
+                return false;
+            }
+            if (!ids.containsAll(values.keySet())) {
+                throw new IllegalArgumentException("Изменяются незаблокированные записи " + values.keySet());
+            }
+            commit(values);
+            return true;
+        } finally {
+            locks.unlock(locked);
+        }
+    }
+
+    private static <T> T valueOf(Version<T> version) {
+        return (version == null) ? null : version.value;
+    }
+
+    /**
+     * Публикация новых версий под одним номером фиксации. Вызывается под блокировками полос
+     * изменяемых записей, поэтому их текущие версии не меняются до публикации.
+     */
+    private void commit(Map<Long, T> values) {
+
+        List<Version<T>> versions = new ArrayList<>(values.size());
+        long seq;
+        synchronized (commitLock) {
+            seq = visibleSeq + 1;
+            for (Map.Entry<Long, T> entry : values.entrySet()) {
+                Version<T> version = new Version<>(seq, entry.getValue(), heads.get(entry.getKey()));
+                heads.put(entry.getKey(), version);
+                versions.add(version);
+                if (version.value == null) {
+                    tombstones.add(new Tombstone<>(entry.getKey(), version));
+                }
+            }
+            visibleSeq = seq;
+        }
+        long horizon = raisePruneHorizon(seq);
+        for (Version<T> version : versions) {
+            cut(version, horizon);
+        }
+        reclaimTombstones(horizon);
+    }
+
+    /**
+     * Срез всех записей на момент последней фиксации
+     * @return Неизменяемый список записей
+     */
+    public List<T> snapshot() {
+
+        long seq = openSnapshot();
+        try {
+            long horizon = raisePruneHorizon(seq);
+            List<T> values = new ArrayList<>(heads.size());
+            for (Version<T> head : heads.values()) {
+                cut(head, horizon);
+                Version<T> version = head;
+                while (version != null && version.seq > seq) {
+                    version = version.prev;
+                }
+                if (version != null && version.value != null) {
+                    values.add(version.value);
+                }
+            }
+            reclaimTombstones(horizon);
+            return Collections.unmodifiableList(values);
+        } finally {
+            closeSnapshot(seq);
+        }
+    }
+
+    private long openSnapshot() {
+
+        while (true) {
+            long seq = visibleSeq;
+            openSnapshots.merge(seq, 1, Integer::sum);
+            // Писатель мог отсечь нужные версии до регистрации среза - тогда берем срез заново
+            if (pruneHorizon.get() <= seq) {
+                return seq;
+            }
+            closeSnapshot(seq);
+        }
+    }
+
+    private void closeSnapshot(long seq) {
+        openSnapshots.computeIfPresent(seq, (key, readers) -> (readers == 1) ? null : readers - 1);
+    }
+
+    private long oldestSnapshot(long limit) {
+
+        Map.Entry<Long, Integer> oldest = openSnapshots.firstEntry();
+        return (oldest == null) ? limit : Math.min(oldest.getKey(), limit);
+    }
+
+    /**
+     * Определение границы, старше которой версии больше не нужны ни одному срезу.
+     * Граница публикуется до повторной проверки открытых срезов: читатель, зарегистрировавший
+     * срез одновременно с этим, либо будет учтен здесь, либо увидит новую границу и повторит попытку.
+     * @param limit Верхний предел границы
+     */
+    private long raisePruneHorizon(long limit) {
+
+        long horizon = oldestSnapshot(limit);
+        pruneHorizon.accumulateAndGet(horizon, Math::max);
+        return Math.min(horizon, oldestSnapshot(limit));
+    }
+
+    /**
+     * Отсечение версий записи, более старых, чем самая новая версия не позже границы
+     */
+    private static <T> void cut(Version<T> head, long horizon) {
+
+        Version<T> version = head;
+        while (version.seq > horizon && version.prev != null) {
+            version = version.prev;
+        }
+        version.prev = null;
+    }
+
+    /**
+     * Удаление записей удаленных объектов, которые зафиксированы не позже границы: срезы
+     * на границе и новее их не видят, а более старых срезов нет. Запись удаляется, только если
+     * удаление по-прежнему ее последняя версия.
+     */
+    private void reclaimTombstones(long horizon) {
+
+        Tombstone<T> tombstone;
+        while ((tombstone = tombstones.peek()) != null && tombstone.version().seq <= horizon) {
+            if (tombstones.remove(tombstone)) {
+                heads.remove(tombstone.id(), tombstone.version());
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+/**
+ * Статистика кэша хранилища
+ * @param size Число записей в кэше
+ * @param hits Попадания (включая отрицательные)
+ * @param negativeHits Попадания в записи об отсутствующих id
+ * @param misses Промахи
+ * @param evictions Вытеснения
+ * @param hitRate Доля попаданий
+ */
+public record CacheStats(int size, long hits, long negativeHits, long misses, long evictions, double hitRate) {
+
+    static CacheStats of(WTinyLfuCache<?, ?> cache, long negativeHits) {
+
+        long hits = cache.getHits();
+        long misses = cache.getMisses();
+        long requests = hits + misses;
+        return new CacheStats(cache.size(), hits, negativeHits, misses, cache.getEvictions(),
+                (requests == 0) ? 0 : (double) hits / requests);
+    }
+}
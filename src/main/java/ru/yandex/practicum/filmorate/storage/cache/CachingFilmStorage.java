@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Кэширующая обертка хранилища фильмов.
+ * Кэшируется getFilm, в том числе отсутствие фильма; любое изменение фильма инвалидирует его запись.
+ */
+public class CachingFilmStorage implements FilmStorage {
+
+    private final FilmStorage delegate;
+    private final WTinyLfuCache<Long, Optional<Film>> cache;
+    private final LongAdder negativeHits = new LongAdder();
+
+
+    public CachingFilmStorage(FilmStorage delegate, int capacity) {
+        this.delegate = delegate;
+        this.cache = new WTinyLfuCache<>(capacity);
+    }
+
+    public FilmStorage getDelegate() {
+        return delegate;
+    }
+
+    public CacheStats getStats() {
+        return CacheStats.of(cache, negativeHits.sum());
+    }
+
+    @Override
+    public Collection<Film> getFilms() {
+        return delegate.getFilms();
+    }
+
+    @Override
+    public Stream<Film> copyFilms() {
+        return delegate.copyFilms();
+    }
+
+    @Override
+    public Film getFilm(long id) {
+
+        Optional<Film> cached = cache.get(id);
+        if (cached == null) {
+            long stamp = cache.stamp(id);
+            try {
+                cached = Optional.of(delegate.getFilm(id));
+            } catch (NotFoundException e) {
+                cached = Optional.empty();
+            }
+            cache.putIfUnmodified(id, cached, stamp);
+        } else if (cached.isEmpty()) {
+            negativeHits.increment();
+        }
+        return cached.orElseThrow(() -> new NotFoundException("Фильм с id = " + id + " не найден"));
+    }
+
+    @Override
+    public Film addFilm(Film film) {
+
+        Film added = delegate.addFilm(film);
+        cache.invalidate(added.getId());
+        return added;
+    }
+
+    @Override
+    public Film updateFilm(Film film, Long expectedVersion) {
+
+        try {
+            return delegate.updateFilm(film, expectedVersion);
+        } finally {
+            cache.invalidate(film.getId());
+        }
+    }
+
+    @Override
+    public boolean like(long filmId, long userId) {
+
+        try {
+            return delegate.like(filmId, userId);
+        } finally {
+            cache.invalidate(filmId);
+        }
+    }
+
+    @Override
+    public boolean unlike(long filmId, long userId) {
+
+        try {
+            return delegate.unlike(filmId, userId);
+        } finally {
+            cache.invalidate(filmId);
+        }
+    }
+}
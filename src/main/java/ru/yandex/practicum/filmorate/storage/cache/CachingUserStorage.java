@@ -0,0 +1,127 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Кэширующая обертка хранилища пользователей.
+ * Кэшируется getUser, в том числе отсутствие пользователя; изменение или удаление пользователя
+ * и его дружбы инвалидирует записи всех затронутых пользователей.
+ */
+public class CachingUserStorage implements UserStorage {
+
+    private final UserStorage delegate;
+    private final WTinyLfuCache<Long, Optional<User>> cache;
+    private final LongAdder negativeHits = new LongAdder();
+
+
+    public CachingUserStorage(UserStorage delegate, int capacity) {
+        this.delegate = delegate;
+        this.cache = new WTinyLfuCache<>(capacity);
+    }
+
+    public UserStorage getDelegate() {
+        return delegate;
+    }
+
+    public CacheStats getStats() {
+        return CacheStats.of(cache, negativeHits.sum());
+    }
+
+    @Override
+    public Collection<User> getUsers() {
+        return delegate.getUsers();
+    }
+
+    @Override
+    public Stream<User> copyUsers() {
+        return delegate.copyUsers();
+    }
+
+    @Override
+    public User getUser(long id) {
+
+        Optional<User> cached = cache.get(id);
+        if (cached == null) {
+            long stamp = cache.stamp(id);
+            try {
+                cached = Optional.of(delegate.getUser(id));
+            } catch (NotFoundException e) {
+                cached = Optional.empty();
+            }
+            cache.putIfUnmodified(id, cached, stamp);
+        } else if (cached.isEmpty()) {
+            negativeHits.increment();
+        }
+        return cached.orElseThrow(() -> new NotFoundException("Пользователь с id = " + id + " не найден"));
+    }
+
+    @Override
+    public User getUserByEmail(String email) {
+        return delegate.getUserByEmail(email);
+    }
+
+    @Override
+    public User getUserByLogin(String login) {
+        return delegate.getUserByLogin(login);
+    }
+
+    @Override
+    public User addUser(User user) {
+
+        User added = delegate.addUser(user);
+        cache.invalidate(added.getId());
+        return added;
+    }
+
+    @Override
+    public User updateUser(User user, Long expectedVersion) {
+
+        try {
+            return delegate.updateUser(user, expectedVersion);
+        } finally {
+            cache.invalidate(user.getId());
+        }
+    }
+
+    @Override
+    public boolean addFriend(long userId, long friendId) {
+
+        try {
+            return delegate.addFriend(userId, friendId);
+        } finally {
+            cache.invalidate(userId);
+            cache.invalidate(friendId);
+        }
+    }
+
+    @Override
+    public boolean removeFriend(long userId, long friendId) {
+
+        try {
+            return delegate.removeFriend(userId, friendId);
+        } finally {
+            cache.invalidate(userId);
+            cache.invalidate(friendId);
+        }
+    }
+
+    @Override
+    public void deleteUser(long id) {
+
+        List<Long> friends = List.copyOf(delegate.getUser(id).getFriends());
+        try {
+            delegate.deleteUser(id);
+        } finally {
+            cache.invalidate(id);
+            friends.forEach(cache::invalidate);
+        }
+    }
+}
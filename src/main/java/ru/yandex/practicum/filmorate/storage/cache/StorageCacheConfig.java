@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+/**
+ * Кэширующие обертки поверх хранилищ выбранного режима.
+ * Обертки объявлены основными (@Primary), поэтому сервисы получают их вместо самих хранилищ;
+ * само хранилище внедряется в обертку по интерфейсу (Spring исключает из кандидатов
+ * создаваемый бин).
+ */
+@Configuration
+@ConditionalOnProperty(name = "filmorate.storage.cache.enabled", havingValue = "true")
+public class StorageCacheConfig {
+
+    @Bean
+    @Primary
+    public CachingFilmStorage cachingFilmStorage(FilmStorage filmStorage,
+                                                 @Value("${filmorate.storage.cache.films:10000}") int capacity) {
+        return new CachingFilmStorage(filmStorage, capacity);
+    }
+
+    @Bean
+    @Primary
+    public CachingUserStorage cachingUserStorage(UserStorage userStorage,
+                                                 @Value("${filmorate.storage.cache.users:10000}") int capacity) {
+        return new CachingUserStorage(userStorage, capacity);
+    }
+}
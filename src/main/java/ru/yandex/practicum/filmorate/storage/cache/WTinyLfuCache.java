@@ -0,0 +1,251 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ограниченный по размеру кэш с вытеснением в стиле W-TinyLFU.
+ * Новые записи попадают в небольшое окно LRU (1% емкости). Вытесненная из окна запись
+ * допускается в основную область только если обращались к ней чаще, чем к кандидату
+ * на вытеснение оттуда, - так разовый проход по редким ключам не вымывает популярные.
+ * Основная область - сегментированный LRU: испытательный сегмент и защищенный (80%),
+ * куда запись переходит при повторном обращении.
+ * <p>
+ * Чтение не берет блокировок: значение ищется в ConcurrentHashMap, а обращение записывается
+ * в кольцевой буфер, который применяется к частотам и порядку LRU пачкой под блокировкой политики,
+ * если она свободна. При переполнении буфера старые обращения теряются - на точность вытеснения
+ * это почти не влияет. Запись и инвалидация идут под блокировкой политики.
+ */
+public class WTinyLfuCache<K, V> {
+
+    private static final class Node<K, V> {
+
+        final K key;
+        volatile V value;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private static final int READ_BUFFER_SIZE = 256;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    // Буфер применяется после каждых 64 чтений
+    private static final int DRAIN_MASK = 63;
+
+    // Полосы меток инвалидации; метка общая для ключей одной полосы
+    private static final int STAMP_STRIPES = 4096;
+
+    private final int windowCapacity;
+    private final int mainCapacity;
+    private final int protectedCapacity;
+
+    private final Map<K, Node<K, V>> data = new ConcurrentHashMap<>();
+
+    // Структуры политики вытеснения; доступ только под evictionLock
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final LinkedHashMap<K, Node<K, V>> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Node<K, V>> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Node<K, V>> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+
+    private final AtomicReferenceArray<K> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final AtomicLong reads = new AtomicLong();
+
+    // Число инвалидаций по полосам ключей, чтобы не записывать значения, прочитанные до инвалидации
+    private final AtomicLongArray stamps = new AtomicLongArray(STAMP_STRIPES);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+
+    public WTinyLfuCache(int capacity) {
+
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Емкость кэша должна быть не меньше 2");
+        }
+        windowCapacity = Math.max(1, capacity / 100);
+        mainCapacity = capacity - windowCapacity;
+        protectedCapacity = mainCapacity * 4 / 5;
+        sketch = new FrequencySketch(capacity);
+    }
+
+    public V get(K key) {
+
+        Node<K, V> node = data.get(key);
+        recordRead(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return node.value;
+    }
+
+    /**
+     * Метка для {@link #putIfUnmodified}; берется до чтения значения из источника
+     */
+    public long stamp(K key) {
+        return stamps.get(stripe(key));
+    }
+
+    /**
+     * Запись значения, если с момента получения метки ключ не инвалидировался.
+     * Инвалидация других ключей запись не отменяет (кроме редкого совпадения полосы меток).
+     */
+    public boolean putIfUnmodified(K key, V value, long stamp) {
+
+        evictionLock.lock();
+        try {
+            if (stamps.get(stripe(key)) != stamp) {
+                return false;
+            }
+            putLocked(key, value);
+            return true;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void put(K key, V value) {
+
+        evictionLock.lock();
+        try {
+            putLocked(key, value);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Метка меняется до удаления под блокировкой: запись, проверившая метку раньше, будет удалена,
+     * а проверяющая позже - отклонена
+     */
+    public void invalidate(K key) {
+
+        stamps.incrementAndGet(stripe(key));
+        evictionLock.lock();
+        try {
+            if (data.remove(key) != null && window.remove(key) == null && protectedSegment.remove(key) == null) {
+                probation.remove(key);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private static int stripe(Object key) {
+
+        int h = key.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (STAMP_STRIPES - 1);
+    }
+
+    private void recordRead(K key) {
+
+        long n = reads.getAndIncrement();
+        readBuffer.lazySet((int) (n & READ_BUFFER_MASK), key);
+        if ((n & DRAIN_MASK) == DRAIN_MASK && evictionLock.tryLock()) {
+            try {
+                drainReadBuffer();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Применение накопленных чтений: учет частоты и перемещение в порядке LRU
+     */
+    private void drainReadBuffer() {
+
+        for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+            K key = readBuffer.getAndSet(i, null);
+            if (key == null) {
+                continue;
+            }
+            sketch.increment(key);
+            if (window.get(key) == null && protectedSegment.get(key) == null) {
+                Node<K, V> node = probation.remove(key);
+                if (node != null) {
+                    promoteToProtected(node);
+                }
+            }
+        }
+    }
+
+    private void putLocked(K key, V value) {
+
+        drainReadBuffer();
+        Node<K, V> node = data.get(key);
+        if (node != null) {
+            node.value = value;
+            return;
+        }
+        node = new Node<>(key, value);
+        data.put(key, node);
+        window.put(key, node);
+        if (window.size() > windowCapacity) {
+            evictFromWindow();
+        }
+    }
+
+    private void promoteToProtected(Node<K, V> node) {
+
+        protectedSegment.put(node.key, node);
+        if (protectedSegment.size() > protectedCapacity) {
+            Node<K, V> eldest = removeEldest(protectedSegment);
+            probation.put(eldest.key, eldest);
+        }
+    }
+
+    private void evictFromWindow() {
+
+        Node<K, V> candidate = removeEldest(window);
+        if (probation.size() + protectedSegment.size() < mainCapacity) {
+            probation.put(candidate.key, candidate);
+            return;
+        }
+        LinkedHashMap<K, Node<K, V>> victimSegment = probation.isEmpty() ? protectedSegment : probation;
+        K victim = victimSegment.keySet().iterator().next();
+        if (sketch.frequency(candidate.key) > sketch.frequency(victim)) {
+            data.remove(victimSegment.remove(victim).key);
+            probation.put(candidate.key, candidate);
+        } else {
+            data.remove(candidate.key);
+        }
+        evictions.increment();
+    }
+
+    private static <K, V> Node<K, V> removeEldest(LinkedHashMap<K, Node<K, V>> segment) {
+
+        Iterator<Node<K, V>> iterator = segment.values().iterator();
+        Node<K, V> eldest = iterator.next();
+        iterator.remove();
+        return eldest;
+    }
+}
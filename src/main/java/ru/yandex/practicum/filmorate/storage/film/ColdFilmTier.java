@@ -0,0 +1,281 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Холодный уровень хранилища фильмов: записи фильмов вместе с лайками лежат в отображенном
+ * в память файле, в куче остается только индекс id -> смещение записи.
+ * Файл пополняется только в конец; место поднятых обратно в кучу записей освобождается
+ * уплотнением, когда мусора становится больше, чем живых данных.
+ * Одно отображение ограничено 2 ГБ, поэтому файл отображается сегментами: запись целиком лежит
+ * в одном сегменте, а не поместившаяся в остаток сегмента начинается со следующего (остаток считается мусором).
+ * Не потокобезопасен - доступ синхронизирует владелец.
+ */
+final class ColdFilmTier implements AutoCloseable {
+
+    private static final int NO_VALUE = Integer.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 1 << 20;
+    private static final int MIN_COMPACTION_GARBAGE = 1 << 20;
+    static final int DEFAULT_SEGMENT_BYTES = 1 << 30;
+
+    private final Path path;
+    private final int segmentBytes;
+    private FileChannel channel;
+    // Отображения сегментов; последний растет удвоением до размера сегмента
+    private List<MappedByteBuffer> segments = new ArrayList<>();
+
+    // id фильма -> смещение записи в файле
+    private final Map<Long, Long> index = new HashMap<>();
+
+    private long position;
+    private long garbageBytes;
+
+
+    ColdFilmTier(Path path) {
+        this(path, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * @param segmentBytes Размер сегмента отображения, не больше 2 ГБ
+     */
+    ColdFilmTier(Path path, int segmentBytes) {
+
+        this.path = path;
+        this.segmentBytes = segmentBytes;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            segments.add(map(0, Math.min(INITIAL_CAPACITY, segmentBytes)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть файл холодного уровня " + path, e);
+        }
+    }
+
+    int size() {
+        return index.size();
+    }
+
+    long fileBytes() {
+        return position;
+    }
+
+    boolean contains(long id) {
+        return index.containsKey(id);
+    }
+
+    /**
+     * Запись фильма в холодный уровень
+     */
+    void put(Film film) {
+
+        byte[] name = bytes(film.getName());
+        byte[] description = bytes(film.getDescription());
+        int length = Integer.BYTES                  // длина записи
+                + Long.BYTES                        // id
+                + Long.BYTES                        // версия
+                + Integer.BYTES + (name == null ? 0 : name.length)
+                + Integer.BYTES + (description == null ? 0 : description.length)
+                + Integer.BYTES * 3                 // дата выпуска, продолжительность, число лайков
+                + Long.BYTES * film.getLikes().size();
+        ensureCapacity(length);
+
+        Long previous = index.put(film.getId(), position);
+        if (previous != null) {
+            garbageBytes += at(previous).getInt();
+        }
+        ByteBuffer out = at(position);
+        out.putInt(length);
+        out.putLong(film.getId());
+        out.putLong(film.getVersion() == null ? 0 : film.getVersion());
+        putBytes(out, name);
+        putBytes(out, description);
+        out.putInt(film.getReleaseDate() == null ? NO_VALUE : (int) film.getReleaseDate().toEpochDay());
+        out.putInt(film.getDuration() == null ? NO_VALUE : film.getDuration());
+        out.putInt(film.getLikes().size());
+        for (Long like : film.getLikes()) {
+            out.putLong(like);
+        }
+        position += length;
+    }
+
+    /**
+     * Чтение фильма без удаления из холодного уровня
+     * @return null, если фильма на этом уровне нет
+     */
+    Film get(long id) {
+
+        Long offset = index.get(id);
+        return (offset == null) ? null : read(offset);
+    }
+
+    /**
+     * Извлечение фильма из холодного уровня
+     * @return null, если фильма на этом уровне нет
+     */
+    Film remove(long id) {
+
+        Long offset = index.remove(id);
+        if (offset == null) {
+            return null;
+        }
+        Film film = read(offset);
+        garbageBytes += at(offset).getInt();
+        if (garbageBytes > MIN_COMPACTION_GARBAGE && garbageBytes > position - garbageBytes) {
+            compact();
+        }
+        return film;
+    }
+
+    /**
+     * id фильмов холодного уровня
+     */
+    long[] ids() {
+        return index.keySet().stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @Override
+    public void close() {
+
+        try {
+            channel.close();
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Буфер, установленный на смещение в файле
+     */
+    private ByteBuffer at(long offset) {
+        return segments.get((int) (offset / segmentBytes)).duplicate().position((int) (offset % segmentBytes));
+    }
+
+    private Film read(long offset) {
+
+        ByteBuffer in = at(offset + Integer.BYTES);
+        Film film = new ConcurrentFilm();
+        film.setId(in.getLong());
+        film.setVersion(in.getLong());
+        film.setName(string(in));
+        film.setDescription(string(in));
+        int releaseEpochDay = in.getInt();
+        if (releaseEpochDay != NO_VALUE) {
+            film.setReleaseDate(LocalDate.ofEpochDay(releaseEpochDay));
+        }
+        int duration = in.getInt();
+        if (duration != NO_VALUE) {
+            film.setDuration(duration);
+        }
+        int likes = in.getInt();
+        for (int i = 0; i < likes; i++) {
+            film.getLikes().add(in.getLong());
+        }
+        film.setRate(likes);
+        return film;
+    }
+
+    /**
+     * Подготовка места под запись с текущей позиции: переход к следующему сегменту, если запись
+     * не помещается в остаток текущего, и расширение отображения сегмента
+     */
+    private void ensureCapacity(int length) {
+
+        if (length > segmentBytes) {
+            throw new IllegalArgumentException("Запись фильма (" + length + " байт) больше сегмента файла "
+                    + "холодного уровня (" + segmentBytes + " байт)");
+        }
+        int offset = (int) (position % segmentBytes);
+        if (offset + length > segmentBytes) {
+            garbageBytes += segmentBytes - offset;
+            position += segmentBytes - offset;
+            offset = 0;
+        }
+        int segment = (int) (position / segmentBytes);
+        try {
+            if (segment == segments.size()) {
+                segments.add(map(segment, Math.min(INITIAL_CAPACITY, segmentBytes)));
+            }
+            MappedByteBuffer buffer = segments.get(segment);
+            long required = (long) offset + length;
+            if (required <= buffer.capacity()) {
+                return;
+            }
+            long capacity = buffer.capacity();
+            while (capacity < required) {
+                capacity *= 2;
+            }
+            segments.set(segment, map(segment, (int) Math.min(capacity, segmentBytes)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось расширить файл холодного уровня " + path, e);
+        }
+    }
+
+    private MappedByteBuffer map(int segment, int size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_WRITE, (long) segment * segmentBytes, size);
+    }
+
+    /**
+     * Перенос живых записей в новый файл, который затем заменяет текущий
+     */
+    private void compact() {
+
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        ColdFilmTier target = new ColdFilmTier(compacted, segmentBytes);
+        for (long offset : index.values()) {
+            target.put(read(offset));
+        }
+        try {
+            channel.close();
+            Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось уплотнить файл холодного уровня " + path, e);
+        }
+        channel = target.channel;
+        segments = target.segments;
+        index.clear();
+        index.putAll(target.index);
+        position = target.position;
+        garbageBytes = target.garbageBytes;
+    }
+
+    private static byte[] bytes(String value) {
+        return (value == null) ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putBytes(ByteBuffer out, byte[] bytes) {
+
+        if (bytes == null) {
+            out.putInt(-1);
+        } else {
+            out.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static String string(ByteBuffer in) {
+
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+import ru.yandex.practicum.filmorate.util.StringDeduplicator;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Компактное внутреннее представление фильма: примитивные поля, дата как номер дня эпохи,
+ * повторяющиеся строки разделяются, множество лайков создается только при первом лайке.
+ * Лайки, рейтинг и проверка лайка работают прямо с компактным множеством; объект {@link Film}
+ * строится только для ответа и получает лайки без копирования - представлением множества,
+ * которое после этого копируется перед первым изменением.
+ */
+final class CompactFilm {
+
+    /**
+     * Фильм, построенный для ответа
+     */
+    private static final class Materialized extends Film {
+
+        Materialized(Set<Long> likes) {
+            super(likes);
+        }
+    }
+
+    private static final int NO_VALUE = Integer.MIN_VALUE;
+
+    final long id;
+    String name;
+    String description;
+    int releaseEpochDay = NO_VALUE;
+    int duration = NO_VALUE;
+    LongHashSet likes;
+    // Множество лайков отдано наружу в построенном фильме и не должно меняться на месте
+    private boolean likesShared;
+    long version = 1;
+
+    CompactFilm(long id) {
+        this.id = id;
+    }
+
+    void apply(Film film, StringDeduplicator strings) {
+
+        if (film.getName() != null) {
+            name = strings.dedupe(film.getName());
+        }
+        if (film.getDescription() != null) {
+            description = strings.dedupe(film.getDescription());
+        }
+        if (film.getReleaseDate() != null) {
+            releaseEpochDay = (int) film.getReleaseDate().toEpochDay();
+        }
+        if (film.getDuration() != null) {
+            duration = film.getDuration();
+        }
+    }
+
+    boolean addLike(long userId) {
+
+        if (likes == null) {
+            likes = new LongHashSet();
+        } else if (likes.contains(userId)) {
+            return false;
+        }
+        return writableLikes().add(userId);
+    }
+
+    boolean removeLike(long userId) {
+
+        if (!hasLike(userId)) {
+            return false;
+        }
+        if (likes.size() == 1) {
+            likes = null;
+            likesShared = false;
+            return true;
+        }
+        return writableLikes().remove(userId);
+    }
+
+    boolean hasLike(long userId) {
+        return likes != null && likes.contains(userId);
+    }
+
+    int rate() {
+        return (likes == null) ? 0 : likes.size();
+    }
+
+    private LongHashSet writableLikes() {
+
+        if (likesShared) {
+            likes = likes.copy();
+            likesShared = false;
+        }
+        return likes;
+    }
+
+    Film toFilm() {
+
+        Film film = new Materialized((likes == null) ? Set.of() : likes.asSet());
+        likesShared = (likes != null);
+        film.setId(id);
+        film.setName(name);
+        film.setDescription(description);
+        film.setReleaseDate((releaseEpochDay == NO_VALUE) ? null : LocalDate.ofEpochDay(releaseEpochDay));
+        film.setDuration((duration == NO_VALUE) ? null : duration);
+        film.setVersion(version);
+        film.setRate(rate());
+        return film;
+    }
+}
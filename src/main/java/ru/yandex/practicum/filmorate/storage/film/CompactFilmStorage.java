@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.jfr.StorageLookupEvent;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.util.StringDeduplicator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Хранилище фильмов в компактном представлении.
+ * Фильмы лежат в массиве по id (id выдаются подряд), поэтому на запись не тратятся
+ * узлы хеш-таблицы и упакованные ключи. Наружу отдаются обычные объекты {@link Film}, но лайки,
+ * рейтинг и проверка лайка ({@link #like}, {@link #getRate}, {@link #hasLike}) их не строят.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.storage.mode", havingValue = "compact")
+@Slf4j
+public class CompactFilmStorage implements FilmStorage {
+
+    private CompactFilm[] films = new CompactFilm[1024];
+
+    private int count;
+
+    private final StringDeduplicator strings = new StringDeduplicator(4096);
+
+
+    @Override
+    public synchronized Collection<Film> getFilms() {
+
+        List<Film> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(films[i].toFilm());
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized Film getFilm(long id) {
+
+        StorageLookupEvent event = new StorageLookupEvent();
+        event.begin();
+        Film film = find(id).toFilm();
+        event.finish(this, StorageLookupEvent.FILM, id);
+        return film;
+    }
+
+    @Override
+    public synchronized Film addFilm(Film film) {
+
+        if (count == films.length) {
+            films = Arrays.copyOf(films, count * 2);
+        }
+        CompactFilm compactFilm = new CompactFilm(count + 1);
+        compactFilm.apply(film, strings);
+        films[count++] = compactFilm;
+        film.setId(compactFilm.id);
+        film.setVersion(compactFilm.version);
+        log.info("Добавлен фильм {}", film);
+        return film;
+    }
+
+    @Override
+    public synchronized Film updateFilm(Film film, Long expectedVersion) {
+
+        CompactFilm compactFilm = find(film.getId());
+        FilmStorage.checkVersion(compactFilm.id, compactFilm.version, expectedVersion);
+        compactFilm.apply(film, strings);
+        compactFilm.version++;
+        log.info("Информация о фильме с id = {} обновлена", film.getId());
+        return compactFilm.toFilm();
+    }
+
+    @Override
+    public synchronized boolean like(long filmId, long userId) {
+        return find(filmId).addLike(userId);
+    }
+
+    @Override
+    public synchronized boolean unlike(long filmId, long userId) {
+        return find(filmId).removeLike(userId);
+    }
+
+    @Override
+    public synchronized int getRate(long filmId) {
+        return find(filmId).rate();
+    }
+
+    @Override
+    public synchronized boolean hasLike(long filmId, long userId) {
+        return find(filmId).hasLike(userId);
+    }
+
+    private CompactFilm find(long id) {
+
+        if (id < 1 || id > count) {
+            String msg = "Фильм с id = " + id + " не найден";
+            log.warn(msg);
+            throw new NotFoundException(msg);
+        }
+        return films[(int) (id - 1)];
+    }
+}
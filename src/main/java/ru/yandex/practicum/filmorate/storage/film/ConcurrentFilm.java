@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Фильм в хранилищах, которые меняют лайки на месте. Лайки лежат в потокобезопасном множестве:
+ * читатель, обходящий их без блокировки (например, при сериализации ответа), не получит
+ * ConcurrentModificationException и увидит каждый лайк не более одного раза.
+ */
+final class ConcurrentFilm extends Film {
+
+    ConcurrentFilm() {
+        super(ConcurrentHashMap.newKeySet());
+    }
+
+    /**
+     * Новая версия фильма с тем же множеством лайков
+     */
+    ConcurrentFilm(Set<Long> likes) {
+        super(likes);
+    }
+
+    /**
+     * Копия фильма вместе с лайками, отвязанная от объекта вызывающего
+     */
+    static ConcurrentFilm copyOf(Film source) {
+        return copy(source, new ConcurrentFilm());
+    }
+
+    /**
+     * Копирование полей и лайков фильма в заданный объект
+     */
+    static <T extends Film> T copy(Film source, T film) {
+
+        film.setId(source.getId());
+        film.setName(source.getName());
+        film.setDescription(source.getDescription());
+        film.setReleaseDate(source.getReleaseDate());
+        film.setDuration(source.getDuration());
+        film.setVersion(source.getVersion());
+        film.setRate(source.getRate());
+        film.getLikes().addAll(source.getLikes());
+        return film;
+    }
+}
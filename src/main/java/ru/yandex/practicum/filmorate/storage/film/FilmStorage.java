@@ -1,16 +1,77 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.PreconditionFailedException;
 import ru.yandex.practicum.filmorate.model.Film;
 
 import java.util.Collection;
+import java.util.stream.Stream;
 
 public interface FilmStorage {
 
     Collection<Film> getFilms();
 
+    /**
+     * Все фильмы, каждый скопированный атомарно относительно изменений его лайков: копии не меняются
+     * после возврата. Фильм копируется, только когда до него доходит обход потока, поэтому копии всех
+     * фильмов не держатся в куче одновременно, а разные фильмы копируются в разные моменты.
+     * Хранилища, которые и так отдают неизменяемые версии фильмов, возвращают getFilms().
+     */
+    default Stream<Film> copyFilms() {
+        return getFilms().stream();
+    }
+
     Film getFilm(long id);
 
     Film addFilm(Film film);
 
-    Film updateFilm(Film film);
+    default Film updateFilm(Film film) {
+        return updateFilm(film, null);
+    }
+
+    /**
+     * Изменение фильма с проверкой версии: изменение применяется, только если текущая версия фильма
+     * равна ожидаемой, и увеличивает версию на 1
+     * @param expectedVersion Ожидаемая версия, null - без проверки
+     * @throws PreconditionFailedException если фильм уже изменен
+     */
+    Film updateFilm(Film film, Long expectedVersion);
+
+    /**
+     * Лайк без построения объекта фильма для ответа
+     * @return true, если лайка еще не было
+     */
+    boolean like(long filmId, long userId);
+
+    /**
+     * Снятие лайка без построения объекта фильма
+     * @return true, если лайк был
+     */
+    boolean unlike(long filmId, long userId);
+
+    /**
+     * @throws NotFoundException если фильма нет
+     */
+    default int getRate(long filmId) {
+        return getFilm(filmId).getRate();
+    }
+
+    /**
+     * @throws NotFoundException если фильма нет
+     */
+    default boolean hasLike(long filmId, long userId) {
+        return getFilm(filmId).getLikes().contains(userId);
+    }
+
+    /**
+     * Проверка ожидаемой версии фильма перед изменением
+     * @throws PreconditionFailedException если версии не совпадают
+     */
+    static void checkVersion(long id, long version, Long expectedVersion) {
+
+        if (expectedVersion != null && expectedVersion != version) {
+            throw new PreconditionFailedException("Фильм с id = " + id + " уже изменен: текущая версия "
+                    + version + ", ожидалась " + expectedVersion);
+        }
+    }
 }
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+/**
+ * Метрики многоуровневого хранилища фильмов
+ * @param hotFilms Число фильмов в куче
+ * @param coldFilms Число фильмов в отображенном файле
+ * @param hotBytes Оценка занимаемой фильмами кучи, байт
+ * @param heapBudget Бюджет кучи, байт
+ * @param coldFileBytes Размер используемой части файла, байт
+ * @param hotHits Обращения, обслуженные из кучи
+ * @param coldHits Обращения, потребовавшие подъема фильма из файла
+ * @param hotHitRate Доля обращений, обслуженных из кучи
+ * @param demotions Число вытеснений в файл
+ * @param avgPromotionMicros Среднее время подъема фильма из файла, мкс
+ * @param maxPromotionMicros Максимальное время подъема фильма из файла, мкс
+ */
+public record FilmTierStats(int hotFilms, int coldFilms, long hotBytes, long heapBudget, long coldFileBytes,
+                            long hotHits, long coldHits, double hotHitRate, long demotions,
+                            double avgPromotionMicros, double maxPromotionMicros) {
+}
@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.util.PersistentLongSet;
+
+import java.time.LocalDate;
+
+/**
+ * Неизменяемая версия фильма в SnapshotFilmStorage. Сеттеры запрещены, а лайки хранятся
+ * в неизменяемом множестве, общем по структуре с соседними версиями, поэтому новая версия
+ * при лайке строится без копирования всех лайков.
+ */
+final class FrozenFilm extends Film {
+
+    FrozenFilm(Film source, PersistentLongSet likes, long version) {
+
+        super(likes);
+        super.setId(source.getId());
+        super.setName(source.getName());
+        super.setDescription(source.getDescription());
+        super.setReleaseDate(source.getReleaseDate());
+        super.setDuration(source.getDuration());
+        super.setRate(likes.size());
+        super.setVersion(version);
+    }
+
+    PersistentLongSet likes() {
+        return (PersistentLongSet) getLikes();
+    }
+
+    private static UnsupportedOperationException frozen() {
+        return new UnsupportedOperationException("Версия фильма в хранилище не изменяется");
+    }
+
+    @Override
+    public void setId(Long id) {
+        throw frozen();
+    }
+
+    @Override
+    public void setName(String name) {
+        throw frozen();
+    }
+
+    @Override
+    public void setDescription(String description) {
+        throw frozen();
+    }
+
+    @Override
+    public void setReleaseDate(LocalDate releaseDate) {
+        throw frozen();
+    }
+
+    @Override
+    public void setDuration(Integer duration) {
+        throw frozen();
+    }
+
+    @Override
+    public void setRate(Integer rate) {
+        throw frozen();
+    }
+
+    @Override
+    public void setVersion(Long version) {
+        throw frozen();
+    }
+}
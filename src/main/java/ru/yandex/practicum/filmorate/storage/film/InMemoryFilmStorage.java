@@ -1,24 +1,38 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.annotation.RequestBody;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.jfr.StorageLookupEvent;
 import ru.yandex.practicum.filmorate.model.Film;
 
-import java.time.LocalDate;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище фильмов в куче.
+ * Изменение фильма не трогает опубликованный объект: строится новая версия, которая заменяет
+ * прежнюю сравнением с обменом (compare-and-swap). Если за это время фильм заменило другое
+ * изменение, новая версия строится заново от свежей. Читатель видит либо старую версию,
+ * либо новую целиком. Лайки меняются на месте под блокировкой записи в таблице и переносятся
+ * в новую версию в момент ее публикации; множество лайков потокобезопасное ({@link ConcurrentFilm}),
+ * поэтому его можно обходить без блокировки.
+ */
 @Component
+@ConditionalOnProperty(name = "filmorate.storage.mode", havingValue = "in-memory", matchIfMissing = true)
 @Slf4j
 public class InMemoryFilmStorage implements FilmStorage {
 
-    private final Map<Long, Film> films = new HashMap<>();
+    private final Map<Long, Film> films = new ConcurrentHashMap<>();
 
-    private long id;
+    private final AtomicLong id = new AtomicLong();
 
 
     @Override
@@ -26,10 +40,34 @@ public class InMemoryFilmStorage implements FilmStorage {
         return films.values();
     }
 
+    /**
+     * Копирование под блокировкой записи таблицы, под которой меняются и лайки фильма
+     */
+    @Override
+    public Stream<Film> copyFilms() {
+        return films.keySet().stream().map(this::copyFilm).filter(Objects::nonNull);
+    }
+
+    /**
+     * @return Копия фильма или null, если фильм уже удален
+     */
+    private Film copyFilm(long id) {
+
+        Film[] copy = new Film[1];
+        films.computeIfPresent(id, (key, film) -> {
+            copy[0] = ConcurrentFilm.copy(film, new Film());
+            return film;
+        });
+        return copy[0];
+    }
+
     @Override
     public Film getFilm(long id) {
 
+        StorageLookupEvent event = new StorageLookupEvent();
+        event.begin();
         Film film = films.get(id);
+        event.finish(this, StorageLookupEvent.FILM, id);
         if (film == null) {
             String msg = "Фильм с id = " + id + " не найден";
             log.warn(msg);
@@ -41,38 +79,84 @@ public class InMemoryFilmStorage implements FilmStorage {
     @Override
     public Film addFilm(@RequestBody Film film) {
 
-        film.setId(++id);
-        films.put(film.getId(), film);
-        log.info("Добавлен фильм {}", film);
-        return film;
+        film.setId(id.incrementAndGet());
+        film.setVersion(1L);
+        Film storedFilm = ConcurrentFilm.copyOf(film);
+        films.put(storedFilm.getId(), storedFilm);
+        log.info("Добавлен фильм {}", storedFilm);
+        return storedFilm;
     }
 
     @Override
-    public Film updateFilm(@RequestBody Film film) {
-
-        Film existingFilm = getFilm(film.getId());
-
-        String newName = film.getName();
-        if (newName != null) {
-            existingFilm.setName(newName);
+    public Film updateFilm(@RequestBody Film film, Long expectedVersion) {
+
+        while (true) {
+            Film existingFilm = getFilm(film.getId());
+            FilmStorage.checkVersion(existingFilm.getId(), existingFilm.getVersion(), expectedVersion);
+
+            Film updatedFilm = new ConcurrentFilm(existingFilm.getLikes());
+            updatedFilm.setId(existingFilm.getId());
+            updatedFilm.setName((film.getName() != null) ? film.getName() : existingFilm.getName());
+            updatedFilm.setDescription((film.getDescription() != null)
+                    ? film.getDescription() : existingFilm.getDescription());
+            updatedFilm.setReleaseDate((film.getReleaseDate() != null)
+                    ? film.getReleaseDate() : existingFilm.getReleaseDate());
+            updatedFilm.setDuration((film.getDuration() != null) ? film.getDuration() : existingFilm.getDuration());
+            updatedFilm.setVersion(existingFilm.getVersion() + 1);
+
+            if (publish(existingFilm, updatedFilm)) {
+                log.info("Информация о фильме с id = {} обновлена", film.getId());
+                return updatedFilm;
+            }
+            log.debug("Фильм с id = {} изменен одновременно с обновлением, повтор", film.getId());
         }
+    }
 
-        String newDescription = film.getDescription();
-        if (newDescription != null) {
-            existingFilm.setDescription(newDescription);
-        }
+    /**
+     * Замена версии фильма, если текущей по-прежнему остается expected.
+     * Новая версия использует то же множество лайков, поэтому одновременный лайк не теряется,
+     * а под блокировкой записи лайки не копируются - только переносится их число.
+     */
+    private boolean publish(Film expected, Film updated) {
+
+        Film current = films.computeIfPresent(expected.getId(), (filmId, latest) -> {
+            if (latest != expected) {
+                return latest;
+            }
+            updated.setRate(latest.getLikes().size());
+            return updated;
+        });
+        return current == updated;
+    }
 
-        LocalDate newReleaseDate = film.getReleaseDate();
-        if (newReleaseDate != null) {
-            existingFilm.setReleaseDate(newReleaseDate);
-        }
+    @Override
+    public boolean like(long filmId, long userId) {
+
+        boolean[] added = new boolean[1];
+        modifyLikes(filmId, film -> {
+            added[0] = film.getLikes().add(userId);
+            film.setRate(film.getLikes().size());
+        });
+        return added[0];
+    }
 
-        Integer newDuration = film.getDuration();
-        if (newDuration != null && !Objects.equals(newDuration, existingFilm.getDuration())) {
-            existingFilm.setDuration(newDuration);
-        }
+    @Override
+    public boolean unlike(long filmId, long userId) {
+
+        boolean[] removed = new boolean[1];
+        modifyLikes(filmId, film -> {
+            removed[0] = film.getLikes().remove(userId);
+            film.setRate(film.getLikes().size());
+        });
+        return removed[0];
+    }
+
+    private Film modifyLikes(long filmId, Consumer<Film> modification) {
 
-        log.info("Информация о фильме с id = {} обновлена", film.getId());
-        return existingFilm;
+        Film film = films.computeIfPresent(filmId, (key, current) -> {
+            modification.accept(current);
+            return current;
+        });
+        return (film != null) ? film : getFilm(filmId);
     }
 }
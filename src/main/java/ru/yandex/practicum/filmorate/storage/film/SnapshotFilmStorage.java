@@ -0,0 +1,128 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.jfr.StorageLookupEvent;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.VersionedStore;
+import ru.yandex.practicum.filmorate.util.PersistentLongSet;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+/**
+ * Хранилище фильмов с изоляцией снимков: каждое изменение создает новую неизменяемую версию фильма,
+ * а список фильмов возвращается как неизменяемый срез на момент запроса.
+ * Лайки версий хранятся в общем по структуре множестве, поэтому лайк стоит O(log n), а не копию всех лайков,
+ * и изменения разных фильмов не ждут друг друга.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.storage.mode", havingValue = "snapshot")
+@Slf4j
+public class SnapshotFilmStorage implements FilmStorage {
+
+    private final VersionedStore<Film> films = new VersionedStore<>();
+
+    private final AtomicLong id = new AtomicLong();
+
+
+    @Override
+    public Collection<Film> getFilms() {
+        return films.snapshot();
+    }
+
+    @Override
+    public Film getFilm(long id) {
+
+        StorageLookupEvent event = new StorageLookupEvent();
+        event.begin();
+        Film film = films.get(id);
+        event.finish(this, StorageLookupEvent.FILM, id);
+        if (film == null) {
+            String msg = "Фильм с id = " + id + " не найден";
+            log.warn(msg);
+            throw new NotFoundException(msg);
+        }
+        return film;
+    }
+
+    @Override
+    public Film addFilm(Film film) {
+
+        film.setId(id.incrementAndGet());
+        Film frozenFilm = new FrozenFilm(film, PersistentLongSet.copyOf(film.getLikes()), 1L);
+        films.put(frozenFilm.getId(), frozenFilm);
+        log.info("Добавлен фильм {}", frozenFilm);
+        return frozenFilm;
+    }
+
+    @Override
+    public Film updateFilm(Film film, Long expectedVersion) {
+
+        Film updatedFilm = films.update(film.getId(), current -> {
+            FrozenFilm existingFilm = existing(film.getId(), current);
+            FilmStorage.checkVersion(existingFilm.getId(), existingFilm.getVersion(), expectedVersion);
+            Film copy = new Film();
+            copy.setId(existingFilm.getId());
+            copy.setName((film.getName() != null) ? film.getName() : existingFilm.getName());
+            copy.setDescription((film.getDescription() != null)
+                    ? film.getDescription() : existingFilm.getDescription());
+            copy.setReleaseDate((film.getReleaseDate() != null)
+                    ? film.getReleaseDate() : existingFilm.getReleaseDate());
+            copy.setDuration((film.getDuration() != null) ? film.getDuration() : existingFilm.getDuration());
+            return new FrozenFilm(copy, existingFilm.likes(), existingFilm.getVersion() + 1);
+        });
+        log.info("Информация о фильме с id = {} обновлена", film.getId());
+        return updatedFilm;
+    }
+
+    @Override
+    public boolean like(long filmId, long userId) {
+
+        boolean[] added = new boolean[1];
+        modifyLikes(filmId, likes -> {
+            PersistentLongSet newLikes = likes.plus(userId);
+            added[0] = (newLikes != likes);
+            return newLikes;
+        });
+        return added[0];
+    }
+
+    @Override
+    public boolean unlike(long filmId, long userId) {
+
+        boolean[] removed = new boolean[1];
+        modifyLikes(filmId, likes -> {
+            PersistentLongSet newLikes = likes.minus(userId);
+            removed[0] = (newLikes != likes);
+            return newLikes;
+        });
+        return removed[0];
+    }
+
+    /**
+     * Фиксация версии фильма с измененными лайками; если лайки не изменились, новая версия не создается
+     */
+    private Film modifyLikes(long filmId, UnaryOperator<PersistentLongSet> modification) {
+
+        return films.update(filmId, current -> {
+            FrozenFilm existingFilm = existing(filmId, current);
+            PersistentLongSet likes = modification.apply(existingFilm.likes());
+            return (likes == existingFilm.likes())
+                    ? existingFilm : new FrozenFilm(existingFilm, likes, existingFilm.getVersion());
+        });
+    }
+
+    private static FrozenFilm existing(long filmId, Film current) {
+
+        if (current == null) {
+            String msg = "Фильм с id = " + filmId + " не найден";
+            log.warn(msg);
+            throw new NotFoundException(msg);
+        }
+        return (FrozenFilm) current;
+    }
+}
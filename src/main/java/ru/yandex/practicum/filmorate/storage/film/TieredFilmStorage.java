@@ -0,0 +1,310 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.jfr.StorageLookupEvent;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Многоуровневое хранилище фильмов.
+ * Недавно использованные фильмы лежат в куче, остальные вместе с лайками вытесняются
+ * в отображенный в память файл ({@link ColdFilmTier}), как только оценка занятой кучи
+ * превышает бюджет. Обращение к фильму через getFilm, updateFilm и лайки поднимает его обратно.
+ * Полный перебор (getFilms) читает холодные фильмы без подъема, чтобы не вытеснять горячие,
+ * и по одному, не удерживая блокировку на время чтения всего файла.
+ * Возвращенный фильм читается вызывающим уже без блокировки, поэтому обновление не меняет его поля,
+ * а заменяет горячую запись новой версией; лайки меняются на месте в потокобезопасном множестве.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.storage.mode", havingValue = "tiered")
+@Slf4j
+public class TieredFilmStorage implements FilmStorage, AutoCloseable {
+
+    // Примерный размер объекта Film без строк и лайков (сам объект, дата, упакованные числа, множество)
+    private static final long FILM_OVERHEAD_BYTES = 160;
+    // Примерный размер одного лайка в множестве (узел таблицы и упакованный Long)
+    private static final long LIKE_BYTES = 56;
+    private static final long STRING_OVERHEAD_BYTES = 40;
+
+    private static final class HotEntry {
+
+        Film film;
+        long bytes;
+
+        HotEntry(Film film) {
+            this.film = film;
+        }
+    }
+
+    private final long heapBudget;
+    private final ColdFilmTier cold;
+
+    // Порядок доступа: первым идет давно не использованный фильм
+    private final LinkedHashMap<Long, HotEntry> hot = new LinkedHashMap<>(1024, 0.75f, true);
+    private long hotBytes;
+
+    private long id;
+
+    private long hotHits;
+    private long coldHits;
+    private long demotions;
+    private long promotionNanos;
+    private long maxPromotionNanos;
+
+
+    @Autowired
+    public TieredFilmStorage(@Value("${filmorate.storage.tiered.heap-budget-mb:64}") long heapBudgetMb,
+                             @Value("${filmorate.storage.tiered.file:}") String file) {
+        this(heapBudgetMb << 20, file.isBlank() ? createTempFile() : Path.of(file));
+    }
+
+    public TieredFilmStorage(long heapBudgetBytes, Path file) {
+
+        this.heapBudget = heapBudgetBytes;
+        this.cold = new ColdFilmTier(file);
+        log.info("Многоуровневое хранилище фильмов: бюджет кучи {} байт, файл {}", heapBudgetBytes, file);
+    }
+
+    /**
+     * Все фильмы. Под блокировкой запоминаются только горячие фильмы и id холодных; холодные фильмы
+     * читаются из файла по одному при обходе результата, каждый под короткой блокировкой,
+     * поэтому полный перебор не задерживает остальные обращения на время чтения всего файла.
+     */
+    @Override
+    public Collection<Film> getFilms() {
+
+        List<Film> hotFilms;
+        long[] coldIds;
+        synchronized (this) {
+            hotFilms = new ArrayList<>(hot.size());
+            for (HotEntry entry : hot.values()) {
+                hotFilms.add(entry.film);
+            }
+            coldIds = cold.ids();
+        }
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Film> iterator() {
+                return Stream.concat(hotFilms.stream(), Arrays.stream(coldIds).mapToObj(filmId -> peek(filmId))).iterator();
+            }
+
+            @Override
+            public int size() {
+                return hotFilms.size() + coldIds.length;
+            }
+        };
+    }
+
+    /**
+     * Копии фильмов: под блокировкой запоминаются только id, каждый фильм копируется при обходе
+     * под короткой блокировкой, под которой меняются и его лайки
+     */
+    @Override
+    public Stream<Film> copyFilms() {
+
+        long[] ids;
+        synchronized (this) {
+            ids = LongStream.concat(hot.keySet().stream().mapToLong(Long::longValue),
+                    Arrays.stream(cold.ids())).toArray();
+        }
+        return Arrays.stream(ids).mapToObj(this::copyFilm);
+    }
+
+    private synchronized Film copyFilm(long id) {
+
+        // Фильм из файла читается в новый объект, горячий копируется
+        Film film = cold.get(id);
+        return (film != null) ? film : ConcurrentFilm.copy(hot.get(id).film, new Film());
+    }
+
+    /**
+     * Чтение фильма без подъема из холодного уровня
+     */
+    private synchronized Film peek(long id) {
+
+        Film film = cold.get(id);
+        if (film == null) {
+            // Фильм подняли в кучу после того, как были запомнены id
+            film = hot.get(id).film;
+        }
+        return film;
+    }
+
+    @Override
+    public synchronized Film getFilm(long id) {
+
+        StorageLookupEvent event = new StorageLookupEvent();
+        event.begin();
+        Film film = promote(id).film;
+        demoteOverBudget();
+        event.finish(this, StorageLookupEvent.FILM, id);
+        return film;
+    }
+
+    @Override
+    public synchronized Film addFilm(Film film) {
+
+        film.setId(++id);
+        film.setVersion(1L);
+        HotEntry entry = new HotEntry(ConcurrentFilm.copyOf(film));
+        hot.put(film.getId(), entry);
+        account(entry);
+        demoteOverBudget();
+        log.info("Добавлен фильм {}", entry.film);
+        return entry.film;
+    }
+
+    @Override
+    public synchronized Film updateFilm(Film film, Long expectedVersion) {
+
+        HotEntry entry = promote(film.getId());
+        Film existingFilm = entry.film;
+        FilmStorage.checkVersion(existingFilm.getId(), existingFilm.getVersion(), expectedVersion);
+
+        Film updatedFilm = new ConcurrentFilm(existingFilm.getLikes());
+        updatedFilm.setId(existingFilm.getId());
+        updatedFilm.setName((film.getName() != null) ? film.getName() : existingFilm.getName());
+        updatedFilm.setDescription((film.getDescription() != null)
+                ? film.getDescription() : existingFilm.getDescription());
+        updatedFilm.setReleaseDate((film.getReleaseDate() != null)
+                ? film.getReleaseDate() : existingFilm.getReleaseDate());
+        updatedFilm.setDuration((film.getDuration() != null) ? film.getDuration() : existingFilm.getDuration());
+        updatedFilm.setRate(existingFilm.getRate());
+        updatedFilm.setVersion(existingFilm.getVersion() + 1);
+        entry.film = updatedFilm;
+        account(entry);
+        demoteOverBudget();
+        log.info("Информация о фильме с id = {} обновлена", film.getId());
+        return updatedFilm;
+    }
+
+    @Override
+    public synchronized boolean like(long filmId, long userId) {
+
+        HotEntry entry = promote(filmId);
+        boolean added = entry.film.getLikes().add(userId);
+        entry.film.setRate(entry.film.getLikes().size());
+        account(entry);
+        demoteOverBudget();
+        return added;
+    }
+
+    @Override
+    public synchronized boolean unlike(long filmId, long userId) {
+
+        HotEntry entry = promote(filmId);
+        boolean removed = entry.film.getLikes().remove(userId);
+        entry.film.setRate(entry.film.getLikes().size());
+        account(entry);
+        demoteOverBudget();
+        return removed;
+    }
+
+    public synchronized FilmTierStats getStats() {
+
+        long accesses = hotHits + coldHits;
+        return new FilmTierStats(hot.size(), cold.size(), hotBytes, heapBudget, cold.fileBytes(),
+                hotHits, coldHits, (accesses == 0) ? 1.0 : (double) hotHits / accesses, demotions,
+                (coldHits == 0) ? 0 : promotionNanos / 1000.0 / coldHits, maxPromotionNanos / 1000.0);
+    }
+
+    @PreDestroy
+    @Override
+    public synchronized void close() {
+        cold.close();
+    }
+
+    /**
+     * Поиск фильма с подъемом из холодного уровня
+     */
+    private HotEntry promote(long id) {
+
+        HotEntry entry = hot.get(id);
+        if (entry != null) {
+            hotHits++;
+            return entry;
+        }
+        long start = System.nanoTime();
+        Film film = cold.remove(id);
+        if (film == null) {
+            String msg = "Фильм с id = " + id + " не найден";
+            log.warn(msg);
+            throw new NotFoundException(msg);
+        }
+        entry = new HotEntry(film);
+        hot.put(id, entry);
+        account(entry);
+        long elapsed = System.nanoTime() - start;
+        coldHits++;
+        promotionNanos += elapsed;
+        maxPromotionNanos = Math.max(maxPromotionNanos, elapsed);
+        log.debug("Фильм {} поднят из файла за {} мкс", id, elapsed / 1000);
+        return entry;
+    }
+
+    /**
+     * Вытеснение давно не использованных фильмов в файл, пока куча превышает бюджет.
+     * Последний использованный фильм остается в куче в любом случае.
+     */
+    private void demoteOverBudget() {
+
+        Iterator<Map.Entry<Long, HotEntry>> iterator = hot.entrySet().iterator();
+        while (hotBytes > heapBudget && hot.size() > 1) {
+            HotEntry entry = iterator.next().getValue();
+            iterator.remove();
+            hotBytes -= entry.bytes;
+            cold.put(entry.film);
+            demotions++;
+        }
+    }
+
+    private void account(HotEntry entry) {
+
+        long bytes = estimateBytes(entry.film);
+        hotBytes += bytes - entry.bytes;
+        entry.bytes = bytes;
+    }
+
+    private static long estimateBytes(Film film) {
+
+        return FILM_OVERHEAD_BYTES
+                + estimateBytes(film.getName())
+                + estimateBytes(film.getDescription())
+                + LIKE_BYTES * film.getLikes().size();
+    }
+
+    private static long estimateBytes(String value) {
+        return (value == null) ? 0 : STRING_OVERHEAD_BYTES + value.length() * 2L;
+    }
+
+    private static Path createTempFile() {
+
+        try {
+            Path file = Files.createTempFile("filmorate-films-", ".cold");
+            file.toFile().deleteOnExit();
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось создать файл холодного уровня", e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.storage.footprint;
+
+import java.util.List;
+
+/**
+ * Оценка занимаемой хранилищами и индексами кучи
+ * @param storageMode Режим хранилищ
+ * @param totalBytes Оценка всей занимаемой кучи, байт
+ * @param components Оценка по составным частям
+ * @param likes Лайки фильмов
+ * @param friends Дружба пользователей (каждая дружба учитывается у обоих пользователей)
+ * @param userLikes Лайки, поставленные пользователями
+ * @param heaviestFilms Фильмы с наибольшим числом лайков
+ * @param heaviestUsers Пользователи с наибольшим числом друзей
+ */
+public record FootprintReport(String storageMode, long totalBytes, List<Component> components,
+                              Relations likes, Relations friends, Relations userLikes,
+                              List<Entity> heaviestFilms, List<Entity> heaviestUsers) {
+
+    /**
+     * @param name Составная часть
+     * @param entries Число записей
+     * @param bytes Оценка занимаемой кучи, байт
+     */
+    public record Component(String name, long entries, long bytes) {
+    }
+
+    /**
+     * @param total Всего связей
+     * @param average Среднее число связей на сущность
+     * @param max Наибольшее число связей у одной сущности
+     */
+    public record Relations(long total, double average, int max) {
+    }
+
+    /**
+     * @param id id сущности
+     * @param relations Число связей
+     * @param bytes Оценка занимаемой кучи вместе со связями, байт
+     */
+    public record Entity(long id, int relations, long bytes) {
+    }
+}
@@ -0,0 +1,203 @@
+package ru.yandex.practicum.filmorate.storage.footprint;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.event.StorageEvent;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.util.LongLongHashMap;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Учет занимаемой хранилищами и индексами кучи без обхода графа объектов.
+ * Счетчики сущностей, длины строк и размеры множеств связей обновляются по событиям изменений,
+ * байты оцениваются по средним размерам объектов обычных хранилищ в куче (64-битная JVM
+ * со сжатыми ссылками; точный размер для сравнения дает RecordFootprint). Для компактного режима
+ * оценка завышена.
+ * Изменение размера множества связей приходит в событии (delta), хранилище при учете не читается:
+ * повторный лайк или дружба дают нулевое изменение. Счетчики - LongAdder, размеры множеств
+ * синхронизируются по отдельности, поэтому слушатель не держит общей блокировки.
+ */
+@Component
+@Slf4j
+public class HeapFootprint {
+
+    // Film с полями и записью в HashMap хранилища
+    private static final long FILM_BYTES = 160;
+    // User с полями, LocalDate и записью в HashMap хранилища
+    private static final long USER_BYTES = 176;
+    // Элемент HashSet<Long>: узел, упакованный Long и доля таблицы
+    private static final long SET_ENTRY_BYTES = 56;
+    // Заголовок String и массива
+    private static final long STRING_BYTES = 40;
+    // Элемент LongHashSet индекса лайков пользователей
+    private static final long PRIMITIVE_SET_ENTRY_BYTES = 16;
+    // Запись пользователя в индексе лайков: узел HashMap, Long и LongHashSet
+    private static final long USER_LIKES_INDEX_BYTES = 112;
+    // Запись уникального индекса: узел ConcurrentHashMap и Long (строки ключей не учитываются)
+    private static final long UNIQUE_INDEX_ENTRY_BYTES = 48;
+
+    private final String storageMode;
+
+    private final RelationSizes likes = new RelationSizes();
+    private final RelationSizes friends = new RelationSizes();
+    private final RelationSizes userLikes = new RelationSizes();
+
+    // id -> байты строк сущности; доступ под блокировкой самой таблицы
+    private final LongLongHashMap filmStrings = new LongLongHashMap(1024);
+    private final LongLongHashMap userStrings = new LongLongHashMap(1024);
+    private final LongAdder filmStringBytes = new LongAdder();
+    private final LongAdder userStringBytes = new LongAdder();
+
+    private final LongAdder films = new LongAdder();
+    private final LongAdder users = new LongAdder();
+    private final LongAdder likingUsers = new LongAdder();
+
+
+    @Autowired
+    public HeapFootprint(FilmStorage filmStorage, UserStorage userStorage,
+                         @Value("${filmorate.storage.mode:in-memory}") String storageMode) {
+        this.storageMode = storageMode;
+        for (Film film : filmStorage.getFilms()) {
+            addFilm(film);
+            for (Long userId : film.getLikes()) {
+                addUserLikes(userId, 1);
+            }
+        }
+        for (User user : userStorage.getUsers()) {
+            users.increment();
+            setUserStrings(user);
+            friends.set(user.getId(), user.getFriends().size());
+        }
+    }
+
+    @EventListener
+    public void onStorageEvent(StorageEvent event) {
+
+        switch (event.type()) {
+            case FILM_ADDED -> addFilm(event.film());
+            case FILM_UPDATED -> setFilmStrings(event.film());
+            case FILM_LIKED, FILM_UNLIKED -> {
+                if (event.delta() != 0) {
+                    likes.adjust(event.entityId(), event.delta());
+                    addUserLikes(event.relatedId(), event.delta());
+                }
+            }
+            case USER_ADDED -> {
+                users.increment();
+                setUserStrings(event.user());
+            }
+            case USER_UPDATED -> setUserStrings(event.user());
+            case FRIEND_ADDED, FRIEND_REMOVED -> {
+                if (event.delta() != 0) {
+                    friends.adjust(event.entityId(), event.delta());
+                    friends.adjust(event.relatedId(), event.delta());
+                }
+            }
+            case USER_DELETED -> {
+                users.decrement();
+                synchronized (userStrings) {
+                    userStringBytes.add(-userStrings.get(event.entityId(), 0));
+                    userStrings.put(event.entityId(), 0);
+                }
+                friends.set(event.entityId(), 0);
+                if (event.user() != null) {
+                    event.user().getFriends().forEach(friendId -> friends.adjust(friendId, -1));
+                }
+            }
+        }
+    }
+
+    private void addFilm(Film film) {
+
+        films.increment();
+        setFilmStrings(film);
+        likes.set(film.getId(), film.getLikes().size());
+    }
+
+    private void addUserLikes(long userId, int delta) {
+
+        int before = userLikes.adjust(userId, delta);
+        int after = Math.max(0, before + delta);
+        if (before == 0 && after > 0) {
+            likingUsers.increment();
+        } else if (before > 0 && after == 0) {
+            likingUsers.decrement();
+        }
+    }
+
+    private void setFilmStrings(Film film) {
+
+        long bytes = stringBytes(film.getName()) + stringBytes(film.getDescription());
+        synchronized (filmStrings) {
+            filmStringBytes.add(bytes - filmStrings.get(film.getId(), 0));
+            filmStrings.put(film.getId(), bytes);
+        }
+    }
+
+    private void setUserStrings(User user) {
+
+        long bytes = stringBytes(user.getEmail()) + stringBytes(user.getLogin()) + stringBytes(user.getName());
+        synchronized (userStrings) {
+            userStringBytes.add(bytes - userStrings.get(user.getId(), 0));
+            userStrings.put(user.getId(), bytes);
+        }
+    }
+
+    private static long entityStringBytes(LongLongHashMap strings, long id) {
+
+        synchronized (strings) {
+            return strings.get(id, 0);
+        }
+    }
+
+    private static long stringBytes(String value) {
+        return (value == null) ? 0 : STRING_BYTES + value.length() * 2L;
+    }
+
+    /**
+     * Отчет о занимаемой памяти
+     * @param top Число самых тяжелых фильмов и пользователей в отчете
+     */
+    public FootprintReport getReport(int top) {
+
+        int films = this.films.intValue();
+        int users = this.users.intValue();
+        int likingUsers = this.likingUsers.intValue();
+        List<FootprintReport.Component> components = List.of(
+                new FootprintReport.Component("films", films, films * FILM_BYTES + filmStringBytes.sum()),
+                new FootprintReport.Component("film-likes", likes.getTotal(), likes.getTotal() * SET_ENTRY_BYTES),
+                new FootprintReport.Component("users", users, users * USER_BYTES + userStringBytes.sum()),
+                new FootprintReport.Component("user-friends", friends.getTotal(),
+                        friends.getTotal() * SET_ENTRY_BYTES),
+                new FootprintReport.Component("user-likes-index", likingUsers,
+                        likingUsers * USER_LIKES_INDEX_BYTES + userLikes.getTotal() * PRIMITIVE_SET_ENTRY_BYTES),
+                new FootprintReport.Component("unique-indexes", users * 2L,
+                        users * 2L * UNIQUE_INDEX_ENTRY_BYTES));
+        long totalBytes = components.stream().mapToLong(FootprintReport.Component::bytes).sum();
+
+        List<FootprintReport.Entity> heaviestFilms = likes.getLargest(top).stream()
+                .map(entry -> new FootprintReport.Entity(entry[0], (int) entry[1],
+                        FILM_BYTES + entityStringBytes(filmStrings, entry[0]) + entry[1] * SET_ENTRY_BYTES))
+                .toList();
+        List<FootprintReport.Entity> heaviestUsers = friends.getLargest(top).stream()
+                .map(entry -> new FootprintReport.Entity(entry[0], (int) entry[1],
+                        USER_BYTES + entityStringBytes(userStrings, entry[0]) + entry[1] * SET_ENTRY_BYTES))
+                .toList();
+        return new FootprintReport(storageMode, totalBytes, components,
+                relations(likes, films), relations(friends, users), relations(userLikes, users),
+                heaviestFilms, heaviestUsers);
+    }
+
+    private static FootprintReport.Relations relations(RelationSizes sizes, int entities) {
+        return new FootprintReport.Relations(sizes.getTotal(),
+                (entities == 0) ? 0 : (double) sizes.getTotal() / entities, sizes.getMax());
+    }
+}
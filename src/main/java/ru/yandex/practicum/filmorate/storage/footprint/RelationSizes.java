@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.storage.footprint;
+
+import ru.yandex.practicum.filmorate.util.LongLongHashMap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Размеры множеств связей сущностей (лайков фильма, друзей пользователя) с инкрементальным учетом.
+ * Кроме размера каждого множества поддерживаются сумма и гистограмма размеров: максимум берется
+ * из гистограммы, а самые большие множества ищутся проходом по примитивным массивам только
+ * среди размеров не меньше порога, найденного по гистограмме, без обхода объектов в куче.
+ * Методы синхронизированы на самом объекте, поэтому учет лайков и дружбы не блокирует друг друга.
+ */
+final class RelationSizes {
+
+    private final LongLongHashMap sizes = new LongLongHashMap(1024);
+
+    // Размер множества -> число сущностей с таким размером (только непустые)
+    private final TreeMap<Integer, Integer> histogram = new TreeMap<>();
+
+    private long total;
+
+
+    synchronized int get(long id) {
+        return (int) sizes.get(id, 0);
+    }
+
+    /**
+     * @return Изменение размера множества
+     */
+    synchronized int set(long id, int size) {
+
+        int previous = get(id);
+        if (previous == size) {
+            return 0;
+        }
+        sizes.put(id, size);
+        total += size - previous;
+        if (previous > 0) {
+            histogram.computeIfPresent(previous, (key, count) -> (count == 1) ? null : count - 1);
+        }
+        if (size > 0) {
+            histogram.merge(size, 1, Integer::sum);
+        }
+        return size - previous;
+    }
+
+    /**
+     * @return Размер множества до изменения
+     */
+    synchronized int adjust(long id, int delta) {
+
+        int previous = get(id);
+        set(id, Math.max(0, previous + delta));
+        return previous;
+    }
+
+    synchronized long getTotal() {
+        return total;
+    }
+
+    synchronized int getMax() {
+        return histogram.isEmpty() ? 0 : histogram.lastKey();
+    }
+
+    /**
+     * Сущности с самыми большими множествами связей
+     * @return Пары {id, размер} по убыванию размера
+     */
+    synchronized List<long[]> getLargest(int count) {
+
+        if (count <= 0 || histogram.isEmpty()) {
+            return List.of();
+        }
+        int threshold = 0;
+        int above = 0;
+        for (Map.Entry<Integer, Integer> entry : histogram.descendingMap().entrySet()) {
+            threshold = entry.getKey();
+            above += entry.getValue();
+            if (above >= count) {
+                break;
+            }
+        }
+        final int minSize = threshold;
+        List<long[]> largest = new ArrayList<>(above);
+        sizes.forEach((id, size) -> {
+            if (size >= minSize) {
+                largest.add(new long[] {id, size});
+            }
+        });
+        largest.sort(Comparator.comparingLong((long[] entry) -> entry[1]).reversed()
+                .thenComparingLong(entry -> entry[0]));
+        return (largest.size() > count) ? largest.subList(0, count) : largest;
+    }
+}
@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+import ru.yandex.practicum.filmorate.util.StringDeduplicator;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Компактное внутреннее представление пользователя: дата рождения как номер дня эпохи,
+ * повторяющиеся имена разделяются, множество друзей создается только при первом друге.
+ * Построенный для ответа {@link User} получает друзей без копирования (как в {@code CompactFilm}).
+ */
+final class CompactUser {
+
+    /**
+     * Пользователь, построенный для ответа
+     */
+    private static final class Materialized extends User {
+
+        Materialized(Set<Long> friends) {
+            super(friends);
+        }
+    }
+
+    private static final int NO_VALUE = Integer.MIN_VALUE;
+
+    final long id;
+    String email;
+    String login;
+    String name;
+    int birthdayEpochDay = NO_VALUE;
+    LongHashSet friends;
+    // Множество друзей отдано наружу в построенном пользователе и не должно меняться на месте
+    private boolean friendsShared;
+    long version = 1;
+
+    CompactUser(long id) {
+        this.id = id;
+    }
+
+    void apply(User user, StringDeduplicator strings) {
+
+        if (user.getEmail() != null) {
+            email = user.getEmail();
+        }
+        if (user.getLogin() != null) {
+            login = user.getLogin();
+        }
+        if (user.getName() != null) {
+            name = strings.dedupe(user.getName());
+        }
+        if (user.getBirthday() != null) {
+            birthdayEpochDay = (int) user.getBirthday().toEpochDay();
+        }
+    }
+
+    boolean addFriend(long friendId) {
+
+        if (friends == null) {
+            friends = new LongHashSet();
+        } else if (friends.contains(friendId)) {
+            return false;
+        }
+        return writableFriends().add(friendId);
+    }
+
+    boolean removeFriend(long friendId) {
+
+        if (friends == null || !friends.contains(friendId)) {
+            return false;
+        }
+        if (friends.size() == 1) {
+            friends = null;
+            friendsShared = false;
+            return true;
+        }
+        return writableFriends().remove(friendId);
+    }
+
+    private LongHashSet writableFriends() {
+
+        if (friendsShared) {
+            friends = friends.copy();
+            friendsShared = false;
+        }
+        return friends;
+    }
+
+    User toUser() {
+
+        User user = new Materialized((friends == null) ? Set.of() : friends.asSet());
+        friendsShared = (friends != null);
+        user.setId(id);
+        user.setEmail(email);
+        user.setLogin(login);
+        user.setName(name);
+        user.setBirthday((birthdayEpochDay == NO_VALUE) ? null : LocalDate.ofEpochDay(birthdayEpochDay));
+        user.setVersion(version);
+        return user;
+    }
+}
@@ -0,0 +1,156 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.jfr.StorageLookupEvent;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.util.StringDeduplicator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Хранилище пользователей в компактном представлении.
+ * Пользователи лежат в массиве по id (id выдаются подряд, место удаленного пользователя остается пустым).
+ * Наружу отдаются обычные объекты {@link User}.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.storage.mode", havingValue = "compact")
+@Slf4j
+public class CompactUserStorage implements UserStorage {
+
+    private CompactUser[] users = new CompactUser[1024];
+
+    private int count;
+
+    private final UserUniqueIndex uniqueIndex = new UserUniqueIndex();
+
+    private final StringDeduplicator strings = new StringDeduplicator(4096);
+
+
+    @Override
+    public synchronized Collection<User> getUsers() {
+
+        List<User> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (users[i] != null) {
+                result.add(users[i].toUser());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized User getUser(long id) {
+
+        StorageLookupEvent event = new StorageLookupEvent();
+        event.begin();
+        User user = find(id).toUser();
+        event.finish(this, StorageLookupEvent.USER, id);
+        return user;
+    }
+
+    @Override
+    public synchronized User addUser(User user) {
+
+        // Адрес и логин резервируются за тем id, который получит пользователь
+        long newId = count + 1;
+        uniqueIndex.add(newId, user.getEmail(), user.getLogin());
+        if (user.getName() == null || user.getName().isBlank()) {
+            user.setName(user.getLogin());
+        }
+        if (count == users.length) {
+            users = Arrays.copyOf(users, count * 2);
+        }
+        CompactUser compactUser = new CompactUser(newId);
+        compactUser.apply(user, strings);
+        users[count++] = compactUser;
+        user.setId(compactUser.id);
+        user.setVersion(compactUser.version);
+        log.info("Добавлен пользователь {}", user);
+        return user;
+    }
+
+    @Override
+    public synchronized User updateUser(User user, Long expectedVersion) {
+
+        CompactUser compactUser = find(user.getId());
+        UserStorage.checkVersion(compactUser.id, compactUser.version, expectedVersion);
+        uniqueIndex.replace(compactUser.id, compactUser.email, compactUser.login,
+                (user.getEmail() != null) ? user.getEmail() : compactUser.email,
+                (user.getLogin() != null) ? user.getLogin() : compactUser.login);
+        compactUser.apply(user, strings);
+        compactUser.version++;
+        log.info("Информация пользователя с id = {} обновлена", user.getId());
+        return compactUser.toUser();
+    }
+
+    @Override
+    public synchronized boolean addFriend(long userId, long friendId) {
+
+        CompactUser user = find(userId);
+        CompactUser friend = find(friendId);
+        friend.addFriend(userId);
+        return user.addFriend(friendId);
+    }
+
+    @Override
+    public synchronized boolean removeFriend(long userId, long friendId) {
+
+        CompactUser user = find(userId);
+        CompactUser friend = find(friendId);
+        friend.removeFriend(userId);
+        return user.removeFriend(friendId);
+    }
+
+    @Override
+    public synchronized void deleteUser(long id) {
+
+        CompactUser user = find(id);
+        if (user.friends != null) {
+            user.friends.forEach(friendId -> {
+                CompactUser friend = users[(int) (friendId - 1)];
+                if (friend != null) {
+                    friend.removeFriend(id);
+                }
+            });
+        }
+        users[(int) (id - 1)] = null;
+        uniqueIndex.remove(id, user.email, user.login);
+        log.info("Пользователь с id = {} удален", id);
+    }
+
+    @Override
+    public synchronized User getUserByEmail(String email) {
+        return findIndexed(uniqueIndex.findByEmail(email), "адресом " + email).toUser();
+    }
+
+    @Override
+    public synchronized User getUserByLogin(String login) {
+        return findIndexed(uniqueIndex.findByLogin(login), "логином " + login).toUser();
+    }
+
+    private CompactUser findIndexed(Long id, String description) {
+
+        if (id == null) {
+            String msg = "Пользователь с " + description + " не найден";
+            log.warn(msg);
+            throw new NotFoundException(msg);
+        }
+        return find(id);
+    }
+
+    private CompactUser find(long id) {
+
+        if (id < 1 || id > count || users[(int) (id - 1)] == null) {
+            String msg = "Пользователь с id = " + id + " не найден";
+            log.warn(msg);
+            throw new NotFoundException(msg);
+        }
+        return users[(int) (id - 1)];
+    }
+}
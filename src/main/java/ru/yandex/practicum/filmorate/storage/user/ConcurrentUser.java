@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Пользователь в InMemoryUserStorage. Друзья лежат в потокобезопасном множестве: читатель,
+ * обходящий их без блокировки, не получит ConcurrentModificationException.
+ */
+final class ConcurrentUser extends User {
+
+    ConcurrentUser() {
+        super(ConcurrentHashMap.newKeySet());
+    }
+
+    /**
+     * Новая версия пользователя с тем же множеством друзей
+     */
+    ConcurrentUser(Set<Long> friends) {
+        super(friends);
+    }
+
+    /**
+     * Копия пользователя вместе с друзьями, отвязанная от объекта вызывающего
+     */
+    static ConcurrentUser copyOf(User source) {
+        return copy(source, new ConcurrentUser());
+    }
+
+    /**
+     * Копирование полей и друзей пользователя в заданный объект
+     */
+    static <T extends User> T copy(User source, T user) {
+
+        user.setId(source.getId());
+        user.setEmail(source.getEmail());
+        user.setLogin(source.getLogin());
+        user.setName(source.getName());
+        user.setBirthday(source.getBirthday());
+        user.setVersion(source.getVersion());
+        user.getFriends().addAll(source.getFriends());
+        return user;
+    }
+}
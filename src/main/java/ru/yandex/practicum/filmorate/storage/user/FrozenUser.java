@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.util.PersistentLongSet;
+
+import java.time.LocalDate;
+
+/**
+ * Неизменяемая версия пользователя в SnapshotUserStorage. Сеттеры запрещены, а друзья хранятся
+ * в неизменяемом множестве, общем по структуре с соседними версиями.
+ */
+final class FrozenUser extends User {
+
+    FrozenUser(User source, PersistentLongSet friends, long version) {
+
+        super(friends);
+        super.setId(source.getId());
+        super.setEmail(source.getEmail());
+        super.setLogin(source.getLogin());
+        super.setName(source.getName());
+        super.setBirthday(source.getBirthday());
+        super.setVersion(version);
+    }
+
+    PersistentLongSet friends() {
+        return (PersistentLongSet) getFriends();
+    }
+
+    private static UnsupportedOperationException frozen() {
+        return new UnsupportedOperationException("Версия пользователя в хранилище не изменяется");
+    }
+
+    @Override
+    public void setId(Long id) {
+        throw frozen();
+    }
+
+    @Override
+    public void setEmail(String email) {
+        throw frozen();
+    }
+
+    @Override
+    public void setLogin(String login) {
+        throw frozen();
+    }
+
+    @Override
+    public void setName(String name) {
+        throw frozen();
+    }
+
+    @Override
+    public void setBirthday(LocalDate birthday) {
+        throw frozen();
+    }
+
+    @Override
+    public void setVersion(Long version) {
+        throw frozen();
+    }
+}
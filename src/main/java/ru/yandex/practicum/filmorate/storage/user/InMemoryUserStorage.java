@@ -1,20 +1,40 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.jfr.StorageLookupEvent;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.util.StripedLocks;
 
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище пользователей в куче. Изменение пользователя публикует новую версию сравнением
+ * с обменом и при одновременном изменении повторяется от свежей версии (как в {@code InMemoryFilmStorage}).
+ * Друзья меняются на месте под блокировкой записи в таблице, множество друзей потокобезопасное
+ * ({@link ConcurrentUser}). Дружба и удаление дополнительно берут блокировки полос всех затронутых
+ * пользователей: проверка существования и изменение связей происходят в одном критическом участке,
+ * поэтому дружба, добавленная одновременно с удалением, не оставляет ссылку на удаленного пользователя.
+ */
+// Многоуровневый режим касается только фильмов, пользователи хранятся в куче
 @Component
+@ConditionalOnExpression("'${filmorate.storage.mode:in-memory}' == 'in-memory' or '${filmorate.storage.mode:in-memory}' == 'tiered'")
 @Slf4j
 public class InMemoryUserStorage implements UserStorage {
 
-    private final Map<Long, User> users = new HashMap<>();
+    private final Map<Long, User> users = new ConcurrentHashMap<>();
+    private final UserUniqueIndex uniqueIndex = new UserUniqueIndex();
+    private final StripedLocks locks = new StripedLocks();
 
+    private final Object idLock = new Object();
     private long id;
 
 
@@ -24,19 +44,53 @@ public class InMemoryUserStorage implements UserStorage {
 
     public User addUser(User user) {
 
-        user.setId(++id);
+        // id занимается только после резервирования адреса и логина: отказ из-за конфликта не тратит id,
+        // и нумерация совпадает с репликой, которая отклоненных попыток не видит
+        long newId;
+        synchronized (idLock) {
+            newId = id + 1;
+            uniqueIndex.add(newId, user.getEmail(), user.getLogin());
+            id = newId;
+        }
+        user.setId(newId);
+        user.setVersion(1L);
         if (user.getName() == null || user.getName().isBlank()) {
             user.setName(user.getLogin());
         }
-        users.put(user.getId(), user);
-        log.info("Добавлен пользователь {}", user);
-        return user;
+        User storedUser = ConcurrentUser.copyOf(user);
+        users.put(newId, storedUser);
+        log.info("Добавлен пользователь {}", storedUser);
+        return storedUser;
+    }
+
+    /**
+     * Копирование под блокировкой записи таблицы, под которой меняется и дружба пользователя
+     */
+    @Override
+    public Stream<User> copyUsers() {
+        return users.keySet().stream().map(this::copyUser).filter(Objects::nonNull);
+    }
+
+    /**
+     * @return Копия пользователя или null, если пользователь уже удален
+     */
+    private User copyUser(long id) {
+
+        User[] copy = new User[1];
+        users.computeIfPresent(id, (key, user) -> {
+            copy[0] = ConcurrentUser.copy(user, new User());
+            return user;
+        });
+        return copy[0];
     }
 
     @Override
     public User getUser(long id) {
 
+        StorageLookupEvent event = new StorageLookupEvent();
+        event.begin();
         User user = users.get(id);
+        event.finish(this, StorageLookupEvent.USER, id);
         if (user == null) {
             String msg = "Пользователь с id = " + id + " не найден";
             log.warn(msg);
@@ -45,23 +99,139 @@ public class InMemoryUserStorage implements UserStorage {
         return user;
     }
 
-    public User updateUser(User user) {
+    @Override
+    public User getUserByEmail(String email) {
+        return getIndexedUser(uniqueIndex.findByEmail(email), "адресом " + email);
+    }
+
+    @Override
+    public User getUserByLogin(String login) {
+        return getIndexedUser(uniqueIndex.findByLogin(login), "логином " + login);
+    }
+
+    private User getIndexedUser(Long id, String description) {
+
+        if (id == null) {
+            String msg = "Пользователь с " + description + " не найден";
+            log.warn(msg);
+            throw new NotFoundException(msg);
+        }
+        return getUser(id);
+    }
+
+    public User updateUser(User user, Long expectedVersion) {
+
+        while (true) {
+            User existingUser = getUser(user.getId());
+            UserStorage.checkVersion(existingUser.getId(), existingUser.getVersion(), expectedVersion);
+
+            User updatedUser = new ConcurrentUser(existingUser.getFriends());
+            updatedUser.setId(existingUser.getId());
+            updatedUser.setEmail((user.getEmail() != null) ? user.getEmail() : existingUser.getEmail());
+            updatedUser.setLogin((user.getLogin() != null) ? user.getLogin() : existingUser.getLogin());
+            updatedUser.setBirthday((user.getBirthday() != null) ? user.getBirthday() : existingUser.getBirthday());
+            updatedUser.setName((user.getName() != null) ? user.getName() : existingUser.getName());
+            updatedUser.setVersion(existingUser.getVersion() + 1);
+
+            if (publish(existingUser, updatedUser)) {
+                log.info("Информация пользователя с id = {} обновлена", user.getId());
+                return updatedUser;
+            }
+            log.debug("Пользователь с id = {} изменен одновременно с обновлением, повтор", user.getId());
+        }
+    }
 
-        User existingUser = getUser(user.getId());
+    /**
+     * Замена версии пользователя, если текущей по-прежнему остается expected.
+     * Индексы переносятся под блокировкой записи, при конфликте адреса или логина версия не меняется.
+     * Новая версия использует то же множество друзей, поэтому под блокировкой друзья не копируются.
+     */
+    private boolean publish(User expected, User updated) {
+
+        User current = users.computeIfPresent(expected.getId(), (userId, latest) -> {
+            if (latest != expected) {
+                return latest;
+            }
+            uniqueIndex.replace(userId, latest.getEmail(), latest.getLogin(), updated.getEmail(), updated.getLogin());
+            return updated;
+        });
+        return current == updated;
+    }
 
-        if (user.getEmail() != null)
-            existingUser.setEmail(user.getEmail());
+    @Override
+    public boolean addFriend(long userId, long friendId) {
+
+        long locked = locks.lock(userId, friendId);
+        try {
+            getUser(userId);
+            getUser(friendId);
+            boolean[] added = new boolean[1];
+            modifyFriends(userId, user -> added[0] = user.getFriends().add(friendId));
+            modifyFriends(friendId, friend -> friend.getFriends().add(userId));
+            return added[0];
+        } finally {
+            locks.unlock(locked);
+        }
+    }
 
-        if (user.getLogin() != null)
-            existingUser.setLogin(user.getLogin());
+    @Override
+    public boolean removeFriend(long userId, long friendId) {
+
+        long locked = locks.lock(userId, friendId);
+        try {
+            getUser(userId);
+            getUser(friendId);
+            boolean[] removed = new boolean[1];
+            modifyFriends(userId, user -> removed[0] = user.getFriends().remove(friendId));
+            modifyFriends(friendId, friend -> friend.getFriends().remove(userId));
+            return removed[0];
+        } finally {
+            locks.unlock(locked);
+        }
+    }
 
-        if (user.getBirthday() != null)
-            existingUser.setBirthday(user.getBirthday());
+    /**
+     * Удаление под блокировками полос пользователя и всех его друзей. Новые друзья добавляются
+     * только под блокировкой полосы пользователя, поэтому после захвата список друзей не растет;
+     * если он вырос до захвата и не покрыт блокировками, попытка повторяется.
+     */
+    @Override
+    public void deleteUser(long id) {
+
+        while (true) {
+            List<Long> friendIds = List.copyOf(getUser(id).getFriends());
+            long stripeMask = StripedLocks.bit(id);
+            for (long friendId : friendIds) {
+                stripeMask |= StripedLocks.bit(friendId);
+            }
+            long locked = locks.lock(stripeMask);
+            try {
+                User user = getUser(id);
+                if (!user.getFriends().stream().allMatch(friendId -> StripedLocks.covers(locked, friendId))) {
+                    log.debug("У пользователя с id = {} появились друзья во время удаления, повтор", id);
+                    continue;
+                }
+                users.remove(id);
+                uniqueIndex.remove(id, user.getEmail(), user.getLogin());
+                for (Long friendId : user.getFriends()) {
+                    users.computeIfPresent(friendId, (key, friend) -> {
+                        friend.getFriends().remove(id);
+                        return friend;
+                    });
+                }
+            } finally {
+                locks.unlock(locked);
+            }
+            log.info("Пользователь с id = {} удален", id);
+            return;
+        }
+    }
 
-        if (user.getName() != null)
-            existingUser.setName(user.getName());
+    private void modifyFriends(long userId, Consumer<User> modification) {
 
-        log.info("Информация пользователя с id = {} обновлена", user.getId());
-        return existingUser;
+        users.computeIfPresent(userId, (key, current) -> {
+            modification.accept(current);
+            return current;
+        });
     }
 }
@@ -0,0 +1,213 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.jfr.StorageLookupEvent;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.VersionedStore;
+import ru.yandex.practicum.filmorate.util.PersistentLongSet;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * Хранилище пользователей с изоляцией снимков: каждое изменение создает новую неизменяемую версию
+ * пользователя, а список пользователей возвращается как неизменяемый срез на момент запроса.
+ * Друзья версий хранятся в общем по структуре множестве, поэтому изменение дружбы стоит O(log n).
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.storage.mode", havingValue = "snapshot")
+@Slf4j
+public class SnapshotUserStorage implements UserStorage {
+
+    private final VersionedStore<User> users = new VersionedStore<>();
+
+    private final Object idLock = new Object();
+    private long id;
+
+    private final UserUniqueIndex uniqueIndex = new UserUniqueIndex();
+
+
+    @Override
+    public Collection<User> getUsers() {
+        return users.snapshot();
+    }
+
+    @Override
+    public User getUser(long id) {
+
+        StorageLookupEvent event = new StorageLookupEvent();
+        event.begin();
+        User user = users.get(id);
+        event.finish(this, StorageLookupEvent.USER, id);
+        if (user == null) {
+            String msg = "Пользователь с id = " + id + " не найден";
+            log.warn(msg);
+            throw new NotFoundException(msg);
+        }
+        return user;
+    }
+
+    @Override
+    public User addUser(User user) {
+
+        // id занимается только после резервирования адреса и логина: отказ из-за конфликта не тратит id,
+        // и нумерация совпадает с репликой, которая отклоненных попыток не видит
+        long newId;
+        synchronized (idLock) {
+            newId = id + 1;
+            uniqueIndex.add(newId, user.getEmail(), user.getLogin());
+            id = newId;
+        }
+        user.setId(newId);
+        user.setVersion(1L);
+        if (user.getName() == null || user.getName().isBlank()) {
+            user.setName(user.getLogin());
+        }
+        User frozenUser = new FrozenUser(user, PersistentLongSet.copyOf(user.getFriends()), 1L);
+        users.put(newId, frozenUser);
+        log.info("Добавлен пользователь {}", frozenUser);
+        return frozenUser;
+    }
+
+    @Override
+    public User getUserByEmail(String email) {
+        return getIndexedUser(uniqueIndex.findByEmail(email), "адресом " + email);
+    }
+
+    @Override
+    public User getUserByLogin(String login) {
+        return getIndexedUser(uniqueIndex.findByLogin(login), "логином " + login);
+    }
+
+    private User getIndexedUser(Long id, String description) {
+
+        if (id == null) {
+            String msg = "Пользователь с " + description + " не найден";
+            log.warn(msg);
+            throw new NotFoundException(msg);
+        }
+        return getUser(id);
+    }
+
+    /**
+     * Индексы меняются внутри фиксации версии, поэтому одновременные изменения одного
+     * пользователя видят в индексах согласованные старые значения
+     */
+    @Override
+    public User updateUser(User user, Long expectedVersion) {
+
+        User updatedUser = users.update(user.getId(), current -> {
+            FrozenUser existingUser = existing(user.getId(), current);
+            UserStorage.checkVersion(existingUser.getId(), existingUser.getVersion(), expectedVersion);
+            uniqueIndex.replace(existingUser.getId(), existingUser.getEmail(), existingUser.getLogin(),
+                    (user.getEmail() != null) ? user.getEmail() : existingUser.getEmail(),
+                    (user.getLogin() != null) ? user.getLogin() : existingUser.getLogin());
+            User copy = new User();
+            copy.setId(existingUser.getId());
+            copy.setEmail((user.getEmail() != null) ? user.getEmail() : existingUser.getEmail());
+            copy.setLogin((user.getLogin() != null) ? user.getLogin() : existingUser.getLogin());
+            copy.setBirthday((user.getBirthday() != null) ? user.getBirthday() : existingUser.getBirthday());
+            copy.setName((user.getName() != null) ? user.getName() : existingUser.getName());
+            return new FrozenUser(copy, existingUser.friends(), existingUser.getVersion() + 1);
+        });
+        log.info("Информация пользователя с id = {} обновлена", user.getId());
+        return updatedUser;
+    }
+
+    /**
+     * Оба пользователя проверяются и меняются под блокировками своих записей, поэтому дружба
+     * с пользователем, удаляемым одновременно, не возникает
+     */
+    @Override
+    public boolean addFriend(long userId, long friendId) {
+
+        boolean[] added = new boolean[1];
+        users.update(userId, modifier(userId, friends -> {
+                    PersistentLongSet newFriends = friends.plus(friendId);
+                    added[0] = (newFriends != friends);
+                    return newFriends;
+                }),
+                friendId, modifier(friendId, friends -> friends.plus(userId)));
+        return added[0];
+    }
+
+    @Override
+    public boolean removeFriend(long userId, long friendId) {
+
+        boolean[] removed = new boolean[1];
+        users.update(userId, modifier(userId, friends -> {
+                    PersistentLongSet newFriends = friends.minus(friendId);
+                    removed[0] = (newFriends != friends);
+                    return newFriends;
+                }),
+                friendId, modifier(friendId, friends -> friends.minus(userId)));
+        return removed[0];
+    }
+
+    /**
+     * Удаление пользователя и снятие всей его дружбы одной фиксацией. Блокируются пользователь
+     * и все его друзья; если за время захвата блокировок появился новый друг, попытка повторяется.
+     */
+    @Override
+    public void deleteUser(long id) {
+
+        while (true) {
+            Set<Long> friendIds = getUser(id).getFriends();
+            Set<Long> ids = new HashSet<>(friendIds);
+            ids.add(id);
+            boolean deleted = users.update(ids, current -> {
+                FrozenUser user = existing(id, current.get(id));
+                if (!ids.containsAll(user.getFriends())) {
+                    return null;
+                }
+                Map<Long, User> values = new HashMap<>();
+                for (Long friendId : user.getFriends()) {
+                    User friend = current.get(friendId);
+                    if (friend != null) {
+                        FrozenUser frozenFriend = (FrozenUser) friend;
+                        values.put(friendId, new FrozenUser(frozenFriend, frozenFriend.friends().minus(id),
+                                frozenFriend.getVersion()));
+                    }
+                }
+                uniqueIndex.remove(id, user.getEmail(), user.getLogin());
+                values.put(id, null);
+                return values;
+            });
+            if (deleted) {
+                log.info("Пользователь с id = {} удален", id);
+                return;
+            }
+            log.debug("У пользователя с id = {} появился друг во время удаления, повтор", id);
+        }
+    }
+
+    /**
+     * Функция построения новой версии пользователя с измененным множеством друзей
+     */
+    private static UnaryOperator<User> modifier(long userId, UnaryOperator<PersistentLongSet> modification) {
+
+        return current -> {
+            FrozenUser existingUser = existing(userId, current);
+            PersistentLongSet friends = modification.apply(existingUser.friends());
+            return (friends == existingUser.friends())
+                    ? existingUser : new FrozenUser(existingUser, friends, existingUser.getVersion());
+        };
+    }
+
+    private static FrozenUser existing(long userId, User current) {
+
+        if (current == null) {
+            String msg = "Пользователь с id = " + userId + " не найден";
+            log.warn(msg);
+            throw new NotFoundException(msg);
+        }
+        return (FrozenUser) current;
+    }
+}
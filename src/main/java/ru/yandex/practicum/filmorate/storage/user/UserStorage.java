@@ -1,16 +1,81 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import ru.yandex.practicum.filmorate.exceptions.PreconditionFailedException;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
+import java.util.stream.Stream;
 
 public interface UserStorage {
 
     Collection<User> getUsers();
 
+    /**
+     * Все пользователи, каждый скопированный атомарно относительно изменений его дружбы: копии не меняются
+     * после возврата. Пользователь копируется, только когда до него доходит обход потока, поэтому копии
+     * всех пользователей не держатся в куче одновременно, а разные пользователи копируются в разные моменты.
+     * Хранилища, которые и так отдают неизменяемые версии пользователей, возвращают getUsers().
+     */
+    default Stream<User> copyUsers() {
+        return getUsers().stream();
+    }
+
     User getUser(long id);
 
+    /**
+     * Поиск пользователя по адресу электронной почты (без учета регистра)
+     * @throws ru.yandex.practicum.filmorate.exceptions.NotFoundException если адрес никому не принадлежит
+     */
+    User getUserByEmail(String email);
+
+    /**
+     * Поиск пользователя по логину
+     * @throws ru.yandex.practicum.filmorate.exceptions.NotFoundException если логин никому не принадлежит
+     */
+    User getUserByLogin(String login);
+
+    /**
+     * @throws ru.yandex.practicum.filmorate.exceptions.ConflictException если адрес или логин уже заняты
+     */
     User addUser(User user);
 
-    User updateUser(User user);
+    default User updateUser(User user) {
+        return updateUser(user, null);
+    }
+
+    /**
+     * Изменение пользователя с проверкой версии: изменение применяется, только если текущая версия
+     * пользователя равна ожидаемой, и увеличивает версию на 1
+     * @param expectedVersion Ожидаемая версия, null - без проверки
+     * @throws ru.yandex.practicum.filmorate.exceptions.ConflictException если новый адрес или логин уже заняты
+     * @throws PreconditionFailedException если пользователь уже изменен
+     */
+    User updateUser(User user, Long expectedVersion);
+
+    /**
+     * @return true, если пользователи еще не были друзьями
+     */
+    boolean addFriend(long userId, long friendId);
+
+    /**
+     * @return true, если пользователи были друзьями
+     */
+    boolean removeFriend(long userId, long friendId);
+
+    /**
+     * Удаление пользователя вместе с его дружбой
+     */
+    void deleteUser(long id);
+
+    /**
+     * Проверка ожидаемой версии пользователя перед изменением
+     * @throws PreconditionFailedException если версии не совпадают
+     */
+    static void checkVersion(long id, long version, Long expectedVersion) {
+
+        if (expectedVersion != null && expectedVersion != version) {
+            throw new PreconditionFailedException("Пользователь с id = " + id + " уже изменен: текущая версия "
+                    + version + ", ожидалась " + expectedVersion);
+        }
+    }
 }
@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.exceptions.ConflictException;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Уникальные индексы пользователей по адресу электронной почты и логину.
+ * Значение занимается атомарно (putIfAbsent), поэтому два одновременных запроса с одинаковым
+ * адресом или логином не могут пройти оба. Адрес сравнивается без учета регистра, логин - точно.
+ */
+@Slf4j
+class UserUniqueIndex {
+
+    private final Map<String, Long> byEmail = new ConcurrentHashMap<>();
+    private final Map<String, Long> byLogin = new ConcurrentHashMap<>();
+
+
+    /**
+     * Занятие адреса и логина нового пользователя
+     * @throws ConflictException если адрес или логин уже занят другим пользователем
+     */
+    void add(long id, String email, String login) {
+        replace(id, null, null, email, login);
+    }
+
+    /**
+     * Замена адреса и логина пользователя: новые значения занимаются до освобождения старых,
+     * при конфликте индексы остаются в прежнем состоянии
+     * @throws ConflictException если новый адрес или логин уже занят другим пользователем
+     */
+    void replace(long id, String oldEmail, String oldLogin, String newEmail, String newLogin) {
+
+        String oldEmailKey = emailKey(oldEmail);
+        String newEmailKey = emailKey(newEmail);
+        boolean emailReserved = reserve(byEmail, newEmailKey, id, "Адрес электронной почты " + newEmail);
+        try {
+            reserve(byLogin, newLogin, id, "Логин " + newLogin);
+        } catch (ConflictException e) {
+            if (emailReserved) {
+                byEmail.remove(newEmailKey, id);
+            }
+            throw e;
+        }
+        if (oldEmailKey != null && !oldEmailKey.equals(newEmailKey)) {
+            byEmail.remove(oldEmailKey, id);
+        }
+        if (oldLogin != null && !oldLogin.equals(newLogin)) {
+            byLogin.remove(oldLogin, id);
+        }
+    }
+
+    void remove(long id, String email, String login) {
+
+        if (email != null) {
+            byEmail.remove(emailKey(email), id);
+        }
+        if (login != null) {
+            byLogin.remove(login, id);
+        }
+    }
+
+    /**
+     * @return id пользователя или null, если адрес не занят
+     */
+    Long findByEmail(String email) {
+        return (email == null) ? null : byEmail.get(emailKey(email));
+    }
+
+    /**
+     * @return id пользователя или null, если логин не занят
+     */
+    Long findByLogin(String login) {
+        return (login == null) ? null : byLogin.get(login);
+    }
+
+    /**
+     * @return true, если значение занято этим вызовом (false - уже принадлежало пользователю)
+     */
+    private static boolean reserve(Map<String, Long> index, String key, long id, String description) {
+
+        if (key == null) {
+            return false;
+        }
+        Long owner = index.putIfAbsent(key, id);
+        if (owner == null) {
+            return true;
+        }
+        if (owner != id) {
+            String msg = description + " уже используется пользователем " + owner;
+            log.warn(msg);
+            throw new ConflictException(msg);
+        }
+        return false;
+    }
+
+    private static String emailKey(String email) {
+        return (email == null) ? null : email.strip().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.traffic;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "filmorate.traffic.capture.enabled", havingValue = "true")
+public class TrafficCaptureConfig {
+
+    @Bean
+    public FilterRegistrationBean<TrafficCaptureFilter> trafficCaptureFilter(TrafficRecorder recorder) {
+
+        var registration = new FilterRegistrationBean<>(new TrafficCaptureFilter(recorder));
+        registration.addUrlPatterns("/films", "/films/*", "/users", "/users/*");
+        return registration;
+    }
+}
@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.traffic;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Передача отобранных запросов в TrafficRecorder.
+ * Тело кэшируется только у отобранных запросов, остальные проходят без обертки.
+ */
+public class TrafficCaptureFilter extends OncePerRequestFilter {
+
+    private final TrafficRecorder recorder;
+
+    public TrafficCaptureFilter(TrafficRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        if (!recorder.sample(request.getContentLengthLong())) {
+            chain.doFilter(request, response);
+            return;
+        }
+        var cachingRequest = new LimitedCachingRequest(request, recorder.getMaxBodyBytes());
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(cachingRequest, response);
+        } finally {
+            long durationMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+            String contentType = request.getContentType();
+            byte[] content = cachingRequest.getContentAsByteArray();
+            boolean binary = content.length > 0 && !isText(contentType);
+            String body = (content.length == 0) ? null
+                    : binary ? Base64.getEncoder().encodeToString(content)
+                    : new String(content, StandardCharsets.UTF_8);
+            recorder.record(new TrafficRecord(recorder.offsetMillis(start), request.getMethod(),
+                    request.getRequestURI(), request.getQueryString(), contentType,
+                    request.getHeader(HttpHeaders.ACCEPT), body, binary, cachingRequest.truncated,
+                    response.getStatus(), durationMicros));
+        }
+    }
+
+    /**
+     * Кэширование тела с отметкой о превышении предела. Длина тела частями (chunked) заранее
+     * неизвестна, поэтому такое тело может оказаться длиннее предела уже после отбора
+     */
+    private static class LimitedCachingRequest extends ContentCachingRequestWrapper {
+
+        private boolean truncated;
+
+        LimitedCachingRequest(HttpServletRequest request, int contentCacheLimit) {
+            super(request, contentCacheLimit);
+        }
+
+        @Override
+        protected void handleContentOverflow(int contentCacheLimit) {
+            truncated = true;
+        }
+    }
+
+    private static boolean isText(String contentType) {
+        return contentType == null || contentType.contains("json") || contentType.startsWith("text/");
+    }
+}
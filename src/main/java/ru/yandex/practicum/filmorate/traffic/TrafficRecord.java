@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.traffic;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.regex.Pattern;
+
+/**
+ * Записанный запрос к API
+ * @param offsetMillis Момент поступления относительно начала записи, мс
+ * @param method HTTP-метод
+ * @param path Путь запроса
+ * @param query Строка параметров (null, если параметров нет)
+ * @param contentType Тип тела запроса (null, если тела нет)
+ * @param accept Заголовок Accept (null, если не задан)
+ * @param body Тело запроса (null, если тела нет)
+ * @param base64Body Тело двоичное (CBOR, Smile) и записано в Base64
+ * @param truncated Тело длиннее предела записи и сохранено не полностью; такой запрос не воспроизводится
+ * @param status Код ответа
+ * @param durationMicros Время обработки, мкс
+ */
+public record TrafficRecord(long offsetMillis, String method, String path, String query, String contentType,
+                            String accept, String body, boolean base64Body, boolean truncated, int status,
+                            long durationMicros) {
+
+    private static final Pattern ID_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+
+    /**
+     * Операция без конкретных id, например {@code PUT /films/{id}/like/{id}} - ключ для статистики задержек
+     */
+    public String endpoint() {
+        return method + " " + ID_SEGMENT.matcher(path).replaceAll("/{id}");
+    }
+
+    public String pathWithQuery() {
+        return (query == null) ? path : path + "?" + query;
+    }
+
+    public byte[] bodyBytes() {
+
+        if (body == null) {
+            return new byte[0];
+        }
+        return base64Body ? Base64.getDecoder().decode(body) : body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Запрос только читает данные. Имя без префикса is, чтобы Jackson не записывал его как свойство
+     */
+    public boolean readOnly() {
+        return "GET".equals(method);
+    }
+
+    /**
+     * Запрос можно воспроизвести: тело записано полностью
+     */
+    public boolean replayable() {
+        return !truncated;
+    }
+}
@@ -0,0 +1,153 @@
+package ru.yandex.practicum.filmorate.traffic;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Запись выборки запросов к API в файл (одна строка JSON на запрос) для прогрева
+ * и воспроизводимых замеров задержек (см. TrafficReplayer).
+ * Отбор случайный с заданной долей, число записей ограничено, чтобы файл не рос бесконечно.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.traffic.capture.enabled", havingValue = "true")
+@Slf4j
+public class TrafficRecorder implements AutoCloseable {
+
+    private final Path file;
+    private final double sampleRate;
+    private final long maxRecords;
+    private final int maxBodyBytes;
+    private final ObjectMapper objectMapper;
+    private final BufferedWriter writer;
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong recorded = new AtomicLong();
+
+
+    @Autowired
+    public TrafficRecorder(@Value("${filmorate.traffic.capture.file:traffic.jsonl}") String file,
+                           @Value("${filmorate.traffic.capture.sample-rate:0.01}") double sampleRate,
+                           @Value("${filmorate.traffic.capture.max-records:100000}") long maxRecords,
+                           @Value("${filmorate.traffic.capture.max-body-bytes:65536}") int maxBodyBytes,
+                           ObjectMapper objectMapper) {
+        this(Path.of(file), sampleRate, maxRecords, maxBodyBytes, objectMapper);
+    }
+
+    public TrafficRecorder(Path file, double sampleRate, long maxRecords, int maxBodyBytes,
+                           ObjectMapper objectMapper) {
+        this.file = file;
+        this.sampleRate = sampleRate;
+        this.maxRecords = maxRecords;
+        this.maxBodyBytes = maxBodyBytes;
+        this.objectMapper = objectMapper;
+        try {
+            this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть файл записи запросов " + file, e);
+        }
+        log.info("Запись запросов в {} с долей отбора {}", file, sampleRate);
+    }
+
+    /**
+     * Решение, записывать ли очередной запрос
+     * @param contentLength Длина тела запроса (-1, если неизвестна)
+     */
+    public boolean sample(long contentLength) {
+
+        return recorded.get() < maxRecords
+                && contentLength <= maxBodyBytes
+                && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    public int getMaxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    /**
+     * Момент относительно начала записи, мс
+     * @param nanoTime Значение {@link System#nanoTime()}
+     */
+    public long offsetMillis(long nanoTime) {
+        return TimeUnit.NANOSECONDS.toMillis(nanoTime - startNanos);
+    }
+
+    public void record(TrafficRecord record) {
+
+        if (recorded.incrementAndGet() > maxRecords) {
+            return;
+        }
+        try {
+            String line = objectMapper.writeValueAsString(record);
+            synchronized (writer) {
+                writer.write(line);
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            log.warn("Запрос {} {} не записан: {}", record.method(), record.path(), e.getMessage());
+        }
+    }
+
+    public long getRecorded() {
+        return Math.min(recorded.get(), maxRecords);
+    }
+
+    @Scheduled(fixedDelay = 1000)
+    public void flush() {
+
+        synchronized (writer) {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                log.warn("Не удалось сбросить файл записи запросов {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+
+        synchronized (writer) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        log.info("Записано запросов: {}", getRecorded());
+    }
+
+    /**
+     * Чтение записи запросов в порядке поступления
+     */
+    public static List<TrafficRecord> read(Path file, ObjectMapper objectMapper) throws IOException {
+
+        List<TrafficRecord> records = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (!line.isBlank()) {
+                records.add(objectMapper.readValue(line, TrafficRecord.class));
+            }
+        }
+        records.sort((a, b) -> Long.compare(a.offsetMillis(), b.offsetMillis()));
+        return records;
+    }
+}
@@ -0,0 +1,117 @@
+package ru.yandex.practicum.filmorate.traffic;
+
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Воспроизведение записанных запросов против экземпляра приложения.
+ * С ускорением больше нуля запросы подаются по записанному расписанию (открытая модель),
+ * и задержка отсчитывается от запланированного момента отправки, чтобы замедление сервера
+ * не маскировалось; с нулевым - последовательно, каждый после ответа на предыдущий.
+ */
+public class TrafficReplayer implements AutoCloseable {
+
+    /**
+     * Получатель результатов воспроизведения
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * @param record Воспроизведенный запрос
+         * @param status Код ответа (-1 при ошибке соединения)
+         * @param latencyNanos Задержка ответа, нс
+         */
+        void onResponse(TrafficRecord record, int status, long latencyNanos);
+    }
+
+    private final String baseUrl;
+    private final HttpClient client;
+    private final int maxInFlight;
+
+
+    public TrafficReplayer(String baseUrl, int maxInFlight) {
+        this.baseUrl = baseUrl;
+        this.maxInFlight = maxInFlight;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    /**
+     * @param records Запросы в порядке поступления
+     * @param speed Ускорение относительно записи (2 - вдвое быстрее), 0 - последовательно без пауз
+     * @param listener Получатель результатов; вызывается из потоков клиента
+     */
+    public void replay(List<TrafficRecord> records, double speed, Listener listener) throws InterruptedException {
+
+        if (records.isEmpty()) {
+            return;
+        }
+        if (speed <= 0) {
+            for (TrafficRecord record : records) {
+                long start = System.nanoTime();
+                int status;
+                try {
+                    status = client.send(request(record), HttpResponse.BodyHandlers.discarding()).statusCode();
+                } catch (IOException e) {
+                    status = -1;
+                }
+                listener.onResponse(record, status, System.nanoTime() - start);
+            }
+            return;
+        }
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long firstOffset = records.get(0).offsetMillis();
+        long start = System.nanoTime();
+        for (TrafficRecord record : records) {
+            final long intended = start + (long) (TimeUnit.MILLISECONDS.toNanos(record.offsetMillis() - firstOffset) / speed);
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            inFlight.acquire();
+            client.sendAsync(request(record), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        listener.onResponse(record, (error == null) ? response.statusCode() : -1,
+                                System.nanoTime() - intended);
+                        inFlight.release();
+                    });
+        }
+        // Ожидание завершения всех отправленных запросов
+        inFlight.acquire(maxInFlight);
+        inFlight.release(maxInFlight);
+    }
+
+    private HttpRequest request(TrafficRecord record) {
+
+        byte[] body = record.bodyBytes();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + record.pathWithQuery()))
+                .method(record.method(), (body.length == 0)
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body));
+        if (record.contentType() != null) {
+            builder.header(HttpHeaders.CONTENT_TYPE, record.contentType());
+        }
+        if (record.accept() != null) {
+            builder.header(HttpHeaders.ACCEPT, record.accept());
+        }
+        return builder.build();
+    }
+
+    @Override
+    public void close() {
+        client.close();
+    }
+}
@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.traffic;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Прогрев экземпляра записанными запросами до того, как он объявит готовность.
+ * Обработчик ApplicationReadyEvent выполняется раньше, чем Spring Boot переводит приложение
+ * в состояние ReadinessState.ACCEPTING_TRAFFIC, поэтому проба готовности не пропустит
+ * трафик к экземпляру, пока прогрев не закончится.
+ * По умолчанию воспроизводятся только чтения, чтобы прогрев не менял данные.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.traffic.warmup.file")
+@Slf4j
+public class TrafficWarmup {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private final Path file;
+    private final int rounds;
+    private final long timeoutMillis;
+    private final boolean includeWrites;
+    private final ObjectMapper objectMapper;
+    private final Environment environment;
+
+
+    @Autowired
+    public TrafficWarmup(@Value("${filmorate.traffic.warmup.file}") String file,
+                         @Value("${filmorate.traffic.warmup.rounds:3}") int rounds,
+                         @Value("${filmorate.traffic.warmup.timeout-seconds:60}") long timeoutSeconds,
+                         @Value("${filmorate.traffic.warmup.include-writes:false}") boolean includeWrites,
+                         ObjectMapper objectMapper, Environment environment) {
+        this.file = Path.of(file);
+        this.rounds = rounds;
+        this.timeoutMillis = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+        this.includeWrites = includeWrites;
+        this.objectMapper = objectMapper;
+        this.environment = environment;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+
+        List<TrafficRecord> records;
+        try {
+            records = TrafficRecorder.read(file, objectMapper).stream()
+                    .filter(TrafficRecord::replayable)
+                    .filter(record -> includeWrites || record.readOnly())
+                    .toList();
+        } catch (IOException e) {
+            log.warn("Прогрев пропущен: не удалось прочитать {}: {}", file, e.getMessage());
+            return;
+        }
+        String baseUrl = "http://localhost:" + environment.getProperty("local.server.port", "8080");
+        LongAdder requests = new LongAdder();
+        LongAdder errors = new LongAdder();
+        long start = System.currentTimeMillis();
+        try (TrafficReplayer replayer = new TrafficReplayer(baseUrl, 1)) {
+            TrafficReplayer.Listener listener = (record, status, latencyNanos) -> {
+                requests.increment();
+                if (status < 0 || status >= 500) {
+                    errors.increment();
+                }
+            };
+            // Запросы подаются порциями, чтобы длинная запись не задержала готовность дольше таймаута
+            warmup:
+            for (int round = 0; round < rounds; round++) {
+                for (int from = 0; from < records.size(); from += CHUNK_SIZE) {
+                    if (System.currentTimeMillis() - start >= timeoutMillis) {
+                        log.warn("Прогрев прерван по таймауту");
+                        break warmup;
+                    }
+                    replayer.replay(records.subList(from, Math.min(from + CHUNK_SIZE, records.size())), 0, listener);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Прогрев завершен за {} мс: {} запросов, {} ошибок", System.currentTimeMillis() - start,
+                requests.sum(), errors.sum());
+    }
+}
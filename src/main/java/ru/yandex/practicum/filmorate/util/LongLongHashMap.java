@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+
+/**
+ * Хеш-таблица long → long с открытой адресацией без упаковки ключей и значений.
+ * Ключ {@link Long#MIN_VALUE} зарезервирован как признак пустой ячейки.
+ */
+public class LongLongHashMap {
+
+    /**
+     * Получатель пар ключ-значение без упаковки
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, long value);
+    }
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+    private int mask;
+
+
+    public LongLongHashMap(int expectedSize) {
+
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+    }
+
+    private static int hash(long key) {
+
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int indexOf(long key) {
+
+        int i = hash(key) & mask;
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Добавление значения, если ключ еще отсутствует
+     * @return true, если ключ был добавлен
+     */
+    public boolean putIfAbsent(long key, long value) {
+
+        int i = indexOf(key);
+        if (keys[i] == key) {
+            return false;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * Добавление или замена значения
+     */
+    public void put(long key, long value) {
+
+        if (!putIfAbsent(key, value)) {
+            values[indexOf(key)] = value;
+        }
+    }
+
+    public long get(long key, long defaultValue) {
+
+        int i = indexOf(key);
+        return (keys[i] == key) ? values[i] : defaultValue;
+    }
+
+    public boolean containsKey(long key) {
+        return keys[indexOf(key)] == key;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(EntryConsumer action) {
+
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    private void grow() {
+
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new long[oldValues.length * 2];
+        Arrays.fill(keys, EMPTY);
+        mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != EMPTY) {
+                int i = indexOf(oldKeys[j]);
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+}
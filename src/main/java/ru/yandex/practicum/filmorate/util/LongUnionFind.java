@@ -0,0 +1,97 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+
+/**
+ * Система непересекающихся множеств над id типа long (объединение по размеру, сокращение путей).
+ * Id, которые еще ни разу не объединялись, считаются одноэлементными множествами и памяти не занимают.
+ * Не потокобезопасна.
+ */
+public class LongUnionFind {
+
+    private final LongLongHashMap indexes;
+    private int[] parents;
+    private int[] sizes;
+    // Наименьший id множества (актуален для корней)
+    private long[] minIds;
+    private int count;
+
+
+    public LongUnionFind() {
+        this(16);
+    }
+
+    public LongUnionFind(int expectedSize) {
+
+        int capacity = Math.max(4, expectedSize);
+        indexes = new LongLongHashMap(capacity);
+        parents = new int[capacity];
+        sizes = new int[capacity];
+        minIds = new long[capacity];
+    }
+
+    /**
+     * Объединение множеств двух id
+     * @return true, если множества были разными
+     */
+    public boolean union(long id1, long id2) {
+
+        int root1 = find(indexOf(id1));
+        int root2 = find(indexOf(id2));
+        if (root1 == root2) {
+            return false;
+        }
+        if (sizes[root1] < sizes[root2]) {
+            int root = root1;
+            root1 = root2;
+            root2 = root;
+        }
+        parents[root2] = root1;
+        sizes[root1] += sizes[root2];
+        minIds[root1] = Math.min(minIds[root1], minIds[root2]);
+        return true;
+    }
+
+    /**
+     * Представитель множества id - наименьший id в нем
+     */
+    public long representative(long id) {
+
+        long index = indexes.get(id, -1);
+        return (index < 0) ? id : minIds[find((int) index)];
+    }
+
+    public int size(long id) {
+
+        long index = indexes.get(id, -1);
+        return (index < 0) ? 1 : sizes[find((int) index)];
+    }
+
+    private int indexOf(long id) {
+
+        long index = indexes.get(id, -1);
+        if (index >= 0) {
+            return (int) index;
+        }
+        if (count == parents.length) {
+            int capacity = count * 2;
+            parents = Arrays.copyOf(parents, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+            minIds = Arrays.copyOf(minIds, capacity);
+        }
+        parents[count] = count;
+        sizes[count] = 1;
+        minIds[count] = id;
+        indexes.put(id, count);
+        return count++;
+    }
+
+    private int find(int index) {
+
+        while (parents[index] != index) {
+            parents[index] = parents[parents[index]];
+            index = parents[index];
+        }
+        return index;
+    }
+}
@@ -0,0 +1,337 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Неизменяемое множество long со структурным разделением (префиксное дерево по хэшу, 32 ветви на узел).
+ * Добавление и удаление создают новое множество за O(log32 n): копируется только путь от корня
+ * до изменяемого элемента, остальные узлы общие с исходным множеством.
+ * Хэш - взаимно однозначное перемешивание значения, поэтому разные значения расходятся
+ * не глубже 13-го уровня и коллизий не бывает.
+ * Методы изменения {@link java.util.Set} бросают UnsupportedOperationException.
+ */
+public final class PersistentLongSet extends AbstractSet<Long> {
+
+    private static final int BITS = 5;
+    private static final int MAX_DEPTH = 14;
+
+    private static final PersistentLongSet EMPTY = new PersistentLongSet(Node.EMPTY, 0);
+
+    private final Node root;
+    private final int size;
+
+
+    private PersistentLongSet(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public static PersistentLongSet empty() {
+        return EMPTY;
+    }
+
+    public static PersistentLongSet copyOf(Iterable<Long> values) {
+
+        if (values instanceof PersistentLongSet set) {
+            return set;
+        }
+        PersistentLongSet set = EMPTY;
+        for (Long value : values) {
+            set = set.plus(value);
+        }
+        return set;
+    }
+
+    /**
+     * @return Множество с добавленным значением (это же множество, если значение уже есть)
+     */
+    public PersistentLongSet plus(long value) {
+
+        Node newRoot = root.plus(value, hash(value), 0);
+        return (newRoot == root) ? this : new PersistentLongSet(newRoot, size + 1);
+    }
+
+    /**
+     * @return Множество без значения (это же множество, если значения нет)
+     */
+    public PersistentLongSet minus(long value) {
+
+        Node newRoot = root.minus(value, hash(value), 0);
+        return (newRoot == root) ? this : new PersistentLongSet(newRoot, size - 1);
+    }
+
+    public boolean contains(long value) {
+        return root.contains(value, hash(value));
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long value && contains(value.longValue());
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public void forEach(LongConsumer action) {
+        root.forEach(action);
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+
+        return new Iterator<>() {
+
+            private final Node[] nodes = new Node[MAX_DEPTH];
+            // Для каждого уровня: номер следующего значения узла, затем номер следующего дочернего узла
+            private final int[] positions = new int[MAX_DEPTH];
+            private int depth;
+            private int remaining = size;
+
+            {
+                nodes[0] = root;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            @Override
+            public Long next() {
+
+                if (remaining == 0) {
+                    throw new NoSuchElementException();
+                }
+                while (true) {
+                    Node node = nodes[depth];
+                    int position = positions[depth];
+                    if (position < node.values.length) {
+                        positions[depth]++;
+                        remaining--;
+                        return node.values[position];
+                    }
+                    int child = position - node.values.length;
+                    if (child < node.children.length) {
+                        positions[depth]++;
+                        depth++;
+                        nodes[depth] = node.children[child];
+                        positions[depth] = 0;
+                    } else {
+                        depth--;
+                    }
+                }
+            }
+        };
+    }
+
+    @Override
+    public boolean add(Long value) {
+        throw unsupported();
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        throw unsupported();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Long> c) {
+        throw unsupported();
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        throw unsupported();
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        throw unsupported();
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Long> filter) {
+        throw unsupported();
+    }
+
+    @Override
+    public void clear() {
+        throw unsupported();
+    }
+
+    private static UnsupportedOperationException unsupported() {
+        return new UnsupportedOperationException("Множество неизменяемое, используйте plus и minus");
+    }
+
+    /**
+     * Взаимно однозначное перемешивание: умножение на нечетное число и сдвиг с исключающим или
+     */
+    private static long hash(long value) {
+
+        long h = value * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    /**
+     * Узел дерева: значения и дочерние узлы хранятся раздельно, позиция в массиве определяется
+     * числом занятых ветвей с меньшим номером в соответствующей битовой карте
+     */
+    private static final class Node {
+
+        static final Node EMPTY = new Node(0, 0, new long[0], new Node[0]);
+
+        final int valueMap;
+        final int childMap;
+        final long[] values;
+        final Node[] children;
+
+        Node(int valueMap, int childMap, long[] values, Node[] children) {
+            this.valueMap = valueMap;
+            this.childMap = childMap;
+            this.values = values;
+            this.children = children;
+        }
+
+        private static int bit(long hash, int shift) {
+            return 1 << (int) ((hash >>> shift) & 31);
+        }
+
+        private static int index(int map, int bit) {
+            return Integer.bitCount(map & (bit - 1));
+        }
+
+        boolean contains(long value, long hash) {
+
+            Node node = this;
+            for (int shift = 0; ; shift += BITS) {
+                int bit = bit(hash, shift);
+                if ((node.valueMap & bit) != 0) {
+                    return node.values[index(node.valueMap, bit)] == value;
+                }
+                if ((node.childMap & bit) == 0) {
+                    return false;
+                }
+                node = node.children[index(node.childMap, bit)];
+            }
+        }
+
+        Node plus(long value, long hash, int shift) {
+
+            int bit = bit(hash, shift);
+            if ((valueMap & bit) != 0) {
+                int i = index(valueMap, bit);
+                long existing = values[i];
+                if (existing == value) {
+                    return this;
+                }
+                Node child = pair(existing, hash(existing), value, hash, shift + BITS);
+                return new Node(valueMap ^ bit, childMap | bit, removeValue(values, i),
+                        insertChild(children, index(childMap, bit), child));
+            }
+            if ((childMap & bit) != 0) {
+                int i = index(childMap, bit);
+                Node child = children[i];
+                Node newChild = child.plus(value, hash, shift + BITS);
+                if (newChild == child) {
+                    return this;
+                }
+                Node[] newChildren = children.clone();
+                newChildren[i] = newChild;
+                return new Node(valueMap, childMap, values, newChildren);
+            }
+            return new Node(valueMap | bit, childMap, insertValue(values, index(valueMap, bit), value), children);
+        }
+
+        Node minus(long value, long hash, int shift) {
+
+            int bit = bit(hash, shift);
+            if ((valueMap & bit) != 0) {
+                int i = index(valueMap, bit);
+                if (values[i] != value) {
+                    return this;
+                }
+                return new Node(valueMap ^ bit, childMap, removeValue(values, i), children);
+            }
+            if ((childMap & bit) == 0) {
+                return this;
+            }
+            int i = index(childMap, bit);
+            Node child = children[i];
+            Node newChild = child.minus(value, hash, shift + BITS);
+            if (newChild == child) {
+                return this;
+            }
+            if (newChild.childMap == 0 && newChild.values.length <= 1) {
+                // В дочернем узле осталось не больше одного значения - оно поднимается в этот узел
+                Node[] newChildren = removeChild(children, i);
+                if (newChild.values.length == 0) {
+                    return new Node(valueMap, childMap ^ bit, values, newChildren);
+                }
+                return new Node(valueMap | bit, childMap ^ bit,
+                        insertValue(values, index(valueMap, bit), newChild.values[0]), newChildren);
+            }
+            Node[] newChildren = children.clone();
+            newChildren[i] = newChild;
+            return new Node(valueMap, childMap, values, newChildren);
+        }
+
+        void forEach(LongConsumer action) {
+
+            for (long value : values) {
+                action.accept(value);
+            }
+            for (Node child : children) {
+                child.forEach(action);
+            }
+        }
+
+        private static Node pair(long a, long hashA, long b, long hashB, int shift) {
+
+            int bitA = bit(hashA, shift);
+            int bitB = bit(hashB, shift);
+            if (bitA == bitB) {
+                return new Node(0, bitA, new long[0], new Node[] {pair(a, hashA, b, hashB, shift + BITS)});
+            }
+            long[] values = (Integer.compareUnsigned(bitA, bitB) < 0) ? new long[] {a, b} : new long[] {b, a};
+            return new Node(bitA | bitB, 0, values, new Node[0]);
+        }
+
+        private static long[] insertValue(long[] array, int i, long value) {
+
+            long[] result = Arrays.copyOf(array, array.length + 1);
+            System.arraycopy(array, i, result, i + 1, array.length - i);
+            result[i] = value;
+            return result;
+        }
+
+        private static long[] removeValue(long[] array, int i) {
+
+            long[] result = Arrays.copyOf(array, array.length - 1);
+            System.arraycopy(array, i + 1, result, i, array.length - i - 1);
+            return result;
+        }
+
+        private static Node[] insertChild(Node[] array, int i, Node child) {
+
+            Node[] result = Arrays.copyOf(array, array.length + 1);
+            System.arraycopy(array, i, result, i + 1, array.length - i);
+            result[i] = child;
+            return result;
+        }
+
+        private static Node[] removeChild(Node[] array, int i) {
+
+            Node[] result = Arrays.copyOf(array, array.length - 1);
+            System.arraycopy(array, i + 1, result, i, array.length - i - 1);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.util;
+
+/**
+ * Разделение повторяющихся строк через таблицу ограниченного размера.
+ * В отличие от {@link String#intern()} таблица не растет и не держит строки вечно:
+ * ячейка выбирается по хэшу строки, и новая строка вытесняет прежнюю при совпадении ячейки.
+ * Не потокобезопасен: вызывающий держит собственную блокировку.
+ */
+public final class StringDeduplicator {
+
+    private final String[] table;
+    private final int mask;
+
+
+    /**
+     * @param capacity Число ячеек (округляется вверх до степени двойки)
+     */
+    public StringDeduplicator(int capacity) {
+
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        table = new String[size];
+        mask = size - 1;
+    }
+
+    /**
+     * @return Ранее встреченная равная строка или сама строка
+     */
+    public String dedupe(String value) {
+
+        if (value == null) {
+            return null;
+        }
+        int h = value.hashCode() * 0x9E3779B9;
+        int i = (h ^ (h >>> 16)) & mask;
+        String cached = table[i];
+        if (value.equals(cached)) {
+            return cached;
+        }
+        table[i] = value;
+        return value;
+    }
+}
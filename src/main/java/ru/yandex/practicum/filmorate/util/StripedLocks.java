@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Блокировки записей по id, разбитые на 64 полосы. Набор полос задается битовой маской long,
+ * поэтому блокировка нескольких записей сразу не требует выделения памяти.
+ * Полосы захватываются в порядке номеров, и писатели нескольких записей не блокируют друг друга взаимно.
+ */
+public final class StripedLocks {
+
+    private static final int STRIPES = 64;
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+
+    public StripedLocks() {
+
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Бит полосы записи для маски
+     */
+    public static long bit(long id) {
+        return 1L << (Long.hashCode(id * 0x9E3779B97F4A7C15L) >>> 26);
+    }
+
+    /**
+     * @return true, если полоса записи входит в маску
+     */
+    public static boolean covers(long stripeMask, long id) {
+        return (stripeMask & bit(id)) != 0;
+    }
+
+    /**
+     * @return Маска захваченных полос для {@link #unlock}
+     */
+    public long lock(long stripeMask) {
+
+        for (long mask = stripeMask; mask != 0; mask &= mask - 1) {
+            stripes[Long.numberOfTrailingZeros(mask)].lock();
+        }
+        return stripeMask;
+    }
+
+    public long lock(long id1, long id2) {
+        return lock(bit(id1) | bit(id2));
+    }
+
+    public void unlock(long stripeMask) {
+
+        for (long mask = stripeMask; mask != 0; mask &= mask - 1) {
+            stripes[Long.numberOfTrailingZeros(mask)].unlock();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Кодирование и декодирование списка фильмов с большими множествами лайков: JSON против CBOR и Smile.
+ * Размер представления печатается при подготовке.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodingBenchmark {
+
+    private static final int FILMS = 100;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"10", "1000"})
+    private int likesPerFilm;
+
+    private ObjectMapper mapper;
+    private Film[] films;
+    private byte[] encoded;
+
+
+    @Setup
+    public void setUp() throws IOException {
+
+        JsonFactory factory = switch (format) {
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> new JsonFactory();
+        };
+        mapper = new ObjectMapper(factory)
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        SplittableRandom random = new SplittableRandom(3);
+        films = new Film[FILMS];
+        for (int i = 0; i < FILMS; i++) {
+            Film film = new Film();
+            film.setId(i + 1L);
+            film.setName("Film " + i);
+            film.setDescription("Description of film " + i);
+            film.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(i));
+            film.setDuration(90 + i);
+            while (film.getLikes().size() < likesPerFilm) {
+                film.getLikes().add(random.nextLong(1, 10_000_000));
+            }
+            film.setRate(likesPerFilm);
+            films[i] = film;
+        }
+        encoded = mapper.writeValueAsBytes(films);
+        System.out.printf("%n%s, %d лайков на фильм: %d байт%n", format, likesPerFilm, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return mapper.writeValueAsBytes(films);
+    }
+
+    @Benchmark
+    public Film[] decode() throws IOException {
+        return mapper.readValue(encoded, Film[].class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EncodingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
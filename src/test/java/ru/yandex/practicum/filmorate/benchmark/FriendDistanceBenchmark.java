@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.yandex.practicum.filmorate.model.Distance;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FriendGraphService;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск расстояния между случайными пользователями в графе со степенным
+ * распределением числа друзей (модель предпочтительного присоединения)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class FriendDistanceBenchmark {
+
+    @Param({"500000"})
+    private int users;
+
+    @Param({"4"})
+    private int edgesPerUser;
+
+    private FriendGraphService friendGraphService;
+    private SplittableRandom random;
+
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        UserStorage userStorage = new InMemoryUserStorage();
+        for (int i = 0; i < users; i++) {
+            User user = new User();
+            user.setLogin("user" + i);
+            user.setEmail("user" + i + "@email.com");
+            user.setBirthday(LocalDate.of(2000, 1, 1));
+            userStorage.addUser(user);
+        }
+
+        // Каждое ребро добавляется в список концов, поэтому новый пользователь
+        // выбирает друга с вероятностью, пропорциональной числу его друзей
+        long[] endpoints = new long[2 * users * edgesPerUser];
+        int endpointCount = 0;
+        Random graphRandom = new Random(42);
+        endpoints[endpointCount++] = 1;
+        for (long id = 2; id <= users; id++) {
+            for (int e = 0; e < edgesPerUser; e++) {
+                long friendId = endpoints[graphRandom.nextInt(endpointCount)];
+                if (friendId != id && userStorage.getUser(id).getFriends().add(friendId)) {
+                    userStorage.getUser(friendId).getFriends().add(id);
+                    endpoints[endpointCount++] = id;
+                    endpoints[endpointCount++] = friendId;
+                }
+            }
+        }
+        friendGraphService = new FriendGraphService(userStorage, 6, 1000);
+        random = new SplittableRandom(7);
+    }
+
+    @Benchmark
+    public Distance distance() {
+        return friendGraphService.getDistance(random.nextLong(1, users + 1), random.nextLong(1, users + 1), false);
+    }
+
+    @Benchmark
+    public Distance distanceWithPath() {
+        return friendGraphService.getDistance(random.nextLong(1, users + 1), random.nextLong(1, users + 1), true);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FriendDistanceBenchmark.class.getSimpleName()).build()).run();
+    }
+}
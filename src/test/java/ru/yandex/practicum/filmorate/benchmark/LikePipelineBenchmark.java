@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.film.CompactFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.CompactUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Лайки одного «горячего» фильма от множества конкурентных клиентов:
+ * применение в потоке запроса против конвейера лайков
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1024)
+public class LikePipelineBenchmark {
+
+    private static final int USERS = 100_000;
+
+    @Param({"0", "4"})
+    private int partitions;
+
+    @Param({"true", "false"})
+    private boolean readYourWrites;
+
+    private FilmService filmService;
+    private long filmId;
+
+
+    @Setup
+    public void setUp() {
+
+        UserStorage userStorage = new CompactUserStorage();
+        filmService = new FilmService(new CompactFilmStorage(), userStorage, event -> { },
+                partitions, 65536, readYourWrites);
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@email.com");
+            user.setLogin("user" + i);
+            user.setName("User " + i);
+            user.setBirthday(LocalDate.of(2000, 1, 1));
+            userStorage.addUser(user);
+        }
+        Film film = new Film();
+        film.setName("Hot film");
+        film.setDescription("Hot film description");
+        film.setReleaseDate(LocalDate.of(2020, 1, 1));
+        film.setDuration(120);
+        filmId = filmService.addFilm(film).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        filmService.shutdown();
+    }
+
+    @Benchmark
+    public void likeHotFilm() {
+
+        long userId = 1 + ThreadLocalRandom.current().nextInt(USERS);
+        if (ThreadLocalRandom.current().nextBoolean()) {
+            filmService.likeFilm(filmId, userId);
+        } else {
+            filmService.unlikeFilm(filmId, userId);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LikePipelineBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,112 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.CompactFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.SnapshotFilmStorage;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Одновременные изменения фильмов при разной конкуренции: публикация новой версии сравнением
+ * с обменом (in-memory) против блокировок. Базовый вариант in-memory-locked - то же хранилище,
+ * но изменения выполняются под общим монитором, то есть без повторов и без параллелизма;
+ * для сравнения также общая блокировка фиксации с копированием (snapshot)
+ * и монитор хранилища с изменением на месте (compact).
+ * Чем меньше hotFilms, тем чаще потоки изменяют один и тот же фильм и тем больше повторов при обмене.
+ * Группа update-read: три потока изменяют фильмы, один читает.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OptimisticUpdateBenchmark {
+
+    private static final int FILMS = 10_000;
+
+    @Param({"in-memory", "in-memory-locked", "snapshot", "compact"})
+    private String storageMode;
+
+    @Param({"1", "16", "10000"})
+    private int hotFilms;
+
+    private FilmStorage storage;
+
+    /**
+     * In-memory с изменениями под монитором хранилища
+     */
+    static class LockedInMemoryFilmStorage extends InMemoryFilmStorage {
+
+        @Override
+        public synchronized Film updateFilm(Film film, Long expectedVersion) {
+            return super.updateFilm(film, expectedVersion);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Writer {
+
+        final SplittableRandom random = new SplittableRandom();
+        final Film change = new Film();
+    }
+
+
+    @Setup
+    public void setUp() {
+
+        storage = switch (storageMode) {
+            case "snapshot" -> new SnapshotFilmStorage();
+            case "compact" -> new CompactFilmStorage();
+            case "in-memory-locked" -> new LockedInMemoryFilmStorage();
+            default -> new InMemoryFilmStorage();
+        };
+        for (int i = 0; i < FILMS; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setDescription("Description " + i);
+            film.setReleaseDate(LocalDate.of(2000, 1, 1));
+            film.setDuration(100);
+            storage.addFilm(film);
+            // Лайки переносятся в каждую новую версию, поэтому у фильмов они есть
+            for (long userId = 1; userId <= 20; userId++) {
+                storage.like(film.getId(), userId);
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Film update(Writer writer) {
+
+        writer.change.setId(writer.random.nextLong(1, hotFilms + 1L));
+        writer.change.setDuration(writer.random.nextInt(60, 200));
+        return storage.updateFilm(writer.change);
+    }
+
+    @Benchmark
+    @Group("updateRead")
+    @GroupThreads(3)
+    public Film updateInGroup(Writer writer) {
+        return update(writer);
+    }
+
+    @Benchmark
+    @Group("updateRead")
+    @GroupThreads(1)
+    public Integer readInGroup(Writer reader) {
+        return storage.getFilm(reader.random.nextLong(1, hotFilms + 1L)).getDuration();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(OptimisticUpdateBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.yandex.practicum.filmorate.ratelimit.RateLimiter;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накладные расходы ограничителя частоты запросов:
+ * один «горячий» пользователь против множества разных пользователей
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    @Param({"1000", "1000000"})
+    private int users;
+
+    private RateLimiter rateLimiter;
+
+
+    @Setup
+    public void setUp() {
+        rateLimiter = new RateLimiter(1_000_000, 1_000_000, 100_000);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long hotUser() {
+        return rateLimiter.tryAcquire(1);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long manyUsers() {
+        return rateLimiter.tryAcquire(ThreadLocalRandom.current().nextInt(users));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RateLimiterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jol.info.GraphLayout;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.CompactFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.CompactUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+/**
+ * Сравнение объема памяти на запись для обычного и компактного хранилищ.
+ * Хранилища заполняются одинаковыми данными, размер считается обходом графа объектов (JOL).
+ * Аргументы: число пользователей, число фильмов, друзей на пользователя, лайков на фильм.
+ */
+public class RecordFootprint {
+
+    private static final String[] NAMES = {"Иван", "Мария", "Алексей", "Ольга", "Дмитрий", "Анна"};
+
+    public static void main(String[] args) {
+
+        int users = (args.length > 0) ? Integer.parseInt(args[0]) : 100_000;
+        int films = (args.length > 1) ? Integer.parseInt(args[1]) : 10_000;
+        int friendsPerUser = (args.length > 2) ? Integer.parseInt(args[2]) : 5;
+        int likesPerFilm = (args.length > 3) ? Integer.parseInt(args[3]) : 20;
+
+        UserStorage inMemoryUsers = new InMemoryUserStorage();
+        UserStorage compactUsers = new CompactUserStorage();
+        fillUsers(inMemoryUsers, users, friendsPerUser);
+        fillUsers(compactUsers, users, friendsPerUser);
+        report("Пользователи", users, GraphLayout.parseInstance(inMemoryUsers).totalSize(),
+                GraphLayout.parseInstance(compactUsers).totalSize());
+
+        FilmStorage inMemoryFilms = new InMemoryFilmStorage();
+        FilmStorage compactFilms = new CompactFilmStorage();
+        fillFilms(inMemoryFilms, films, users, likesPerFilm);
+        fillFilms(compactFilms, films, users, likesPerFilm);
+        report("Фильмы", films, GraphLayout.parseInstance(inMemoryFilms).totalSize(),
+                GraphLayout.parseInstance(compactFilms).totalSize());
+    }
+
+    private static void fillUsers(UserStorage storage, int users, int friendsPerUser) {
+
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < users; i++) {
+            User user = new User();
+            user.setLogin("user" + i);
+            user.setEmail("user" + i + "@email.com");
+            user.setName(NAMES[i % NAMES.length]);
+            user.setBirthday(LocalDate.of(1980, 1, 1).plusDays(i % 10000));
+            storage.addUser(user);
+        }
+        for (long id = 1; id <= users; id++) {
+            for (int i = 0; i < friendsPerUser / 2; i++) {
+                long friendId = random.nextLong(1, users + 1);
+                if (friendId != id) {
+                    storage.addFriend(id, friendId);
+                }
+            }
+        }
+    }
+
+    private static void fillFilms(FilmStorage storage, int films, int users, int likesPerFilm) {
+
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < films; i++) {
+            Film film = new Film();
+            film.setName("Фильм " + i);
+            film.setDescription("Описание фильма");
+            film.setReleaseDate(LocalDate.of(1950, 1, 1).plusDays(i % 25000));
+            film.setDuration(90 + i % 60);
+            storage.addFilm(film);
+            for (int like = 0; like < likesPerFilm; like++) {
+                storage.like(film.getId(), random.nextLong(1, users + 1));
+            }
+        }
+    }
+
+    private static void report(String title, int count, long inMemoryBytes, long compactBytes) {
+
+        System.out.printf("%s: обычное хранилище %d байт/запись, компактное %d байт/запись (%.1f%%)%n",
+                title, inMemoryBytes / count, compactBytes / count, 100.0 * compactBytes / inMemoryBytes);
+    }
+}
@@ -0,0 +1,132 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.yandex.practicum.filmorate.service.MinHashIndex;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время поиска похожих фильмов по индексу MinHash при разных параметрах полос.
+ * После прогона печатается полнота (recall@10) относительно точного коэффициента Жаккара
+ * и объем сигнатур - компромисс точности и памяти.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimilarFilmsBenchmark {
+
+    private static final int FILMS = 20_000;
+    private static final int USERS = 50_000;
+    private static final int GENRES = 1000;
+    private static final int LIKES_PER_FILM = 30;
+    private static final int TOP = 10;
+
+    // Полосы x строки в полосе
+    @Param({"16x4", "32x2", "64x2", "32x3"})
+    private String shape;
+
+    private List<Set<Long>> likes;
+    private MinHashIndex index;
+
+
+    @Setup
+    public void setUp() {
+
+        // Зрители и фильмы распределены по жанрам; фильм лайкают в основном зрители его жанра
+        SplittableRandom random = new SplittableRandom(7);
+        int usersPerGenre = USERS / GENRES;
+        likes = new ArrayList<>(FILMS);
+        for (int film = 0; film < FILMS; film++) {
+            int genre = random.nextInt(GENRES);
+            Set<Long> audience = new HashSet<>();
+            while (audience.size() < LIKES_PER_FILM) {
+                long user = (random.nextInt(10) < 8)
+                        ? (long) genre * usersPerGenre + random.nextInt(usersPerGenre)
+                        : random.nextInt(USERS);
+                audience.add(user);
+            }
+            likes.add(audience);
+        }
+        String[] parts = shape.split("x");
+        index = new MinHashIndex(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+        for (int film = 0; film < FILMS; film++) {
+            index.set(film, likes.get(film));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+
+        SplittableRandom random = new SplittableRandom(11);
+        int samples = 200;
+        int found = 0;
+        int expected = 0;
+        for (int i = 0; i < samples; i++) {
+            int film = random.nextInt(FILMS);
+            Set<Long> exact = exactTop(film);
+            expected += exact.size();
+            for (MinHashIndex.Similarity similarity : index.query(film, TOP)) {
+                if (exact.contains(similarity.filmId())) {
+                    found++;
+                }
+            }
+        }
+        String[] parts = shape.split("x");
+        int signatureBytes = Integer.parseInt(parts[0]) * Integer.parseInt(parts[1]) * Integer.BYTES;
+        System.out.printf("%n%s: recall@%d = %.3f, сигнатура %d байт на фильм%n",
+                shape, TOP, (double) found / expected, signatureBytes);
+    }
+
+    @Benchmark
+    public List<MinHashIndex.Similarity> similar() {
+        return index.query(ThreadLocalRandom.current().nextInt(FILMS), TOP);
+    }
+
+    /**
+     * Точные лучшие фильмы по коэффициенту Жаккара полным перебором
+     */
+    private Set<Long> exactTop(int film) {
+
+        Set<Long> audience = likes.get(film);
+        List<long[]> scores = new ArrayList<>();
+        for (int other = 0; other < FILMS; other++) {
+            if (other == film) {
+                continue;
+            }
+            int common = 0;
+            for (Long user : likes.get(other)) {
+                if (audience.contains(user)) {
+                    common++;
+                }
+            }
+            if (common > 0) {
+                // Жаккар в целочисленном масштабе, чтобы сортировать пары long
+                long jaccard = common * 1_000_000L / (audience.size() + likes.get(other).size() - common);
+                scores.add(new long[] {jaccard, other});
+            }
+        }
+        scores.sort(Comparator.comparingLong((long[] score) -> score[0]).reversed());
+        Set<Long> top = new HashSet<>();
+        for (int i = 0; i < Math.min(TOP, scores.size()); i++) {
+            top.add(scores.get(i)[1]);
+        }
+        return top;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SimilarFilmsBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.cache.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.CompactFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение фильмов с распределением Ципфа: хранилище напрямую против кэширующей обертки.
+ * После прогона печатается статистика кэша (доля попаданий).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StorageCacheBenchmark {
+
+    private static final int FILMS = 1_000_000;
+    private static final int SAMPLES = 1 << 20;
+
+    @Param({"0", "10000", "100000"})
+    private int cacheCapacity;
+
+    @Param({"0.99"})
+    private double skew;
+
+    private FilmStorage storage;
+    private long[] keys;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+
+    @Setup
+    public void setUp() {
+
+        FilmStorage compactStorage = new CompactFilmStorage();
+        for (int i = 0; i < FILMS; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setDescription("Description " + i);
+            film.setReleaseDate(LocalDate.of(2000, 1, 1));
+            film.setDuration(100);
+            compactStorage.addFilm(film);
+        }
+        storage = (cacheCapacity == 0) ? compactStorage : new CachingFilmStorage(compactStorage, cacheCapacity);
+        keys = zipf(FILMS, skew, SAMPLES, new SplittableRandom(42));
+    }
+
+    @TearDown
+    public void tearDown() {
+
+        if (storage instanceof CachingFilmStorage cachingStorage) {
+            System.out.println(cachingStorage.getStats());
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Film getFilm(Cursor cursor) {
+        return storage.getFilm(keys[cursor.next++ & (SAMPLES - 1)]);
+    }
+
+    /**
+     * Выборка id (1..n) по закону Ципфа обращением функции распределения
+     */
+    private static long[] zipf(int n, double skew, int samples, SplittableRandom random) {
+
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1 / Math.pow(i + 1, skew);
+            cumulative[i] = sum;
+        }
+        long[] result = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            double target = random.nextDouble() * sum;
+            int index = Arrays.binarySearch(cumulative, target);
+            result[i] = (index >= 0 ? index : -index - 1) + 1L;
+        }
+        return result;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StorageCacheBenchmark.class.getSimpleName()).build()).run();
+    }
+}
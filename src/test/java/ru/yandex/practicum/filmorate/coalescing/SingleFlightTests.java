@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.coalescing;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SingleFlightTests {
+
+    @Test
+    public void testConcurrentCallsShareOneComputation() throws Exception {
+
+        SingleFlight<String, Integer> flight = new SingleFlight<>(0);
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 16;
+
+        List<Future<Integer>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(callers)) {
+            results.add(executor.submit(() -> flight.execute("popular", () -> {
+                computations.incrementAndGet();
+                started.countDown();
+                await(release);
+                return 42;
+            })));
+            Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < callers; i++) {
+                results.add(executor.submit(() -> flight.execute("popular", () -> {
+                    computations.incrementAndGet();
+                    return -1;
+                })));
+            }
+            // Ждем, пока все вызовы присоединятся к выполняющемуся вычислению
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (flight.getCoalesced() < callers - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            for (Future<Integer> result : results) {
+                Assertions.assertEquals(42, result.get());
+            }
+        }
+        Assertions.assertEquals(1, computations.get());
+        Assertions.assertEquals(1, flight.getExecuted());
+        Assertions.assertEquals(callers - 1, flight.getCoalesced());
+
+        // Без окна переиспользования следующий вызов вычисляет заново
+        Assertions.assertEquals(7, flight.execute("popular", () -> 7));
+        Assertions.assertEquals(2, flight.getExecuted());
+    }
+
+    @Test
+    public void testReuseWindowAndErrors() {
+
+        SingleFlight<String, Integer> flight = new SingleFlight<>(60_000);
+        Assertions.assertEquals(1, flight.execute("key", () -> 1));
+        Assertions.assertEquals(1, flight.execute("key", () -> 2));
+        Assertions.assertEquals(1, flight.getReused());
+        Assertions.assertEquals(3, flight.execute("other", () -> 3));
+
+        // Ошибка не кэшируется
+        Assertions.assertThrows(NotFoundException.class,
+                () -> flight.execute("missing", () -> {
+                    throw new NotFoundException("Не найдено");
+                }));
+        Assertions.assertEquals(4, flight.execute("missing", () -> 4));
+    }
+
+    private static void await(CountDownLatch latch) {
+
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
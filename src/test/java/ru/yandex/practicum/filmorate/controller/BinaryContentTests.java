@@ -0,0 +1,115 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class BinaryContentTests {
+
+    private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private static ObjectMapper mapper(JsonFactory factory) {
+        return new ObjectMapper(factory)
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    private static Film makeFilm(String name) {
+
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Фильм в двоичном представлении");
+        film.setReleaseDate(LocalDate.of(1999, 3, 31));
+        film.setDuration(136);
+        return film;
+    }
+
+    /**
+     * Добавление фильма с телом и ответом в заданном формате
+     */
+    private Film postFilm(MediaType type, ObjectMapper mapper, Film film) throws Exception {
+
+        MockHttpServletResponse response = mockMvc.perform(post("/films")
+                        .contentType(type)
+                        .accept(type)
+                        .content(mapper.writeValueAsBytes(film)))
+                .andReturn().getResponse();
+        Assertions.assertEquals(200, response.getStatus());
+        Assertions.assertTrue(type.isCompatibleWith(MediaType.parseMediaType(response.getContentType())),
+                "Content-Type ответа: " + response.getContentType());
+        return mapper.readValue(response.getContentAsByteArray(), Film.class);
+    }
+
+    private void checkRoundTrip(MediaType type, ObjectMapper mapper) throws Exception {
+
+        Film sent = makeFilm("Film " + type.getSubtype());
+        Film added = postFilm(type, mapper, sent);
+        Assertions.assertNotNull(added.getId());
+        Assertions.assertEquals(sent.getName(), added.getName());
+        Assertions.assertEquals(sent.getDescription(), added.getDescription());
+        Assertions.assertEquals(sent.getReleaseDate(), added.getReleaseDate());
+        Assertions.assertEquals(sent.getDuration(), added.getDuration());
+
+        MockHttpServletResponse response = mockMvc.perform(get("/films/" + added.getId()).accept(type))
+                .andReturn().getResponse();
+        Assertions.assertEquals(200, response.getStatus());
+        Assertions.assertTrue(type.isCompatibleWith(MediaType.parseMediaType(response.getContentType())));
+        Film read = mapper.readValue(response.getContentAsByteArray(), Film.class);
+        Assertions.assertEquals(added.getId(), read.getId());
+        Assertions.assertEquals(sent.getReleaseDate(), read.getReleaseDate());
+    }
+
+    @Test
+    public void testCborRoundTrip() throws Exception {
+        checkRoundTrip(CBOR, mapper(new CBORFactory()));
+    }
+
+    @Test
+    public void testSmileRoundTrip() throws Exception {
+        checkRoundTrip(SMILE, mapper(new SmileFactory()));
+    }
+
+    @Test
+    public void testBinaryBodyWithJsonResponse() throws Exception {
+
+        // Тело в CBOR, ответ без явного Accept - JSON
+        User user = new User();
+        user.setLogin("binary");
+        user.setEmail("binary@email.com");
+        user.setBirthday(LocalDate.of(1990, 5, 17));
+        MockHttpServletResponse response = mockMvc.perform(post("/users")
+                        .contentType(CBOR)
+                        .content(mapper(new CBORFactory()).writeValueAsBytes(user)))
+                .andReturn().getResponse();
+        Assertions.assertEquals(200, response.getStatus());
+        Assertions.assertTrue(MediaType.APPLICATION_JSON.isCompatibleWith(
+                MediaType.parseMediaType(response.getHeader(HttpHeaders.CONTENT_TYPE))));
+        User added = mapper(new JsonFactory()).readValue(response.getContentAsByteArray(), User.class);
+        Assertions.assertEquals("binary", added.getLogin());
+        Assertions.assertEquals(LocalDate.of(1990, 5, 17), added.getBirthday());
+    }
+}
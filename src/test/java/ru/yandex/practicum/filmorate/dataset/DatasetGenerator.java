@@ -0,0 +1,358 @@
+package ru.yandex.practicum.filmorate.dataset;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Детерминированный генератор больших наборов данных для замеров, нагрузочных тестов и тестов срезов.
+ * <p>
+ * Популярность фильмов и пользователей распределена по закону Ципфа: число лайков, поставленных
+ * пользователем, и число друзей, которых он добавляет, берутся из распределения Парето с заданным
+ * средним, а цель каждой связи выбирается по рангу популярности. В итоге и число лайков фильма,
+ * и число друзей пользователя имеют распределение с тяжелым хвостом, как в рабочих данных.
+ * Ранги перемешаны относительно id, чтобы популярность не совпадала с порядком добавления.
+ * <p>
+ * Каждая сущность строится собственным генератором случайных чисел, зерно которого зависит
+ * только от общего зерна и номера сущности, поэтому результат не зависит от числа потоков.
+ * Сущности и связи вычисляются параллельно порциями, а в хранилище добавляются последовательно:
+ * обычные хранилища не потокобезопасны, а id выдаются по порядку добавления.
+ * Все сущности проходят проверки сервисов.
+ */
+public final class DatasetGenerator {
+
+    private static final int CHUNK_SIZE = 65_536;
+    private static final LocalDate FIRST_RELEASE = LocalDate.of(1900, 1, 1);
+    private static final LocalDate FIRST_BIRTHDAY = LocalDate.of(1950, 1, 1);
+    private static final String[] NAMES = {"Иван", "Мария", "Алексей", "Ольга", "Дмитрий", "Анна", "Сергей", "Елена"};
+    private static final String[] WORDS = {"история", "любовь", "война", "город", "тайна", "дорога", "семья",
+            "космос", "море", "ночь", "друг", "время"};
+
+    /**
+     * Параметры набора данных
+     * @param users Число пользователей
+     * @param films Число фильмов
+     * @param likesPerUser Среднее число лайков, поставленных пользователем
+     * @param friendsPerUser Среднее число друзей, добавленных пользователем (друзья взаимны,
+     *                       поэтому итоговое среднее число друзей примерно вдвое больше)
+     * @param zipfExponent Показатель распределения популярности (1 - классический закон Ципфа)
+     * @param seed Зерно генератора
+     * @param parallelism Число потоков генерации
+     */
+    public record Spec(int users, int films, double likesPerUser, double friendsPerUser, double zipfExponent,
+                       long seed, int parallelism) {
+
+        public static Spec of(int users, int films, long seed) {
+            return new Spec(users, films, 20, 5, 1.0, seed, Runtime.getRuntime().availableProcessors());
+        }
+
+        public Spec withRelations(double likesPerUser, double friendsPerUser) {
+            return new Spec(users, films, likesPerUser, friendsPerUser, zipfExponent, seed, parallelism);
+        }
+
+        public Spec withParallelism(int parallelism) {
+            return new Spec(users, films, likesPerUser, friendsPerUser, zipfExponent, seed, parallelism);
+        }
+    }
+
+    /**
+     * Куда добавляются данные: напрямую в хранилища или через сервисы (тогда обновляются
+     * и производные индексы сервисов, например рейтинги популярных фильмов)
+     */
+    public interface Target {
+
+        User addUser(User user);
+
+        Film addFilm(Film film);
+
+        void addLike(long filmId, long userId);
+
+        void addFriend(long userId, long friendId);
+
+        static Target of(FilmStorage filmStorage, UserStorage userStorage) {
+
+            return new Target() {
+                public User addUser(User user) {
+                    return userStorage.addUser(user);
+                }
+
+                public Film addFilm(Film film) {
+                    return filmStorage.addFilm(film);
+                }
+
+                public void addLike(long filmId, long userId) {
+                    filmStorage.like(filmId, userId);
+                }
+
+                public void addFriend(long userId, long friendId) {
+                    userStorage.addFriend(userId, friendId);
+                }
+            };
+        }
+
+        static Target of(FilmService filmService, UserService userService) {
+
+            return new Target() {
+                public User addUser(User user) {
+                    return userService.addUser(user);
+                }
+
+                public Film addFilm(Film film) {
+                    return filmService.addFilm(film);
+                }
+
+                public void addLike(long filmId, long userId) {
+                    filmService.likeFilm(filmId, userId);
+                }
+
+                public void addFriend(long userId, long friendId) {
+                    userService.addFriend(userId, friendId);
+                }
+            };
+        }
+    }
+
+    /**
+     * Итог генерации
+     * @param users Число пользователей
+     * @param films Число фильмов
+     * @param likes Число лайков
+     * @param friendRequests Число добавлений в друзья (повторные добавления той же пары не создают новую дружбу)
+     * @param millis Время генерации, мс
+     */
+    public record Result(int users, int films, long likes, long friendRequests, long millis) {
+    }
+
+    private final Spec spec;
+    private final long[] userScramble;
+    private final long[] filmScramble;
+
+
+    public DatasetGenerator(Spec spec) {
+        this.spec = spec;
+        this.userScramble = scramble(spec.users(), spec.seed());
+        this.filmScramble = scramble(spec.films(), spec.seed() + 1);
+    }
+
+    /**
+     * Заполнение пустых хранилищ или сервисов: id сущностей должны выдаваться подряд начиная с 1
+     */
+    public Result populate(Target target) {
+
+        long start = System.currentTimeMillis();
+        ForkJoinPool pool = new ForkJoinPool(spec.parallelism());
+        try {
+            for (int from = 0; from < spec.users(); from += CHUNK_SIZE) {
+                for (User user : generate(pool, from, spec.users(), this::user, User[]::new)) {
+                    target.addUser(user);
+                }
+            }
+            for (int from = 0; from < spec.films(); from += CHUNK_SIZE) {
+                for (Film film : generate(pool, from, spec.films(), this::film, Film[]::new)) {
+                    target.addFilm(film);
+                }
+            }
+            long likes = 0;
+            long friendRequests = 0;
+            for (int from = 0; from < spec.users(); from += CHUNK_SIZE) {
+                long[][] relations = generate(pool, from, spec.users(), this::relations, long[][]::new);
+                for (int i = 0; i < relations.length; i++) {
+                    long userId = from + i + 1;
+                    long[] userRelations = relations[i];
+                    // Первый элемент - число лайков, затем id фильмов, затем id друзей
+                    int likeCount = (int) userRelations[0];
+                    for (int j = 1; j <= likeCount; j++) {
+                        target.addLike(userRelations[j], userId);
+                    }
+                    for (int j = likeCount + 1; j < userRelations.length; j++) {
+                        target.addFriend(userId, userRelations[j]);
+                    }
+                    likes += likeCount;
+                    friendRequests += userRelations.length - 1 - likeCount;
+                }
+            }
+            return new Result(spec.users(), spec.films(), likes, friendRequests, System.currentTimeMillis() - start);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Параллельное построение порции сущностей с номерами от from (не более CHUNK_SIZE и не дальше size)
+     */
+    private static <T> T[] generate(ForkJoinPool pool, int from, int size, IntFunction<T> factory,
+                                    IntFunction<T[]> arrayFactory) {
+
+        int to = Math.min(from + CHUNK_SIZE, size);
+        return pool.submit(() -> IntStream.range(from, to).parallel().mapToObj(factory).toArray(arrayFactory)).join();
+    }
+
+    private SplittableRandom random(int index, long salt) {
+        return new SplittableRandom(spec.seed() * 0x9E3779B97F4A7C15L + salt * 0xC2B2AE3D27D4EB4FL + index);
+    }
+
+    private User user(int index) {
+
+        SplittableRandom random = random(index, 1);
+        User user = new User();
+        user.setLogin("user" + index);
+        user.setEmail("user" + index + "@example.com");
+        user.setName(NAMES[random.nextInt(NAMES.length)]);
+        user.setBirthday(FIRST_BIRTHDAY.plusDays(random.nextInt(20_000)));
+        return user;
+    }
+
+    private Film film(int index) {
+
+        SplittableRandom random = random(index, 2);
+        Film film = new Film();
+        film.setName(capitalize(WORDS[random.nextInt(WORDS.length)]) + " " + index);
+        StringBuilder description = new StringBuilder();
+        int words = random.nextInt(3, 20);
+        for (int i = 0; i < words; i++) {
+            description.append(i == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        film.setDescription(description.toString());
+        film.setReleaseDate(FIRST_RELEASE.plusDays(random.nextInt(45_000)));
+        film.setDuration(random.nextInt(60, 200));
+        return film;
+    }
+
+    /**
+     * Лайки и друзья пользователя: {число лайков, id фильмов..., id друзей...} без повторов
+     */
+    private long[] relations(int index) {
+
+        SplittableRandom random = random(index, 3);
+        long userId = index + 1L;
+        long[] likes = distinct(random, pareto(random, spec.likesPerUser(), spec.films()), spec.films(),
+                filmScramble, -1);
+        long[] friends = distinct(random, pareto(random, spec.friendsPerUser(), spec.users() - 1), spec.users(),
+                userScramble, userId);
+        long[] result = new long[1 + likes.length + friends.length];
+        result[0] = likes.length;
+        System.arraycopy(likes, 0, result, 1, likes.length);
+        System.arraycopy(friends, 0, result, 1 + likes.length, friends.length);
+        return result;
+    }
+
+    /**
+     * Число связей из распределения Парето (показатель 2) с заданным средним
+     */
+    private static int pareto(SplittableRandom random, double mean, int max) {
+
+        if (mean <= 0 || max <= 0) {
+            return 0;
+        }
+        double min = mean / 2;
+        double value = min / Math.sqrt(1 - random.nextDouble());
+        return (int) Math.min(max, Math.round(value));
+    }
+
+    /**
+     * Выбор count различных id по рангу популярности, кроме excluded
+     */
+    private long[] distinct(SplittableRandom random, int count, int size, long[] scramble, long excluded) {
+
+        long[] ids = new long[count];
+        int found = 0;
+        // Для самых активных пользователей повторы неизбежны - число попыток ограничено
+        for (int attempt = 0; found < count && attempt < count * 4; attempt++) {
+            long id = scramble[zipfRank(random, size)];
+            if (id != excluded) {
+                ids[found++] = id;
+            }
+            if (found == count) {
+                Arrays.sort(ids, 0, found);
+                found = unique(ids, found);
+            }
+        }
+        Arrays.sort(ids, 0, found);
+        return Arrays.copyOf(ids, unique(ids, found));
+    }
+
+    private static int unique(long[] ids, int length) {
+
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            if (count == 0 || ids[count - 1] != ids[i]) {
+                ids[count++] = ids[i];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Ранг (с нуля) из ограниченного степенного распределения обращением функции распределения
+     */
+    private int zipfRank(SplittableRandom random, int size) {
+
+        double u = random.nextDouble();
+        double s = spec.zipfExponent();
+        double rank = (Math.abs(s - 1) < 1e-9)
+                ? Math.pow(size + 1, u)
+                : Math.pow((Math.pow(size + 1, 1 - s) - 1) * u + 1, 1 / (1 - s));
+        return (int) Math.min(size - 1, Math.max(0, (long) rank - 1));
+    }
+
+    /**
+     * Перестановка рангов в id: ранг r соответствует id scramble[r]
+     */
+    private static long[] scramble(int size, long seed) {
+
+        long[] ids = new long[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = i + 1;
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long swap = ids[i];
+            ids[i] = ids[j];
+            ids[j] = swap;
+        }
+        return ids;
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    /**
+     * Генерация в обычные хранилища с выводом времени и распределения связей.
+     * Аргументы: число пользователей, число фильмов, зерно, число потоков.
+     */
+    public static void main(String[] args) {
+
+        int users = (args.length > 0) ? Integer.parseInt(args[0]) : 1_000_000;
+        int films = (args.length > 1) ? Integer.parseInt(args[1]) : 100_000;
+        long seed = (args.length > 2) ? Long.parseLong(args[2]) : 42;
+        Spec spec = Spec.of(users, films, seed);
+        if (args.length > 3) {
+            spec = spec.withParallelism(Integer.parseInt(args[3]));
+        }
+        FilmStorage filmStorage = new InMemoryFilmStorage();
+        UserStorage userStorage = new InMemoryUserStorage();
+        Result result = new DatasetGenerator(spec).populate(Target.of(filmStorage, userStorage));
+        System.out.println(result);
+
+        int[] likes = filmStorage.getFilms().stream().mapToInt(film -> film.getLikes().size()).sorted().toArray();
+        int[] friends = userStorage.getUsers().stream().mapToInt(user -> user.getFriends().size()).sorted().toArray();
+        System.out.printf("Лайков на фильм: медиана %d, p99 %d, максимум %d%n",
+                likes[likes.length / 2], likes[(int) (likes.length * 0.99)], likes[likes.length - 1]);
+        System.out.printf("Друзей на пользователя: медиана %d, p99 %d, максимум %d%n",
+                friends[friends.length / 2], friends[(int) (friends.length * 0.99)], friends[friends.length - 1]);
+    }
+}
@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.dataset;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class DatasetGeneratorTests {
+
+    private static final DatasetGenerator.Spec SPEC = DatasetGenerator.Spec.of(3000, 500, 7);
+
+    private static List<String> dump(FilmStorage filmStorage, UserStorage userStorage) {
+
+        List<String> films = filmStorage.getFilms().stream()
+                .sorted(Comparator.comparing(Film::getId))
+                .map(film -> film.getId() + " " + film.getName() + " " + film.getReleaseDate() + " "
+                        + film.getLikes().stream().sorted().toList())
+                .toList();
+        List<String> users = userStorage.getUsers().stream()
+                .sorted(Comparator.comparing(User::getId))
+                .map(user -> user.getId() + " " + user.getLogin() + " " + user.getBirthday() + " "
+                        + user.getFriends().stream().sorted().toList())
+                .toList();
+        return Stream.concat(films.stream(), users.stream()).toList();
+    }
+
+    @Test
+    public void testSameSeedGivesSameDatasetOnAnyParallelism() {
+
+        FilmStorage filmStorage1 = new InMemoryFilmStorage();
+        UserStorage userStorage1 = new InMemoryUserStorage();
+        new DatasetGenerator(SPEC.withParallelism(1)).populate(DatasetGenerator.Target.of(filmStorage1, userStorage1));
+
+        FilmStorage filmStorage4 = new InMemoryFilmStorage();
+        UserStorage userStorage4 = new InMemoryUserStorage();
+        new DatasetGenerator(SPEC.withParallelism(4)).populate(DatasetGenerator.Target.of(filmStorage4, userStorage4));
+
+        Assertions.assertEquals(dump(filmStorage1, userStorage1), dump(filmStorage4, userStorage4));
+    }
+
+    @Test
+    public void testDatasetPassesServiceValidation() {
+
+        UserStorage userStorage = new InMemoryUserStorage();
+        FilmStorage filmStorage = new InMemoryFilmStorage();
+        UserService userService = new UserService(userStorage, event -> { });
+        FilmService filmService = new FilmService(filmStorage, userStorage, event -> { });
+        DatasetGenerator.Spec spec = DatasetGenerator.Spec.of(500, 100, 11);
+
+        DatasetGenerator.Result result = new DatasetGenerator(spec)
+                .populate(DatasetGenerator.Target.of(filmService, userService));
+
+        Assertions.assertEquals(500, userService.getUsers().size());
+        Assertions.assertEquals(100, filmService.getFilms().size());
+        Assertions.assertEquals(result.likes(),
+                filmService.getFilms().stream().mapToLong(film -> film.getLikes().size()).sum());
+        Assertions.assertEquals(filmService.getPopularFilms(1).get(0).getId(),
+                filmService.getPopularFilms(1, null, null).get(0).getId());
+    }
+
+    @Test
+    public void testRelationsHavePowerLawSkew() {
+
+        FilmStorage filmStorage = new InMemoryFilmStorage();
+        UserStorage userStorage = new InMemoryUserStorage();
+        DatasetGenerator.Result result = new DatasetGenerator(SPEC)
+                .populate(DatasetGenerator.Target.of(filmStorage, userStorage));
+
+        double averageLikes = (double) result.likes() / result.films();
+        int maxLikes = filmStorage.getFilms().stream().mapToInt(film -> film.getLikes().size()).max().orElse(0);
+        Assertions.assertTrue(maxLikes > 10 * averageLikes, "Самый популярный фильм должен выделяться");
+
+        long friendless = userStorage.getUsers().stream().filter(user -> user.getFriends().isEmpty()).count();
+        int maxFriends = userStorage.getUsers().stream().mapToInt(user -> user.getFriends().size()).max().orElse(0);
+        Assertions.assertTrue(maxFriends > 100, "У самых популярных пользователей должны быть сотни друзей");
+        Assertions.assertTrue(friendless < result.users() / 10);
+        for (User user : userStorage.getUsers()) {
+            Assertions.assertFalse(user.getFriends().contains(user.getId()));
+            for (long friendId : user.getFriends()) {
+                Assertions.assertTrue(userStorage.getUser(friendId).getFriends().contains(user.getId()));
+            }
+        }
+    }
+}
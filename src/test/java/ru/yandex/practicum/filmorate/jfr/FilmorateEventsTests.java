@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate.jfr;
+
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+public class FilmorateEventsTests {
+
+    private static User makeUser(int number) {
+
+        User user = new User();
+        user.setLogin("user" + number);
+        user.setEmail("user" + number + "@email.com");
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        return user;
+    }
+
+    private static RecordedEvent find(List<RecordedEvent> events, String name) {
+
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Нет события " + name));
+    }
+
+    @Test
+    public void testEventsAreRecorded() throws Exception {
+
+        UserStorage userStorage = new InMemoryUserStorage();
+        UserService userService = new UserService(userStorage, event -> { });
+        FilmService filmService = new FilmService(new InMemoryFilmStorage(), userStorage, event -> { });
+
+        Path file = Files.createTempFile("filmorate-test-", ".jfr");
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            // Нулевой порог: записываются все операции, а не только медленные
+            ContinuousRecording.EVENTS.values()
+                    .forEach(eventClass -> recording.enable(eventClass).withThreshold(Duration.ZERO));
+            recording.start();
+
+            long user1 = userService.addUser(makeUser(1)).getId();
+            long user2 = userService.addUser(makeUser(2)).getId();
+            long user3 = userService.addUser(makeUser(3)).getId();
+            userService.addFriend(user1, user3);
+            userService.addFriend(user2, user3);
+            Assertions.assertEquals(1, userService.getCommonFriends(user1, user2).size());
+
+            Film film = new Film();
+            film.setName("Film");
+            film.setReleaseDate(LocalDate.of(2000, 1, 1));
+            film.setDuration(100);
+            long filmId = filmService.addFilm(film).getId();
+            filmService.likeFilm(filmId, user1);
+            filmService.getPopularFilms(5);
+
+            User invalid = makeUser(4);
+            invalid.setLogin("bad login");
+            Assertions.assertThrows(ValidationException.class, () -> userService.addUser(invalid));
+
+            recording.stop();
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        RecordedEvent like = find(events, "filmorate.FilmLike");
+        Assertions.assertEquals(1, like.getLong("filmId"));
+        Assertions.assertTrue(like.getBoolean("liked"));
+
+        RecordedEvent popular = find(events, "filmorate.PopularFilms");
+        Assertions.assertTrue(popular.getBoolean("fullScan"));
+        Assertions.assertEquals(1, popular.getInt("resultSize"));
+
+        RecordedEvent common = find(events, "filmorate.FriendQuery");
+        Assertions.assertEquals(FriendQueryEvent.COMMON, common.getString("query"));
+        Assertions.assertEquals(1, common.getInt("resultSize"));
+
+        Assertions.assertTrue(find(events, "filmorate.Friendship").getBoolean("added"));
+        Assertions.assertEquals("InMemoryUserStorage", find(events, "filmorate.StorageLookup").getString("storage"));
+        Assertions.assertTrue(events.stream()
+                .filter(event -> event.getEventType().getName().equals("filmorate.Validation"))
+                .anyMatch(event -> event.getString("field").equals("login") && !event.getBoolean("passed")));
+    }
+
+    @Test
+    public void testBundledSettingsCoverAllEvents() {
+
+        Map<String, String> settings = ContinuousRecording.filmorateSettings();
+        for (Class<?> eventClass : ContinuousRecording.EVENTS.values()) {
+            String name = eventClass.getAnnotation(Name.class).value();
+            Assertions.assertEquals("true", settings.get(name + "#enabled"), name);
+            Assertions.assertNotNull(settings.get(name + "#threshold"), name);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.dataset.DatasetGenerator;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Нагрузочный генератор: запускает приложение локально и подает запросы с постоянной
+ * интенсивностью (открытая модель). Задержка отсчитывается от запланированного момента
+ * отправки, а не от фактического, поэтому замедление сервера не маскируется
+ * уменьшением числа запросов (coordinated omission).
+ * <p>
+ * Параметры задаются аргументами {@code --имя=значение}:
+ * rate (запросов в секунду), duration и warmup (секунды), users, films, seed, report
+ * (путь к отчету) и mix (доли операций, например {@code popular:40,friends:20,like:20,addFriend:20}).
+ * Остальные аргументы передаются приложению.
+ */
+public class LoadGenerator {
+
+    enum Operation {
+        POPULAR("popular"),
+        FRIENDS("friends"),
+        COMMON_FRIENDS("commonFriends"),
+        LIKE("like"),
+        UNLIKE("unlike"),
+        ADD_FRIEND("addFriend");
+
+        private final String key;
+
+        Operation(String key) {
+            this.key = key;
+        }
+
+        static Operation byKey(String key) {
+
+            for (Operation operation : values()) {
+                if (operation.key.equals(key)) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Неизвестная операция: " + key);
+        }
+    }
+
+    record Options(double rate, int durationSeconds, int warmupSeconds, int users, int films, long seed,
+                   int maxInFlight, Map<Operation, Integer> mix, Path report, List<String> appArgs) {
+
+        static Options parse(String[] args) {
+
+            Map<String, String> values = new LinkedHashMap<>();
+            List<String> appArgs = new ArrayList<>();
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                String key = (arg.startsWith("--") && eq > 0) ? arg.substring(2, eq) : "";
+                switch (key) {
+                    case "rate", "duration", "warmup", "users", "films", "seed", "max-in-flight", "mix", "report" ->
+                            values.put(key, arg.substring(eq + 1));
+                    default -> appArgs.add(arg);
+                }
+            }
+            Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+            for (String part : values.getOrDefault("mix", "popular:40,friends:20,commonFriends:10,"
+                    + "like:15,unlike:5,addFriend:10").split(",")) {
+                String[] weight = part.split(":");
+                mix.put(Operation.byKey(weight[0].trim()), Integer.parseInt(weight[1].trim()));
+            }
+            return new Options(
+                    Double.parseDouble(values.getOrDefault("rate", "1000")),
+                    Integer.parseInt(values.getOrDefault("duration", "60")),
+                    Integer.parseInt(values.getOrDefault("warmup", "10")),
+                    Integer.parseInt(values.getOrDefault("users", "10000")),
+                    Integer.parseInt(values.getOrDefault("films", "2000")),
+                    Long.parseLong(values.getOrDefault("seed", "42")),
+                    Integer.parseInt(values.getOrDefault("max-in-flight", "10000")),
+                    mix,
+                    Path.of(values.getOrDefault("report", "target/loadtest/report.json")),
+                    appArgs);
+        }
+    }
+
+    /**
+     * Статистика одной операции
+     */
+    private static final class Stats {
+
+        // Задержки в микросекундах
+        final Recorder recorder = new Recorder(TimeUnit.MINUTES.toMicros(1), 3);
+        final LongAdder errors = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+    }
+
+    private final Options options;
+    private final String baseUrl;
+    private final HttpClient client;
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+    private final Operation[] schedule;
+    private final Semaphore inFlight;
+
+
+    private LoadGenerator(Options options, int port) {
+
+        this.options = options;
+        this.baseUrl = "http://localhost:" + port;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        this.inFlight = new Semaphore(options.maxInFlight());
+        List<Operation> weighted = new ArrayList<>();
+        options.mix().forEach((operation, weight) -> {
+            stats.put(operation, new Stats());
+            for (int i = 0; i < weight; i++) {
+                weighted.add(operation);
+            }
+        });
+        this.schedule = weighted.toArray(Operation[]::new);
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        Options options = Options.parse(args);
+        List<String> appArgs = new ArrayList<>(options.appArgs());
+        appArgs.add("--server.port=0");
+        try (ConfigurableApplicationContext context =
+                     SpringApplication.run(FilmorateApplication.class, appArgs.toArray(String[]::new))) {
+            Integer port = context.getEnvironment().getProperty("local.server.port", Integer.class);
+            populate(context, options);
+            LoadGenerator generator = new LoadGenerator(options, port);
+            System.out.println("Прогрев: " + options.warmupSeconds() + " с");
+            generator.run(options.warmupSeconds());
+            generator.resetStats();
+            System.out.println("Измерение: " + options.durationSeconds() + " с при " + options.rate() + " запр/с");
+            generator.run(options.durationSeconds());
+            generator.writeReport();
+        }
+    }
+
+    /**
+     * Заполнение хранилищ напрямую через сервисы, минуя HTTP
+     */
+    private static void populate(ConfigurableApplicationContext context, Options options) {
+
+        DatasetGenerator.Spec spec = DatasetGenerator.Spec.of(options.users(), options.films(), options.seed())
+                .withRelations(5, 5);
+        DatasetGenerator.Result result = new DatasetGenerator(spec).populate(DatasetGenerator.Target.of(
+                context.getBean(FilmService.class), context.getBean(UserService.class)));
+        System.out.println("Данные: " + result);
+    }
+
+    private void run(int seconds) throws InterruptedException {
+
+        SplittableRandom random = new SplittableRandom(options.seed());
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / options.rate());
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        for (long i = 0; ; i++) {
+            final long intended = start + i * intervalNanos;
+            if (intended - end >= 0) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = schedule[random.nextInt(schedule.length)];
+            Stats operationStats = stats.get(operation);
+            if (!inFlight.tryAcquire()) {
+                operationStats.dropped.increment();
+                continue;
+            }
+            client.sendAsync(request(operation, random), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended);
+                        operationStats.recorder.recordValue(Math.min(latencyMicros, TimeUnit.MINUTES.toMicros(1)));
+                        if (error != null || response.statusCode() >= 400) {
+                            operationStats.errors.increment();
+                        }
+                        inFlight.release();
+                    });
+        }
+        // Ожидание завершения всех отправленных запросов
+        inFlight.acquire(options.maxInFlight());
+        inFlight.release(options.maxInFlight());
+    }
+
+    private HttpRequest request(Operation operation, SplittableRandom random) {
+
+        long userId = random.nextLong(1, options.users() + 1);
+        long otherId = random.nextLong(1, options.users() + 1);
+        long filmId = random.nextLong(1, options.films() + 1);
+        if (otherId == userId) {
+            otherId = (userId % options.users()) + 1;
+        }
+        return switch (operation) {
+            case POPULAR -> get("/films/popular?count=10");
+            case FRIENDS -> get("/users/" + userId + "/friends");
+            case COMMON_FRIENDS -> get("/users/" + userId + "/friends/common/" + otherId);
+            case LIKE -> send("PUT", "/films/" + filmId + "/like/" + userId);
+            case UNLIKE -> send("DELETE", "/films/" + filmId + "/like/" + userId);
+            case ADD_FRIEND -> send("PUT", "/users/" + userId + "/friends/" + otherId);
+        };
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest send(String method, String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+    }
+
+    private void resetStats() {
+
+        for (Stats operationStats : stats.values()) {
+            operationStats.recorder.reset();
+            operationStats.errors.reset();
+            operationStats.dropped.reset();
+        }
+    }
+
+    /**
+     * Отчет в формате JSON и журнал гистограмм HdrHistogram для сравнения версий
+     */
+    private void writeReport() throws IOException {
+
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        Path histogramLog = options.report().resolveSibling(options.report().getFileName() + ".hlog");
+        Files.createDirectories(options.report().toAbsolutePath().getParent());
+        try (PrintStream logStream = new PrintStream(Files.newOutputStream(histogramLog))) {
+            HistogramLogWriter logWriter = new HistogramLogWriter(logStream);
+            logWriter.outputLogFormatVersion();
+            logWriter.outputLegend();
+            stats.forEach((operation, operationStats) -> {
+                Histogram histogram = operationStats.recorder.getIntervalHistogram();
+                histogram.setTag(operation.key);
+                logWriter.outputIntervalHistogram(histogram);
+
+                Map<String, Object> endpoint = new LinkedHashMap<>();
+                endpoint.put("count", histogram.getTotalCount());
+                endpoint.put("errors", operationStats.errors.sum());
+                endpoint.put("dropped", operationStats.dropped.sum());
+                endpoint.put("throughput", (double) histogram.getTotalCount() / options.durationSeconds());
+                endpoint.put("meanMicros", histogram.getMean());
+                endpoint.put("p50Micros", histogram.getValueAtPercentile(50));
+                endpoint.put("p90Micros", histogram.getValueAtPercentile(90));
+                endpoint.put("p99Micros", histogram.getValueAtPercentile(99));
+                endpoint.put("p999Micros", histogram.getValueAtPercentile(99.9));
+                endpoint.put("maxMicros", histogram.getMaxValue());
+                endpoints.put(operation.key, endpoint);
+            });
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("javaVersion", System.getProperty("java.version"));
+        report.put("rate", options.rate());
+        report.put("durationSeconds", options.durationSeconds());
+        report.put("users", options.users());
+        report.put("films", options.films());
+        report.put("seed", options.seed());
+        report.put("endpoints", endpoints);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(options.report().toFile(), report);
+        System.out.println("Отчет: " + options.report().toAbsolutePath());
+        endpoints.forEach((key, endpoint) -> System.out.println(key + ": " + endpoint));
+    }
+}
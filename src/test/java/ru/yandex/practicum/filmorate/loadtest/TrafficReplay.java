@@ -0,0 +1,196 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.traffic.TrafficRecord;
+import ru.yandex.practicum.filmorate.traffic.TrafficRecorder;
+import ru.yandex.practicum.filmorate.traffic.TrafficReplayer;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Воспроизводимый замер задержек по записи реальных запросов (см. TrafficRecorder):
+ * запускает приложение локально, воспроизводит запись заданное число раз для прогрева,
+ * затем замеряет задержки по каждой операции. Отчет можно сравнить с отчетом предыдущей сборки.
+ * <p>
+ * Параметры задаются аргументами {@code --имя=значение}:
+ * recording (файл записи), speed (ускорение, 0 - последовательно без пауз), warmup-rounds,
+ * max-in-flight, report (путь к отчету) и baseline (отчет для сравнения).
+ * Остальные аргументы передаются приложению.
+ * Данные в хранилищах создаются самими записанными запросами, поэтому для воспроизводимости
+ * запись стоит снимать с пустого экземпляра с долей отбора 1.
+ */
+public class TrafficReplay {
+
+    record Options(Path recording, double speed, int warmupRounds, int maxInFlight, Path report, Path baseline,
+                   List<String> appArgs) {
+
+        static Options parse(String[] args) {
+
+            Map<String, String> values = new LinkedHashMap<>();
+            List<String> appArgs = new ArrayList<>();
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                String key = (arg.startsWith("--") && eq > 0) ? arg.substring(2, eq) : "";
+                switch (key) {
+                    case "recording", "speed", "warmup-rounds", "max-in-flight", "report", "baseline" ->
+                            values.put(key, arg.substring(eq + 1));
+                    default -> appArgs.add(arg);
+                }
+            }
+            return new Options(
+                    Path.of(values.getOrDefault("recording", "traffic.jsonl")),
+                    Double.parseDouble(values.getOrDefault("speed", "1")),
+                    Integer.parseInt(values.getOrDefault("warmup-rounds", "1")),
+                    Integer.parseInt(values.getOrDefault("max-in-flight", "10000")),
+                    Path.of(values.getOrDefault("report", "target/loadtest/replay.json")),
+                    values.containsKey("baseline") ? Path.of(values.get("baseline")) : null,
+                    appArgs);
+        }
+    }
+
+    /**
+     * Статистика одной операции
+     */
+    private static final class Stats {
+
+        // Задержки в микросекундах
+        final Recorder recorder = new Recorder(TimeUnit.MINUTES.toMicros(1), 3);
+        final LongAdder errors = new LongAdder();
+        // Ответы с кодом, отличным от записанного: признак того, что воспроизведение разошлось с записью
+        final LongAdder statusMismatches = new LongAdder();
+    }
+
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    public static void main(String[] args) throws Exception {
+
+        Options options = Options.parse(args);
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<TrafficRecord> recorded = TrafficRecorder.read(options.recording(), objectMapper);
+        // Запрос с обрезанным телом воспроизвелся бы с другим ответом и исказил бы замер
+        List<TrafficRecord> records = recorded.stream().filter(TrafficRecord::replayable).toList();
+        System.out.println("Запросов в записи: " + recorded.size()
+                + ", пропущено с обрезанным телом: " + (recorded.size() - records.size()));
+        List<String> appArgs = new ArrayList<>(options.appArgs());
+        appArgs.add("--server.port=0");
+        // Прогоны прогрева оставляют данные, поэтому каждый прогон идет на новом экземпляре,
+        // а JIT прогревается в той же JVM
+        TrafficReplay replay = new TrafficReplay();
+        for (int round = 0; round <= options.warmupRounds(); round++) {
+            boolean measured = round == options.warmupRounds();
+            try (ConfigurableApplicationContext context =
+                         SpringApplication.run(FilmorateApplication.class, appArgs.toArray(String[]::new))) {
+                Integer port = context.getEnvironment().getProperty("local.server.port", Integer.class);
+                System.out.println((measured ? "Измерение" : "Прогрев " + (round + 1)) + ": порт " + port);
+                replay.stats.clear();
+                try (TrafficReplayer replayer = new TrafficReplayer("http://localhost:" + port,
+                        options.maxInFlight())) {
+                    replayer.replay(records, options.speed(), replay::record);
+                }
+            }
+        }
+        replay.writeReport(options, records.size(), objectMapper);
+    }
+
+    private void record(TrafficRecord record, int status, long latencyNanos) {
+
+        Stats endpointStats = stats.computeIfAbsent(record.endpoint(), key -> new Stats());
+        long latencyMicros = TimeUnit.NANOSECONDS.toMicros(latencyNanos);
+        endpointStats.recorder.recordValue(Math.min(latencyMicros, TimeUnit.MINUTES.toMicros(1)));
+        if (status < 0 || status >= 500) {
+            endpointStats.errors.increment();
+        }
+        if (status != record.status()) {
+            endpointStats.statusMismatches.increment();
+        }
+    }
+
+    /**
+     * Отчет в формате JSON, журнал гистограмм HdrHistogram и, если задан базовый отчет,
+     * изменение перцентилей относительно него
+     */
+    @SuppressWarnings("unchecked")
+    private void writeReport(Options options, int requests, ObjectMapper objectMapper) throws IOException {
+
+        Map<String, Object> endpoints = new TreeMap<>();
+        Path histogramLog = options.report().resolveSibling(options.report().getFileName() + ".hlog");
+        Files.createDirectories(options.report().toAbsolutePath().getParent());
+        try (PrintStream logStream = new PrintStream(Files.newOutputStream(histogramLog))) {
+            HistogramLogWriter logWriter = new HistogramLogWriter(logStream);
+            logWriter.outputLogFormatVersion();
+            logWriter.outputLegend();
+            new TreeMap<>(stats).forEach((endpoint, endpointStats) -> {
+                Histogram histogram = endpointStats.recorder.getIntervalHistogram();
+                histogram.setTag(endpoint.replace(' ', '_'));
+                logWriter.outputIntervalHistogram(histogram);
+
+                Map<String, Object> summary = new LinkedHashMap<>();
+                summary.put("count", histogram.getTotalCount());
+                summary.put("errors", endpointStats.errors.sum());
+                summary.put("statusMismatches", endpointStats.statusMismatches.sum());
+                summary.put("meanMicros", histogram.getMean());
+                summary.put("p50Micros", histogram.getValueAtPercentile(50));
+                summary.put("p90Micros", histogram.getValueAtPercentile(90));
+                summary.put("p99Micros", histogram.getValueAtPercentile(99));
+                summary.put("p999Micros", histogram.getValueAtPercentile(99.9));
+                summary.put("maxMicros", histogram.getMaxValue());
+                endpoints.put(endpoint, summary);
+            });
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("javaVersion", System.getProperty("java.version"));
+        report.put("recording", options.recording().toString());
+        report.put("requests", requests);
+        report.put("speed", options.speed());
+        report.put("warmupRounds", options.warmupRounds());
+        report.put("endpoints", endpoints);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(options.report().toFile(), report);
+        System.out.println("Отчет: " + options.report().toAbsolutePath());
+
+        Map<String, Object> baselineEndpoints = Map.of();
+        if (options.baseline() != null) {
+            baselineEndpoints = (Map<String, Object>) objectMapper.readValue(options.baseline().toFile(), Map.class)
+                    .get("endpoints");
+            System.out.println("Сравнение с " + options.baseline() + " (p50 / p99, мкс):");
+        }
+        for (Map.Entry<String, Object> entry : endpoints.entrySet()) {
+            Map<String, Object> current = (Map<String, Object>) entry.getValue();
+            Map<String, Object> base = (Map<String, Object>) baselineEndpoints.get(entry.getKey());
+            if (base == null) {
+                System.out.println(entry.getKey() + ": " + current);
+            } else {
+                System.out.printf("%s: p50 %s -> %s (%s), p99 %s -> %s (%s)%n", entry.getKey(),
+                        base.get("p50Micros"), current.get("p50Micros"), change(base, current, "p50Micros"),
+                        base.get("p99Micros"), current.get("p99Micros"), change(base, current, "p99Micros"));
+            }
+        }
+    }
+
+    private static String change(Map<String, Object> base, Map<String, Object> current, String key) {
+
+        double before = ((Number) base.get(key)).doubleValue();
+        double after = ((Number) current.get(key)).doubleValue();
+        return (before == 0) ? "n/a" : String.format("%+.1f%%", (after - before) * 100 / before);
+    }
+}
@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.ratelimit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TokenBucketTests {
+
+    private static final long SECOND = 1_000_000_000L;
+
+
+    @Test
+    public void testBurstAndRefill() {
+
+        TokenBucket bucket = new TokenBucket(2, 3, 0);
+
+        // Емкость ведра доступна сразу
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(0, bucket.tryAcquire(0));
+        }
+        Assertions.assertTrue(bucket.tryAcquire(0) > 0);
+        Assertions.assertFalse(bucket.isIdle(0));
+
+        // Через полсекунды появляется один токен
+        Assertions.assertEquals(0, bucket.tryAcquire(SECOND / 2));
+        Assertions.assertTrue(bucket.tryAcquire(SECOND / 2) > 0);
+
+        // Через достаточное время ведро снова полное
+        Assertions.assertTrue(bucket.isIdle(10 * SECOND));
+    }
+
+    @Test
+    public void testIdleBucketsAreEvicted() {
+
+        RateLimiter rateLimiter = new RateLimiter(1_000_000, 1, 2);
+        Assertions.assertEquals(0, rateLimiter.tryAcquire(1));
+        Assertions.assertEquals(0, rateLimiter.tryAcquire(2));
+        Assertions.assertEquals(2, rateLimiter.getBucketCount());
+
+        // Ведра пополняются за микросекунды и удаляются при нехватке места
+        Assertions.assertEquals(0, rateLimiter.tryAcquire(3));
+        Assertions.assertTrue(rateLimiter.getBucketCount() <= 2);
+    }
+
+    @Test
+    public void testBucketLimitHoldsUnderConcurrency() throws InterruptedException {
+
+        // Ведра не пустеют за время теста, поэтому удалять нечего
+        RateLimiter rateLimiter = new RateLimiter(1, 10, 100);
+        AtomicInteger nextUser = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    rateLimiter.tryAcquire(nextUser.incrementAndGet());
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertEquals(100, rateLimiter.getBucketCount());
+    }
+
+    @Test
+    public void testOverflowUsersDoNotShareOneBucket() {
+
+        RateLimiter rateLimiter = new RateLimiter(1, 1, 1);
+        Assertions.assertEquals(0, rateLimiter.tryAcquire(1));
+
+        // Мест нет; пользователи без своего ведра распределяются по общим ведрам,
+        // и исчерпание одного общего ведра не блокирует остальных
+        int allowed = 0;
+        for (long userId = 2; userId < 1000; userId++) {
+            if (rateLimiter.tryAcquire(userId) == 0) {
+                allowed++;
+            }
+        }
+        Assertions.assertEquals(1, rateLimiter.getBucketCount());
+        Assertions.assertTrue(allowed > 100, "Разрешено запросов: " + allowed);
+    }
+}
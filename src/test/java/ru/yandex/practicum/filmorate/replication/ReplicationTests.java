@@ -0,0 +1,252 @@
+package ru.yandex.practicum.filmorate.replication;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.event.StorageEvent;
+import ru.yandex.practicum.filmorate.exceptions.ConflictException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ReplicationTests {
+
+    private MutationLog mutationLog;
+    private FilmService leaderFilmService;
+    private UserService leaderUserService;
+    private FilmService followerFilmService;
+    private UserService followerUserService;
+    private ReplicationFollower follower;
+    private final List<Object> readinessEvents = new ArrayList<>();
+
+
+    @BeforeEach
+    public void setUp() {
+
+        mutationLog = new MutationLog(1000);
+        MutationOrder mutationOrder = new MutationOrder(true);
+        UserStorage leaderUserStorage = new InMemoryUserStorage();
+        leaderFilmService = new FilmService(new InMemoryFilmStorage(), leaderUserStorage,
+                event -> mutationLog.onEvent((StorageEvent) event), mutationOrder, 0, 0, true);
+        leaderUserService = new UserService(leaderUserStorage,
+                event -> mutationLog.onEvent((StorageEvent) event), mutationOrder);
+
+        UserStorage followerUserStorage = new InMemoryUserStorage();
+        followerFilmService = new FilmService(new InMemoryFilmStorage(), followerUserStorage, event -> { });
+        followerUserService = new UserService(followerUserStorage, event -> { });
+        follower = new ReplicationFollower(followerFilmService, followerUserService, readinessEvents::add,
+                "http://localhost:0", 1000);
+    }
+
+    // region Helpers
+
+    private User registerUser(String login) {
+
+        User user = new User();
+        user.setLogin(login);
+        user.setEmail(login + "@email.com");
+        user.setBirthday(LocalDate.now().minusYears(18));
+        return leaderUserService.addUser(user);
+    }
+
+    private Film registerFilm(String name) {
+
+        Film film = new Film();
+        film.setName(name);
+        film.setReleaseDate(LocalDate.now().minusYears(5));
+        film.setDuration(120);
+        return leaderFilmService.addFilm(film);
+    }
+
+    // endregion
+
+
+    @Test
+    public void testFollowerReproducesLeaderState() {
+
+        User user1 = registerUser("user1");
+        User user2 = registerUser("user2");
+        Film film = registerFilm("Film");
+        leaderFilmService.likeFilm(film.getId(), user1.getId());
+        leaderFilmService.likeFilm(film.getId(), user2.getId());
+        leaderFilmService.unlikeFilm(film.getId(), user1.getId());
+        leaderUserService.addFriend(user1.getId(), user2.getId());
+        film.setName("Renamed");
+        leaderFilmService.updateFilm(film);
+
+        // Применение журнала мелкими порциями
+        long seq = 0;
+        while (seq < mutationLog.getHeadSeq()) {
+            follower.apply(mutationLog.since(seq, 2));
+            seq = follower.getStatus().appliedSeq();
+            Assertions.assertEquals(mutationLog.getHeadSeq() - seq, follower.getStatus().lag());
+        }
+
+        Film replicated = followerFilmService.getFilm(film.getId());
+        Assertions.assertEquals("Renamed", replicated.getName());
+        Assertions.assertEquals(1, replicated.getRate());
+        Assertions.assertTrue(replicated.getLikes().contains(user2.getId()));
+        Assertions.assertTrue(followerUserService.getUser(user1.getId()).getFriends().contains(user2.getId()));
+        Assertions.assertEquals(0, follower.getStatus().lag());
+    }
+
+    @Test
+    public void testRepeatedBatchIsIgnored() {
+
+        User user1 = registerUser("user1");
+        Film film = registerFilm("Film");
+        leaderFilmService.likeFilm(film.getId(), user1.getId());
+
+        MutationBatch batch = mutationLog.since(0, 100);
+        follower.apply(batch);
+        follower.apply(batch);
+        Assertions.assertEquals(1, followerUserService.getUsers().size());
+        Assertions.assertEquals(1, followerFilmService.getFilms().size());
+        Assertions.assertEquals(3, follower.getStatus().appliedSeq());
+    }
+
+    @Test
+    public void testFollowerStopsOnDivergence() {
+
+        // Пользователь, созданный на реплике в обход журнала, сдвигает нумерацию
+        User local = new User();
+        local.setLogin("local");
+        local.setEmail("local@email.com");
+        local.setBirthday(LocalDate.now().minusYears(18));
+        followerUserService.addUser(local);
+        registerUser("user1");
+        registerFilm("Film");
+
+        follower.apply(mutationLog.since(0, 100));
+        ReplicationStatus status = follower.getStatus();
+        Assertions.assertTrue(status.diverged());
+        Assertions.assertEquals(0, status.appliedSeq());
+        Assertions.assertEquals(1, readinessEvents.size(), "Реплика перестает принимать трафик");
+
+        // После остановки журнал больше не применяется
+        follower.apply(mutationLog.since(1, 100));
+        Assertions.assertEquals(0, follower.getStatus().appliedSeq());
+        Assertions.assertTrue(followerFilmService.getFilms().isEmpty());
+    }
+
+    @Test
+    public void testRejectedDuplicateKeepsIdsInSync() {
+
+        User user1 = registerUser("user1");
+        // Отклоненная попытка не занимает id, иначе нумерация ведущего ушла бы вперед реплики
+        Assertions.assertThrows(ConflictException.class, () -> registerUser("user1"));
+        User user2 = registerUser("user2");
+        Assertions.assertEquals(user1.getId() + 1, user2.getId());
+
+        follower.apply(mutationLog.since(0, 100));
+        Assertions.assertFalse(follower.getStatus().diverged());
+        Assertions.assertEquals("user2", followerUserService.getUser(user2.getId()).getLogin());
+    }
+
+    @Test
+    public void testFollowerAheadOfRestartedLeaderDiverges() {
+
+        registerUser("user1");
+        registerFilm("Film");
+        follower.apply(mutationLog.since(0, 100));
+        Assertions.assertEquals(2, follower.getStatus().appliedSeq());
+
+        // Перезапущенный ведущий начинает журнал заново: реплика не подменяет свои изменения его хвостом
+        MutationLog restartedLog = new MutationLog(1000);
+        restartedLog.onEvent(StorageEvent.filmLiked(1, 1, true));
+        follower.apply(restartedLog.since(follower.getStatus().appliedSeq(), 100));
+        Assertions.assertTrue(follower.getStatus().diverged());
+        Assertions.assertEquals(2, follower.getStatus().appliedSeq());
+    }
+
+    @Test
+    public void testLogKeepsOnlyLatestMutations() {
+
+        MutationLog log = new MutationLog(4);
+        for (long id = 1; id <= 6; id++) {
+            log.onEvent(StorageEvent.filmLiked(id, 1, true));
+        }
+        Assertions.assertEquals(6, log.getHeadSeq());
+        Assertions.assertEquals(3, log.getFirstSeq());
+        Assertions.assertTrue(log.since(1, 100).resync(), "Изменений 1 и 2 в журнале уже нет");
+        MutationBatch batch = log.since(2, 100);
+        Assertions.assertFalse(batch.resync());
+        Assertions.assertEquals(List.of(3L, 4L, 5L, 6L), batch.mutations().stream().map(Mutation::seq).toList());
+        Assertions.assertEquals(List.of(5L, 6L),
+                log.since(4, 100).mutations().stream().map(Mutation::entityId).toList());
+        Assertions.assertTrue(log.since(6, 100).mutations().isEmpty());
+        Assertions.assertTrue(log.since(7, 100).resync(), "Изменения 7 у ведущего еще не было");
+    }
+
+    @Test
+    public void testFollowerReplicatesConcurrentLeaderWrites() throws Exception {
+
+        try (ConfigurableApplicationContext leader = new SpringApplicationBuilder(FilmorateApplication.class)
+                .run("--server.port=0", "--filmorate.replication.role=leader")) {
+            String leaderUrl = "http://localhost:" + leader.getEnvironment().getProperty("local.server.port");
+            try (ConfigurableApplicationContext replica = new SpringApplicationBuilder(FilmorateApplication.class)
+                    .run("--server.port=0", "--filmorate.replication.role=follower",
+                            "--filmorate.replication.leader-url=" + leaderUrl,
+                            "--filmorate.replication.poll-interval=20")) {
+                FilmService filmService = leader.getBean(FilmService.class);
+                UserService userService = leader.getBean(UserService.class);
+                // Фильмы, пользователи и лайки добавляются из нескольких потоков одновременно
+                Thread[] writers = new Thread[4];
+                for (int t = 0; t < writers.length; t++) {
+                    final int writer = t;
+                    writers[t] = new Thread(() -> {
+                        for (int i = 0; i < 50; i++) {
+                            User user = new User();
+                            user.setLogin("user_" + writer + "_" + i);
+                            user.setEmail("user" + writer + "_" + i + "@email.com");
+                            user.setBirthday(LocalDate.now().minusYears(18));
+                            long userId = userService.addUser(user).getId();
+                            Film film = new Film();
+                            film.setName("Film " + writer + " " + i);
+                            film.setReleaseDate(LocalDate.now().minusYears(5));
+                            film.setDuration(120);
+                            long filmId = filmService.addFilm(film).getId();
+                            filmService.likeFilm(filmId, userId);
+                            filmService.likeFilm(1 + filmId / 2, userId);
+                        }
+                    });
+                    writers[t].start();
+                }
+                for (Thread writer : writers) {
+                    writer.join();
+                }
+
+                ReplicationFollower follower = replica.getBean(ReplicationFollower.class);
+                long headSeq = leader.getBean(MutationLog.class).getHeadSeq();
+                long deadline = System.currentTimeMillis() + 10_000;
+                while (follower.getStatus().appliedSeq() < headSeq && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(20);
+                }
+                Assertions.assertFalse(follower.getStatus().diverged());
+                Assertions.assertEquals(headSeq, follower.getStatus().appliedSeq());
+
+                FilmService replicaFilms = replica.getBean(FilmService.class);
+                for (Film film : filmService.getFilms()) {
+                    Film replicated = replicaFilms.getFilm(film.getId());
+                    Assertions.assertEquals(film.getName(), replicated.getName());
+                    Assertions.assertEquals(film.getLikes(), replicated.getLikes());
+                }
+                UserService replicaUsers = replica.getBean(UserService.class);
+                for (User user : userService.getUsers()) {
+                    Assertions.assertEquals(user.getLogin(), replicaUsers.getUser(user.getId()).getLogin());
+                }
+            }
+        }
+    }
+}
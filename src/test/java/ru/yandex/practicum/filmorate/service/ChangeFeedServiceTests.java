@@ -0,0 +1,181 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.event.StorageEvent;
+import ru.yandex.practicum.filmorate.model.ChangeSet;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class ChangeFeedServiceTests {
+
+    private static final long BASE_SEQ = 1000;
+
+    private FilmService filmService;
+    private UserService userService;
+    private ChangeFeedService changeFeedService;
+
+
+    @BeforeEach
+    public void setUp() {
+
+        FilmStorage filmStorage = new InMemoryFilmStorage();
+        UserStorage userStorage = new InMemoryUserStorage();
+        changeFeedService = new ChangeFeedService(filmStorage, userStorage, 8, BASE_SEQ);
+        filmService = new FilmService(filmStorage, userStorage,
+                event -> changeFeedService.onStorageEvent((StorageEvent) event));
+        userService = new UserService(userStorage,
+                event -> changeFeedService.onStorageEvent((StorageEvent) event));
+    }
+
+    private long addUser(int i) {
+
+        User user = new User();
+        user.setLogin("user" + i);
+        user.setEmail("user" + i + "@email.com");
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        return userService.addUser(user).getId();
+    }
+
+    private long addFilm(int i) {
+
+        Film film = new Film();
+        film.setName("Фильм " + i);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        return filmService.addFilm(film).getId();
+    }
+
+    private static List<Long> ids(ChangeSet<?> changes) {
+        return changes.changed().stream()
+                .map(entity -> (entity instanceof Film film) ? film.getId() : ((User) entity).getId())
+                .toList();
+    }
+
+    @Test
+    public void testChangesSince() {
+
+        long user1 = addUser(1);
+        long user2 = addUser(2);
+        long film1 = addFilm(1);
+        long film2 = addFilm(2);
+        ChangeSet<Film> films = changeFeedService.getFilmChanges(BASE_SEQ, 100);
+        Assertions.assertEquals(List.of(film1, film2), ids(films));
+        Assertions.assertFalse(films.resync());
+        long seq = films.seq();
+
+        filmService.likeFilm(film2, user1);
+        userService.addFriend(user1, user2);
+        films = changeFeedService.getFilmChanges(seq, 100);
+        Assertions.assertEquals(List.of(film2), ids(films));
+        Assertions.assertEquals(1, films.changed().get(0).getRate());
+        ChangeSet<User> users = changeFeedService.getUserChanges(seq, 100);
+        Assertions.assertEquals(List.of(user1, user2), ids(users));
+        Assertions.assertEquals(changeFeedService.getHeadSeq(), users.seq());
+
+        // Нет изменений после текущего номера
+        users = changeFeedService.getUserChanges(users.seq(), 100);
+        Assertions.assertTrue(users.changed().isEmpty());
+        Assertions.assertFalse(users.resync());
+    }
+
+    @Test
+    public void testDeletedUserAndFriends() {
+
+        long user1 = addUser(1);
+        long user2 = addUser(2);
+        long user3 = addUser(3);
+        userService.addFriend(user1, user2);
+        long seq = changeFeedService.getHeadSeq();
+
+        userService.deleteUser(user1);
+        ChangeSet<User> users = changeFeedService.getUserChanges(seq, 100);
+        Assertions.assertEquals(List.of(user1), users.deleted());
+        Assertions.assertEquals(List.of(user2), ids(users), "Друг удаленного пользователя изменился");
+        Assertions.assertTrue(users.changed().get(0).getFriends().isEmpty());
+        Assertions.assertFalse(ids(users).contains(user3));
+    }
+
+    @Test
+    public void testLimitAndResync() {
+
+        long user1 = addUser(1);
+        long user2 = addUser(2);
+        long user3 = addUser(3);
+        ChangeSet<User> users = changeFeedService.getUserChanges(BASE_SEQ, 2);
+        Assertions.assertEquals(List.of(user1, user2), ids(users));
+        Assertions.assertTrue(users.hasMore());
+        users = changeFeedService.getUserChanges(users.seq(), 2);
+        Assertions.assertEquals(List.of(user3), ids(users));
+        Assertions.assertFalse(users.hasMore());
+
+        // Буфер на 8 записей: ранние изменения вытеснены
+        for (int i = 4; i <= 10; i++) {
+            addUser(i);
+        }
+        users = changeFeedService.getUserChanges(BASE_SEQ, 100);
+        Assertions.assertTrue(users.resync());
+        Assertions.assertEquals(changeFeedService.getHeadSeq(), users.seq());
+        Assertions.assertEquals(8,
+                changeFeedService.getUserChanges(changeFeedService.getHeadSeq() - 8, 100).changed().size());
+
+        // Номер от другого запуска экземпляра
+        Assertions.assertTrue(changeFeedService.getUserChanges(BASE_SEQ - 1, 100).resync());
+        Assertions.assertTrue(changeFeedService.getUserChanges(changeFeedService.getHeadSeq() + 1, 100).resync());
+    }
+
+    @Test
+    public void testSeparateBufferPerEntityType() {
+
+        long user1 = addUser(1);
+        long seq = changeFeedService.getHeadSeq();
+
+        // Изменения фильмов не вытесняют изменения пользователей
+        for (int i = 0; i < 20; i++) {
+            addFilm(i);
+        }
+        ChangeSet<User> users = changeFeedService.getUserChanges(BASE_SEQ, 100);
+        Assertions.assertFalse(users.resync());
+        Assertions.assertEquals(List.of(user1), ids(users));
+        Assertions.assertTrue(changeFeedService.getUserChanges(seq, 100).changed().isEmpty());
+        Assertions.assertTrue(changeFeedService.getFilmChanges(seq, 100).resync());
+    }
+
+    @Test
+    public void testConcurrentReadsDuringWrites() throws Exception {
+
+        long[] users = new long[4];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = addUser(i);
+        }
+        long film = addFilm(1);
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 5000; i++) {
+                filmService.likeFilm(film, users[i % users.length]);
+                userService.addFriend(users[i % users.length], users[(i + 1) % users.length]);
+            }
+        });
+        writer.start();
+
+        // Читатель либо получает изменения по порядку номеров, либо полную синхронизацию
+        long seq = BASE_SEQ;
+        while (writer.isAlive()) {
+            ChangeSet<User> changes = changeFeedService.getUserChanges(seq, 2);
+            Assertions.assertTrue(changes.seq() >= seq);
+            if (!changes.resync()) {
+                Assertions.assertTrue(changes.changed().size() <= 2);
+            }
+            seq = changes.seq();
+        }
+        writer.join();
+        Assertions.assertFalse(changeFeedService.getUserChanges(changeFeedService.getHeadSeq(), 2).resync());
+    }
+}
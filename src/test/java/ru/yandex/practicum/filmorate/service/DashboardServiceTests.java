@@ -0,0 +1,154 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.coalescing.RequestCoalescer;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Dashboard;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DashboardServiceTests {
+
+    private final AtomicBoolean slowPopular = new AtomicBoolean();
+    private UserService userService;
+    private FilmService filmService;
+    private DashboardService dashboardService;
+
+
+    @BeforeEach
+    public void setUp() {
+
+        FilmStorage filmStorage = new InMemoryFilmStorage();
+        UserStorage userStorage = new InMemoryUserStorage();
+        userService = new UserService(userStorage, event -> { });
+        filmService = new FilmService(filmStorage, userStorage, event -> { }) {
+            @Override
+            public List<Film> getPopularFilms(int count) {
+
+                if (slowPopular.get()) {
+                    try {
+                        Thread.sleep(5_000);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.getPopularFilms(count);
+            }
+        };
+        dashboardService = new DashboardService(userService, filmService, new RequestCoalescer(false, 0), 200);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        dashboardService.shutdown();
+    }
+
+    private long addUser(int i) {
+
+        User user = new User();
+        user.setLogin("user" + i);
+        user.setEmail("user" + i + "@email.com");
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        return userService.addUser(user).getId();
+    }
+
+    private long addFilm(int i) {
+
+        Film film = new Film();
+        film.setName("Фильм " + i);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        return filmService.addFilm(film).getId();
+    }
+
+    @Test
+    public void testDashboard() {
+
+        long user1 = addUser(1);
+        long user2 = addUser(2);
+        long user3 = addUser(3);
+        userService.addFriend(user1, user2);
+        userService.addFriend(user1, user3);
+        userService.addFriend(user2, user3);
+        long film1 = addFilm(1);
+        long film2 = addFilm(2);
+        filmService.likeFilm(film2, user1);
+
+        Dashboard dashboard = dashboardService.getDashboard(user1, 10);
+        Assertions.assertEquals(user1, dashboard.user().getId());
+        Assertions.assertEquals(2, dashboard.friends().size());
+        dashboard.friends().forEach(friend -> Assertions.assertEquals(1, friend.mutualCount()));
+        Assertions.assertEquals(List.of(film2, film1), dashboard.popularFilms().stream().map(Film::getId).toList());
+        Assertions.assertTrue(dashboard.incomplete().isEmpty());
+
+        Assertions.assertThrows(NotFoundException.class, () -> dashboardService.getDashboard(100, 10));
+    }
+
+    @Test
+    public void testDeadlineFallback() {
+
+        long user = addUser(1);
+        long film = addFilm(1);
+        Assertions.assertEquals(1, dashboardService.getDashboard(user, 10).popularFilms().size());
+
+        // Медленная часть не задерживает ответ и заменяется последним полученным результатом
+        slowPopular.set(true);
+        long start = System.currentTimeMillis();
+        Dashboard dashboard = dashboardService.getDashboard(user, 10);
+        Assertions.assertTrue(System.currentTimeMillis() - start < 2_000);
+        Assertions.assertEquals(List.of("popularFilms"), dashboard.incomplete());
+        Assertions.assertEquals(List.of(film), dashboard.popularFilms().stream().map(Film::getId).toList());
+        Assertions.assertNotNull(dashboard.user());
+    }
+
+    @Test
+    public void testCancelledFriendsPartStops() throws Exception {
+
+        // Каждый друг читается около миллисекунды без реакции на прерывание: без отмены подсчет шел бы секунды
+        AtomicInteger reads = new AtomicInteger();
+        AtomicBoolean slowReads = new AtomicBoolean();
+        UserStorage userStorage = new InMemoryUserStorage() {
+            @Override
+            public User getUser(long id) {
+
+                if (slowReads.get()) {
+                    reads.incrementAndGet();
+                    long until = System.nanoTime() + 1_000_000;
+                    while (System.nanoTime() < until) {
+                        Thread.onSpinWait();
+                    }
+                }
+                return super.getUser(id);
+            }
+        };
+        userService = new UserService(userStorage, event -> { });
+        dashboardService.shutdown();
+        dashboardService = new DashboardService(userService, filmService, new RequestCoalescer(false, 0), 50);
+        long user = addUser(0);
+        int friends = 5_000;
+        for (int i = 1; i <= friends; i++) {
+            userService.addFriend(user, addUser(i));
+        }
+
+        slowReads.set(true);
+        Dashboard dashboard = dashboardService.getDashboard(user, 10);
+        Assertions.assertTrue(dashboard.incomplete().contains("friends"));
+        Thread.sleep(300);
+        int afterCancel = reads.get();
+        Thread.sleep(300);
+        Assertions.assertEquals(afterCancel, reads.get());
+        Assertions.assertTrue(afterCancel < friends);
+    }
+}
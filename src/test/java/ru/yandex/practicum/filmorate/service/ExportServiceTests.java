@@ -0,0 +1,194 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+public class ExportServiceTests {
+
+    private static String readString(DataInputStream in) throws Exception {
+
+        int length = in.readInt();
+        return (length < 0) ? null : new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testExportFormat() throws Exception {
+
+        FilmStorage filmStorage = new InMemoryFilmStorage();
+        UserStorage userStorage = new InMemoryUserStorage();
+        for (int i = 1; i <= 2; i++) {
+            User user = new User();
+            user.setLogin("user" + i);
+            user.setEmail("user" + i + "@email.com");
+            user.setBirthday(LocalDate.of(2000, 1, i));
+            userStorage.addUser(user);
+        }
+        userStorage.addFriend(1, 2);
+        Film film = new Film();
+        film.setName("Фильм");
+        film.setReleaseDate(LocalDate.of(1999, 3, 31));
+        film.setDuration(136);
+        filmStorage.addFilm(film);
+        filmStorage.like(1, 2);
+
+        Path directory = Files.createTempDirectory("filmorate-export-test-");
+        ExportService exportService = new ExportService(filmStorage, userStorage, directory, 60_000, 0);
+        ExportService.ExportFile file = exportService.getExport();
+        Assertions.assertEquals(1, file.films());
+        Assertions.assertEquals(2, file.users());
+        Assertions.assertEquals(Files.size(file.path()), file.size());
+        Assertions.assertSame(file, exportService.getExport());
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.path())))) {
+            Assertions.assertEquals(ExportService.MAGIC, in.readInt());
+            Assertions.assertEquals(ExportService.VERSION, in.readInt());
+            Assertions.assertEquals(file.createdAt(), in.readLong());
+            Assertions.assertEquals(1, in.readInt());
+            Assertions.assertEquals(2, in.readInt());
+
+            Assertions.assertEquals(1, in.readLong());
+            Assertions.assertEquals("Фильм", readString(in));
+            Assertions.assertNull(readString(in));
+            Assertions.assertEquals(LocalDate.of(1999, 3, 31).toEpochDay(), in.readInt());
+            Assertions.assertEquals(136, in.readInt());
+            Assertions.assertEquals(1, in.readInt());
+            Assertions.assertEquals(2, in.readLong());
+
+            Assertions.assertEquals(1, in.readLong());
+            Assertions.assertEquals("user1@email.com", readString(in));
+            Assertions.assertEquals("user1", readString(in));
+            Assertions.assertEquals("user1", readString(in));
+            Assertions.assertEquals(LocalDate.of(2000, 1, 1).toEpochDay(), in.readInt());
+            Assertions.assertEquals(1, in.readInt());
+            Assertions.assertEquals(2, in.readLong());
+        }
+    }
+
+    @Test
+    public void testStaleExportsAreDeleted() throws Exception {
+
+        Path directory = Files.createTempDirectory("filmorate-export-test-");
+        ExportService exportService = new ExportService(new InMemoryFilmStorage(), new InMemoryUserStorage(),
+                directory, -1, 0);
+        Path first = exportService.getExport().path();
+        Path second = exportService.getExport().path();
+        Assertions.assertNotEquals(first, second);
+        Assertions.assertTrue(Files.exists(first));
+        Path third = exportService.getExport().path();
+        Assertions.assertFalse(Files.exists(first));
+        Assertions.assertTrue(Files.exists(second));
+        Assertions.assertTrue(Files.exists(third));
+    }
+
+    @Test
+    public void testReplacedExportsKeptForGracePeriod() throws Exception {
+
+        Path directory = Files.createTempDirectory("filmorate-export-test-");
+        ExportService exportService = new ExportService(new InMemoryFilmStorage(), new InMemoryUserStorage(),
+                directory, -1, 60_000);
+        List<Path> paths = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            paths.add(exportService.getExport().path());
+        }
+        // Замененные файлы еще могут дочитывать клиенты
+        for (Path path : paths) {
+            Assertions.assertTrue(Files.exists(path));
+        }
+    }
+
+    @Test
+    public void testCountsMatchWrittenEntities() throws Exception {
+
+        // Пользователь удаляется после начала выгрузки: заголовок содержит число действительно записанных
+        UserStorage userStorage = new InMemoryUserStorage() {
+            @Override
+            public Stream<User> copyUsers() {
+
+                Stream<User> copies = super.copyUsers();
+                deleteUser(2);
+                return copies;
+            }
+        };
+        for (int i = 1; i <= 3; i++) {
+            User user = new User();
+            user.setLogin("user" + i);
+            user.setEmail("user" + i + "@email.com");
+            userStorage.addUser(user);
+        }
+        Path directory = Files.createTempDirectory("filmorate-export-test-");
+        ExportService.ExportFile file = new ExportService(new InMemoryFilmStorage(), userStorage, directory, 60_000, 0)
+                .getExport();
+        Assertions.assertEquals(2, file.users());
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file.path()))) {
+            in.skipNBytes(Integer.BYTES * 2 + Long.BYTES);
+            Assertions.assertEquals(0, in.readInt());
+            Assertions.assertEquals(2, in.readInt());
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                ids.add(in.readLong());
+                readString(in);
+                readString(in);
+                readString(in);
+                in.skipNBytes(Integer.BYTES);
+                in.skipNBytes((long) in.readInt() * Long.BYTES);
+            }
+            Assertions.assertEquals(List.of(1L, 3L), ids);
+            Assertions.assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    public void testExportCopiesLikesAtomically() throws Exception {
+
+        FilmStorage filmStorage = new InMemoryFilmStorage();
+        Film film = new Film();
+        film.setName("Фильм");
+        film.setReleaseDate(LocalDate.of(1999, 3, 31));
+        film.setDuration(136);
+        long filmId = filmStorage.addFilm(film).getId();
+        Path directory = Files.createTempDirectory("filmorate-export-test-");
+        ExportService exportService = new ExportService(filmStorage, new InMemoryUserStorage(), directory, -1, 0);
+
+        // Лайки ставятся во время выгрузок: число лайков в записи фильма совпадает с числом записанных id
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            for (long user = 1; running.get() && user <= 100_000; user++) {
+                filmStorage.like(filmId, user);
+            }
+        });
+        writer.start();
+        try {
+            for (int i = 0; i < 50; i++) {
+                ExportService.ExportFile file = exportService.getExport();
+                try (DataInputStream in = new DataInputStream(Files.newInputStream(file.path()))) {
+                    in.skipNBytes(Integer.BYTES * 2 + Long.BYTES + Integer.BYTES * 2 + Long.BYTES);
+                    readString(in);
+                    readString(in);
+                    in.skipNBytes(Integer.BYTES * 2);
+                    int likes = in.readInt();
+                    Assertions.assertEquals(likes, in.readAllBytes().length / Long.BYTES);
+                }
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+}
@@ -8,14 +8,19 @@ import ru.yandex.practicum.filmorate.exceptions.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.model.validators.FilmValidator;
+import ru.yandex.practicum.filmorate.replication.MutationOrder;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
 import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class FilmServiceTests {
 
@@ -81,8 +86,8 @@ public class FilmServiceTests {
         
         FilmStorage filmStorage = new InMemoryFilmStorage();
         UserStorage userStorage = new InMemoryUserStorage();
-        filmService = new FilmService(filmStorage, userStorage);
-        userService = new UserService(userStorage);
+        filmService = new FilmService(filmStorage, userStorage, event -> { });
+        userService = new UserService(userStorage, filmService, event -> { }, MutationOrder.unordered());
     }
 
     @Test
@@ -249,4 +254,143 @@ public class FilmServiceTests {
         Assertions.assertArrayEquals(new long[] {2, 3},
                 popularFilms.stream().mapToLong(Film::getId).toArray());
     }
+
+    @Test
+    public void testGetPopularFilmsByYear() {
+
+        User user1 = registerUser();
+        User user2 = registerUser();
+        Film film1 = filmService.addFilm(makeValidFilm("Film1"));
+        Film film2 = filmService.addFilm(makeValidFilm("Film2"));
+        Film film3 = makeValidFilm("Film3");
+        film3.setReleaseDate(LocalDate.of(2021, 1, 1));
+        film3 = filmService.addFilm(film3);
+        filmService.likeFilm(film2.getId(), user1.getId());
+        filmService.likeFilm(film3.getId(), user1.getId());
+        filmService.likeFilm(film3.getId(), user2.getId());  // film1: 0, film2: 1 (2020), film3: 2 (2021)
+
+        Assertions.assertArrayEquals(new long[] {2, 1},
+                filmService.getPopularFilms(10, 2020, 2020).stream().mapToLong(Film::getId).toArray());
+        Assertions.assertArrayEquals(new long[] {3, 2},
+                filmService.getPopularFilms(2, 2020, 2021).stream().mapToLong(Film::getId).toArray());
+        Assertions.assertArrayEquals(new long[] {3},
+                filmService.getPopularFilms(10, 2021, null).stream().mapToLong(Film::getId).toArray());
+        Assertions.assertThrows(ValidationException.class, () -> filmService.getPopularFilms(10, 2021, 2020));
+        Assertions.assertThrows(ValidationException.class, () -> filmService.getPopularFilms(0, 2020, 2020));
+        Assertions.assertThrows(ValidationException.class, () -> filmService.getPopularFilms(-1, 2020, 2020));
+        Assertions.assertThrows(ValidationException.class, () -> filmService.getPopularFilms(-1));
+
+        // Перенос фильма в другой год и снятие лайков
+        Film update = new Film();
+        update.setId(film1.getId());
+        update.setReleaseDate(LocalDate.of(2021, 6, 1));
+        filmService.updateFilm(update);
+        filmService.unlikeFilm(film3.getId(), user1.getId());
+        filmService.unlikeFilm(film3.getId(), user2.getId());
+        Assertions.assertArrayEquals(new long[] {2},
+                filmService.getPopularFilms(10, 2020, 2020).stream().mapToLong(Film::getId).toArray());
+        Assertions.assertArrayEquals(new long[] {1, 3},
+                filmService.getPopularFilms(10, 2021, 2021).stream().mapToLong(Film::getId).toArray());
+    }
+
+    @Test
+    public void testDeleteUserWithLikes() {
+
+        User user1 = registerUser();
+        User user2 = registerUser();
+        User user3 = registerUser();
+        Film film1 = registerFilm();
+        Film film2 = registerFilm();
+        filmService.likeFilm(film1.getId(), user1.getId());
+        filmService.likeFilm(film2.getId(), user1.getId());
+        filmService.likeFilm(film2.getId(), user2.getId());
+        userService.addFriend(user1.getId(), user2.getId());
+        userService.addFriend(user1.getId(), user3.getId());
+        Assertions.assertArrayEquals(new long[] {1, 2},
+                filmService.getLikedFilms(user1.getId()).stream().mapToLong(Film::getId).toArray());
+        Assertions.assertTrue(filmService.getLikedFilms(user3.getId()).isEmpty());
+
+        userService.deleteUser(user1.getId());
+        Assertions.assertEquals(0, filmService.getFilm(film1.getId()).getRate());
+        Assertions.assertEquals(1, filmService.getFilm(film2.getId()).getRate());
+        Assertions.assertArrayEquals(new long[] {2},
+                filmService.getPopularFilms(1, null, null).stream().mapToLong(Film::getId).toArray());
+        Assertions.assertTrue(userService.getFriends(user2.getId()).isEmpty());
+        Assertions.assertTrue(userService.getFriends(user3.getId()).isEmpty());
+        Assertions.assertEquals(2, userService.getUsers().size());
+        Assertions.assertThrows(NotFoundException.class, () -> userService.getUser(user1.getId()));
+        Assertions.assertThrows(NotFoundException.class, () -> filmService.getLikedFilms(user1.getId()));
+        Assertions.assertThrows(NotFoundException.class, () -> userService.deleteUser(user1.getId()));
+    }
+
+    @Test
+    public void testLikesRacingWithUserDeletion() throws Exception {
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            users.add(registerUser());
+        }
+        Film film = registerFilm();
+
+        // Один поток ставит лайки, другой удаляет пользователей: лайк удаленного пользователя не остается
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> likes = executor.submit(() -> {
+                for (User user : users) {
+                    try {
+                        filmService.likeFilm(film.getId(), user.getId());
+                    } catch (NotFoundException e) {
+                        // Пользователь уже удален
+                    }
+                }
+            });
+            Future<?> deletions = executor.submit(() -> users.forEach(user -> userService.deleteUser(user.getId())));
+            likes.get();
+            deletions.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        Assertions.assertTrue(filmService.getFilm(film.getId()).getLikes().isEmpty());
+        Assertions.assertEquals(0, filmService.getFilm(film.getId()).getRate());
+    }
+
+    @Test
+    public void testLikeFilmThroughPipeline() throws Exception {
+
+        FilmStorage filmStorage = new InMemoryFilmStorage();
+        UserStorage userStorage = new InMemoryUserStorage();
+        filmService = new FilmService(filmStorage, userStorage, event -> { }, 4, 1024, true);
+        userService = new UserService(userStorage, filmService, event -> { }, MutationOrder.unordered());
+        try {
+            List<User> users = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                users.add(registerUser());
+            }
+            Film film1 = registerFilm();
+            Film film2 = registerFilm();
+
+            // Конкурентные лайки одного фильма применяются одним потоком раздела
+            List<Future<?>> results = new ArrayList<>();
+            try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+                for (User user : users) {
+                    results.add(executor.submit(() -> filmService.likeFilm(film1.getId(), user.getId())));
+                }
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            Assertions.assertEquals(100, filmService.getFilm(film1.getId()).getLikes().size());
+
+            // Чтение своих записей: рейтинг обновлен к моменту возврата из метода
+            filmService.likeFilm(film2.getId(), users.get(0).getId());
+            filmService.unlikeFilm(film1.getId(), users.get(0).getId());
+            Assertions.assertEquals(99, filmService.getFilm(film1.getId()).getLikes().size());
+            Assertions.assertArrayEquals(new long[] {1, 2},
+                    filmService.getPopularFilms(2).stream().mapToLong(Film::getId).toArray());
+            Assertions.assertThrows(NotFoundException.class, () -> filmService.likeFilm(film1.getId(), 1000));
+        } finally {
+            filmService.shutdown();
+        }
+    }
 }
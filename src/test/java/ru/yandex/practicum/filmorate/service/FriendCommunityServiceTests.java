@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.event.StorageEvent;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Community;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+public class FriendCommunityServiceTests {
+
+    private UserService userService;
+    private FriendCommunityService friendCommunityService;
+
+
+    @BeforeEach
+    public void setUp() {
+
+        UserStorage userStorage = new InMemoryUserStorage();
+        friendCommunityService = new FriendCommunityService(userStorage);
+        userService = new UserService(userStorage,
+                event -> friendCommunityService.onStorageEvent((StorageEvent) event));
+    }
+
+    private long registerUser() {
+
+        int totalUsers = userService.getUsers().size();
+        User user = new User();
+        user.setLogin("user_" + totalUsers);
+        user.setEmail("user" + totalUsers + "@email.com");
+        user.setBirthday(LocalDate.now().minusYears(18));
+        return userService.addUser(user).getId();
+    }
+
+    @Test
+    public void testCommunities() {
+
+        long[] ids = new long[6];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = registerUser();
+        }
+        // Две компоненты: 1-2-3 и 4-5, пользователь 6 один
+        userService.addFriend(ids[0], ids[1]);
+        userService.addFriend(ids[1], ids[2]);
+        userService.addFriend(ids[3], ids[4]);
+        Assertions.assertEquals(new Community(ids[2], ids[0], 3, false), friendCommunityService.getCommunity(ids[2]));
+        Assertions.assertEquals(new Community(ids[4], ids[3], 2, false), friendCommunityService.getCommunity(ids[4]));
+        Assertions.assertEquals(new Community(ids[5], ids[5], 1, false), friendCommunityService.getCommunity(ids[5]));
+
+        userService.addFriend(ids[2], ids[3]);
+        Assertions.assertEquals(5, friendCommunityService.getCommunity(ids[4]).size());
+        Assertions.assertEquals(ids[0], friendCommunityService.getCommunity(ids[4]).communityId());
+
+        // Удаление дружбы учитывается фоновым пересчетом, до него ответ помечен устаревшим
+        userService.removeFriend(ids[1], ids[2]);
+        Community stale = friendCommunityService.getCommunity(ids[4]);
+        Assertions.assertTrue(stale.stale());
+        Assertions.assertEquals(5, stale.size());
+        friendCommunityService.rebuildIfStale();
+        Assertions.assertEquals(new Community(ids[4], ids[2], 3, false), friendCommunityService.getCommunity(ids[4]));
+        Assertions.assertEquals(new Community(ids[1], ids[0], 2, false), friendCommunityService.getCommunity(ids[1]));
+
+        Assertions.assertThrows(NotFoundException.class, () -> friendCommunityService.getCommunity(100));
+    }
+
+    @Test
+    public void testRemovalDuringRebuildKeepsStale() {
+
+        long[] ids = new long[3];
+        Runnable[] duringRebuild = new Runnable[1];
+        UserStorage userStorage = new InMemoryUserStorage() {
+            @Override
+            public Collection<User> getUsers() {
+
+                Collection<User> users = super.getUsers();
+                if (duringRebuild[0] != null) {
+                    Runnable action = duringRebuild[0];
+                    duringRebuild[0] = null;
+                    action.run();
+                }
+                return users;
+            }
+        };
+        friendCommunityService = new FriendCommunityService(userStorage);
+        userService = new UserService(userStorage,
+                event -> friendCommunityService.onStorageEvent((StorageEvent) event));
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = registerUser();
+        }
+        userService.addFriend(ids[0], ids[1]);
+        userService.addFriend(ids[1], ids[2]);
+        userService.removeFriend(ids[0], ids[1]);
+
+        // Пока пересчет идет, ответ помечен устаревшим; удаление во время пересчета оставляет пометку
+        duringRebuild[0] = () -> {
+            Assertions.assertTrue(friendCommunityService.getCommunity(ids[2]).stale());
+            userService.removeFriend(ids[1], ids[2]);
+        };
+        friendCommunityService.rebuildIfStale();
+        Assertions.assertTrue(friendCommunityService.getCommunity(ids[2]).stale());
+
+        friendCommunityService.rebuildIfStale();
+        Assertions.assertEquals(new Community(ids[2], ids[2], 1, false), friendCommunityService.getCommunity(ids[2]));
+    }
+}
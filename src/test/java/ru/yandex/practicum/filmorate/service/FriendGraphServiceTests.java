@@ -0,0 +1,144 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Distance;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+public class FriendGraphServiceTests {
+
+    private UserService userService;
+    private FriendGraphService friendGraphService;
+
+
+    @BeforeEach
+    public void setUp() {
+
+        UserStorage userStorage = new InMemoryUserStorage();
+        userService = new UserService(userStorage, event -> { });
+        friendGraphService = new FriendGraphService(userStorage, 4, 1000);
+    }
+
+    private long registerUser() {
+
+        int totalUsers = userService.getUsers().size();
+        User user = new User();
+        user.setLogin("user_" + totalUsers);
+        user.setEmail("user" + totalUsers + "@email.com");
+        user.setBirthday(LocalDate.now().minusYears(18));
+        return userService.addUser(user).getId();
+    }
+
+    @Test
+    public void testDistanceOnChain() {
+
+        // Цепочка 1 - 2 - 3 - 4 - 5 - 6 и отдельный пользователь 7
+        long[] ids = new long[7];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = registerUser();
+        }
+        for (int i = 0; i < 5; i++) {
+            userService.addFriend(ids[i], ids[i + 1]);
+        }
+
+        Distance distance = friendGraphService.getDistance(ids[0], ids[3], true);
+        Assertions.assertEquals(Distance.Status.FOUND, distance.status());
+        Assertions.assertEquals(3, distance.distance());
+        Assertions.assertEquals(List.of(ids[0], ids[1], ids[2], ids[3]), distance.path());
+
+        Assertions.assertEquals(0, friendGraphService.getDistance(ids[2], ids[2], false).distance());
+        Assertions.assertEquals(Distance.Status.DEPTH_LIMIT,
+                friendGraphService.getDistance(ids[0], ids[5], false).status());
+        Assertions.assertEquals(Distance.Status.NOT_CONNECTED,
+                friendGraphService.getDistance(ids[0], ids[6], false).status());
+        Assertions.assertThrows(NotFoundException.class, () -> friendGraphService.getDistance(ids[0], 9999, false));
+    }
+
+    @Test
+    public void testShortestPathIsChosen() {
+
+        // Длинный путь 1 - 2 - 3 - 4 - 5 и короткий 1 - 6 - 5
+        long[] ids = new long[6];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = registerUser();
+        }
+        for (int i = 0; i < 4; i++) {
+            userService.addFriend(ids[i], ids[i + 1]);
+        }
+        userService.addFriend(ids[0], ids[5]);
+        userService.addFriend(ids[5], ids[4]);
+
+        Distance distance = friendGraphService.getDistance(ids[0], ids[4], true);
+        Assertions.assertEquals(2, distance.distance());
+        Assertions.assertEquals(List.of(ids[0], ids[5], ids[4]), distance.path());
+    }
+
+    @Test
+    public void testDeadlineWithinHighDegreeUser() {
+
+        // Друзья одного пользователя обходятся медленно: без проверки срока внутри обхода
+        // расширение его фронта заняло бы около секунды
+        int friendCount = 50_000;
+        Set<Long> slowFriends = new AbstractSet<>() {
+            @Override
+            public Iterator<Long> iterator() {
+                return new Iterator<>() {
+                    private long next = 1_000_000;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < 1_000_000 + friendCount;
+                    }
+
+                    @Override
+                    public Long next() {
+
+                        long until = System.nanoTime() + 20_000;
+                        while (System.nanoTime() < until) {
+                            Thread.onSpinWait();
+                        }
+                        return next++;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return friendCount;
+            }
+        };
+        UserStorage userStorage = new InMemoryUserStorage() {
+            @Override
+            public User getUser(long id) {
+
+                User stored = super.getUser(id);
+                if (id != 1) {
+                    return stored;
+                }
+                User slow = new User(slowFriends) {
+                };
+                slow.setId(id);
+                return slow;
+            }
+        };
+        userService = new UserService(userStorage, event -> { });
+        long user = registerUser();
+        long other = registerUser();
+        friendGraphService = new FriendGraphService(userStorage, 4, 10);
+
+        long start = System.nanoTime();
+        Distance distance = friendGraphService.getDistance(user, other, false);
+        Assertions.assertEquals(Distance.Status.TIMEOUT, distance.status());
+        Assertions.assertTrue(System.nanoTime() - start < 500_000_000L);
+    }
+}
@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ReleaseYearLeaderboardsTests {
+
+    private static Film makeFilm(long id, int rate, int year) {
+
+        Film film = new Film();
+        film.setId(id);
+        film.setName("Film");
+        film.setReleaseDate(LocalDate.of(year, 1, 1));
+        film.setDuration(100);
+        film.setRate(rate);
+        return film;
+    }
+
+    private static List<Long> bruteForceTop(Map<Long, Film> films, int count, int fromYear, int toYear) {
+
+        return films.values().stream()
+                .filter(film -> film.getReleaseDate().getYear() >= fromYear
+                        && film.getReleaseDate().getYear() <= toYear)
+                .sorted(Comparator.comparingInt(Film::getRate).reversed().thenComparingLong(Film::getId))
+                .limit(count)
+                .map(Film::getId)
+                .toList();
+    }
+
+    @Test
+    public void testBoundedBoardsMatchFullSort() {
+
+        ReleaseYearLeaderboards leaderboards = new ReleaseYearLeaderboards(4);
+        Map<Long, Film> films = new HashMap<>();
+        Random random = new Random(42);
+
+        // Случайные изменения рейтингов и годов: таблица каждого года меньше числа его фильмов
+        for (int step = 0; step < 5000; step++) {
+            long id = 1 + random.nextInt(60);
+            Film film = makeFilm(id, random.nextInt(30), 2000 + random.nextInt(3));
+            films.put(id, film);
+            leaderboards.update(film);
+
+            int count = 1 + random.nextInt(8);
+            int fromYear = 2000 + random.nextInt(3);
+            int toYear = fromYear + random.nextInt(3);
+            Assertions.assertEquals(bruteForceTop(films, count, fromYear, toYear),
+                    leaderboards.getTop(count, fromYear, toYear), "Шаг " + step);
+        }
+    }
+
+    @Test
+    public void testRatesAreReadUnderLeaderboardLock() throws InterruptedException {
+
+        FilmStorage storage = new InMemoryFilmStorage();
+        ReleaseYearLeaderboards leaderboards = new ReleaseYearLeaderboards(2);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            long id = storage.addFilm(makeFilm(0, 0, 2000)).getId();
+            leaderboards.refresh(id, storage::getFilm);
+            ids.add(id);
+        }
+        AtomicInteger nextThread = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        // Потоки ставят и снимают лайки: i-й фильм в итоге получает i лайков
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                long userId = nextThread.getAndIncrement();
+                try {
+                    for (int round = 0; round < 200; round++) {
+                        for (int i = 0; i < ids.size(); i++) {
+                            long filmId = ids.get(i);
+                            if (userId < i || round % 2 == 0) {
+                                storage.like(filmId, userId);
+                            } else {
+                                storage.unlike(filmId, userId);
+                            }
+                            leaderboards.refreshRate(filmId, storage::getRate);
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertNull(failure.get());
+
+        Assertions.assertEquals(List.of(ids.get(3), ids.get(2), ids.get(1), ids.get(0)),
+                leaderboards.getTop(4, 2000, 2000));
+        Assertions.assertEquals(List.of(ids.get(3), ids.get(2)), leaderboards.getTop(2, 2000, 2000));
+    }
+}
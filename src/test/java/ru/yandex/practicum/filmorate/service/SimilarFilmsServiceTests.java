@@ -0,0 +1,148 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.event.StorageEvent;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class SimilarFilmsServiceTests {
+
+    private static long addFilm(FilmStorage storage) {
+
+        Film film = new Film();
+        film.setName("Film");
+        film.setDescription("Description");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        return storage.addFilm(film).getId();
+    }
+
+    private static void like(FilmStorage storage, SimilarFilmsService service, long filmId, long userId) {
+
+        storage.like(filmId, userId);
+        service.onStorageEvent(StorageEvent.filmLiked(filmId, userId, true));
+    }
+
+    private static void unlike(FilmStorage storage, SimilarFilmsService service, long filmId, long userId) {
+
+        storage.unlike(filmId, userId);
+        service.onStorageEvent(StorageEvent.filmUnliked(filmId, userId, true));
+    }
+
+    @Test
+    public void testSimilarFilms() {
+
+        FilmStorage storage = new InMemoryFilmStorage();
+        long film1 = addFilm(storage);
+        long film2 = addFilm(storage);
+        long film3 = addFilm(storage);
+        long film4 = addFilm(storage);
+        for (long user = 1; user <= 100; user++) {
+            storage.like(film1, user);
+        }
+        // Индекс строится по уже существующим лайкам
+        SimilarFilmsService service = new SimilarFilmsService(storage, 32, 2);
+
+        // film2: 90 общих зрителей с film1 из 110 (Жаккар ~0.82), film3: 50 из 150 (~0.33), film4: ни одного
+        for (long user = 1; user <= 90; user++) {
+            like(storage, service, film2, user);
+        }
+        for (long user = 1000; user < 1010; user++) {
+            like(storage, service, film2, user);
+        }
+        for (long user = 51; user <= 150; user++) {
+            like(storage, service, film3, user);
+        }
+        for (long user = 5000; user < 5100; user++) {
+            like(storage, service, film4, user);
+        }
+
+        List<Film> similar = service.getSimilarFilms(film1, 10);
+        Assertions.assertFalse(similar.isEmpty());
+        Assertions.assertEquals(film2, similar.get(0).getId());
+        Assertions.assertTrue(similar.stream().noneMatch(film -> film.getId() == film4));
+        Assertions.assertEquals(1, service.getSimilarFilms(film1, 1).size());
+        Assertions.assertTrue(service.getSimilarFilms(film4, 10).isEmpty());
+        Assertions.assertThrows(NotFoundException.class, () -> service.getSimilarFilms(100, 10));
+        Assertions.assertThrows(ValidationException.class, () -> service.getSimilarFilms(film1, 0));
+        Assertions.assertThrows(ValidationException.class, () -> service.getSimilarFilms(film1, -1));
+
+        // Снятие лайков пересчитывает сигнатуру; фильм без лайков выпадает из индекса
+        for (long user = 1; user <= 90; user++) {
+            unlike(storage, service, film2, user);
+        }
+        for (long user = 1000; user < 1010; user++) {
+            unlike(storage, service, film2, user);
+        }
+        Assertions.assertTrue(service.getSimilarFilms(film1, 10).stream().noneMatch(film -> film.getId() == film2));
+        Assertions.assertTrue(service.getSimilarFilms(film2, 10).isEmpty());
+    }
+
+    @Test
+    public void testLikeEventAfterUnlikeEvent() {
+
+        FilmStorage storage = new InMemoryFilmStorage();
+        long film1 = addFilm(storage);
+        long film2 = addFilm(storage);
+        storage.like(film1, 1);
+        SimilarFilmsService service = new SimilarFilmsService(storage, 32, 2);
+
+        // Лайк и снятие лайка уже в хранилище, а события пришли в обратном порядке
+        storage.like(film2, 1);
+        storage.unlike(film2, 1);
+        service.onStorageEvent(StorageEvent.filmUnliked(film2, 1, true));
+        service.onStorageEvent(StorageEvent.filmLiked(film2, 1, true));
+        Assertions.assertTrue(service.getSimilarFilms(film1, 10).isEmpty());
+        Assertions.assertTrue(service.getSimilarFilms(film2, 10).isEmpty());
+    }
+
+    @Test
+    public void testConcurrentLikesMatchRebuiltIndex() throws Exception {
+
+        FilmStorage storage = new InMemoryFilmStorage();
+        long[] films = new long[20];
+        for (int i = 0; i < films.length; i++) {
+            films[i] = addFilm(storage);
+        }
+        SimilarFilmsService service = new SimilarFilmsService(storage, 32, 2);
+
+        // Лайки и снятия по одним и тем же фильмам из нескольких потоков вперемешку с поиском
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final long seed = t;
+            threads[t] = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                for (int i = 0; i < 5_000; i++) {
+                    long filmId = films[random.nextInt(films.length)];
+                    long userId = random.nextLong(1, 50);
+                    if (random.nextInt(3) == 0) {
+                        if (storage.unlike(filmId, userId)) {
+                            service.onStorageEvent(StorageEvent.filmUnliked(filmId, userId, true));
+                        }
+                    } else if (storage.like(filmId, userId)) {
+                        service.onStorageEvent(StorageEvent.filmLiked(filmId, userId, true));
+                    }
+                    service.getSimilarFilms(films[random.nextInt(films.length)], 5);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        SimilarFilmsService rebuilt = new SimilarFilmsService(storage, 32, 2);
+        for (long filmId : films) {
+            Assertions.assertEquals(rebuilt.getSimilarFilms(filmId, films.length).stream().map(Film::getId).toList(),
+                    service.getSimilarFilms(filmId, films.length).stream().map(Film::getId).toList());
+        }
+    }
+}
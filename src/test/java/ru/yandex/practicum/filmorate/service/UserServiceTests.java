@@ -3,12 +3,21 @@ package ru.yandex.practicum.filmorate.service;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exceptions.ConflictException;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.CompactUserStorage;
 import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.SnapshotUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class UserServiceTests {
 
@@ -19,7 +28,7 @@ public class UserServiceTests {
 
     @BeforeEach
     public void setUp() {
-        userService = new UserService(new InMemoryUserStorage());
+        userService = new UserService(new InMemoryUserStorage(), event -> { });
     }
 
 
@@ -98,9 +107,78 @@ public class UserServiceTests {
         user.setBirthday(DATE_IN_FUTURE);
         Assertions.assertThrows(ValidationException.class, () -> userService.addUser(user));
         user.setBirthday(LocalDate.now());
+        // Адрес уже занят первым пользователем
+        Assertions.assertThrows(ConflictException.class, () -> userService.addUser(user));
+        user.setEmail("john_dow.67890@fakemail.jp");
         Assertions.assertDoesNotThrow(() -> userService.addUser(user));
     }
 
+    @Test
+    public void testUniqueEmailAndLogin() {
+
+        User first = registerUser();
+        User second = registerUser();
+
+        // Занятые адрес (без учета регистра) и логин
+        User duplicate = makeValidUser(first.getLogin());
+        Assertions.assertThrows(ConflictException.class, () -> userService.addUser(duplicate));
+        duplicate.setLogin("unique_login");
+        duplicate.setEmail(second.getEmail().toUpperCase());
+        Assertions.assertThrows(ConflictException.class, () -> userService.addUser(duplicate));
+        Assertions.assertEquals(2, userService.getUsers().size());
+
+        // Поиск по индексам
+        Assertions.assertEquals(first.getId(), userService.getUserByLogin(first.getLogin()).getId());
+        Assertions.assertEquals(second.getId(), userService.getUserByEmail(second.getEmail().toUpperCase()).getId());
+        Assertions.assertThrows(NotFoundException.class, () -> userService.getUserByLogin("unknown"));
+        Assertions.assertThrows(NotFoundException.class, () -> userService.getUserByEmail("unknown@email.com"));
+
+        // Обновление на занятый логин не меняет пользователя, на свободный - освобождает прежний
+        String firstLogin = first.getLogin();
+        User update = new User();
+        update.setId(first.getId());
+        update.setLogin(second.getLogin());
+        Assertions.assertThrows(ConflictException.class, () -> userService.updateUser(update));
+        Assertions.assertEquals(firstLogin, userService.getUser(first.getId()).getLogin());
+        update.setLogin("renamed");
+        userService.updateUser(update);
+        Assertions.assertEquals(first.getId(), userService.getUserByLogin("renamed").getId());
+        Assertions.assertThrows(NotFoundException.class, () -> userService.getUserByLogin(firstLogin));
+
+        // Удаление освобождает адрес и логин
+        userService.deleteUser(second.getId());
+        Assertions.assertThrows(NotFoundException.class, () -> userService.getUserByEmail(second.getEmail()));
+        User reused = makeValidUser(second.getLogin());
+        reused.setEmail(second.getEmail());
+        Assertions.assertDoesNotThrow(() -> userService.addUser(reused));
+    }
+
+    @Test
+    public void testIndexesPointToAssignedIdsUnderConcurrentAdds() throws Exception {
+
+        for (UserStorage storage : List.of(new InMemoryUserStorage(), new SnapshotUserStorage(),
+                new CompactUserStorage())) {
+            UserService service = new UserService(storage, event -> { });
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            List<Future<User>> added = new ArrayList<>();
+            try {
+                for (int i = 0; i < 1000; i++) {
+                    User user = makeValidUser("concurrent_" + i);
+                    user.setEmail("concurrent" + i + "@email.com");
+                    added.add(executor.submit(() -> service.addUser(user)));
+                }
+                // Адрес и логин указывают на пользователя, которому выдан id, а не на соседний
+                for (Future<User> future : added) {
+                    User user = future.get();
+                    Assertions.assertEquals(user.getId(), service.getUserByEmail(user.getEmail()).getId());
+                    Assertions.assertEquals(user.getId(), service.getUserByLogin(user.getLogin()).getId());
+                }
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
     @Test
     public void testUpdateUser() {
 
@@ -200,4 +278,23 @@ public class UserServiceTests {
         Assertions.assertEquals(1, commonFriends.size());
         Assertions.assertEquals(1, commonFriends.getFirst().getId());
     }
+
+    @Test
+    public void getFriendsWithMutualCountsTest() {
+        User user1 = registerUser();
+        User user2 = registerUser();
+        User user3 = registerUser();
+        User user4 = registerUser();
+        userService.addFriend(user1.getId(), user2.getId());
+        userService.addFriend(user1.getId(), user3.getId());
+        userService.addFriend(user1.getId(), user4.getId());
+        userService.addFriend(user2.getId(), user3.getId());
+
+        var friends = userService.getFriendsWithMutualCounts(user1.getId());
+        Assertions.assertEquals(3, friends.size());
+        for (var friend : friends) {
+            long expected = (friend.friend().getId() == user4.getId()) ? 0 : 1;
+            Assertions.assertEquals(expected, friend.mutualCount());
+        }
+    }
 }
@@ -0,0 +1,141 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.cache.CacheStats;
+import ru.yandex.practicum.filmorate.storage.cache.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.cache.CachingUserStorage;
+import ru.yandex.practicum.filmorate.storage.cache.WTinyLfuCache;
+import ru.yandex.practicum.filmorate.storage.film.CompactFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class CachingStorageTests {
+
+    @Test
+    public void testCacheKeepsFrequentKeys() {
+
+        WTinyLfuCache<Integer, Integer> cache = new WTinyLfuCache<>(100);
+        for (int round = 0; round < 10; round++) {
+            for (int key = 0; key < 50; key++) {
+                if (cache.get(key) == null) {
+                    cache.put(key, key);
+                }
+            }
+        }
+        // Однократный проход по редким ключам не вытесняет популярные
+        for (int key = 1000; key < 11000; key++) {
+            if (cache.get(key) == null) {
+                cache.put(key, key);
+            }
+        }
+        Assertions.assertTrue(cache.size() <= 100);
+        int retained = 0;
+        for (int key = 0; key < 50; key++) {
+            if (cache.get(key) != null) {
+                retained++;
+            }
+        }
+        Assertions.assertTrue(retained >= 45, "Сохранено популярных ключей: " + retained);
+        Assertions.assertTrue(cache.getEvictions() > 0);
+    }
+
+    @Test
+    public void testFillIsRejectedOnlyAfterInvalidationOfSameKey() {
+
+        WTinyLfuCache<Long, String> cache = new WTinyLfuCache<>(100);
+        long stamp = cache.stamp(1L);
+        cache.invalidate(2L);
+        Assertions.assertTrue(cache.putIfUnmodified(1L, "1", stamp), "Инвалидация другого ключа не мешает записи");
+
+        stamp = cache.stamp(1L);
+        cache.invalidate(1L);
+        Assertions.assertFalse(cache.putIfUnmodified(1L, "stale", stamp));
+        Assertions.assertNull(cache.get(1L));
+    }
+
+    @Test
+    public void testConcurrentReadsAndWrites() throws InterruptedException {
+
+        WTinyLfuCache<Integer, Integer> cache = new WTinyLfuCache<>(1000);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int seed = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    int key = (i * 31 + seed) % 5000;
+                    Integer value = cache.get(key);
+                    if (value == null) {
+                        cache.putIfUnmodified(key, key, cache.stamp(key));
+                    } else if (value != key) {
+                        failure.set(new AssertionError("Значение чужого ключа " + key));
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertNull(failure.get());
+        Assertions.assertTrue(cache.size() <= 1000);
+        Assertions.assertEquals(400_000, cache.getHits() + cache.getMisses());
+    }
+
+    @Test
+    public void testFilmCacheInvalidation() {
+
+        CachingFilmStorage storage = new CachingFilmStorage(new CompactFilmStorage(), 100);
+        Assertions.assertThrows(NotFoundException.class, () -> storage.getFilm(1));
+        Assertions.assertThrows(NotFoundException.class, () -> storage.getFilm(1));
+        Assertions.assertEquals(1, storage.getStats().negativeHits());
+
+        // Добавление фильма сбрасывает отрицательную запись
+        Film film = new Film();
+        film.setName("Film");
+        film.setDescription("Description");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        long id = storage.addFilm(film).getId();
+        Assertions.assertEquals("Film", storage.getFilm(id).getName());
+        Assertions.assertSame(storage.getFilm(id), storage.getFilm(id));
+
+        storage.like(id, 5);
+        Assertions.assertEquals(1, storage.getFilm(id).getRate());
+        Film update = new Film();
+        update.setId(id);
+        update.setName("Renamed");
+        storage.updateFilm(update);
+        Assertions.assertEquals("Renamed", storage.getFilm(id).getName());
+
+        CacheStats stats = storage.getStats();
+        Assertions.assertTrue(stats.hits() > 0);
+        Assertions.assertTrue(stats.misses() > 0);
+        Assertions.assertEquals(1, stats.size());
+    }
+
+    @Test
+    public void testUserCacheInvalidationOnFriendship() {
+
+        CachingUserStorage storage = new CachingUserStorage(new InMemoryUserStorage(), 100);
+        long[] ids = new long[2];
+        for (int i = 0; i < ids.length; i++) {
+            User user = new User();
+            user.setLogin("user" + i);
+            user.setEmail("user" + i + "@email.com");
+            user.setBirthday(LocalDate.of(2000, 1, 1));
+            ids[i] = storage.addUser(user).getId();
+        }
+        Assertions.assertTrue(storage.getUser(ids[0]).getFriends().isEmpty());
+        storage.addFriend(ids[0], ids[1]);
+        Assertions.assertTrue(storage.getUser(ids[0]).getFriends().contains(ids[1]));
+        storage.removeFriend(ids[0], ids[1]);
+        Assertions.assertFalse(storage.getUser(ids[0]).getFriends().contains(ids[1]));
+    }
+}
@@ -0,0 +1,140 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.CompactFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.CompactUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+import ru.yandex.practicum.filmorate.util.StringDeduplicator;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+public class CompactStorageTests {
+
+    @Test
+    public void testFilmRoundTrip() {
+
+        FilmStorage storage = new CompactFilmStorage();
+        Film film = new Film();
+        film.setName("Film");
+        film.setDescription("Description");
+        film.setReleaseDate(LocalDate.of(1895, 12, 28));
+        film.setDuration(100);
+        long id = storage.addFilm(film).getId();
+
+        storage.like(id, 7);
+        storage.like(id, 9);
+        storage.unlike(id, 7);
+        Film stored = storage.getFilm(id);
+        Assertions.assertEquals(film.getName(), stored.getName());
+        Assertions.assertEquals(film.getDescription(), stored.getDescription());
+        Assertions.assertEquals(film.getReleaseDate(), stored.getReleaseDate());
+        Assertions.assertEquals(100, stored.getDuration());
+        Assertions.assertEquals(Set.of(9L), stored.getLikes());
+        Assertions.assertEquals(1, stored.getRate());
+        Assertions.assertThrows(NotFoundException.class, () -> storage.getFilm(id + 1));
+
+        Film update = new Film();
+        update.setId(id);
+        update.setDuration(120);
+        Assertions.assertEquals(120, storage.updateFilm(update).getDuration());
+        Assertions.assertEquals("Film", storage.getFilm(id).getName());
+    }
+
+    @Test
+    public void testUserRoundTrip() {
+
+        UserStorage storage = new CompactUserStorage();
+        User user = new User();
+        user.setLogin("login");
+        user.setEmail("login@email.com");
+        user.setBirthday(LocalDate.of(2000, 2, 29));
+        long id1 = storage.addUser(user).getId();
+        User other = new User();
+        other.setLogin("other");
+        other.setEmail("other@email.com");
+        other.setBirthday(LocalDate.of(2001, 1, 1));
+        long id2 = storage.addUser(other).getId();
+
+        storage.addFriend(id1, id2);
+        User stored = storage.getUser(id1);
+        Assertions.assertEquals("login", stored.getName());
+        Assertions.assertEquals(user.getBirthday(), stored.getBirthday());
+        Assertions.assertEquals(Set.of(id2), stored.getFriends());
+        storage.removeFriend(id2, id1);
+        Assertions.assertTrue(storage.getUser(id1).getFriends().isEmpty());
+        Assertions.assertEquals(2, storage.getUsers().size());
+
+        storage.addFriend(id1, id2);
+        storage.deleteUser(id1);
+        Assertions.assertThrows(NotFoundException.class, () -> storage.getUser(id1));
+        Assertions.assertTrue(storage.getUser(id2).getFriends().isEmpty());
+        Assertions.assertEquals(1, storage.getUsers().size());
+    }
+
+    @Test
+    public void testLongHashSetMatchesHashSet() {
+
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextLong(0, 2000);
+            if (random.nextBoolean()) {
+                Assertions.assertEquals(expected.add(value), set.add(value));
+            } else {
+                Assertions.assertEquals(expected.remove(value), set.remove(value));
+            }
+        }
+        Assertions.assertEquals(expected.size(), set.size());
+        for (long value = 0; value < 2000; value++) {
+            Assertions.assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+
+    @Test
+    public void testLikesWithoutMaterializing() {
+
+        FilmStorage storage = new CompactFilmStorage();
+        Film film = new Film();
+        film.setName("Film");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        long id = storage.addFilm(film).getId();
+
+        Assertions.assertTrue(storage.like(id, 7));
+        Assertions.assertFalse(storage.like(id, 7));
+        Assertions.assertTrue(storage.like(id, 9));
+        Assertions.assertTrue(storage.hasLike(id, 9));
+        Assertions.assertFalse(storage.hasLike(id, 8));
+        Assertions.assertEquals(2, storage.getRate(id));
+        Assertions.assertThrows(NotFoundException.class, () -> storage.getRate(id + 1));
+
+        // Построенный фильм не видит последующих изменений: множество копируется перед изменением
+        Film published = storage.getFilm(id);
+        Assertions.assertTrue(storage.unlike(id, 7));
+        Assertions.assertFalse(storage.unlike(id, 7));
+        Assertions.assertTrue(storage.like(id, 11));
+        Assertions.assertEquals(Set.of(7L, 9L), published.getLikes());
+        Assertions.assertEquals(Set.of(9L, 11L), storage.getFilm(id).getLikes());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> published.getLikes().add(1L));
+    }
+
+    @Test
+    public void testStringDeduplicator() {
+
+        StringDeduplicator strings = new StringDeduplicator(16);
+        String first = new String("Иван");
+        Assertions.assertSame(first, strings.dedupe(first));
+        Assertions.assertSame(first, strings.dedupe(new String("Иван")));
+        Assertions.assertNull(strings.dedupe(null));
+    }
+}
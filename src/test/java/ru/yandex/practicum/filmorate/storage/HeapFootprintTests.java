@@ -0,0 +1,159 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.event.StorageEvent;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.replication.MutationOrder;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.footprint.FootprintReport;
+import ru.yandex.practicum.filmorate.storage.footprint.HeapFootprint;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class HeapFootprintTests {
+
+    private FilmService filmService;
+    private UserService userService;
+    private HeapFootprint heapFootprint;
+
+
+    @BeforeEach
+    public void setUp() {
+
+        FilmStorage filmStorage = new InMemoryFilmStorage();
+        UserStorage userStorage = new InMemoryUserStorage();
+        heapFootprint = new HeapFootprint(filmStorage, userStorage, "in-memory");
+        filmService = new FilmService(filmStorage, userStorage,
+                event -> heapFootprint.onStorageEvent((StorageEvent) event));
+        userService = new UserService(userStorage, filmService,
+                event -> heapFootprint.onStorageEvent((StorageEvent) event), MutationOrder.unordered());
+    }
+
+    private long addUser(int i) {
+
+        User user = new User();
+        user.setLogin("user" + i);
+        user.setEmail("user" + i + "@email.com");
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        return userService.addUser(user).getId();
+    }
+
+    private long addFilm(int i) {
+
+        Film film = new Film();
+        film.setName("Фильм " + i);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        return filmService.addFilm(film).getId();
+    }
+
+    private static FootprintReport.Component component(FootprintReport report, String name) {
+        return report.components().stream().filter(c -> c.name().equals(name)).findFirst().orElseThrow();
+    }
+
+    @Test
+    public void testIncrementalAccounting() {
+
+        long[] users = new long[4];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = addUser(i);
+        }
+        long film1 = addFilm(1);
+        long film2 = addFilm(2);
+        for (long user : users) {
+            filmService.likeFilm(film1, user);
+        }
+        filmService.likeFilm(film2, users[0]);
+        // Повторный лайк не добавляет связь
+        filmService.likeFilm(film2, users[0]);
+        userService.addFriend(users[0], users[1]);
+        userService.addFriend(users[0], users[2]);
+
+        FootprintReport report = heapFootprint.getReport(1);
+        Assertions.assertEquals(2, component(report, "films").entries());
+        Assertions.assertEquals(4, component(report, "users").entries());
+        Assertions.assertEquals(5, report.likes().total());
+        Assertions.assertEquals(4, report.likes().max());
+        Assertions.assertEquals(2.5, report.likes().average());
+        Assertions.assertEquals(4, report.friends().total(), "Дружба учитывается у обоих пользователей");
+        Assertions.assertEquals(2, report.friends().max());
+        Assertions.assertEquals(2, report.userLikes().max());
+        Assertions.assertEquals(List.of(film1), report.heaviestFilms().stream().map(FootprintReport.Entity::id).toList());
+        Assertions.assertEquals(users[0], report.heaviestUsers().get(0).id());
+        Assertions.assertTrue(report.totalBytes() > 0);
+
+        // Удаление пользователя с лайками и друзьями
+        userService.deleteUser(users[0]);
+        report = heapFootprint.getReport(10);
+        Assertions.assertEquals(3, component(report, "users").entries());
+        Assertions.assertEquals(3, report.likes().total());
+        Assertions.assertEquals(0, report.friends().total());
+        Assertions.assertTrue(report.heaviestUsers().isEmpty());
+        Assertions.assertEquals(1, report.heaviestFilms().size());
+    }
+
+    @Test
+    public void testInitialStateFromStorages() {
+
+        // Учет строится по уже заполненным хранилищам
+        FilmStorage filmStorage = new InMemoryFilmStorage();
+        UserStorage userStorage = new InMemoryUserStorage();
+        filmService = new FilmService(filmStorage, userStorage, event -> { });
+        userService = new UserService(userStorage, event -> { });
+        addUser(1);
+        filmService.likeFilm(addFilm(1), 1);
+        FootprintReport report = new HeapFootprint(filmStorage, userStorage, "in-memory").getReport(5);
+        Assertions.assertEquals(1, report.likes().total());
+        Assertions.assertEquals(1, report.userLikes().total());
+        Assertions.assertEquals(1, report.heaviestFilms().size());
+    }
+
+    @Test
+    public void testRepeatedAndConcurrentRelations() throws InterruptedException {
+
+        long[] users = new long[8];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = addUser(i);
+        }
+        long film = addFilm(1);
+
+        // Каждый поток лайкает фильм от всех пользователей и повторяет лайки; учет без перечитывания
+        // хранилища не должен считать повторы
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int round = 0; round < 100; round++) {
+                    for (long user : users) {
+                        filmService.likeFilm(film, user);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        userService.addFriend(users[0], users[1]);
+        userService.addFriend(users[1], users[0]);
+        userService.removeFriend(users[0], users[2]);
+        filmService.unlikeFilm(film, users[0]);
+        filmService.unlikeFilm(film, users[0]);
+
+        FootprintReport report = heapFootprint.getReport(1);
+        Assertions.assertEquals(7, report.likes().total());
+        Assertions.assertEquals(7, report.userLikes().total());
+        Assertions.assertEquals(7, component(report, "user-likes-index").entries());
+        Assertions.assertEquals(2, report.friends().total());
+    }
+}
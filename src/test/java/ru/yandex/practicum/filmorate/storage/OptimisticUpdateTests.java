@@ -0,0 +1,275 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.PreconditionFailedException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.CompactFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.SnapshotFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.TieredFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.CompactUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.SnapshotUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class OptimisticUpdateTests {
+
+    private static final int THREADS = 8;
+    private static final int UPDATES_PER_THREAD = 500;
+
+    // region Helpers
+
+    private static Film makeFilm() {
+
+        Film film = new Film();
+        film.setName("Film");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(0);
+        return film;
+    }
+
+    private static User makeUser(int number) {
+
+        User user = new User();
+        user.setLogin("user" + number);
+        user.setEmail("user" + number + "@email.com");
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        return user;
+    }
+
+    private static Film durationUpdate(long id, int duration) {
+
+        Film film = new Film();
+        film.setId(id);
+        film.setDuration(duration);
+        return film;
+    }
+
+    private static void runConcurrently(Runnable task) throws InterruptedException {
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    task.run();
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertNull(failure.get());
+    }
+
+    private static void checkFilmVersions(FilmStorage storage) {
+
+        long id = storage.addFilm(makeFilm()).getId();
+        Assertions.assertEquals(1, storage.getFilm(id).getVersion());
+
+        Film updated = storage.updateFilm(durationUpdate(id, 100), 1L);
+        Assertions.assertEquals(2, updated.getVersion());
+        Assertions.assertEquals(100, updated.getDuration());
+
+        // Повтор с устаревшей версией не применяется
+        Assertions.assertThrows(PreconditionFailedException.class,
+                () -> storage.updateFilm(durationUpdate(id, 50), 1L));
+        Assertions.assertEquals(100, storage.getFilm(id).getDuration());
+
+        // Лайки версию не меняют
+        storage.like(id, 7);
+        Assertions.assertEquals(2, storage.getFilm(id).getVersion());
+
+        Film unconditional = storage.updateFilm(durationUpdate(id, 120));
+        Assertions.assertEquals(3, unconditional.getVersion());
+        Assertions.assertEquals(1, storage.getFilm(id).getLikes().size());
+    }
+
+    private static void checkUserVersions(UserStorage storage) {
+
+        long id = storage.addUser(makeUser(1)).getId();
+        long friendId = storage.addUser(makeUser(2)).getId();
+        Assertions.assertEquals(1, storage.getUser(id).getVersion());
+
+        User change = new User();
+        change.setId(id);
+        change.setName("Новое имя");
+        Assertions.assertEquals(2, storage.updateUser(change, 1L).getVersion());
+        Assertions.assertThrows(PreconditionFailedException.class, () -> storage.updateUser(change, 1L));
+
+        storage.addFriend(id, friendId);
+        Assertions.assertEquals(2, storage.getUser(id).getVersion());
+        Assertions.assertEquals(3, storage.updateUser(change).getVersion());
+        Assertions.assertTrue(storage.getUser(id).getFriends().contains(friendId));
+    }
+
+    // endregion
+
+
+    @Test
+    public void testVersionsInEveryStorage() throws Exception {
+
+        checkFilmVersions(new InMemoryFilmStorage());
+        checkFilmVersions(new SnapshotFilmStorage());
+        checkFilmVersions(new CompactFilmStorage());
+        try (TieredFilmStorage storage = new TieredFilmStorage(0, Files.createTempFile("filmorate-test-", ".cold"))) {
+            // Нулевой бюджет кучи: фильм между обращениями лежит в файле, версия хранится и там
+            checkFilmVersions(storage);
+        }
+
+        checkUserVersions(new InMemoryUserStorage());
+        checkUserVersions(new SnapshotUserStorage());
+        checkUserVersions(new CompactUserStorage());
+    }
+
+    @Test
+    public void testConditionalUpdatesAreNotLost() throws InterruptedException {
+
+        FilmStorage storage = new InMemoryFilmStorage();
+        long id = storage.addFilm(makeFilm()).getId();
+
+        // Каждый поток увеличивает продолжительность чтением и условной записью, повторяя при 412
+        runConcurrently(() -> {
+            for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                while (true) {
+                    Film current = storage.getFilm(id);
+                    try {
+                        storage.updateFilm(durationUpdate(id, current.getDuration() + 1), current.getVersion());
+                        break;
+                    } catch (PreconditionFailedException e) {
+                        // Версию изменил другой поток - читаем заново
+                    }
+                }
+            }
+        });
+
+        Film film = storage.getFilm(id);
+        Assertions.assertEquals(THREADS * UPDATES_PER_THREAD, film.getDuration());
+        Assertions.assertEquals(1 + THREADS * UPDATES_PER_THREAD, film.getVersion());
+    }
+
+    @Test
+    public void testLikesSurviveConcurrentUpdates() throws InterruptedException {
+
+        FilmStorage storage = new InMemoryFilmStorage();
+        long id = storage.addFilm(makeFilm()).getId();
+        AtomicInteger nextUser = new AtomicInteger();
+
+        // Половина потоков меняет фильм без проверки версии, половина ставит лайки
+        runConcurrently(() -> {
+            int thread = nextUser.getAndIncrement();
+            for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                if (thread % 2 == 0) {
+                    storage.updateFilm(durationUpdate(id, i));
+                } else {
+                    storage.like(id, (long) thread * UPDATES_PER_THREAD + i);
+                }
+            }
+        });
+
+        Film film = storage.getFilm(id);
+        Assertions.assertEquals(THREADS / 2 * UPDATES_PER_THREAD, film.getLikes().size());
+        Assertions.assertEquals(film.getLikes().size(), film.getRate());
+        Assertions.assertEquals(1 + THREADS / 2 * UPDATES_PER_THREAD, film.getVersion());
+    }
+
+    @Test
+    public void testLikesReadableDuringConcurrentLikes() throws Exception {
+
+        try (TieredFilmStorage tiered = new TieredFilmStorage(1 << 20,
+                Files.createTempFile("filmorate-test-", ".cold"))) {
+            for (FilmStorage storage : List.of(new InMemoryFilmStorage(), tiered)) {
+                long id = storage.addFilm(makeFilm()).getId();
+                AtomicInteger nextUser = new AtomicInteger();
+
+                // Половина потоков ставит лайки, половина обходит лайки фильма без блокировки
+                runConcurrently(() -> {
+                    int thread = nextUser.getAndIncrement();
+                    for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                        if (thread % 2 == 0) {
+                            storage.like(id, (long) thread * UPDATES_PER_THREAD + i);
+                        } else {
+                            long sum = 0;
+                            for (Long like : storage.getFilm(id).getLikes()) {
+                                sum += like;
+                            }
+                            Assertions.assertTrue(sum >= 0);
+                        }
+                    }
+                });
+                Assertions.assertEquals(THREADS / 2 * UPDATES_PER_THREAD, storage.getFilm(id).getLikes().size());
+            }
+        }
+    }
+
+    @Test
+    public void testTieredUpdateDoesNotChangePublishedFilm() throws Exception {
+
+        try (TieredFilmStorage storage = new TieredFilmStorage(1 << 20,
+                Files.createTempFile("filmorate-test-", ".cold"))) {
+            long id = storage.addFilm(makeFilm()).getId();
+            Film published = storage.getFilm(id);
+
+            storage.updateFilm(durationUpdate(id, 100), 1L);
+            storage.like(id, 7);
+
+            // Прочитанная раньше версия не меняется, лайки общие с новой версией
+            Assertions.assertEquals(0, published.getDuration());
+            Assertions.assertEquals(1, published.getVersion());
+            Film current = storage.getFilm(id);
+            Assertions.assertEquals(100, current.getDuration());
+            Assertions.assertEquals(2, current.getVersion());
+            Assertions.assertEquals(1, current.getRate());
+        }
+    }
+
+    @Test
+    public void testFriendshipRacingWithDeleteLeavesNoDanglingIds() throws InterruptedException {
+
+        UserStorage storage = new InMemoryUserStorage();
+        int pairs = 500;
+        List<Long> kept = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        for (int i = 0; i < pairs; i++) {
+            kept.add(storage.addUser(makeUser(2 * i)).getId());
+            deleted.add(storage.addUser(makeUser(2 * i + 1)).getId());
+        }
+        AtomicInteger nextThread = new AtomicInteger();
+
+        // Половина потоков добавляет дружбу, половина удаляет второго пользователя каждой пары
+        runConcurrently(() -> {
+            boolean adding = nextThread.getAndIncrement() % 2 == 0;
+            for (int i = 0; i < pairs; i++) {
+                try {
+                    if (adding) {
+                        storage.addFriend(kept.get(i), deleted.get(i));
+                    } else {
+                        storage.deleteUser(deleted.get(i));
+                    }
+                } catch (NotFoundException e) {
+                    // Пользователь уже удален
+                }
+            }
+        });
+
+        for (long id : kept) {
+            Assertions.assertTrue(storage.getUser(id).getFriends().isEmpty(),
+                    "У пользователя " + id + " остался удаленный друг");
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exceptions.ConflictException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.SnapshotFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.SnapshotUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+public class SnapshotStorageTests {
+
+    private FilmService filmService;
+    private UserService userService;
+
+
+    @BeforeEach
+    public void setUp() {
+
+        UserStorage userStorage = new SnapshotUserStorage();
+        filmService = new FilmService(new SnapshotFilmStorage(), userStorage, event -> { });
+        userService = new UserService(userStorage, event -> { });
+    }
+
+    // region Helpers
+
+    private User registerUser() {
+
+        int totalUsers = userService.getUsers().size();
+        User user = new User();
+        user.setLogin("user_" + totalUsers);
+        user.setEmail("user" + totalUsers + "@email.com");
+        user.setBirthday(LocalDate.now().minusYears(18));
+        return userService.addUser(user);
+    }
+
+    private Film registerFilm() {
+
+        Film film = new Film();
+        film.setName("Film");
+        film.setReleaseDate(LocalDate.now().minusYears(5));
+        film.setDuration(120);
+        return filmService.addFilm(film);
+    }
+
+    // endregion
+
+
+    @Test
+    public void testListingIsPointInTime() {
+
+        User user = registerUser();
+        Film film = registerFilm();
+        Collection<Film> before = filmService.getFilms();
+
+        filmService.likeFilm(film.getId(), user.getId());
+        registerFilm();
+
+        // Ранее полученный срез и версия фильма не меняются
+        Assertions.assertEquals(1, before.size());
+        Assertions.assertEquals(0, before.iterator().next().getRate());
+        Assertions.assertTrue(film.getLikes().isEmpty());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> before.add(film));
+
+        Collection<Film> after = filmService.getFilms();
+        Assertions.assertEquals(2, after.size());
+        Assertions.assertEquals(1, filmService.getFilm(film.getId()).getRate());
+    }
+
+    @Test
+    public void testFriendshipIsCommittedAtomically() {
+
+        User user1 = registerUser();
+        User user2 = registerUser();
+        userService.addFriend(user1.getId(), user2.getId());
+        Assertions.assertTrue(userService.getUser(user1.getId()).getFriends().contains(user2.getId()));
+        Assertions.assertTrue(userService.getUser(user2.getId()).getFriends().contains(user1.getId()));
+        Assertions.assertTrue(user1.getFriends().isEmpty());
+
+        userService.removeFriend(user1.getId(), user2.getId());
+        Assertions.assertTrue(userService.getUsers().stream().allMatch(user -> user.getFriends().isEmpty()));
+    }
+
+    @Test
+    public void testConcurrentReadersSeeConsistentVersions() throws InterruptedException {
+
+        User user = registerUser();
+        for (int i = 0; i < 100; i++) {
+            registerFilm();
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                while (running.get()) {
+                    for (Film film : filmService.getFilms()) {
+                        if (film.getRate() != film.getLikes().size()) {
+                            throw new AssertionError("Несогласованная версия фильма " + film.getId());
+                        }
+                    }
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        reader.start();
+        for (int round = 0; round < 20; round++) {
+            for (long id = 1; id <= 100; id++) {
+                filmService.likeFilm(id, user.getId());
+                filmService.unlikeFilm(id, user.getId());
+            }
+        }
+        running.set(false);
+        reader.join();
+        Assertions.assertNull(failure.get());
+    }
+
+    @Test
+    public void testConcurrentRegistrationWithSameLogin() throws InterruptedException {
+
+        AtomicInteger conflicts = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            final int n = i;
+            threads[i] = new Thread(() -> {
+                User user = new User();
+                user.setLogin("same_login");
+                user.setEmail("user" + n + "@email.com");
+                user.setBirthday(LocalDate.now().minusYears(18));
+                try {
+                    userService.addUser(user);
+                } catch (ConflictException e) {
+                    conflicts.incrementAndGet();
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertEquals(threads.length - 1, conflicts.get());
+        Assertions.assertEquals(1, userService.getUsers().size());
+        Assertions.assertNotNull(userService.getUserByLogin("same_login"));
+    }
+
+    @Test
+    public void testStoredVersionsAreImmutable() {
+
+        User user = registerUser();
+        Film film = registerFilm();
+        filmService.likeFilm(film.getId(), user.getId());
+
+        Film stored = filmService.getFilm(film.getId());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> stored.setName("Другое название"));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> stored.getLikes().add(100L));
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> userService.getUser(user.getId()).getFriends().clear());
+        Assertions.assertEquals("Film", filmService.getFilm(film.getId()).getName());
+        Assertions.assertEquals(Set.of(user.getId()), filmService.getFilm(film.getId()).getLikes());
+    }
+
+    @Test
+    public void testDeleteUserIsCommittedAtomically() throws InterruptedException {
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            users.add(registerUser());
+        }
+        for (int i = 1; i < users.size(); i++) {
+            userService.addFriend(users.get(0).getId(), users.get(i).getId());
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                while (running.get()) {
+                    Collection<User> snapshot = userService.getUsers();
+                    Set<Long> ids = snapshot.stream().map(User::getId).collect(Collectors.toSet());
+                    for (User user : snapshot) {
+                        if (!ids.containsAll(user.getFriends())) {
+                            throw new AssertionError("Срез видит дружбу с удаленным пользователем " + user.getId());
+                        }
+                    }
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        reader.start();
+        userService.deleteUser(users.get(0).getId());
+        running.set(false);
+        reader.join();
+        Assertions.assertNull(failure.get());
+        Assertions.assertTrue(userService.getUsers().stream().allMatch(user -> user.getFriends().isEmpty()));
+    }
+
+    @Test
+    public void testDeletedRecordsAreReclaimed() {
+
+        VersionedStore<String> store = new VersionedStore<>();
+        store.put(1, "a");
+        store.put(2, "b");
+        store.update(1, current -> null);
+        Assertions.assertNull(store.get(1));
+        Assertions.assertEquals(List.of("b"), store.snapshot());
+        Assertions.assertEquals(1, store.recordCount(), "Удаленную запись не видит ни один срез");
+    }
+}
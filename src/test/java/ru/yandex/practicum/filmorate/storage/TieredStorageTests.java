@@ -0,0 +1,120 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmTierStats;
+import ru.yandex.practicum.filmorate.storage.film.TieredFilmStorage;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+public class TieredStorageTests {
+
+    private static Film makeFilm(int number) {
+
+        Film film = new Film();
+        film.setName("Film " + number);
+        film.setDescription("Фильм номер " + number);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(number));
+        film.setDuration(90 + number);
+        return film;
+    }
+
+    @Test
+    public void testDemoteAndPromote() throws Exception {
+
+        Path file = Files.createTempFile("filmorate-test-", ".cold");
+        try (TieredFilmStorage storage = new TieredFilmStorage(2_000, file)) {
+            for (int i = 1; i <= 50; i++) {
+                storage.addFilm(makeFilm(i));
+            }
+            storage.like(1, 10);
+            storage.like(1, 20);
+            FilmTierStats stats = storage.getStats();
+            Assertions.assertEquals(50, stats.hotFilms() + stats.coldFilms());
+            Assertions.assertTrue(stats.coldFilms() > 0);
+            Assertions.assertTrue(stats.hotBytes() <= stats.heapBudget());
+            Assertions.assertEquals(50, storage.getFilms().size());
+
+            // Фильм 2 давно не использовался и лежит в файле; обращение поднимает его в кучу
+            long coldHits = stats.coldHits();
+            Film film = storage.getFilm(2);
+            Assertions.assertEquals("Film 2", film.getName());
+            Assertions.assertEquals("Фильм номер 2", film.getDescription());
+            Assertions.assertEquals(LocalDate.of(2000, 1, 3), film.getReleaseDate());
+            Assertions.assertEquals(92, film.getDuration());
+            Assertions.assertEquals(coldHits + 1, storage.getStats().coldHits());
+
+            // Лайки вытесняются вместе с фильмом
+            for (int i = 3; i <= 50; i++) {
+                storage.getFilm(i);
+            }
+            storage.unlike(1, 10);
+            Film liked = storage.getFilm(1);
+            Assertions.assertEquals(1, liked.getRate());
+            Assertions.assertTrue(liked.getLikes().contains(20L));
+            Assertions.assertTrue(storage.getStats().demotions() > 0);
+            Assertions.assertThrows(NotFoundException.class, () -> storage.getFilm(51));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testColdTierCompaction() throws Exception {
+
+        Path file = Files.createTempFile("filmorate-test-", ".cold");
+        try (TieredFilmStorage storage = new TieredFilmStorage(50_000, file)) {
+            for (int i = 1; i <= 200; i++) {
+                storage.addFilm(makeFilm(i));
+                for (int user = 1; user <= 500; user++) {
+                    storage.like(i, user * 1000L + i);
+                }
+            }
+            // Перебор по кругу вытесняет и поднимает каждый фильм, оставляя в файле мусор
+            for (int round = 0; round < 3; round++) {
+                for (int i = 1; i <= 200; i++) {
+                    Film film = storage.getFilm(i);
+                    Assertions.assertEquals(500, film.getLikes().size());
+                    Assertions.assertTrue(film.getLikes().contains(1000L + i));
+                }
+            }
+            FilmTierStats stats = storage.getStats();
+            Assertions.assertEquals(200, stats.hotFilms() + stats.coldFilms());
+            Assertions.assertTrue(stats.coldFileBytes() < 2_000_000);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testGetFilmsReadsColdFilmsLazily() throws Exception {
+
+        Path file = Files.createTempFile("filmorate-test-", ".cold");
+        try (TieredFilmStorage storage = new TieredFilmStorage(2_000, file)) {
+            for (int i = 1; i <= 50; i++) {
+                storage.addFilm(makeFilm(i));
+            }
+            Collection<Film> films = storage.getFilms();
+
+            // Фильмы, поднятые из файла после вызова, обходятся по одному разу
+            for (int i = 1; i <= 50; i += 3) {
+                storage.like(i, 7);
+            }
+            Set<Long> ids = new HashSet<>();
+            for (Film film : films) {
+                Assertions.assertTrue(ids.add(film.getId()));
+            }
+            Assertions.assertEquals(50, ids.size());
+            Assertions.assertEquals(50, films.size());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
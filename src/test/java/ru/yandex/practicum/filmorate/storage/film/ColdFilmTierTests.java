@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+public class ColdFilmTierTests {
+
+    private static Film makeFilm(long id, int likes) {
+
+        Film film = new ConcurrentFilm();
+        film.setId(id);
+        film.setVersion(1L);
+        film.setName("Film " + id);
+        film.setDescription("Фильм номер " + id);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(id));
+        film.setDuration(90);
+        for (long user = 1; user <= likes; user++) {
+            film.getLikes().add(user);
+        }
+        return film;
+    }
+
+    @Test
+    public void testRecordsAcrossSegments() throws Exception {
+
+        Path file = Files.createTempFile("filmorate-test-", ".cold");
+        // Сегменты по 256 байт: в каждом помещается одна-две записи, остаток пропускается
+        try (ColdFilmTier tier = new ColdFilmTier(file, 256)) {
+            for (long id = 1; id <= 200; id++) {
+                tier.put(makeFilm(id, (int) (id % 15)));
+            }
+            Assertions.assertEquals(200, tier.size());
+            Assertions.assertTrue(tier.fileBytes() > 200 * 100);
+            for (long id = 1; id <= 200; id++) {
+                Film film = tier.get(id);
+                Assertions.assertEquals("Фильм номер " + id, film.getDescription());
+                Assertions.assertEquals((int) (id % 15), film.getRate());
+            }
+
+            // Извлеченных записей на уровне больше нет, остальные читаются по прежним смещениям
+            for (long id = 1; id <= 190; id++) {
+                Assertions.assertEquals(id, (long) tier.remove(id).getId());
+            }
+            Assertions.assertEquals(10, tier.size());
+            Assertions.assertNull(tier.get(1));
+            for (long id = 191; id <= 200; id++) {
+                Assertions.assertEquals("Film " + id, tier.get(id).getName());
+            }
+
+            Assertions.assertThrows(IllegalArgumentException.class, () -> tier.put(makeFilm(201, 100)));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
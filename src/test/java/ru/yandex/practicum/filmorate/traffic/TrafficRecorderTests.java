@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate.traffic;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class TrafficRecorderTests {
+
+    @Test
+    public void testRecordAndRead() throws Exception {
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        Path file = Files.createTempFile("filmorate-traffic-test-", ".jsonl");
+        try (TrafficRecorder recorder = new TrafficRecorder(file, 1.0, 2, 1024, objectMapper)) {
+            Assertions.assertTrue(recorder.sample(-1));
+            Assertions.assertFalse(recorder.sample(2048), "Слишком большое тело не записывается");
+            recorder.record(new TrafficRecord(20, "PUT", "/films/5/like/7", null, null, null, null, false, false, 200, 150));
+            recorder.record(new TrafficRecord(10, "POST", "/films", null, "application/json", "application/cbor",
+                    "{\"name\":\"Фильм\"}", false, false, 200, 300));
+            Assertions.assertFalse(recorder.sample(-1), "Достигнут предел числа записей");
+            recorder.record(new TrafficRecord(30, "GET", "/films/popular", "count=10", null, null, null, false, false,
+                    200, 90));
+            Assertions.assertEquals(2, recorder.getRecorded());
+        }
+
+        List<TrafficRecord> records = TrafficRecorder.read(file, objectMapper);
+        Assertions.assertEquals(2, records.size());
+        TrafficRecord post = records.get(0);
+        Assertions.assertEquals("POST", post.method(), "Запросы упорядочены по моменту поступления");
+        Assertions.assertEquals("application/cbor", post.accept());
+        Assertions.assertArrayEquals("{\"name\":\"Фильм\"}".getBytes(StandardCharsets.UTF_8), post.bodyBytes());
+        Assertions.assertTrue(post.replayable());
+        Assertions.assertEquals("PUT /films/{id}/like/{id}", records.get(1).endpoint());
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testZeroSampleRate() throws Exception {
+
+        Path file = Files.createTempFile("filmorate-traffic-test-", ".jsonl");
+        try (TrafficRecorder recorder = new TrafficRecorder(file, 0, 100, 1024, new ObjectMapper())) {
+            for (int i = 0; i < 1000; i++) {
+                Assertions.assertFalse(recorder.sample(-1));
+            }
+        }
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testBinaryBodyAndQuery() {
+
+        TrafficRecord record = new TrafficRecord(0, "GET", "/films/popular", "count=10&from=1990", null, null,
+                "AAEC", true, false, 200, 10);
+        Assertions.assertArrayEquals(new byte[] {0, 1, 2}, record.bodyBytes());
+        Assertions.assertEquals("/films/popular?count=10&from=1990", record.pathWithQuery());
+        Assertions.assertEquals("GET /films/popular", record.endpoint());
+        Assertions.assertTrue(record.readOnly());
+    }
+
+    @Test
+    public void testChunkedBodyOverLimitIsMarkedTruncated() throws Exception {
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        Path file = Files.createTempFile("filmorate-traffic-test-", ".jsonl");
+        try (TrafficRecorder recorder = new TrafficRecorder(file, 1.0, 10, 8, objectMapper)) {
+            // Тело частями: длина заранее неизвестна, поэтому отбор его не отсекает
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/films") {
+                @Override
+                public long getContentLengthLong() {
+                    return -1;
+                }
+            };
+            request.setContentType("application/json");
+            request.setContent("{\"name\":\"Фильм\"}".getBytes(StandardCharsets.UTF_8));
+            FilterChain chain = (req, res) -> req.getInputStream().readAllBytes();
+            new TrafficCaptureFilter(recorder).doFilter(request, new MockHttpServletResponse(), chain);
+        }
+
+        List<TrafficRecord> records = TrafficRecorder.read(file, objectMapper);
+        Assertions.assertEquals(1, records.size());
+        Assertions.assertTrue(records.get(0).truncated());
+        Assertions.assertFalse(records.get(0).replayable(), "Обрезанный запрос не воспроизводится");
+        Files.deleteIfExists(file);
+    }
+}
@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class PersistentLongSetTests {
+
+    @Test
+    public void testMatchesHashSet() {
+
+        Random random = new Random(42);
+        Set<Long> expected = new HashSet<>();
+        PersistentLongSet set = PersistentLongSet.empty();
+        for (int i = 0; i < 20_000; i++) {
+            // Узкий диапазон, чтобы удаления часто попадали в существующие значения
+            long value = random.nextInt(5_000) - 2_500;
+            if (random.nextInt(3) == 0) {
+                expected.remove(value);
+                set = set.minus(value);
+            } else {
+                expected.add(value);
+                set = set.plus(value);
+            }
+            Assertions.assertEquals(expected.size(), set.size());
+        }
+        Assertions.assertEquals(expected, set);
+        Assertions.assertEquals(expected, new HashSet<>(set));
+        for (long value = -2_600; value < 2_600; value++) {
+            Assertions.assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+
+    @Test
+    public void testVersionsShareStructureAndStayUnchanged() {
+
+        PersistentLongSet before = PersistentLongSet.empty().plus(1).plus(2).plus(Long.MIN_VALUE);
+        PersistentLongSet after = before.plus(3).minus(1);
+
+        Assertions.assertEquals(Set.of(1L, 2L, Long.MIN_VALUE), before);
+        Assertions.assertEquals(Set.of(2L, 3L, Long.MIN_VALUE), after);
+        Assertions.assertSame(after, after.plus(2), "Добавление имеющегося значения не создает новое множество");
+        Assertions.assertSame(after, after.minus(1), "Удаление отсутствующего значения не создает новое множество");
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> after.add(4L));
+    }
+}